@@ -147,12 +147,41 @@ public class AgentConstants {
     public static final String TASK_PULL_MAX_SECOND = "task.pull.maxSecond";
     public static final int DEFAULT_TASK_PULL_MAX_SECOND = 2;
 
+    // tail files of all tasks with a shared worker pool
+    public static final String TASK_TAILER_ENABLE = "task.tailer.enable";
+    public static final boolean DEFAULT_TASK_TAILER_ENABLE = true;
+
+    public static final String TASK_TAILER_WORKER_NUM = "task.tailer.workerNum";
+    public static final int DEFAULT_TASK_TAILER_WORKER_NUM = 4;
+
+    // interval to check idle files, in case watch events are lost
+    public static final String TASK_TAILER_CHECK_INTERVAL = "task.tailer.check.interval";
+    public static final int DEFAULT_TASK_TAILER_CHECK_INTERVAL = 10;
+
+    // interval to flush changed task positions to db, time in ms
+    public static final String TASK_POSITION_FLUSH_INTERVAL = "task.position.flush.interval";
+    public static final long DEFAULT_TASK_POSITION_FLUSH_INTERVAL = 1000L;
+
+    // positions are rewritten periodically, so losing the latest ones on crash only causes a few duplicates
+    public static final String TASK_POSITION_DISABLE_WAL = "task.position.disableWal";
+    public static final boolean DEFAULT_TASK_POSITION_DISABLE_WAL = false;
+
     public static final String CHANNEL_MEMORY_CAPACITY = "channel.memory.capacity";
     public static final int DEFAULT_CHANNEL_MEMORY_CAPACITY = 1000;
+    // max bytes of message bodies in memory channel
+    public static final String CHANNEL_MEMORY_CAPACITY_BYTES = "channel.memory.capacity.bytes";
+    public static final long DEFAULT_CHANNEL_MEMORY_CAPACITY_BYTES = 64 * 1024 * 1024L;
 
     public static final String TRIGGER_CHECK_INTERVAL = "trigger.check.interval";
     public static final int DEFAULT_TRIGGER_CHECK_INTERVAL = 2;
 
+    public static final String TRIGGER_WALK_PARALLELISM = "trigger.walk.parallelism";
+    public static final int DEFAULT_TRIGGER_WALK_PARALLELISM = 4;
+
+    // max directories rescanned in one check after watch events overflow
+    public static final String TRIGGER_RESCAN_MAX_DIRS = "trigger.rescan.maxDirs";
+    public static final int DEFAULT_TRIGGER_RESCAN_MAX_DIRS = 64;
+
     public static final String WORKER_POOL_AWAIT_TIME = "worker.pool.await.time";
     public static final long DEFAULT_WORKER_POOL_AWAIT_TIME = 10;
 
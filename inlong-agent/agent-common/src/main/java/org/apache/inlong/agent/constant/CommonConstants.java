@@ -30,6 +30,9 @@ public class CommonConstants {
     public static final String PROXY_INLONG_GROUP_ID = "proxy.inlongGroupId";
     public static final String DEFAULT_PROXY_INLONG_GROUP_ID = "default_inlong_group_id";
     public static final String POSITION_SUFFIX = ".position";
+    // byte offset checkpoint of a file, replaces the line count stored with POSITION_SUFFIX
+    public static final String OFFSET_SUFFIX = ".offset";
+    public static final String FINGERPRINT_SUFFIX = ".fingerprint";
 
     public static final String PROXY_INLONG_STREAM_ID = "proxy.inlongStreamId";
     public static final String DEFAULT_PROXY_INLONG_STREAM_ID = "default_inlong_stream_id";
@@ -52,6 +55,15 @@ public class CommonConstants {
     public static final String PROXY_IS_COMPRESS = "proxy.is.compress";
     public static final boolean DEFAULT_PROXY_IS_COMPRESS = true;
 
+    // codec of the batch body, snappy or none, follows proxy.is.compress if not set
+    public static final String PROXY_BATCH_CODEC = "proxy.batch.codec";
+    public static final String PROXY_BATCH_CODEC_SNAPPY = "snappy";
+    public static final String PROXY_BATCH_CODEC_NONE = "none";
+
+    // encode the batch body once in agent, instead of every time it is sent
+    public static final String PROXY_BATCH_PRE_ENCODE = "proxy.batch.preEncode";
+    public static final boolean DEFAULT_PROXY_BATCH_PRE_ENCODE = true;
+
     public static final String PROXY_MAX_SENDER_PER_GROUP = "proxy.max.sender.per.group";
     public static final int DEFAULT_PROXY_MAX_SENDER_PER_GROUP = 10;
 
@@ -76,6 +88,14 @@ public class CommonConstants {
     public static final String PROXY_BATCH_FLUSH_INTERVAL = "proxy.batch.flush.interval";
     public static final int DEFAULT_PROXY_BATCH_FLUSH_INTERVAL = 2 * 1000;
 
+    // max batches of a stream which are sent but not acked
+    public static final String PROXY_INFLIGHT_WINDOW = "proxy.inflight.window";
+    public static final int DEFAULT_PROXY_INFLIGHT_WINDOW = 8;
+
+    // max time to wait for the cached and in-flight batches on destroy of the sink
+    public static final String PROXY_SINK_DESTROY_TIMEOUT_MS = "proxy.sink.destroy.timeout.ms";
+    public static final int DEFAULT_PROXY_SINK_DESTROY_TIMEOUT_MS = 30 * 1000;
+
     public static final String PROXY_SENDER_MAX_TIMEOUT = "proxy.sender.maxTimeout";
     // max timeout in seconds.
     public static final int DEFAULT_PROXY_SENDER_MAX_TIMEOUT = 20;
@@ -104,6 +124,8 @@ public class CommonConstants {
     public static final String PROXY_KEY_DATA = "dataKey";
     public static final String PROXY_KEY_ID = "id";
     public static final String PROXY_KEY_AGENT_IP = "agentip";
+    // sequence of a message whose offset is committed only after acked by proxy
+    public static final String PROXY_KEY_OFFSET_SEQ = "offsetSeq";
     public static final String PROXY_OCEANUS_F = "f";
     public static final String PROXY_OCEANUS_BL = "bl";
 
@@ -22,6 +22,7 @@ import org.apache.inlong.common.db.CommandEntity;
 import javax.management.openmbean.KeyAlreadyExistsException;
 import java.io.Closeable;
 import java.util.List;
+import java.util.Map;
 
 /**
  * local storage for key/value.
@@ -101,4 +102,27 @@ public interface Db extends Closeable {
      * @return list of k/v
      */
     List<KeyValueEntity> findAll(String prefix);
+
+    /**
+     * store positions in one batch, positions are kept apart from key/value entities.
+     *
+     * @param positions position key to position
+     * @param disableWal whether to skip the write ahead log, positions written may be lost on crash
+     */
+    void putPositions(Map<String, Long> positions, boolean disableWal);
+
+    /**
+     * find all positions by prefix key.
+     *
+     * @param prefix prefix string
+     * @return position key to position
+     */
+    Map<String, Long> findPositions(String prefix);
+
+    /**
+     * remove all positions by prefix key.
+     *
+     * @param prefix prefix string
+     */
+    void removePositions(String prefix);
 }
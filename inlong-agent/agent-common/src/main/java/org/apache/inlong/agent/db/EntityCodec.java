@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.db;
+
+import com.google.gson.Gson;
+import org.apache.inlong.common.db.CommandEntity;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of entities stored in rocks db, values written as json by older versions
+ * can still be decoded.
+ */
+final class EntityCodec {
+
+    // json values always start with '{', so the format byte tells binary values from them
+    private static final byte BINARY_FORMAT = 1;
+    private static final byte JSON_START = '{';
+    private static final int NULL_LENGTH = -1;
+    private static final Gson GSON = new Gson();
+
+    private EntityCodec() {
+    }
+
+    static byte[] encode(KeyValueEntity entity) {
+        byte[] key = toBytes(entity.getKey());
+        byte[] fileName = toBytes(entity.getFileName());
+        byte[] jsonValue = toBytes(entity.getJsonValue());
+        ByteBuffer buffer = ByteBuffer.allocate(2 + sizeOf(key) + sizeOf(fileName) + sizeOf(jsonValue));
+        buffer.put(BINARY_FORMAT);
+        StateSearchKey state = entity.getStateSearchKey();
+        buffer.put(state == null ? NULL_LENGTH : (byte) state.ordinal());
+        putBytes(buffer, key);
+        putBytes(buffer, fileName);
+        putBytes(buffer, jsonValue);
+        return buffer.array();
+    }
+
+    static KeyValueEntity decodeKeyValue(byte[] bytes) {
+        if (bytes[0] == JSON_START) {
+            return GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), KeyValueEntity.class);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        byte state = buffer.get();
+        String key = getString(buffer);
+        String fileName = getString(buffer);
+        String jsonValue = getString(buffer);
+        return new KeyValueEntity(key, jsonValue, fileName)
+                .setStateSearchKey(state == NULL_LENGTH ? null : StateSearchKey.values()[state]);
+    }
+
+    static byte[] encode(CommandEntity entity) {
+        byte[] id = toBytes(entity.getId());
+        byte[] deliveryTime = toBytes(entity.getDeliveryTime());
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 1 + 5 + 5 + sizeOf(id) + sizeOf(deliveryTime));
+        buffer.put(BINARY_FORMAT);
+        putBytes(buffer, id);
+        buffer.putInt(entity.getCommandResult());
+        buffer.put(entity.isAcked() ? (byte) 1 : 0);
+        putInteger(buffer, entity.getTaskId());
+        putInteger(buffer, entity.getVersion());
+        putBytes(buffer, deliveryTime);
+        return buffer.array();
+    }
+
+    static CommandEntity decodeCommand(byte[] bytes) {
+        if (bytes[0] == JSON_START) {
+            return GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), CommandEntity.class);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        String id = getString(buffer);
+        int commandResult = buffer.getInt();
+        boolean acked = buffer.get() == 1;
+        Integer taskId = getInteger(buffer);
+        Integer version = getInteger(buffer);
+        String deliveryTime = getString(buffer);
+        return new CommandEntity(id, commandResult, acked, taskId, version, deliveryTime);
+    }
+
+    static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void putInteger(ByteBuffer buffer, Integer value) {
+        buffer.put(value == null ? (byte) 0 : 1);
+        buffer.putInt(value == null ? 0 : value);
+    }
+
+    private static Integer getInteger(ByteBuffer buffer) {
+        boolean present = buffer.get() == 1;
+        int value = buffer.getInt();
+        return present ? value : null;
+    }
+}
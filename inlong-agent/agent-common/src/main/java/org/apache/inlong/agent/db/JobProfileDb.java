@@ -19,12 +19,15 @@
 package org.apache.inlong.agent.db;
 
 import org.apache.inlong.agent.conf.JobProfile;
+import org.apache.inlong.agent.constant.CommonConstants;
 import org.apache.inlong.agent.constant.JobConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Wrapper for job conf persistence.
@@ -32,6 +35,8 @@ import java.util.List;
 public class JobProfileDb {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JobProfileDb.class);
+    // job instance id never contains the separator, so one job is never a prefix of another
+    private static final char POSITION_SEPARATOR = 0;
     private final Db db;
 
     public JobProfileDb(Db db) {
@@ -44,6 +49,7 @@ public class JobProfileDb {
     public List<JobProfile> getRestartJobs() {
         List<JobProfile> jobsByState = getJobsByState(StateSearchKey.ACCEPTED);
         jobsByState.addAll(getJobsByState(StateSearchKey.RUNNING));
+        jobsByState.forEach(this::restorePositions);
         LOGGER.info("try to get restart jobs from db {}", jobsByState);
         return jobsByState;
     }
@@ -99,19 +105,65 @@ public class JobProfileDb {
      * check whether job is finished, note that non-exist job is regarded as finished.
      */
     public boolean checkJobfinished(JobProfile jobProfile) {
-        KeyValueEntity entity = db.get(jobProfile.getInstanceId());
+        return checkJobfinished(jobProfile.getInstanceId());
+    }
+
+    /**
+     * check whether job is finished by job instance id, note that non-exist job is regarded as finished.
+     */
+    public boolean checkJobfinished(String jobInstanceId) {
+        KeyValueEntity entity = db.get(jobInstanceId);
         if (entity == null) {
-            LOGGER.info("job profile {} doesn't exist", jobProfile.getInstanceId());
+            LOGGER.info("job profile {} doesn't exist", jobInstanceId);
             return true;
         }
         return entity.checkFinished();
     }
 
     /**
-     * delete job by keyName
+     * delete job by keyName, positions of the job are deleted as well
      */
     public void deleteJob(String keyName) {
         db.remove(keyName);
+        db.removePositions(positionPrefix(keyName));
+    }
+
+    /**
+     * store sink positions of jobs in one batch
+     *
+     * @param jobPositions job instance id to positions, where key is the reading source
+     * @param disableWal whether to skip the write ahead log
+     */
+    public void storePositions(Map<String, Map<String, Long>> jobPositions, boolean disableWal) {
+        Map<String, Long> positions = new HashMap<>();
+        jobPositions.forEach((jobInstanceId, sourcePositions) -> sourcePositions.forEach(
+                (source, position) -> positions.put(positionPrefix(jobInstanceId) + source, position)));
+        db.putPositions(positions, disableWal);
+    }
+
+    /**
+     * get sink positions of job
+     *
+     * @param jobInstanceId job instance id
+     * @return reading source to position
+     */
+    public Map<String, Long> getPositions(String jobInstanceId) {
+        String prefix = positionPrefix(jobInstanceId);
+        Map<String, Long> positions = new HashMap<>();
+        db.findPositions(prefix).forEach((key, position) -> positions.put(key.substring(prefix.length()), position));
+        return positions;
+    }
+
+    /**
+     * positions used to be stored as properties of job profile, set them back so that sources resume from them
+     */
+    private void restorePositions(JobProfile jobProfile) {
+        getPositions(jobProfile.getInstanceId()).forEach(
+                (source, position) -> jobProfile.setLong(source + CommonConstants.OFFSET_SUFFIX, position));
+    }
+
+    private static String positionPrefix(String jobInstanceId) {
+        return jobInstanceId + POSITION_SEPARATOR;
     }
 
     /**
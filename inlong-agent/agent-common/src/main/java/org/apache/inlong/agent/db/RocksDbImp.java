@@ -17,7 +17,6 @@
 
 package org.apache.inlong.agent.db;
 
-import com.google.gson.Gson;
 import org.apache.inlong.agent.conf.AgentConfiguration;
 import org.apache.inlong.agent.constant.AgentConstants;
 import org.apache.inlong.common.db.CommandEntity;
@@ -31,25 +30,39 @@ import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
 import org.rocksdb.Statistics;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
 /**
- * DB implement based on rocks db.
+ * DB implement based on rocks db. Values are stored in binary encoding, and the fields used for
+ * searching are indexed in separate column families, which are updated with values in one write batch.
+ * Task positions are small and frequently updated, so they are kept in their own column family.
  */
 public class RocksDbImp implements Db {
     private static final Logger LOGGER = LoggerFactory.getLogger(RocksDbImp.class);
-    private static final Gson GSON = new Gson();
+    private static final byte[] EMPTY_VALUE = new byte[0];
+    private static final byte[] INDEX_VERSION_KEY = "__index_version".getBytes(StandardCharsets.UTF_8);
+    private static final byte INDEX_VERSION = 1;
+    private static final byte INDEX_SEPARATOR = 0;
+    private static final int MIGRATE_BATCH_SIZE = 1000;
+    private static final int SEARCH_ONE_LIMIT = 16;
 
     private final AgentConfiguration conf;
     private final RocksDB db;
@@ -57,6 +70,14 @@ public class RocksDbImp implements Db {
     private ConcurrentHashMap<String, ColumnFamilyDescriptor> columnDescriptorMap;
     private final String commandFamilyName = "command";
     private final String defaultFamilyName = "default";
+    // state -> key
+    private final String stateIndexFamilyName = "index_state";
+    // file name -> key
+    private final String fileIndexFamilyName = "index_file";
+    // acked -> command id
+    private final String commandIndexFamilyName = "index_command_acked";
+    // job instance id and reading source -> position
+    private final String positionFamilyName = "position";
     private String storePath;
 
     public RocksDbImp() {
@@ -65,6 +86,11 @@ public class RocksDbImp implements Db {
         this.db = initEnv();
         // add a command column family
         addColumnFamily(commandFamilyName);
+        addColumnFamily(stateIndexFamilyName);
+        addColumnFamily(fileIndexFamilyName);
+        addColumnFamily(commandIndexFamilyName);
+        addColumnFamily(positionFamilyName);
+        migrateIfNeeded();
     }
 
     private RocksDB initEnv() {
@@ -145,14 +171,177 @@ public class RocksDbImp implements Db {
         });
     }
 
+    /**
+     * rebuild indexes and re-encode values written as json by older versions,
+     * the index version is written at the end so that an interrupted migration runs again.
+     */
+    private void migrateIfNeeded() {
+        ColumnFamilyHandle stateIndex = columnHandlesMap.get(stateIndexFamilyName);
+        try {
+            if (db.get(stateIndex, INDEX_VERSION_KEY) != null) {
+                return;
+            }
+            LOGGER.info("start to build indexes of rocks db in {}", storePath);
+            long count = 0;
+            WriteBatch batch = new WriteBatch();
+            try (final RocksIterator it = db.newIterator(columnHandlesMap.get(defaultFamilyName))) {
+                for (it.seekToFirst(); it.isValid(); it.next()) {
+                    KeyValueEntity entity = EntityCodec.decodeKeyValue(it.value());
+                    batch.put(columnHandlesMap.get(defaultFamilyName), it.key(), EntityCodec.encode(entity));
+                    putIndexes(batch, entity);
+                    count++;
+                    batch = flushIfFull(batch);
+                }
+            }
+            try (final RocksIterator it = db.newIterator(columnHandlesMap.get(commandFamilyName))) {
+                for (it.seekToFirst(); it.isValid(); it.next()) {
+                    CommandEntity entity = EntityCodec.decodeCommand(it.value());
+                    batch.put(columnHandlesMap.get(commandFamilyName), it.key(), EntityCodec.encode(entity));
+                    batch.put(columnHandlesMap.get(commandIndexFamilyName), commandIndexKey(entity), EMPTY_VALUE);
+                    count++;
+                    batch = flushIfFull(batch);
+                }
+            }
+            batch.put(stateIndex, INDEX_VERSION_KEY, new byte[]{INDEX_VERSION});
+            writeAndClose(batch);
+            LOGGER.info("finish building indexes of rocks db, {} entities migrated", count);
+        } catch (Exception ex) {
+            // db is vital.
+            LOGGER.error("migrate rocksdb error, please check", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private WriteBatch flushIfFull(WriteBatch batch) throws RocksDBException {
+        if (batch.count() < MIGRATE_BATCH_SIZE) {
+            return batch;
+        }
+        writeAndClose(batch);
+        return new WriteBatch();
+    }
+
+    private void writeAndClose(WriteBatch batch) throws RocksDBException {
+        try (WriteBatch toWrite = batch; WriteOptions writeOptions = new WriteOptions()) {
+            db.write(writeOptions, toWrite);
+        }
+    }
+
+    private void putIndexes(WriteBatch batch, KeyValueEntity entity) throws RocksDBException {
+        if (entity.getStateSearchKey() != null) {
+            batch.put(columnHandlesMap.get(stateIndexFamilyName), stateIndexKey(entity), EMPTY_VALUE);
+        }
+        if (entity.getFileName() != null) {
+            batch.put(columnHandlesMap.get(fileIndexFamilyName), fileIndexKey(entity), EMPTY_VALUE);
+        }
+    }
+
+    private void deleteIndexes(WriteBatch batch, KeyValueEntity entity) throws RocksDBException {
+        if (entity.getStateSearchKey() != null) {
+            batch.delete(columnHandlesMap.get(stateIndexFamilyName), stateIndexKey(entity));
+        }
+        if (entity.getFileName() != null) {
+            batch.delete(columnHandlesMap.get(fileIndexFamilyName), fileIndexKey(entity));
+        }
+    }
+
+    /**
+     * state ordinal followed by key
+     */
+    private static byte[] stateIndexKey(KeyValueEntity entity) {
+        return concat(stateIndexPrefix(entity.getStateSearchKey()), EntityCodec.toBytes(entity.getKey()));
+    }
+
+    private static byte[] stateIndexPrefix(StateSearchKey state) {
+        return new byte[]{(byte) state.ordinal()};
+    }
+
+    /**
+     * file name and a separator followed by key, file name never contains the separator
+     */
+    private static byte[] fileIndexKey(KeyValueEntity entity) {
+        return concat(fileIndexPrefix(entity.getFileName()), EntityCodec.toBytes(entity.getKey()));
+    }
+
+    private static byte[] fileIndexPrefix(String fileName) {
+        return concat(EntityCodec.toBytes(fileName), new byte[]{INDEX_SEPARATOR});
+    }
+
+    /**
+     * ack status followed by command id
+     */
+    private static byte[] commandIndexKey(CommandEntity entity) {
+        return concat(commandIndexPrefix(entity.isAcked()), EntityCodec.toBytes(entity.getId()));
+    }
+
+    private static byte[] commandIndexPrefix(boolean isAcked) {
+        return new byte[]{isAcked ? (byte) 1 : 0};
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] suffix) {
+        byte[] result = Arrays.copyOf(prefix, prefix.length + suffix.length);
+        System.arraycopy(suffix, 0, result, prefix.length, suffix.length);
+        return result;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * seek index family to prefix, and collect primary keys which follow the prefix
+     *
+     * @param limit max number of keys, 0 means no limit
+     */
+    private List<byte[]> seekIndex(String indexFamilyName, byte[] prefix, int limit) {
+        List<byte[]> keys = new ArrayList<>();
+        try (final RocksIterator it = db.newIterator(columnHandlesMap.get(indexFamilyName))) {
+            for (it.seek(prefix); it.isValid(); it.next()) {
+                byte[] indexKey = it.key();
+                if (!startsWith(indexKey, prefix)) {
+                    break;
+                }
+                keys.add(Arrays.copyOfRange(indexKey, prefix.length, indexKey.length));
+                if (limit > 0 && keys.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return keys;
+    }
+
+    private KeyValueEntity getByKeyBytes(byte[] key) throws RocksDBException {
+        byte[] bytes = db.get(columnHandlesMap.get(defaultFamilyName), key);
+        return bytes == null ? null : EntityCodec.decodeKeyValue(bytes);
+    }
+
+    private List<KeyValueEntity> searchByState(StateSearchKey searchKey, int limit) {
+        List<KeyValueEntity> results = new LinkedList<>();
+        try {
+            for (byte[] key : seekIndex(stateIndexFamilyName, stateIndexPrefix(searchKey), limit)) {
+                KeyValueEntity entity = getByKeyBytes(key);
+                if (entity != null && searchKey.equals(entity.getStateSearchKey())) {
+                    results.add(entity);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("search key value entity error", e);
+        }
+        return results;
+    }
+
     @Override
     public KeyValueEntity get(String key) {
         requireNonNull(key);
         try {
-            byte[] bytes =
-                db.get(columnHandlesMap.get(defaultFamilyName), key.getBytes());
-            return bytes == null ? null :
-                GSON.fromJson(new String(bytes), KeyValueEntity.class);
+            return getByKeyBytes(EntityCodec.toBytes(key));
         } catch (Exception e) {
             throw new RuntimeException("get key value entity error", e);
         }
@@ -162,20 +351,25 @@ public class RocksDbImp implements Db {
     public CommandEntity getCommand(String commandId) {
         try {
             byte[] bytes = db
-                .get(columnHandlesMap.get(commandFamilyName), commandId.getBytes());
-            return bytes == null ? null :
-                GSON.fromJson(new String(bytes), CommandEntity.class);
+                .get(columnHandlesMap.get(commandFamilyName), EntityCodec.toBytes(commandId));
+            return bytes == null ? null : EntityCodec.decodeCommand(bytes);
         } catch (Exception e) {
             throw new RuntimeException("get command value error", e);
         }
     }
 
     @Override
-    public CommandEntity putCommand(CommandEntity entity) {
+    public synchronized CommandEntity putCommand(CommandEntity entity) {
         requireNonNull(entity);
-        try {
-            db.put(columnHandlesMap.get(commandFamilyName),
-                entity.getId().getBytes(), GSON.toJson(entity).getBytes());
+        try (WriteBatch batch = new WriteBatch(); WriteOptions writeOptions = new WriteOptions()) {
+            CommandEntity old = getCommand(entity.getId());
+            if (old != null) {
+                batch.delete(columnHandlesMap.get(commandIndexFamilyName), commandIndexKey(old));
+            }
+            batch.put(columnHandlesMap.get(commandFamilyName),
+                EntityCodec.toBytes(entity.getId()), EntityCodec.encode(entity));
+            batch.put(columnHandlesMap.get(commandIndexFamilyName), commandIndexKey(entity), EMPTY_VALUE);
+            db.write(writeOptions, batch);
         } catch (Exception e) {
             throw new RuntimeException("put value to rocks db error", e);
         }
@@ -189,11 +383,17 @@ public class RocksDbImp implements Db {
     }
 
     @Override
-    public KeyValueEntity put(KeyValueEntity entity) {
+    public synchronized KeyValueEntity put(KeyValueEntity entity) {
         requireNonNull(entity);
-        try {
-            db.put(columnHandlesMap.get(defaultFamilyName),
-                entity.getKey().getBytes(), GSON.toJson(entity).getBytes());
+        try (WriteBatch batch = new WriteBatch(); WriteOptions writeOptions = new WriteOptions()) {
+            KeyValueEntity old = get(entity.getKey());
+            if (old != null) {
+                deleteIndexes(batch, old);
+            }
+            batch.put(columnHandlesMap.get(defaultFamilyName),
+                EntityCodec.toBytes(entity.getKey()), EntityCodec.encode(entity));
+            putIndexes(batch, entity);
+            db.write(writeOptions, batch);
         } catch (Exception e) {
             throw new RuntimeException("put value to rocks db error", e);
         }
@@ -201,16 +401,17 @@ public class RocksDbImp implements Db {
     }
 
     @Override
-    public KeyValueEntity remove(String key) {
+    public synchronized KeyValueEntity remove(String key) {
         requireNonNull(key);
         KeyValueEntity keyValueEntity = get(key);
         if (keyValueEntity == null) {
             LOGGER.warn("no key {} exist in rocksdb", key);
             return null;
         }
-        try {
-            db.delete(columnHandlesMap.get(defaultFamilyName),
-                key.getBytes());
+        try (WriteBatch batch = new WriteBatch(); WriteOptions writeOptions = new WriteOptions()) {
+            batch.delete(columnHandlesMap.get(defaultFamilyName), EntityCodec.toBytes(key));
+            deleteIndexes(batch, keyValueEntity);
+            db.write(writeOptions, batch);
             return keyValueEntity;
         } catch (Exception e) {
             throw new RuntimeException("remove value from rocks db error", e);
@@ -219,35 +420,16 @@ public class RocksDbImp implements Db {
 
     @Override
     public List<KeyValueEntity> search(StateSearchKey searchKey) {
-        List<KeyValueEntity> results = new LinkedList<>();
-        try (final RocksIterator it = db.newIterator(
-            columnHandlesMap.get(defaultFamilyName))) {
-            it.seekToFirst();
-            while (it.isValid()) {
-                KeyValueEntity keyValueItem = GSON
-                    .fromJson(new String(it.value()), KeyValueEntity.class);
-                if (keyValueItem.getStateSearchKey().equals(searchKey)) {
-                    results.add(keyValueItem);
-                }
-                it.next();
-            }
-        }
-        return results;
+        return searchByState(searchKey, 0);
     }
 
     @Override
     public List<CommandEntity> searchCommands(boolean isAcked) {
         List<CommandEntity> results = new LinkedList<>();
-        try (final RocksIterator it = db.newIterator(
-            columnHandlesMap.get(commandFamilyName))) {
-            it.seekToFirst();
-            while (it.isValid()) {
-                CommandEntity commandEntity = GSON
-                    .fromJson(new String(it.value()), CommandEntity.class);
-                if (commandEntity.isAcked() == isAcked) {
-                    results.add(commandEntity);
-                }
-                it.next();
+        for (byte[] id : seekIndex(commandIndexFamilyName, commandIndexPrefix(isAcked), 0)) {
+            CommandEntity commandEntity = getCommand(new String(id, StandardCharsets.UTF_8));
+            if (commandEntity != null && commandEntity.isAcked() == isAcked) {
+                results.add(commandEntity);
             }
         }
         return results;
@@ -255,34 +437,22 @@ public class RocksDbImp implements Db {
 
     @Override
     public KeyValueEntity searchOne(StateSearchKey searchKey) {
-        try (final RocksIterator it = db.newIterator(
-            columnHandlesMap.get(defaultFamilyName))) {
-            it.seekToFirst();
-            while (it.isValid()) {
-                KeyValueEntity keyValueItem = GSON
-                    .fromJson(new String(it.value()), KeyValueEntity.class);
-                if (keyValueItem.getStateSearchKey().equals(searchKey)) {
-                    return keyValueItem;
-                }
-                it.next();
-            }
-        }
-        return null;
+        // stale index entries are skipped, so seek a few more than one
+        List<KeyValueEntity> results = searchByState(searchKey, SEARCH_ONE_LIMIT);
+        return results.isEmpty() ? null : results.get(0);
     }
 
     @Override
     public KeyValueEntity searchOne(String fileName) {
-        try (final RocksIterator it = db.newIterator(
-            columnHandlesMap.get(defaultFamilyName))) {
-            it.seekToFirst();
-            while (it.isValid()) {
-                KeyValueEntity keyValueItem = GSON
-                    .fromJson(new String(it.value()), KeyValueEntity.class);
-                if (keyValueItem.getFileName().equals(fileName)) {
-                    return keyValueItem;
+        try {
+            for (byte[] key : seekIndex(fileIndexFamilyName, fileIndexPrefix(fileName), SEARCH_ONE_LIMIT)) {
+                KeyValueEntity entity = getByKeyBytes(key);
+                if (entity != null && fileName.equals(entity.getFileName())) {
+                    return entity;
                 }
-                it.next();
             }
+        } catch (Exception e) {
+            throw new RuntimeException("search key value entity error", e);
         }
         return null;
     }
@@ -290,21 +460,72 @@ public class RocksDbImp implements Db {
     @Override
     public List<KeyValueEntity> findAll(String prefix) {
         List<KeyValueEntity> results = new LinkedList<>();
+        byte[] prefixBytes = EntityCodec.toBytes(prefix);
         try (final RocksIterator it = db.newIterator(
             columnHandlesMap.get(defaultFamilyName))) {
-            it.seekToFirst();
-            while (it.isValid()) {
-                KeyValueEntity keyValueItem = GSON
-                    .fromJson(new String(it.value()), KeyValueEntity.class);
-                if (keyValueItem.getKey().startsWith(prefix)) {
-                    results.add(keyValueItem);
-                }
-                it.next();
+            for (it.seek(prefixBytes); it.isValid() && startsWith(it.key(), prefixBytes); it.next()) {
+                results.add(EntityCodec.decodeKeyValue(it.value()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void putPositions(Map<String, Long> positions, boolean disableWal) {
+        requireNonNull(positions);
+        if (positions.isEmpty()) {
+            return;
+        }
+        ColumnFamilyHandle handle = columnHandlesMap.get(positionFamilyName);
+        try (WriteBatch batch = new WriteBatch();
+                WriteOptions writeOptions = new WriteOptions().setDisableWAL(disableWal)) {
+            for (Map.Entry<String, Long> entry : positions.entrySet()) {
+                batch.put(handle, EntityCodec.toBytes(entry.getKey()), encodePosition(entry.getValue()));
+            }
+            db.write(writeOptions, batch);
+        } catch (Exception e) {
+            throw new RuntimeException("put positions to rocks db error", e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> findPositions(String prefix) {
+        Map<String, Long> results = new HashMap<>();
+        byte[] prefixBytes = EntityCodec.toBytes(prefix);
+        try (final RocksIterator it = db.newIterator(columnHandlesMap.get(positionFamilyName))) {
+            for (it.seek(prefixBytes); it.isValid() && startsWith(it.key(), prefixBytes); it.next()) {
+                results.put(new String(it.key(), StandardCharsets.UTF_8), decodePosition(it.value()));
             }
         }
         return results;
     }
 
+    @Override
+    public void removePositions(String prefix) {
+        ColumnFamilyHandle handle = columnHandlesMap.get(positionFamilyName);
+        byte[] prefixBytes = EntityCodec.toBytes(prefix);
+        try (WriteBatch batch = new WriteBatch();
+                WriteOptions writeOptions = new WriteOptions();
+                final RocksIterator it = db.newIterator(handle)) {
+            for (it.seek(prefixBytes); it.isValid() && startsWith(it.key(), prefixBytes); it.next()) {
+                batch.delete(handle, it.key());
+            }
+            if (batch.count() > 0) {
+                db.write(writeOptions, batch);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("remove positions from rocks db error", e);
+        }
+    }
+
+    private static byte[] encodePosition(long position) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(position).array();
+    }
+
+    private static long decodePosition(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
     @Override
     public void close() throws IOException {
         db.close();
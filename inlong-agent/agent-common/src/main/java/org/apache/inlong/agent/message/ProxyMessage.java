@@ -23,6 +23,7 @@ import java.util.Map;
 
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_DATA;
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_GROUP_ID;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_OFFSET_SEQ;
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_STREAM_ID;
 
 /**
@@ -38,6 +39,10 @@ public class ProxyMessage implements Message {
     private final String inlongStreamId;
     // determine the group key when making batch
     private final String batchKey;
+    // offset sequence acked when the message is sent, -1 if not present
+    private final long offsetSeq;
+    // time of message entering sink, used to measure sink lag
+    private final long createTime = System.currentTimeMillis();
     private String dataKey;
 
     public ProxyMessage(byte[] body, Map<String, String> header) {
@@ -48,6 +53,8 @@ public class ProxyMessage implements Message {
         this.dataKey = header.getOrDefault(PROXY_KEY_DATA, "");
         // use the batch key of user and inlongStreamId to determine one batch
         this.batchKey = dataKey + inlongStreamId;
+        String offsetSeqValue = header.get(PROXY_KEY_OFFSET_SEQ);
+        this.offsetSeq = offsetSeqValue == null ? -1 : Long.parseLong(offsetSeqValue);
     }
 
     /**
@@ -95,4 +102,12 @@ public class ProxyMessage implements Message {
     public String getBatchKey() {
         return batchKey;
     }
+
+    public long getOffsetSeq() {
+        return offsetSeq;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
 }
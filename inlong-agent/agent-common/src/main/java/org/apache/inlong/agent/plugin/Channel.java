@@ -17,6 +17,8 @@
 
 package org.apache.inlong.agent.plugin;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -39,4 +41,35 @@ public interface Channel extends Stage {
      */
     Message pull(long timeout, TimeUnit unit);
 
+    /**
+     * write messages in order with timeout, channels that support batching override it
+     * to make the messages visible to reader at once.
+     *
+     * @return number of messages written, the rest are not written as channel is full
+     */
+    default int pushBatch(List<Message> messages, long timeout, TimeUnit unit) {
+        int count = 0;
+        for (Message message : messages) {
+            if (!push(message, timeout, unit)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * read at most maxSize messages, wait with timeout only if there is no message
+     *
+     * @return messages, empty if no message in timeout
+     */
+    default List<Message> pullBatch(int maxSize, long timeout, TimeUnit unit) {
+        List<Message> messages = new ArrayList<>();
+        Message message = pull(timeout, unit);
+        if (message != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
 }
@@ -17,6 +17,9 @@
 
 package org.apache.inlong.agent.plugin;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Reader reads data and provides condition whether the reading action is finished. It's called at
  * Task level.
@@ -30,6 +33,17 @@ public interface Reader extends Stage {
      */
     Message read();
 
+    /**
+     * Read at most maxSize messages, readers that buffer messages override it to hand them
+     * to channel in batch.
+     *
+     * @return messages, empty if there is no message for now
+     */
+    default List<Message> readBatch(int maxSize) {
+        Message message = read();
+        return message == null ? Collections.emptyList() : Collections.singletonList(message);
+    }
+
     /**
      * Whether finish reading
      */
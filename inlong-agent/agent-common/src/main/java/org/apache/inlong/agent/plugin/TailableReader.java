@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin;
+
+import java.nio.file.Path;
+
+/**
+ * Reader which tails a local file. Instead of a read thread per task, it's read by the shared
+ * file tailer when the file is modified.
+ */
+public interface TailableReader extends Reader {
+
+    /**
+     * Return the file tailed by reader, modification of the file wakes up the reader
+     */
+    Path getTailedFile();
+
+    /**
+     * Read message without waiting for new data
+     *
+     * @return message, null if there is no complete message for now
+     */
+    Message poll();
+}
@@ -26,15 +26,20 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.ZonedDateTime;
@@ -51,6 +56,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 import static org.apache.inlong.agent.constant.AgentConstants.AGENT_LOCAL_IP;
 import static org.apache.inlong.agent.constant.AgentConstants.AGENT_LOCAL_UUID;
@@ -77,6 +83,8 @@ public class AgentUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(AgentUtils.class);
     private static final AtomicLong INDEX = new AtomicLong(0);
     private static final String HEX_PREFIX = "0x";
+    private static final int FINGERPRINT_HEAD_LENGTH = 1024;
+    private static final String FINGERPRINT_DELIMITER = "|";
 
     /**
      * get md5 of file.
@@ -93,6 +101,56 @@ public class AgentUtils {
         return "";
     }
 
+    /**
+     * get fingerprint of file, made of the file key (inode on unix), the length of the head
+     * and the crc32 of the head, so that it can be computed without reading the whole file.
+     *
+     * @return fingerprint, empty if file cannot be read
+     */
+    public static String getFileFingerprint(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Object fileKey = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+            int headLength = (int) Math.min(channel.size(), FINGERPRINT_HEAD_LENGTH);
+            return (fileKey == null ? "" : fileKey.toString()) + FINGERPRINT_DELIMITER + headLength
+                    + FINGERPRINT_DELIMITER + headCrc(channel, headLength);
+        } catch (Exception ex) {
+            LOGGER.warn("cannot get fingerprint of {}", file, ex);
+        }
+        return "";
+    }
+
+    /**
+     * check whether the file is the one the fingerprint was taken from, the head may
+     * have grown since then so only the head length recorded in fingerprint is compared.
+     */
+    public static boolean matchFileFingerprint(File file, String fingerprint) {
+        String[] parts = StringUtils.splitPreserveAllTokens(fingerprint, FINGERPRINT_DELIMITER);
+        if (parts == null || parts.length != 3) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Object fileKey = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+            if (fileKey != null && StringUtils.isNotEmpty(parts[0]) && !parts[0].equals(fileKey.toString())) {
+                return false;
+            }
+            int headLength = Integer.parseInt(parts[1]);
+            return channel.size() >= headLength && parts[2].equals(headCrc(channel, headLength));
+        } catch (Exception ex) {
+            LOGGER.warn("cannot match fingerprint of {}", file, ex);
+        }
+        return false;
+    }
+
+    private static String headCrc(FileChannel channel, int headLength) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(headLength);
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // read until the head is full
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head.array(), 0, head.position());
+        return Long.toHexString(crc.getValue());
+    }
+
     /**
      * return system current time
      */
@@ -18,7 +18,10 @@
 package org.apache.inlong.agent.db;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.inlong.agent.AgentBaseTestsHelper;
 import org.apache.inlong.common.db.CommandEntity;
 import org.junit.AfterClass;
@@ -102,6 +105,53 @@ public class TestRocksDbImp {
         Assert.assertEquals("searchKey1", entityResult.getKey());
     }
 
+    @Test
+    public void testIndexUpdate() {
+        KeyValueEntity entity = new KeyValueEntity("indexKey1", "indexValue1", "/data/index1.log");
+        entity.setStateSearchKey(StateSearchKey.RUNNING);
+        db.put(entity);
+        Assert.assertEquals("indexKey1", db.searchOne("/data/index1.log").getKey());
+        Assert.assertNull(db.searchOne("/data/index1"));
+
+        entity.setStateSearchKey(StateSearchKey.FAILED);
+        db.put(entity);
+        Assert.assertNull(db.searchOne(StateSearchKey.RUNNING));
+        Assert.assertEquals("indexKey1", db.searchOne(StateSearchKey.FAILED).getKey());
+
+        db.remove("indexKey1");
+        Assert.assertNull(db.searchOne("/data/index1.log"));
+        Assert.assertNull(db.searchOne(StateSearchKey.FAILED));
+
+        CommandEntity commandEntity = new CommandEntity();
+        commandEntity.setId("indexCommand1");
+        commandEntity.setAcked(false);
+        db.putCommand(commandEntity);
+        commandEntity.setAcked(true);
+        db.putCommand(commandEntity);
+        Assert.assertTrue(db.searchCommands(false).stream().noneMatch(c -> "indexCommand1".equals(c.getId())));
+        Assert.assertTrue(db.searchCommands(true).stream().anyMatch(c -> "indexCommand1".equals(c.getId())));
+    }
+
+    @Test
+    public void testPositions() {
+        Map<String, Long> positions = new HashMap<>();
+        positions.put("job_1\u0000/data/a.log", 100L);
+        positions.put("job_1\u0000/data/b.log", 200L);
+        positions.put("job_10\u0000/data/a.log", 300L);
+        db.putPositions(positions, true);
+        Map<String, Long> jobPositions = db.findPositions("job_1\u0000");
+        Assert.assertEquals(2, jobPositions.size());
+        Assert.assertEquals(Long.valueOf(100L), jobPositions.get("job_1\u0000/data/a.log"));
+
+        db.putPositions(Collections.singletonMap("job_1\u0000/data/a.log", 150L), false);
+        Assert.assertEquals(Long.valueOf(150L), db.findPositions("job_1\u0000").get("job_1\u0000/data/a.log"));
+        Assert.assertNull(db.get("job_1\u0000/data/a.log"));
+
+        db.removePositions("job_1\u0000");
+        Assert.assertTrue(db.findPositions("job_1\u0000").isEmpty());
+        Assert.assertEquals(1, db.findPositions("job_10").size());
+    }
+
     @AfterClass
     public static void teardown() throws IOException {
         db.close();
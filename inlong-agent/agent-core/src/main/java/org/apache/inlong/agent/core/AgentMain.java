@@ -17,7 +17,6 @@
 
 package org.apache.inlong.agent.core;
 
-import io.prometheus.client.exporter.HTTPServer;
 import io.prometheus.client.hotspot.DefaultExports;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -28,6 +27,7 @@ import org.apache.commons.cli.Options;
 import org.apache.inlong.agent.conf.AgentConfiguration;
 import org.apache.inlong.agent.metrics.audit.AuditUtils;
 import org.apache.inlong.agent.utils.ConfigUtil;
+import org.apache.inlong.common.metric.prometheus.PrometheusExporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,8 +43,6 @@ public class AgentMain {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AgentMain.class);
 
-    private static HTTPServer metricsServer;
-
     static {
         if (ConfigUtil.isPrometheusEnabled()) {
             // register hotspot collectors
@@ -135,7 +133,7 @@ public class AgentMain {
                 int metricsServerPort = AgentConfiguration.getAgentConf()
                         .getInt(PROMETHEUS_EXPORTER_PORT, DEFAULT_PROMETHEUS_EXPORTER_PORT);
                 LOGGER.info("Starting prometheus metrics server on port {}", metricsServerPort);
-                metricsServer = new HTTPServer(metricsServerPort);
+                PrometheusExporter.start(metricsServerPort);
             }
 
             manager.join();
@@ -144,9 +142,7 @@ public class AgentMain {
         } finally {
             manager.stop();
             AuditUtils.sendReport();
-            if (metricsServer != null) {
-                metricsServer.stop();
-            }
+            PrometheusExporter.stop();
         }
     }
 }
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.core.task;
+
+import org.apache.inlong.agent.common.AbstractDaemon;
+import org.apache.inlong.agent.common.AgentThreadFactory;
+import org.apache.inlong.agent.conf.AgentConfiguration;
+import org.apache.inlong.agent.constant.AgentConstants;
+import org.apache.inlong.agent.message.EndMessage;
+import org.apache.inlong.agent.plugin.Message;
+import org.apache.inlong.agent.plugin.TailableReader;
+import org.apache.inlong.agent.state.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FileTailer reads the tailable readers of all tasks with a small pool of workers, instead of
+ * one read thread per task sleeping at the end of file.
+ *
+ * <p>A reader is scheduled into the ready queue when its file is modified, which is notified by
+ * WatchService on the parent directory, so idle files take no worker. A worker reads at most
+ * {@link #MAX_MESSAGES_PER_ROUND} messages from a reader into the task channel, then puts it back to
+ * the end of the ready queue if there may be more, so that busy files are served in turn.
+ */
+public class FileTailer extends AbstractDaemon {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileTailer.class);
+    private static final int MAX_MESSAGES_PER_ROUND = 1000;
+    private static final int PUSH_BATCH_SIZE = 100;
+    private static final long CHANNEL_FULL_WAIT_MS = 100;
+    private static final long POLL_READY_TIMEOUT_MS = 1000;
+
+    private final int workerNum;
+    private final int checkInterval;
+    private final BlockingQueue<TailEntry> readyQueue = new LinkedBlockingQueue<>();
+    private final Set<TailEntry> entries = ConcurrentHashMap.newKeySet();
+    // parent directory -> entries of files in the directory
+    private final Map<Path, DirWatch> dirWatches = new HashMap<>();
+    private final ScheduledExecutorService timer;
+    private WatchService watchService;
+
+    public FileTailer() {
+        AgentConfiguration conf = AgentConfiguration.getAgentConf();
+        workerNum = conf.getInt(AgentConstants.TASK_TAILER_WORKER_NUM,
+                AgentConstants.DEFAULT_TASK_TAILER_WORKER_NUM);
+        checkInterval = conf.getInt(AgentConstants.TASK_TAILER_CHECK_INTERVAL,
+                AgentConstants.DEFAULT_TASK_TAILER_CHECK_INTERVAL);
+        timer = Executors.newSingleThreadScheduledExecutor(new AgentThreadFactory("file-tailer-timer"));
+    }
+
+    /**
+     * tail the reader of task until read is finished or task is in exception state,
+     * end message is pushed into channel and reader is destroyed when tailing is done.
+     *
+     * @return future completed when tailing is done
+     */
+    public CompletableFuture<Void> submit(TaskWrapper wrapper) {
+        TailEntry entry = new TailEntry(wrapper);
+        entries.add(entry);
+        watch(entry);
+        signal(entry);
+        return entry.future;
+    }
+
+    /**
+     * the entry is put into ready queue only by the signal which changes signals from 0, and then
+     * owned by one worker until the signals seen by the worker are consumed.
+     */
+    private void signal(TailEntry entry) {
+        if (entry.signals.getAndIncrement() == 0) {
+            readyQueue.offer(entry);
+        }
+    }
+
+    private void watch(TailEntry entry) {
+        Path dir = entry.file.getParent();
+        if (dir == null || watchService == null) {
+            return;
+        }
+        synchronized (dirWatches) {
+            DirWatch dirWatch = dirWatches.get(dir);
+            if (dirWatch == null) {
+                try {
+                    WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+                    dirWatch = new DirWatch(key);
+                    dirWatches.put(dir, dirWatch);
+                } catch (IOException ex) {
+                    LOGGER.warn("cannot watch {}, file {} is only checked every {} seconds",
+                            dir, entry.file, checkInterval, ex);
+                    return;
+                }
+            }
+            dirWatch.entries.add(entry);
+        }
+    }
+
+    private void unwatch(TailEntry entry) {
+        Path dir = entry.file.getParent();
+        synchronized (dirWatches) {
+            DirWatch dirWatch = dirWatches.get(dir);
+            if (dirWatch != null && dirWatch.entries.remove(entry) && dirWatch.entries.isEmpty()) {
+                dirWatch.key.cancel();
+                dirWatches.remove(dir);
+            }
+        }
+    }
+
+    private Runnable watchEventHandler() {
+        return () -> {
+            while (isRunnable()) {
+                try {
+                    WatchKey key = watchService.take();
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        signalDir(dir, event);
+                    }
+                    key.reset();
+                } catch (ClosedWatchServiceException ex) {
+                    break;
+                } catch (Exception ex) {
+                    LOGGER.error("error caught", ex);
+                }
+            }
+        };
+    }
+
+    private void signalDir(Path dir, WatchEvent<?> event) {
+        synchronized (dirWatches) {
+            DirWatch dirWatch = dirWatches.get(dir);
+            if (dirWatch == null) {
+                return;
+            }
+            for (TailEntry entry : dirWatch.entries) {
+                // overflow means events are lost, wake up all files in the directory
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || entry.file.getFileName().equals(event.context())) {
+                    signal(entry);
+                }
+            }
+        }
+    }
+
+    private Runnable tailWorker() {
+        return () -> {
+            while (isRunnable()) {
+                try {
+                    TailEntry entry = readyQueue.poll(POLL_READY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (entry != null) {
+                        tail(entry);
+                    }
+                } catch (Exception ex) {
+                    LOGGER.error("error caught", ex);
+                }
+            }
+        };
+    }
+
+    private void tail(TailEntry entry) {
+        int seenSignals = entry.signals.get();
+        TaskWrapper wrapper = entry.wrapper;
+        Task task = wrapper.getTask();
+        TailableReader reader = (TailableReader) task.getReader();
+        try {
+            if (wrapper.isException() || task.isReadFinished()) {
+                finish(entry);
+                return;
+            }
+            if (!reader.isSourceExist()) {
+                wrapper.doChangeState(State.FAILED);
+                finish(entry);
+                return;
+            }
+            int pushed = 0;
+            while (pushed < MAX_MESSAGES_PER_ROUND) {
+                if (entry.pending.isEmpty()) {
+                    Message message;
+                    while (entry.pending.size() < PUSH_BATCH_SIZE && (message = reader.poll()) != null) {
+                        entry.pending.add(message);
+                    }
+                    if (entry.pending.isEmpty()) {
+                        // wait for modification of file, unless it's signaled during reading
+                        if (entry.signals.addAndGet(-seenSignals) > 0) {
+                            readyQueue.offer(entry);
+                        }
+                        return;
+                    }
+                }
+                int count = task.getChannel().pushBatch(entry.pending, 0, TimeUnit.MILLISECONDS);
+                entry.pending.subList(0, count).clear();
+                pushed += count;
+                if (!entry.pending.isEmpty()) {
+                    timer.schedule(() -> readyQueue.offer(entry), CHANNEL_FULL_WAIT_MS, TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
+            readyQueue.offer(entry);
+        } catch (Exception ex) {
+            LOGGER.error("error while tailing {} of task {}", entry.file, task.getTaskId(), ex);
+            wrapper.doChangeState(State.FAILED);
+            finish(entry);
+        }
+    }
+
+    private void finish(TailEntry entry) {
+        entries.remove(entry);
+        unwatch(entry);
+        Task task = entry.wrapper.getTask();
+        try {
+            if (!entry.wrapper.isException()) {
+                entry.pending.forEach(task.getChannel()::push);
+            }
+            LOGGER.info("tail end, task exception status is {}, read finish status is {}",
+                    entry.wrapper.isException(), task.isReadFinished());
+            task.getChannel().push(new EndMessage());
+            task.getReader().destroy();
+        } finally {
+            entry.future.complete(null);
+        }
+    }
+
+    @Override
+    public void start() throws Exception {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            submitWorker(watchEventHandler());
+        } catch (IOException ex) {
+            LOGGER.warn("cannot create watch service, files are only checked every {} seconds",
+                    checkInterval, ex);
+        }
+        for (int i = 0; i < workerNum; i++) {
+            submitWorker(tailWorker());
+        }
+        // check idle files for timeout and killed tasks, also in case events are lost
+        timer.scheduleWithFixedDelay(() -> entries.forEach(this::signal),
+                checkInterval, checkInterval, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        waitForTerminate();
+        timer.shutdown();
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private static class DirWatch {
+
+        private final WatchKey key;
+        private final Set<TailEntry> entries = ConcurrentHashMap.newKeySet();
+
+        private DirWatch(WatchKey key) {
+            this.key = key;
+        }
+    }
+
+    private static class TailEntry {
+
+        private final TaskWrapper wrapper;
+        private final Path file;
+        private final AtomicInteger signals = new AtomicInteger(0);
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        // messages read but not pushed as channel is full
+        private final List<Message> pending = new ArrayList<>();
+
+        private TailEntry(TaskWrapper wrapper) {
+            this.wrapper = wrapper;
+            this.file = ((TailableReader) wrapper.getTask().getReader()).getTailedFile();
+        }
+    }
+}
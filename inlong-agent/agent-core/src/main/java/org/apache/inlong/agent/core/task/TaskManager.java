@@ -52,6 +52,7 @@ public class TaskManager extends AbstractDaemon {
     private final int taskMaxCapacity;
     private final int taskRetryMaxTime;
     private final long waitTime;
+    private final FileTailer fileTailer;
 
     /**
      * Init task manager.
@@ -86,6 +87,8 @@ public class TaskManager extends AbstractDaemon {
                 AgentConstants.TASK_RETRY_MAX_CAPACITY, AgentConstants.DEFAULT_TASK_RETRY_MAX_CAPACITY);
         waitTime = conf.getLong(
                 AgentConstants.THREAD_POOL_AWAIT_TIME, AgentConstants.DEFAULT_THREAD_POOL_AWAIT_TIME);
+        fileTailer = conf.getBoolean(AgentConstants.TASK_TAILER_ENABLE, AgentConstants.DEFAULT_TASK_TAILER_ENABLE)
+                ? new FileTailer() : null;
     }
 
     /**
@@ -97,6 +100,15 @@ public class TaskManager extends AbstractDaemon {
         return taskMetrics;
     }
 
+    /**
+     * Get shared file tailer
+     *
+     * @return file tailer, null if tailer is disabled
+     */
+    public FileTailer getFileTailer() {
+        return fileTailer;
+    }
+
     public TaskWrapper getTaskWrapper(String taskId) {
         return tasks.get(taskId);
     }
@@ -247,8 +259,11 @@ public class TaskManager extends AbstractDaemon {
      * start service.
      */
     @Override
-    public void start() {
+    public void start() throws Exception {
         submitWorker(createTaskMonitorThread());
+        if (fileTailer != null) {
+            fileTailer.start();
+        }
     }
 
     /**
@@ -257,6 +272,9 @@ public class TaskManager extends AbstractDaemon {
     @Override
     public void stop() throws Exception {
         waitForTerminate();
+        if (fileTailer != null) {
+            fileTailer.stop();
+        }
         this.runningPool.shutdown();
     }
 }
@@ -19,22 +19,28 @@ package org.apache.inlong.agent.core.task;
 
 import org.apache.inlong.agent.common.AbstractDaemon;
 import org.apache.inlong.agent.conf.AgentConfiguration;
-import org.apache.inlong.agent.conf.JobProfile;
 import org.apache.inlong.agent.core.AgentManager;
 import org.apache.inlong.agent.db.JobProfileDb;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
-import static org.apache.inlong.agent.constant.CommonConstants.POSITION_SUFFIX;
+import static org.apache.inlong.agent.constant.AgentConstants.DEFAULT_TASK_POSITION_DISABLE_WAL;
+import static org.apache.inlong.agent.constant.AgentConstants.DEFAULT_TASK_POSITION_FLUSH_INTERVAL;
+import static org.apache.inlong.agent.constant.AgentConstants.TASK_POSITION_DISABLE_WAL;
+import static org.apache.inlong.agent.constant.AgentConstants.TASK_POSITION_FLUSH_INTERVAL;
 import static org.apache.inlong.agent.constant.FetcherConstants.AGENT_HEARTBEAT_INTERVAL;
 import static org.apache.inlong.agent.constant.FetcherConstants.DEFAULT_AGENT_FETCHER_INTERVAL;
 
 /**
- * used to store task position to db, task position is stored as properties in JobProfile.
- * where key is task read file name and value is task sink position
+ * used to store task position to db, task positions are stored apart from JobProfile in small keys,
+ * where key is job instance id and task read file name and value is task sink position, which is the byte
+ * offset of the file acked by the sink. only positions changed since last flush are written, in one batch.
  * note that this class is generated
  */
 public class TaskPositionManager extends AbstractDaemon {
@@ -44,13 +50,18 @@ public class TaskPositionManager extends AbstractDaemon {
     private final AgentManager agentManager;
     private final JobProfileDb jobConfDb;
     private final AgentConfiguration conf;
+    private final boolean disableWal;
     private ConcurrentHashMap<String, ConcurrentHashMap<String, Long>> jobTaskPositionMap;
+    // positions written to db, only accessed by the flush thread
+    private final Map<String, Map<String, Long>> flushedPositionMap;
 
     private TaskPositionManager(AgentManager agentManager) {
         this.conf = AgentConfiguration.getAgentConf();
         this.agentManager = agentManager;
         this.jobConfDb = agentManager.getJobManager().getJobConfDb();
         this.jobTaskPositionMap = new ConcurrentHashMap<>();
+        this.flushedPositionMap = new HashMap<>();
+        this.disableWal = conf.getBoolean(TASK_POSITION_DISABLE_WAL, DEFAULT_TASK_POSITION_DISABLE_WAL);
     }
 
     /**
@@ -77,6 +88,13 @@ public class TaskPositionManager extends AbstractDaemon {
         return taskPositionManager;
     }
 
+    /**
+     * whether taskPositionManager singleton has been generated by agent manager
+     */
+    public static boolean isInitialized() {
+        return taskPositionManager != null;
+    }
+
     @Override
     public void start() throws Exception {
         submitWorker(taskPositionFlushThread());
@@ -84,43 +102,77 @@ public class TaskPositionManager extends AbstractDaemon {
 
     private Runnable taskPositionFlushThread() {
         return () -> {
+            long flushInterval = conf.getLong(TASK_POSITION_FLUSH_INTERVAL, DEFAULT_TASK_POSITION_FLUSH_INTERVAL);
+            long checkInterval = TimeUnit.SECONDS.toMillis(
+                    conf.getInt(AGENT_HEARTBEAT_INTERVAL, DEFAULT_AGENT_FETCHER_INTERVAL));
+            long lastCheckTime = System.currentTimeMillis();
             while (isRunnable()) {
                 try {
-                    // check pending jobs and try to submit again.
-                    for (String jobId : jobTaskPositionMap.keySet()) {
-                        JobProfile jobProfile = jobConfDb.getJobById(jobId);
-                        if (jobProfile == null) {
-                            LOGGER.warn("jobProfile {} cannot be found in db, "
-                                    + "might be deleted by standalone mode, now delete job position in memory", jobId);
-                            deleteJobPosition(jobId);
-                            continue;
-                        }
-                        flushJobProfile(jobId, jobProfile);
+                    flushPositions();
+                    if (System.currentTimeMillis() - lastCheckTime >= checkInterval) {
+                        lastCheckTime = System.currentTimeMillis();
+                        removeFinishedJobs();
                     }
-                    int flushTime = conf.getInt(AGENT_HEARTBEAT_INTERVAL,
-                            DEFAULT_AGENT_FETCHER_INTERVAL);
-                    TimeUnit.SECONDS.sleep(flushTime);
+                    TimeUnit.MILLISECONDS.sleep(flushInterval);
                 } catch (Exception ex) {
                     LOGGER.error("error caught", ex);
                 }
             }
+            try {
+                flushPositions();
+            } catch (Exception ex) {
+                LOGGER.error("flush task positions error when stopping", ex);
+            }
         };
     }
 
-    private void flushJobProfile(String jobId, JobProfile jobProfile) {
-        jobTaskPositionMap.get(jobId).forEach(
-                (fileName, position) -> jobProfile.setLong(fileName + POSITION_SUFFIX, position)
-        );
-        if (jobConfDb.checkJobfinished(jobProfile)) {
-            LOGGER.info("Cannot update job profile {}, delete memory job in jobTaskPosition", jobId);
-            deleteJobPosition(jobId);
-        } else {
-            jobConfDb.updateJobProfile(jobProfile);
+    /**
+     * write positions changed since last flush in one batch, job profiles are left untouched
+     */
+    private void flushPositions() {
+        Map<String, Map<String, Long>> dirtyPositions = new HashMap<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, Long>> entry : jobTaskPositionMap.entrySet()) {
+            String jobId = entry.getKey();
+            Map<String, Long> flushed = flushedPositionMap.getOrDefault(jobId, Collections.emptyMap());
+            Map<String, Long> dirty = new HashMap<>();
+            entry.getValue().forEach((sourcePath, position) -> {
+                if (!position.equals(flushed.get(sourcePath))) {
+                    dirty.put(sourcePath, position);
+                }
+            });
+            if (dirty.isEmpty()) {
+                continue;
+            }
+            if (jobConfDb.checkJobfinished(jobId)) {
+                LOGGER.info("Cannot update positions of job {}, delete memory job in jobTaskPosition", jobId);
+                deleteJobPosition(jobId);
+                continue;
+            }
+            dirtyPositions.put(jobId, dirty);
+        }
+        if (dirtyPositions.isEmpty()) {
+            return;
+        }
+        jobConfDb.storePositions(dirtyPositions, disableWal);
+        dirtyPositions.forEach((jobId, dirty) -> flushedPositionMap.computeIfAbsent(jobId,
+                k -> new HashMap<>()).putAll(dirty));
+    }
+
+    /**
+     * jobs without new positions are not checked when flushing, check them at a lower frequency
+     */
+    private void removeFinishedJobs() {
+        for (String jobId : jobTaskPositionMap.keySet()) {
+            if (jobConfDb.checkJobfinished(jobId)) {
+                LOGGER.info("job {} is finished or deleted, delete memory job in jobTaskPosition", jobId);
+                deleteJobPosition(jobId);
+            }
         }
     }
 
     private void deleteJobPosition(String jobId) {
         jobTaskPositionMap.remove(jobId);
+        flushedPositionMap.remove(jobId);
     }
 
     @Override
@@ -128,19 +180,31 @@ public class TaskPositionManager extends AbstractDaemon {
         waitForTerminate();
     }
 
+    /**
+     * reset job sink position, called when a reader starts reading the source from the position
+     *
+     * @param position byte offset the reader starts from
+     */
+    public void resetSinkPosition(String jobInstanceId, String sourcePath, long position) {
+        getOrCreatePosition(jobInstanceId).put(sourcePath, position);
+    }
+
     /**
      * update job sink position
      *
-     * @param size add this size to beforePosition
+     * @param position byte offset of the source that every message before it is acked by the sink
      */
-    public void updateSinkPosition(String jobInstanceId, String sourcePath, long size) {
+    public void updateSinkPosition(String jobInstanceId, String sourcePath, long position) {
+        getOrCreatePosition(jobInstanceId).put(sourcePath, position);
+    }
+
+    private ConcurrentHashMap<String, Long> getOrCreatePosition(String jobInstanceId) {
         ConcurrentHashMap<String, Long> positionTemp = new ConcurrentHashMap<>();
         ConcurrentHashMap<String, Long> position = jobTaskPositionMap.putIfAbsent(jobInstanceId, positionTemp);
         if (position == null) {
             position = positionTemp;
         }
-        Long beforePosition = position.getOrDefault(sourcePath, 1L);
-        position.put(sourcePath, beforePosition + size);
+        return position;
     }
 
     public ConcurrentHashMap<String, Long> getTaskPositionMap(String jobId) {
@@ -23,12 +23,15 @@ import org.apache.inlong.agent.constant.AgentConstants;
 import org.apache.inlong.agent.core.AgentManager;
 import org.apache.inlong.agent.message.EndMessage;
 import org.apache.inlong.agent.plugin.Message;
+import org.apache.inlong.agent.plugin.TailableReader;
 import org.apache.inlong.agent.state.AbstractStateWrapper;
 import org.apache.inlong.agent.state.State;
 import org.apache.inlong.agent.utils.AgentUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
@@ -47,6 +50,8 @@ public class TaskWrapper extends AbstractStateWrapper {
 
     public static final int WAIT_FINISH_TIME_OUT = 1;
     public static final int WAIT_BEGIN_TIME_MINUTE = 1;
+    private static final int PUSH_BATCH_SIZE = 256;
+    private static final int PULL_BATCH_SIZE = 256;
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskWrapper.class);
     private final TaskManager taskManager;
     private final Task task;
@@ -86,21 +91,32 @@ public class TaskWrapper extends AbstractStateWrapper {
      */
     private CompletableFuture<?> submitReadThread() {
         return CompletableFuture.runAsync(() -> {
-            Message message = null;
+            List<Message> pending = new ArrayList<>();
             while (!isException() && !task.isReadFinished()) {
+                boolean progress = false;
                 // if source deleted,then failed
                 if (!task.getReader().isSourceExist()) {
                     doChangeState(State.FAILED);
                 } else {
-                    if (message == null
-                            || task.getChannel().push(message, pushMaxWaitTime, TimeUnit.SECONDS)) {
-                        message = task.getReader().read();
+                    if (pending.isEmpty()) {
+                        pending.addAll(task.getReader().readBatch(PUSH_BATCH_SIZE));
                     }
+                    if (!pending.isEmpty()) {
+                        int count = task.getChannel().pushBatch(pending, pushMaxWaitTime, TimeUnit.SECONDS);
+                        pending.subList(0, count).clear();
+                        progress = count > 0;
+                    }
+                }
+                // keep reading without waiting while there are messages
+                if (!progress) {
+                    AgentUtils.silenceSleepInMs(readWaitTime);
                 }
-                AgentUtils.silenceSleepInMs(readWaitTime);
             }
             LOGGER.info("read end, task exception status is {}, read finish status is {}", isException(),
                     task.isReadFinished());
+            if (!isException()) {
+                pending.forEach(task.getChannel()::push);
+            }
             // write end message
             task.getChannel().push(new EndMessage());
             task.getReader().destroy();
@@ -114,12 +130,17 @@ public class TaskWrapper extends AbstractStateWrapper {
      */
     private CompletableFuture<?> submitWriteThread() {
         return CompletableFuture.runAsync(() -> {
-            while (!isException()) {
-                Message message = task.getChannel().pull(pullMaxWaitTime, TimeUnit.SECONDS);
-                if (message instanceof EndMessage) {
-                    break;
+            boolean end = false;
+            while (!isException() && !end) {
+                List<Message> messages = task.getChannel().pullBatch(PULL_BATCH_SIZE,
+                        pullMaxWaitTime, TimeUnit.SECONDS);
+                for (Message message : messages) {
+                    if (message instanceof EndMessage) {
+                        end = true;
+                        break;
+                    }
+                    task.getSink().write(message);
                 }
-                task.getSink().write(message);
             }
         }, executorService);
     }
@@ -128,7 +149,10 @@ public class TaskWrapper extends AbstractStateWrapper {
      * submit reader/writer
      */
     private void submitThreadsAndWait() {
-        CompletableFuture<?> reader = submitReadThread();
+        FileTailer fileTailer = taskManager == null ? null : taskManager.getFileTailer();
+        // tailable readers are read by the shared tailer instead of a dedicated thread
+        CompletableFuture<?> reader = fileTailer != null && task.getReader() instanceof TailableReader
+                ? fileTailer.submit(this) : submitReadThread();
         CompletableFuture<?> writer = submitWriteThread();
         CompletableFuture.allOf(reader, writer)
                 .exceptionally(ex -> {
@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.task;
+
+import org.apache.inlong.agent.conf.AgentConfiguration;
+import org.apache.inlong.agent.conf.JobProfile;
+import org.apache.inlong.agent.constant.AgentConstants;
+import org.apache.inlong.agent.core.AgentBaseTestsHelper;
+import org.apache.inlong.agent.core.AgentManager;
+import org.apache.inlong.agent.core.task.FileTailer;
+import org.apache.inlong.agent.core.task.Task;
+import org.apache.inlong.agent.core.task.TaskWrapper;
+import org.apache.inlong.agent.message.DefaultMessage;
+import org.apache.inlong.agent.message.EndMessage;
+import org.apache.inlong.agent.plugin.Channel;
+import org.apache.inlong.agent.plugin.Message;
+import org.apache.inlong.agent.plugin.TailableReader;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+
+public class TestFileTailer {
+
+    private static final int WAIT_SECONDS = 10;
+
+    private static AgentManager manager;
+    private static AgentBaseTestsHelper helper;
+    private FileTailer tailer;
+
+    @BeforeClass
+    public static void setup() {
+        helper = new AgentBaseTestsHelper(TestFileTailer.class.getName()).setupAgentHome();
+        manager = new AgentManager();
+    }
+
+    @AfterClass
+    public static void teardown() throws Exception {
+        manager.stop();
+        helper.teardownAgentHome();
+    }
+
+    @After
+    public void stopTailer() throws Exception {
+        if (tailer != null) {
+            tailer.stop();
+        }
+    }
+
+    private FileTailer startTailer(int checkInterval) throws Exception {
+        AgentConfiguration.getAgentConf().set(AgentConstants.TASK_TAILER_WORKER_NUM, "2");
+        AgentConfiguration.getAgentConf().set(AgentConstants.TASK_TAILER_CHECK_INTERVAL,
+                String.valueOf(checkInterval));
+        tailer = new FileTailer();
+        tailer.start();
+        return tailer;
+    }
+
+    private static TaskWrapper createWrapper(String taskId, TailableReaderImpl reader, ChannelImpl channel) {
+        Task task = new Task(taskId, reader, null, channel, JobProfile.parseJsonStr(""));
+        return new TaskWrapper(manager, task);
+    }
+
+    private static Path createFile(String name) throws Exception {
+        Path file = helper.getTestRootDir().resolve(name);
+        Files.write(file, new byte[0]);
+        return file;
+    }
+
+    private static void assertBodies(List<Message> messages, String... bodies) {
+        Assert.assertEquals(bodies.length, messages.size());
+        for (int i = 0; i < bodies.length; i++) {
+            Assert.assertEquals(bodies[i], new String(messages.get(i).getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testTailToFinish() throws Exception {
+        startTailer(1);
+        TailableReaderImpl reader = new TailableReaderImpl(createFile("testTailToFinish.log"));
+        ChannelImpl channel = new ChannelImpl();
+        reader.add("1", "2", "3");
+        CompletableFuture<Void> future = tailer.submit(createWrapper("testTailToFinish", reader, channel));
+
+        await().atMost(WAIT_SECONDS, TimeUnit.SECONDS).until(() -> channel.getMessages().size() == 3);
+        Assert.assertFalse(future.isDone());
+        // the finished reader is found by the periodic check, end message follows the data
+        reader.finished = true;
+        future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        List<Message> messages = channel.getMessages();
+        Assert.assertEquals(4, messages.size());
+        assertBodies(messages.subList(0, 3), "1", "2", "3");
+        Assert.assertTrue(messages.get(3) instanceof EndMessage);
+        Assert.assertTrue(reader.destroyed);
+    }
+
+    @Test
+    public void testRequeueWhenChannelFull() throws Exception {
+        startTailer(1);
+        TailableReaderImpl reader = new TailableReaderImpl(createFile("testRequeueWhenChannelFull.log"));
+        ChannelImpl channel = new ChannelImpl();
+        channel.full = true;
+        reader.add("1", "2", "3");
+        CompletableFuture<Void> future = tailer.submit(createWrapper("testRequeueWhenChannelFull", reader, channel));
+
+        // the entry is put back to try again later, without reading more or losing what is read
+        await().atMost(WAIT_SECONDS, TimeUnit.SECONDS).until(() -> channel.pushAttempts.get() >= 3);
+        Assert.assertTrue(channel.getMessages().isEmpty());
+        Assert.assertFalse(future.isDone());
+
+        channel.full = false;
+        await().atMost(WAIT_SECONDS, TimeUnit.SECONDS).until(() -> channel.getMessages().size() == 3);
+        assertBodies(channel.getMessages(), "1", "2", "3");
+        reader.finished = true;
+        future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        Assert.assertTrue(channel.getMessages().get(3) instanceof EndMessage);
+    }
+
+    @Test
+    public void testSignalOnModification() throws Exception {
+        // no periodic check in the test, only modification of the file wakes up the reader
+        startTailer(3600);
+        Path file = createFile("testSignalOnModification.log");
+        TailableReaderImpl reader = new TailableReaderImpl(file);
+        ChannelImpl channel = new ChannelImpl();
+        tailer.submit(createWrapper("testSignalOnModification", reader, channel));
+        await().atMost(WAIT_SECONDS, TimeUnit.SECONDS).until(() -> reader.pollCount.get() > 0);
+
+        reader.add("1");
+        Files.write(file, "1\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        await().atMost(WAIT_SECONDS, TimeUnit.SECONDS).until(() -> channel.getMessages().size() == 1);
+
+        // a file in the same directory which is not tailed does not wake up the reader
+        int pollCount = reader.pollCount.get();
+        reader.add("2");
+        Files.write(createFile("testSignalOnModification.other"), "2\n".getBytes(StandardCharsets.UTF_8));
+        TimeUnit.SECONDS.sleep(1);
+        Assert.assertEquals(pollCount, reader.pollCount.get());
+
+        Files.write(file, "2\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        await().atMost(WAIT_SECONDS, TimeUnit.SECONDS).until(() -> channel.getMessages().size() == 2);
+        assertBodies(channel.getMessages(), "1", "2");
+    }
+
+    @Test
+    public void testSourceNotExist() throws Exception {
+        startTailer(1);
+        TailableReaderImpl reader = new TailableReaderImpl(createFile("testSourceNotExist.log"));
+        ChannelImpl channel = new ChannelImpl();
+        reader.sourceExist = false;
+        TaskWrapper wrapper = createWrapper("testSourceNotExist", reader, channel);
+        CompletableFuture<Void> future = tailer.submit(wrapper);
+
+        future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        Assert.assertTrue(wrapper.isFailed());
+        Assert.assertEquals(1, channel.getMessages().size());
+        Assert.assertTrue(channel.getMessages().get(0) instanceof EndMessage);
+        Assert.assertTrue(reader.destroyed);
+    }
+
+    @Test
+    public void testReadException() throws Exception {
+        startTailer(1);
+        TailableReaderImpl reader = new TailableReaderImpl(createFile("testReadException.log"));
+        ChannelImpl channel = new ChannelImpl();
+        reader.add("1");
+        reader.exception = true;
+        TaskWrapper wrapper = createWrapper("testReadException", reader, channel);
+        CompletableFuture<Void> future = tailer.submit(wrapper);
+
+        // messages read before the exception are not pushed as the task failed
+        future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        Assert.assertTrue(wrapper.isFailed());
+        Assert.assertEquals(1, channel.getMessages().size());
+        Assert.assertTrue(channel.getMessages().get(0) instanceof EndMessage);
+        Assert.assertTrue(reader.destroyed);
+    }
+
+    private static class ChannelImpl implements Channel {
+
+        private final List<Message> messages = new CopyOnWriteArrayList<>();
+        private final AtomicInteger pushAttempts = new AtomicInteger(0);
+        private volatile boolean full = false;
+
+        public List<Message> getMessages() {
+            return messages;
+        }
+
+        @Override
+        public void push(Message message) {
+            messages.add(message);
+        }
+
+        @Override
+        public boolean push(Message message, long timeout, TimeUnit unit) {
+            if (full) {
+                return false;
+            }
+            messages.add(message);
+            return true;
+        }
+
+        @Override
+        public int pushBatch(List<Message> batch, long timeout, TimeUnit unit) {
+            pushAttempts.incrementAndGet();
+            return Channel.super.pushBatch(batch, timeout, unit);
+        }
+
+        @Override
+        public Message pull(long timeout, TimeUnit unit) {
+            return null;
+        }
+
+        @Override
+        public void init(JobProfile jobConf) {
+
+        }
+
+        @Override
+        public void destroy() {
+
+        }
+    }
+
+    private static class TailableReaderImpl implements TailableReader {
+
+        private final Path file;
+        private final Queue<Message> data = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pollCount = new AtomicInteger(0);
+        private volatile boolean finished = false;
+        private volatile boolean sourceExist = true;
+        private volatile boolean exception = false;
+        private volatile boolean destroyed = false;
+
+        private TailableReaderImpl(Path file) {
+            this.file = file;
+        }
+
+        private void add(String... bodies) {
+            for (String body : bodies) {
+                data.add(new DefaultMessage(body.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        @Override
+        public Path getTailedFile() {
+            return file;
+        }
+
+        @Override
+        public Message poll() {
+            pollCount.incrementAndGet();
+            Message message = data.poll();
+            if (message == null && exception) {
+                throw new IllegalStateException("mock read exception");
+            }
+            return message;
+        }
+
+        @Override
+        public Message read() {
+            return poll();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public String getReadSource() {
+            return file.toString();
+        }
+
+        @Override
+        public void setReadTimeout(long mill) {
+
+        }
+
+        @Override
+        public void setWaitMillisecs(long millis) {
+
+        }
+
+        @Override
+        public String getSnapshot() {
+            return null;
+        }
+
+        @Override
+        public void finishRead() {
+            finished = true;
+        }
+
+        @Override
+        public boolean isSourceExist() {
+            return sourceExist;
+        }
+
+        @Override
+        public void init(JobProfile jobConf) {
+
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+}
@@ -29,12 +29,21 @@ import org.apache.inlong.agent.utils.ConfigUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * memory channel
+ * memory channel, a bounded ring buffer with one writer thread and one reader thread at a time,
+ * which is how task uses the channel. Writer and reader don't take any lock, and wait for each other
+ * by parking only when the ring is full or empty.
+ *
+ * <p>Besides the slot number, the ring is bounded by the bytes of message bodies. A message larger
+ * than the byte capacity is still accepted when the ring is empty.
  */
 public class MemoryChannel implements Channel {
 
@@ -43,7 +52,16 @@ public class MemoryChannel implements Channel {
     private static final String MEMORY_CHANNEL_TAG_NAME = "AgentMemoryPlugin";
     private static AtomicLong metricsIndex = new AtomicLong(0);
     private final PluginMetric pluginMetricNew;
-    private LinkedBlockingQueue<Message> queue;
+    private Message[] ring;
+    private int mask;
+    private long byteCapacity;
+    // next slot to read, only written by reader
+    private final AtomicLong head = new AtomicLong(0);
+    // next slot to write, only written by writer
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong bytes = new AtomicLong(0);
+    private volatile Thread waitingWriter;
+    private volatile Thread waitingReader;
 
     public MemoryChannel() {
         if (ConfigUtil.isPrometheusEnabled()) {
@@ -57,64 +75,166 @@ public class MemoryChannel implements Channel {
 
     @Override
     public void push(Message message) {
-        try {
-            if (message != null) {
-                pluginMetricNew.incReadNum();
-                queue.put(message);
+        if (message != null) {
+            pluginMetricNew.incReadNum();
+            if (pushBatch(Collections.singletonList(message), Long.MAX_VALUE, TimeUnit.NANOSECONDS) == 1) {
                 pluginMetricNew.incReadSuccessNum();
+            } else {
+                pluginMetricNew.incReadFailedNum();
             }
-        } catch (InterruptedException ex) {
-            pluginMetricNew.incReadFailedNum();
-            Thread.currentThread().interrupt();
         }
     }
 
     @Override
     public boolean push(Message message, long timeout, TimeUnit unit) {
+        if (message != null) {
+            pluginMetricNew.incReadNum();
+            boolean result = pushBatch(Collections.singletonList(message), timeout, unit) == 1;
+            if (result) {
+                pluginMetricNew.incReadSuccessNum();
+            } else {
+                pluginMetricNew.incReadFailedNum();
+            }
+            return result;
+        }
+        return false;
+    }
+
+    @Override
+    public int pushBatch(List<Message> messages, long timeout, TimeUnit unit) {
+        long deadline = deadline(timeout, unit);
+        long currentTail = tail.get();
+        int count = 0;
+        while (count < messages.size()) {
+            Message message = messages.get(count);
+            int size = message.getBody() == null ? 0 : message.getBody().length;
+            if (!hasRoom(currentTail, size)) {
+                // make written messages visible before waiting for room
+                publish(currentTail);
+                if (!waitForRoom(currentTail, size, deadline)) {
+                    break;
+                }
+            }
+            ring[(int) currentTail & mask] = message;
+            bytes.addAndGet(size);
+            currentTail++;
+            count++;
+        }
+        publish(currentTail);
+        return count;
+    }
+
+    private boolean hasRoom(long currentTail, int size) {
+        long currentHead = head.get();
+        if (currentTail - currentHead >= ring.length) {
+            return false;
+        }
+        return currentTail == currentHead || bytes.get() + size <= byteCapacity;
+    }
+
+    private boolean waitForRoom(long currentTail, int size, long deadline) {
+        waitingWriter = Thread.currentThread();
         try {
-            if (message != null) {
-                pluginMetricNew.incReadNum();
-                boolean result = queue.offer(message, timeout, unit);
-                if (result) {
-                    pluginMetricNew.incReadSuccessNum();
-                } else {
-                    pluginMetricNew.incReadFailedNum();
+            while (!hasRoom(currentTail, size)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || Thread.currentThread().isInterrupted()) {
+                    return false;
                 }
-                return result;
+                LockSupport.parkNanos(this, remaining);
+            }
+            return true;
+        } finally {
+            waitingWriter = null;
+        }
+    }
+
+    private void publish(long currentTail) {
+        if (tail.get() != currentTail) {
+            tail.set(currentTail);
+            Thread reader = waitingReader;
+            if (reader != null) {
+                LockSupport.unpark(reader);
             }
-        } catch (InterruptedException ex) {
-            pluginMetricNew.incReadFailedNum();
-            Thread.currentThread().interrupt();
         }
-        return false;
     }
 
     @Override
     public Message pull(long timeout, TimeUnit unit) {
+        List<Message> messages = pullBatch(1, timeout, unit);
+        return messages.isEmpty() ? null : messages.get(0);
+    }
+
+    @Override
+    public List<Message> pullBatch(int maxSize, long timeout, TimeUnit unit) {
+        long currentHead = head.get();
+        if (tail.get() == currentHead && !waitForMessage(currentHead, deadline(timeout, unit))) {
+            if (Thread.currentThread().isInterrupted()) {
+                pluginMetricNew.incSendFailedNum();
+                throw new IllegalStateException("interrupted while pulling from channel");
+            }
+            return Collections.emptyList();
+        }
+        long available = Math.min(tail.get() - currentHead, maxSize);
+        List<Message> messages = new ArrayList<>((int) available);
+        long pulledBytes = 0;
+        for (long i = 0; i < available; i++) {
+            int index = (int) (currentHead + i) & mask;
+            Message message = ring[index];
+            ring[index] = null;
+            pulledBytes += message.getBody() == null ? 0 : message.getBody().length;
+            messages.add(message);
+            pluginMetricNew.incSendSuccessNum();
+        }
+        bytes.addAndGet(-pulledBytes);
+        head.set(currentHead + available);
+        Thread writer = waitingWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+        return messages;
+    }
+
+    private boolean waitForMessage(long currentHead, long deadline) {
+        waitingReader = Thread.currentThread();
         try {
-            Message message = queue.poll(timeout, unit);
-            if (message != null) {
-                pluginMetricNew.incSendSuccessNum();
+            while (tail.get() == currentHead) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
             }
-            return message;
-        } catch (InterruptedException ex) {
-            pluginMetricNew.incSendFailedNum();
-            Thread.currentThread().interrupt();
-            throw new IllegalStateException(ex);
+            return true;
+        } finally {
+            waitingReader = null;
         }
     }
 
+    private static long deadline(long timeout, TimeUnit unit) {
+        long now = System.nanoTime();
+        long nanos = unit.toNanos(timeout);
+        // avoid overflow when waiting forever
+        return nanos > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + nanos;
+    }
+
     @Override
     public void init(JobProfile jobConf) {
-        queue = new LinkedBlockingQueue<>(
-                jobConf.getInt(AgentConstants.CHANNEL_MEMORY_CAPACITY,
-                        AgentConstants.DEFAULT_CHANNEL_MEMORY_CAPACITY));
+        int capacity = jobConf.getInt(AgentConstants.CHANNEL_MEMORY_CAPACITY,
+                AgentConstants.DEFAULT_CHANNEL_MEMORY_CAPACITY);
+        // round up to power of two so that slot is located by mask
+        int slots = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        ring = new Message[slots];
+        mask = slots - 1;
+        byteCapacity = jobConf.getLong(AgentConstants.CHANNEL_MEMORY_CAPACITY_BYTES,
+                AgentConstants.DEFAULT_CHANNEL_MEMORY_CAPACITY_BYTES);
     }
 
     @Override
     public void destroy() {
-        if (queue != null) {
-            queue.clear();
+        if (ring != null) {
+            Arrays.fill(ring, null);
+            head.set(tail.get());
+            bytes.set(0);
         }
         LOGGER.info("destroy channel, memory channel metric, readNum: {}, readSuccessNum: {}, "
                         + "readFailedNum: {}, sendSuccessNum: {}, sendFailedNum: {}",
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.message;
+
+import org.apache.inlong.sdk.dataproxy.codec.EncodedBatch;
+
+import java.util.List;
+
+/**
+ * Batch of proxy message fetched from {@link PackProxyMessage}, with the source progress
+ * which is committed when the batch is acked by proxy.
+ */
+public class BatchProxyMessage {
+
+    private final String streamId;
+    // released once the batch is encoded
+    private volatile List<byte[]> dataList;
+    private final int messageCount;
+    // body encoded once, and reused when the batch is sent again
+    private volatile EncodedBatch encodedBatch;
+    // offset sequences of the messages, see OffsetWatermark
+    private final long[] offsetSeqs;
+    // total bytes of the messages
+    private final long dataSize;
+    // time of the earliest message entering sink
+    private final long createTime;
+
+    public BatchProxyMessage(String streamId, List<byte[]> dataList, long[] offsetSeqs,
+            long dataSize, long createTime) {
+        this.streamId = streamId;
+        this.dataList = dataList;
+        this.messageCount = dataList.size();
+        this.offsetSeqs = offsetSeqs;
+        this.dataSize = dataSize;
+        this.createTime = createTime;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public List<byte[]> getDataList() {
+        return dataList;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public EncodedBatch getEncodedBatch() {
+        return encodedBatch;
+    }
+
+    /**
+     * keep the encoded body instead of the data list, the data list is null afterwards
+     */
+    public void setEncodedBatch(EncodedBatch encodedBatch) {
+        this.encodedBatch = encodedBatch;
+        this.dataList = null;
+    }
+
+    public long[] getOffsetSeqs() {
+        return offsetSeqs;
+    }
+
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+}
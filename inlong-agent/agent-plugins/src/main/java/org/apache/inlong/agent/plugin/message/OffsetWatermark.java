@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.message;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongConsumer;
+
+/**
+ * Track acks of messages whose source offsets can only be committed in order, such as binlog.
+ * The reader takes a sequence for each message and puts it to the {@code offsetSeq} header,
+ * the sink acks the sequences of a batch once proxy accepts it. As batches of different
+ * stream keys are acked out of order, the watermark is the max sequence that all messages
+ * up to it are acked, offsets up to the watermark are safe to commit.
+ * A reader whose position is saved by the sink, such as text file, takes a sequence with the
+ * source position after each message, the position of the watermark is handed to the sink on ack.
+ */
+public class OffsetWatermark {
+
+    // key is job instance id and read source, as readers of a job share the instance id
+    private static final ConcurrentHashMap<String, OffsetWatermark> WATERMARKS = new ConcurrentHashMap<>();
+
+    private long nextSeq = 0;
+    private final ConcurrentSkipListSet<Long> unacked = new ConcurrentSkipListSet<>();
+    // source position after the message of each sequence, until the watermark passes the sequence
+    private final ConcurrentSkipListMap<Long, Long> positions = new ConcurrentSkipListMap<>();
+    // source position of the watermark, -1 if not tracked
+    private long position;
+
+    private OffsetWatermark(long position) {
+        this.position = position;
+    }
+
+    /**
+     * register watermark of reader, acks of the reader from sink are routed to it.
+     */
+    public static OffsetWatermark register(String jobInstanceId, String readSource) {
+        return register(jobInstanceId, readSource, -1L);
+    }
+
+    /**
+     * register watermark of reader whose position is saved by the sink
+     *
+     * @param position source position the reader starts from
+     */
+    public static OffsetWatermark register(String jobInstanceId, String readSource, long position) {
+        OffsetWatermark watermark = new OffsetWatermark(position);
+        WATERMARKS.put(getKey(jobInstanceId, readSource), watermark);
+        return watermark;
+    }
+
+    public static void unregister(String jobInstanceId, String readSource) {
+        WATERMARKS.remove(getKey(jobInstanceId, readSource));
+    }
+
+    /**
+     * ack sequences of reader, ignored if no watermark registered for the reader.
+     */
+    public static void ack(String jobInstanceId, String readSource, long[] seqs) {
+        if (seqs == null || seqs.length == 0) {
+            return;
+        }
+        OffsetWatermark watermark = WATERMARKS.get(getKey(jobInstanceId, readSource));
+        if (watermark != null) {
+            watermark.ack(seqs);
+        }
+    }
+
+    /**
+     * ack sequences of reader, and hand the source position of the watermark to the listener if it moves.
+     * Positions are handed over in order, so the listener never goes back to an older position.
+     */
+    public static void ack(String jobInstanceId, String readSource, long[] seqs, LongConsumer positionListener) {
+        if (seqs == null || seqs.length == 0) {
+            return;
+        }
+        OffsetWatermark watermark = WATERMARKS.get(getKey(jobInstanceId, readSource));
+        if (watermark != null) {
+            watermark.ack(seqs, positionListener);
+        }
+    }
+
+    private static String getKey(String jobInstanceId, String readSource) {
+        return jobInstanceId + "/" + readSource;
+    }
+
+    /**
+     * take the next sequence, it's unacked until {@link #ack(long[])}
+     */
+    public synchronized long next() {
+        long seq = nextSeq++;
+        unacked.add(seq);
+        return seq;
+    }
+
+    /**
+     * take the next sequence of the message which ends at the source position
+     */
+    public synchronized long next(long position) {
+        long seq = next();
+        positions.put(seq, position);
+        return seq;
+    }
+
+    public void ack(long[] seqs) {
+        for (long seq : seqs) {
+            unacked.remove(seq);
+        }
+    }
+
+    private synchronized void ack(long[] seqs, LongConsumer positionListener) {
+        ack(seqs);
+        Map.Entry<Long, Long> covered = positions.floorEntry(getWatermark());
+        if (covered == null) {
+            return;
+        }
+        positions.headMap(covered.getKey(), true).clear();
+        position = covered.getValue();
+        positionListener.accept(position);
+    }
+
+    /**
+     * Get the source position that all messages before it are acked
+     *
+     * @return position, -1 if not tracked
+     */
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    /**
+     * Get the max sequence that all sequences not greater than it are acked
+     *
+     * @return watermark, -1 if no sequence is acked in order
+     */
+    public synchronized long getWatermark() {
+        Long lowest = unacked.ceiling(Long.MIN_VALUE);
+        return lowest == null ? nextSeq - 1 : lowest - 1;
+    }
+}
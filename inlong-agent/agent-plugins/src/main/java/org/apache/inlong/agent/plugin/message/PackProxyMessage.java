@@ -17,7 +17,6 @@
 
 package org.apache.inlong.agent.plugin.message;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.inlong.agent.message.ProxyMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -50,6 +50,10 @@ public class PackProxyMessage {
      */
     private Map<String, String> extraMap = new HashMap<>();
     private volatile long currentCacheTime = System.currentTimeMillis();
+    // whether a flush deadline is scheduled
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // whether the batch is being flushed, batches of the same key are fetched by one thread at a time
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
 
     /**
      * Init PackBusMessage
@@ -98,6 +102,46 @@ public class PackProxyMessage {
         }
     }
 
+    /**
+     * Check whether a batch can be fetched without waiting for timeout
+     */
+    public boolean isFull() {
+        return queueSize.get() > maxPackSize || queueIsFull();
+    }
+
+    /**
+     * Get delay until the cached messages time out
+     */
+    public long getFlushDelayMs() {
+        return Math.max(0, currentCacheTime + cacheTimeout - System.currentTimeMillis());
+    }
+
+    /**
+     * @return true if no flush deadline was scheduled, the caller should schedule it
+     */
+    public boolean markFlushScheduled() {
+        return flushScheduled.compareAndSet(false, true);
+    }
+
+    public void clearFlushScheduled() {
+        flushScheduled.set(false);
+    }
+
+    /**
+     * @return true if the batch is not being flushed, the caller owns the flush until {@link #endFlush()}
+     */
+    public boolean tryStartFlush() {
+        return flushing.compareAndSet(false, true);
+    }
+
+    public void endFlush() {
+        flushing.set(false);
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
     /**
      * check message queue is empty or not
      */
@@ -108,22 +152,23 @@ public class PackProxyMessage {
     /**
      * Fetch batch of proxy message, timeout message or max number of list satisfied.
      *
-     * @return map of message list, key is stream id for the batch; return null if there are no valid messages.
+     * @return batch of message, null if there are no valid messages.
      */
-    public Pair<String, List<byte[]>> fetchBatch() {
+    public BatchProxyMessage fetchBatch() {
         // if queue is nearly full or package size is satisfied or timeout
         long currentTime = System.currentTimeMillis();
-        if (queueSize.get() > maxPackSize || queueIsFull()
-                || currentTime - currentCacheTime > cacheTimeout) {
+        if (isFull() || currentTime - currentCacheTime >= cacheTimeout) {
             // refresh cache time.
             currentCacheTime = currentTime;
             long resultBatchSize = 0;
+            long createTime = currentTime;
             List<byte[]> result = new ArrayList<>();
+            List<Long> offsetSeqs = new ArrayList<>();
             while (!messageQueue.isEmpty()) {
-                // pre check message size
+                // pre check message size, a message larger than pack size is sent alone
                 ProxyMessage peekMessage = messageQueue.peek();
-                if (peekMessage == null
-                        || resultBatchSize + peekMessage.getBody().length > maxPackSize) {
+                if (peekMessage == null || !result.isEmpty()
+                        && resultBatchSize + peekMessage.getBody().length > maxPackSize) {
                     break;
                 }
                 ProxyMessage message = messageQueue.remove();
@@ -132,12 +177,17 @@ public class PackProxyMessage {
                     resultBatchSize += bodySize;
                     // decrease queue size.
                     queueSize.addAndGet(-bodySize);
+                    createTime = Math.min(createTime, message.getCreateTime());
+                    if (message.getOffsetSeq() >= 0) {
+                        offsetSeqs.add(message.getOffsetSeq());
+                    }
                     result.add(message.getBody());
                 }
             }
             // make sure result is not empty.
             if (!result.isEmpty()) {
-                return Pair.of(streamId, result);
+                return new BatchProxyMessage(streamId, result,
+                        offsetSeqs.stream().mapToLong(Long::longValue).toArray(), resultBatchSize, createTime);
             }
         }
         return null;
@@ -39,6 +39,25 @@ public class SinkJmxMetric extends MetricItem implements SinkMetrics {
     @Metric
     private final AtomicLong sourceFailCounter = new AtomicLong(0);
 
+    // distributions are exposed by prometheus, jmx only keeps the count and sum to get the average
+    @Metric
+    private final AtomicLong sinkLagCounter = new AtomicLong(0);
+
+    @Metric
+    private final AtomicLong sinkLagMsSum = new AtomicLong(0);
+
+    @Metric
+    private final AtomicLong batchFillCounter = new AtomicLong(0);
+
+    @Metric
+    private final AtomicLong batchFillPercentSum = new AtomicLong(0);
+
+    @Metric
+    private final AtomicLong encodeCpuNanosSum = new AtomicLong(0);
+
+    @Metric
+    private final AtomicLong encodedBytesSum = new AtomicLong(0);
+
     public SinkJmxMetric(String tagName) {
         this.tagName = tagName;
         MetricRegister.register(this);
@@ -68,4 +87,22 @@ public class SinkJmxMetric extends MetricItem implements SinkMetrics {
     public long getSinkFailCount() {
         return sourceFailCounter.get();
     }
+
+    @Override
+    public void observeSinkLag(long lagMs) {
+        sinkLagCounter.incrementAndGet();
+        sinkLagMsSum.addAndGet(Math.max(lagMs, 0L));
+    }
+
+    @Override
+    public void observeBatchFill(double fillRatio) {
+        batchFillCounter.incrementAndGet();
+        batchFillPercentSum.addAndGet(Math.round(fillRatio * 100));
+    }
+
+    @Override
+    public void observeEncode(long cpuNanos, long encodedBytes) {
+        encodeCpuNanosSum.addAndGet(cpuNanos);
+        encodedBytesSum.addAndGet(encodedBytes);
+    }
 }
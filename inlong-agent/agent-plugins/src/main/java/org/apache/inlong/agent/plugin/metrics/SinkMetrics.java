@@ -46,4 +46,20 @@ public interface SinkMetrics {
      */
     long getSinkFailCount();
 
+    /**
+     * Observe the lag from a message entering agent sink to its batch being acked, in milliseconds.
+     */
+    void observeSinkLag(long lagMs);
+
+    /**
+     * Observe the fill ratio of a batch sent, which is the batch size divided by the max batch size.
+     */
+    void observeBatchFill(double fillRatio);
+
+    /**
+     * Observe the cpu time spent to encode a batch and the bytes of the encoded batch,
+     * their sums give the cpu time per byte shipped.
+     */
+    void observeEncode(long cpuNanos, long encodedBytes);
+
 }
@@ -20,6 +20,7 @@
 package org.apache.inlong.agent.plugin.metrics;
 
 import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
 
 public class SinkPrometheusMetrics implements SinkMetrics {
 
@@ -27,6 +28,10 @@ public class SinkPrometheusMetrics implements SinkMetrics {
 
     public static final String SINK_SUCCESS_COUNTER_NAME = "success_count";
     public static final String SINK_FAIL_COUNTER_NAME = "fail_count";
+    public static final String SINK_LAG_HISTOGRAM_NAME = "lag_seconds";
+    public static final String BATCH_FILL_HISTOGRAM_NAME = "batch_fill_ratio";
+    public static final String ENCODE_CPU_COUNTER_NAME = "encode_cpu_seconds";
+    public static final String ENCODED_BYTES_COUNTER_NAME = "encoded_bytes";
 
     private final String tagName;
 
@@ -42,6 +47,32 @@ public class SinkPrometheusMetrics implements SinkMetrics {
             .labelNames("tag")
             .register();
 
+    private static final Histogram SINK_LAG_HISTOGRAM = Histogram.build()
+            .name(AGENT_SINK_METRICS_PREFIX + SINK_LAG_HISTOGRAM_NAME)
+            .help("The lag from a message entering agent sink to its batch being acked.")
+            .labelNames("tag")
+            .buckets(0.01, 0.05, 0.1, 0.5, 1, 2.5, 5, 10, 30, 60, 300)
+            .register();
+
+    private static final Histogram BATCH_FILL_HISTOGRAM = Histogram.build()
+            .name(AGENT_SINK_METRICS_PREFIX + BATCH_FILL_HISTOGRAM_NAME)
+            .help("The size of batches sent by agent sink divided by the max batch size.")
+            .labelNames("tag")
+            .buckets(0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1)
+            .register();
+
+    private static final Counter ENCODE_CPU_COUNTER = Counter.build()
+            .name(AGENT_SINK_METRICS_PREFIX + ENCODE_CPU_COUNTER_NAME)
+            .help("The cpu time spent by agent sink to encode batches.")
+            .labelNames("tag")
+            .register();
+
+    private static final Counter ENCODED_BYTES_COUNTER = Counter.build()
+            .name(AGENT_SINK_METRICS_PREFIX + ENCODED_BYTES_COUNTER_NAME)
+            .help("The bytes of batches encoded by agent sink.")
+            .labelNames("tag")
+            .register();
+
     public SinkPrometheusMetrics(String tagName) {
         this.tagName = tagName;
     }
@@ -70,4 +101,20 @@ public class SinkPrometheusMetrics implements SinkMetrics {
     public long getSinkFailCount() {
         return (long) SINK_FAIL_COUNTER.labels(tagName).get();
     }
+
+    @Override
+    public void observeSinkLag(long lagMs) {
+        SINK_LAG_HISTOGRAM.labels(tagName).observe(Math.max(lagMs, 0L) / 1000.0);
+    }
+
+    @Override
+    public void observeBatchFill(double fillRatio) {
+        BATCH_FILL_HISTOGRAM.labels(tagName).observe(fillRatio);
+    }
+
+    @Override
+    public void observeEncode(long cpuNanos, long encodedBytes) {
+        ENCODE_CPU_COUNTER.labels(tagName).inc(cpuNanos / 1e9);
+        ENCODED_BYTES_COUNTER.labels(tagName).inc(encodedBytes);
+    }
 }
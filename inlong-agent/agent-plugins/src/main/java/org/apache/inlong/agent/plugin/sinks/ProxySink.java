@@ -17,8 +17,8 @@
 
 package org.apache.inlong.agent.plugin.sinks;
 
-import org.apache.commons.lang3.tuple.Pair;
-import org.apache.inlong.agent.common.AgentThreadFactory;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.apache.inlong.agent.conf.JobProfile;
 import org.apache.inlong.agent.constant.CommonConstants;
 import org.apache.inlong.agent.message.EndMessage;
@@ -26,22 +26,29 @@ import org.apache.inlong.agent.message.ProxyMessage;
 import org.apache.inlong.agent.metrics.audit.AuditUtils;
 import org.apache.inlong.agent.plugin.Message;
 import org.apache.inlong.agent.plugin.MessageFilter;
+import org.apache.inlong.agent.plugin.message.BatchProxyMessage;
 import org.apache.inlong.agent.plugin.message.PackProxyMessage;
 import org.apache.inlong.agent.utils.AgentUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.inlong.agent.constant.CommonConstants.DEFAULT_FIELD_SPLITTER;
+import static org.apache.inlong.agent.constant.CommonConstants.DEFAULT_PROXY_INFLIGHT_WINDOW;
+import static org.apache.inlong.agent.constant.CommonConstants.DEFAULT_PROXY_SINK_DESTROY_TIMEOUT_MS;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INFLIGHT_WINDOW;
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_SEND_SYNC;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_SINK_DESTROY_TIMEOUT_MS;
 import static org.apache.inlong.agent.constant.JobConstants.DEFAULT_PROXY_BATCH_FLUSH_INTERVAL;
 import static org.apache.inlong.agent.constant.JobConstants.DEFAULT_PROXY_INLONG_STREAM_ID_QUEUE_MAX_NUMBER;
 import static org.apache.inlong.agent.constant.JobConstants.DEFAULT_PROXY_PACKAGE_MAX_SIZE;
@@ -53,16 +60,29 @@ import static org.apache.inlong.agent.constant.JobConstants.PROXY_PACKAGE_MAX_SI
 import static org.apache.inlong.agent.constant.JobConstants.PROXY_PACKAGE_MAX_TIMEOUT_MS;
 
 /**
- * sink message data to inlong-dataproxy
+ * sink message data to inlong-dataproxy.
+ *
+ * <p>Each batch key is flushed independently, once its batch is full or on its deadline in the
+ * timer wheel. Batches of a stream are sent within an in-flight window, the stream waits for
+ * acks instead of blocking the flush of other streams when the window is full.
  */
 public class ProxySink extends AbstractSink {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProxySink.class);
     private static final String PROXY_SINK_TAG_NAME = "AgentProxySinkMetric";
+    // delay to flush a stream again when its in-flight window is full
+    private static final long WINDOW_FULL_RETRY_MS = 10;
+    private static final int FLUSH_THREAD_NUM = Runtime.getRuntime().availableProcessors();
     private static AtomicLong index = new AtomicLong(0);
-    private final ExecutorService executorService = new ThreadPoolExecutor(1, 1,
-            0L, TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<>(), new AgentThreadFactory("ProxySink"));
+    // sharing the timer and async flush threads between sinks, in case of thread abusing
+    private static final HashedWheelTimer FLUSH_TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("ProxySink-timer", true), 10, TimeUnit.MILLISECONDS);
+    private static final ExecutorService FLUSH_EXECUTOR = new ThreadPoolExecutor(FLUSH_THREAD_NUM,
+            FLUSH_THREAD_NUM, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            new DefaultThreadFactory("ProxySink", true));
+    // batches are encoded in flush threads, the cpu time of encoding is observed per batch
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
     private MessageFilter messageFilter;
     private SenderManager senderManager;
     private byte[] fieldSplitter;
@@ -72,10 +92,15 @@ public class ProxySink extends AbstractSink {
     private int maxBatchTimeoutMs;
     private int batchFlushInterval;
     private int maxQueueNumber;
+    private int inflightWindow;
+    private int destroyTimeoutMs;
     private boolean syncSend;
-    private volatile boolean shutdown = false;
     // key is stream id, value is a batch of messages belong to the same stream id
     private ConcurrentHashMap<String, PackProxyMessage> cache;
+    // key is stream id, value is the permits of batches sent but not acked
+    private ConcurrentHashMap<String, Semaphore> inflightWindows;
+    // sync sends block and sleep on retry, each sync sink flushes in its own thread
+    private ExecutorService syncFlushExecutor;
 
     public ProxySink() {
     }
@@ -90,23 +115,20 @@ public class ProxySink extends AbstractSink {
                 extractStreamFromMessage(message, fieldSplitter);
                 if (!(message instanceof EndMessage)) {
                     ProxyMessage proxyMessage = ProxyMessage.parse(message);
-                    // add proxy message to cache.
-                    cache.compute(proxyMessage.getBatchKey(),
-                            (s, packProxyMessage) -> {
-                                if (packProxyMessage == null) {
-                                    packProxyMessage = new PackProxyMessage(
-                                            maxBatchSize, maxQueueNumber,
-                                            maxBatchTimeoutMs,
-                                            proxyMessage.getInlongStreamId()
-                                    );
-                                    packProxyMessage.generateExtraMap(syncSend,
-                                            proxyMessage.getDataKey());
-                                }
-                                // add message to package proxy
-                                packProxyMessage.addProxyMessage(proxyMessage);
-                                //
-                                return packProxyMessage;
-                            });
+                    String batchKey = proxyMessage.getBatchKey();
+                    PackProxyMessage packProxyMessage = cache.computeIfAbsent(batchKey, key -> {
+                        PackProxyMessage pack = new PackProxyMessage(maxBatchSize, maxQueueNumber,
+                                maxBatchTimeoutMs, proxyMessage.getInlongStreamId());
+                        pack.generateExtraMap(syncSend, proxyMessage.getDataKey());
+                        return pack;
+                    });
+                    // add message to package proxy
+                    packProxyMessage.addProxyMessage(proxyMessage);
+                    if (packProxyMessage.isFull()) {
+                        submitFlush(batchKey, packProxyMessage);
+                    } else {
+                        scheduleFlush(batchKey, packProxyMessage);
+                    }
                     AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_SEND_SUCCESS,
                             inlongGroupId, inlongStreamId, System.currentTimeMillis());
                     // increment the count of successful sinks
@@ -141,38 +163,104 @@ public class ProxySink extends AbstractSink {
     }
 
     /**
-     * flush cache by batch
-     *
-     * @return thread runner
+     * schedule a flush on the deadline of cached messages if not scheduled yet
      */
-    private Runnable flushCache() {
-        return () -> {
-            LOGGER.info("start flush cache thread for {} ProxySink", inlongGroupId);
-            while (!shutdown) {
-                try {
-                    cache.forEach((batchKey, packProxyMessage) -> {
-                        Pair<String, List<byte[]>> result = packProxyMessage.fetchBatch();
-                        if (result != null) {
-                            long sendTime = AgentUtils.getCurrentTime();
-                            if (syncSend) {
-                                senderManager.sendBatchSync(inlongGroupId, result.getKey(), result.getValue(),
-                                        0, sendTime, packProxyMessage.getExtraMap());
-                            } else {
-                                senderManager.sendBatchAsync(jobInstanceId, inlongGroupId, result.getKey(),
-                                        result.getValue(), 0, sendTime);
-                            }
-                            LOGGER.info("send group id {}, message key {},with message size {}, the job id is {}, "
-                                            + "read source is {} sendTime is {} syncSend {}", inlongGroupId, batchKey,
-                                    result.getRight().size(), jobInstanceId, sourceName, sendTime, syncSend);
-                        }
+    private void scheduleFlush(String batchKey, PackProxyMessage packProxyMessage) {
+        if (packProxyMessage.markFlushScheduled()) {
+            FLUSH_TIMER.newTimeout(timeout -> {
+                packProxyMessage.clearFlushScheduled();
+                submitFlush(batchKey, packProxyMessage);
+            }, packProxyMessage.getFlushDelayMs(), TimeUnit.MILLISECONDS);
+        }
+    }
 
-                    });
-                    AgentUtils.silenceSleepInMs(batchFlushInterval);
-                } catch (Exception ex) {
-                    LOGGER.error("error caught", ex);
+    /**
+     * flush batch key in the flush threads, skipped if it's being flushed
+     */
+    private void submitFlush(String batchKey, PackProxyMessage packProxyMessage) {
+        if (packProxyMessage.tryStartFlush()) {
+            ExecutorService executor = syncSend ? syncFlushExecutor : FLUSH_EXECUTOR;
+            executor.execute(() -> flush(batchKey, packProxyMessage));
+        }
+    }
+
+    /**
+     * send batches of the batch key until no batch is ready or the in-flight window is full
+     */
+    private void flush(String batchKey, PackProxyMessage packProxyMessage) {
+        boolean windowFull = false;
+        try {
+            Semaphore window = inflightWindows.computeIfAbsent(packProxyMessage.getStreamId(),
+                    streamId -> new Semaphore(inflightWindow));
+            while (true) {
+                if (!window.tryAcquire()) {
+                    windowFull = true;
+                    break;
+                }
+                BatchProxyMessage batch = packProxyMessage.fetchBatch();
+                if (batch == null) {
+                    window.release();
+                    break;
                 }
+                send(batchKey, packProxyMessage, batch);
             }
-        };
+        } catch (Exception ex) {
+            LOGGER.error("flush batch key {} of job {} error", batchKey, jobInstanceId, ex);
+        } finally {
+            packProxyMessage.endFlush();
+        }
+        // messages may be added while flushing
+        if (windowFull) {
+            FLUSH_TIMER.newTimeout(timeout -> submitFlush(batchKey, packProxyMessage),
+                    WINDOW_FULL_RETRY_MS, TimeUnit.MILLISECONDS);
+        } else if (packProxyMessage.isFull()) {
+            submitFlush(batchKey, packProxyMessage);
+        } else if (!packProxyMessage.isEmpty()) {
+            scheduleFlush(batchKey, packProxyMessage);
+        }
+    }
+
+    private void send(String batchKey, PackProxyMessage packProxyMessage, BatchProxyMessage batch) {
+        double fillRatio = (double) batch.getDataSize() / maxBatchSize;
+        sinkMetric.observeBatchFill(fillRatio);
+        streamMetric.observeBatchFill(fillRatio);
+        long encodeStart = currentCpuNanos();
+        if (senderManager.encodeBatch(batch)) {
+            long cpuNanos = currentCpuNanos() - encodeStart;
+            long encodedBytes = batch.getEncodedBatch().getBody().length;
+            sinkMetric.observeEncode(cpuNanos, encodedBytes);
+            streamMetric.observeEncode(cpuNanos, encodedBytes);
+        }
+        long sendTime = AgentUtils.getCurrentTime();
+        if (syncSend) {
+            senderManager.sendBatchSync(jobInstanceId, inlongGroupId, batch,
+                    0, sendTime, packProxyMessage.getExtraMap());
+        } else {
+            senderManager.sendBatchAsync(jobInstanceId, inlongGroupId, batch, 0, sendTime);
+        }
+        LOGGER.info("send group id {}, message key {},with message size {}, the job id is {}, "
+                        + "read source is {} sendTime is {} syncSend {}", inlongGroupId, batchKey,
+                batch.getMessageCount(), jobInstanceId, sourceName, sendTime, syncSend);
+    }
+
+    /**
+     * cpu time of the current thread, or the wall time if cpu time is not supported
+     */
+    private static long currentCpuNanos() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * release the in-flight slot of the batch and observe the sink lag
+     */
+    private void onBatchFinished(BatchProxyMessage batch) {
+        Semaphore window = inflightWindows.get(batch.getStreamId());
+        if (window != null) {
+            window.release();
+        }
+        long lag = System.currentTimeMillis() - batch.getCreateTime();
+        sinkMetric.observeSinkLag(lag);
+        streamMetric.observeSinkLag(lag);
     }
 
     @Override
@@ -188,12 +276,19 @@ public class ProxySink extends AbstractSink {
         jobInstanceId = jobConf.get(JOB_INSTANCE_ID);
         batchFlushInterval = jobConf.getInt(PROXY_BATCH_FLUSH_INTERVAL,
                 DEFAULT_PROXY_BATCH_FLUSH_INTERVAL);
+        inflightWindow = jobConf.getInt(PROXY_INFLIGHT_WINDOW, DEFAULT_PROXY_INFLIGHT_WINDOW);
+        destroyTimeoutMs = jobConf.getInt(PROXY_SINK_DESTROY_TIMEOUT_MS, DEFAULT_PROXY_SINK_DESTROY_TIMEOUT_MS);
+        if (syncSend) {
+            syncFlushExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), new DefaultThreadFactory("ProxySink-sync-" + jobInstanceId, true));
+        }
         cache = new ConcurrentHashMap<>(10);
+        inflightWindows = new ConcurrentHashMap<>(10);
         messageFilter = initMessageFilter(jobConf);
         fieldSplitter = jobConf.get(CommonConstants.FIELD_SPLITTER, DEFAULT_FIELD_SPLITTER).getBytes(
                 StandardCharsets.UTF_8);
-        executorService.execute(flushCache());
-        senderManager = new SenderManager(jobConf, inlongGroupId, sourceName);
+        senderManager = createSenderManager(jobConf);
+        senderManager.setBatchFinishedListener(this::onBatchFinished);
         try {
             senderManager.addMessageSender();
         } catch (Exception ex) {
@@ -202,21 +297,36 @@ public class ProxySink extends AbstractSink {
         }
     }
 
+    SenderManager createSenderManager(JobProfile jobConf) {
+        return new SenderManager(jobConf, inlongGroupId, sourceName);
+    }
+
     @Override
     public void destroy() {
         LOGGER.info("destroy sink which sink from source name {}", sourceName);
+        long deadline = System.currentTimeMillis() + destroyTimeoutMs;
         while (!sinkFinish()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                LOGGER.warn("job {} cache not flushed to proxy in {} ms, the messages not acked are read again "
+                        + "after restart", jobInstanceId, destroyTimeoutMs);
+                break;
+            }
             LOGGER.info("job {} wait until cache all flushed to proxy", jobInstanceId);
-            AgentUtils.silenceSleepInMs(batchFlushInterval);
+            AgentUtils.silenceSleepInMs(Math.min(batchFlushInterval, remaining));
+        }
+        // the batches retrying are dropped, and the sync send waiting to retry is interrupted
+        senderManager.shutdown();
+        if (syncFlushExecutor != null) {
+            syncFlushExecutor.shutdownNow();
         }
-        shutdown = true;
-        executorService.shutdown();
     }
 
     /**
-     * check whether all stream id messages finished
+     * check whether all stream id messages are sent and acked
      */
-    private boolean sinkFinish() {
-        return cache.values().stream().allMatch(PackProxyMessage::isEmpty);
+    boolean sinkFinish() {
+        return cache.values().stream().allMatch(PackProxyMessage::isEmpty)
+                && inflightWindows.values().stream().allMatch(window -> window.availablePermits() >= inflightWindow);
     }
 }
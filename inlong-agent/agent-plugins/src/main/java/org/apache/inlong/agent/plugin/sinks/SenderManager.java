@@ -17,11 +17,14 @@
 
 package org.apache.inlong.agent.plugin.sinks;
 
+import io.netty.util.HashedWheelTimer;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import org.apache.inlong.agent.conf.AgentConfiguration;
 import org.apache.inlong.agent.conf.JobProfile;
 import org.apache.inlong.agent.constant.CommonConstants;
 import org.apache.inlong.agent.core.task.TaskPositionManager;
+import org.apache.inlong.agent.plugin.message.BatchProxyMessage;
+import org.apache.inlong.agent.plugin.message.OffsetWatermark;
 import org.apache.inlong.agent.plugin.message.SequentialID;
 import org.apache.inlong.agent.plugin.metrics.PluginJmxMetric;
 import org.apache.inlong.agent.plugin.metrics.PluginMetric;
@@ -32,6 +35,8 @@ import org.apache.inlong.sdk.dataproxy.DefaultMessageSender;
 import org.apache.inlong.sdk.dataproxy.ProxyClientConfig;
 import org.apache.inlong.sdk.dataproxy.SendMessageCallback;
 import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.apache.inlong.sdk.dataproxy.codec.BatchBodyEncoder;
+import org.apache.inlong.sdk.dataproxy.codec.EncodedBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +48,7 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.apache.inlong.agent.constant.FetcherConstants.AGENT_MANAGER_VIP_HTTP_HOST;
 import static org.apache.inlong.agent.constant.FetcherConstants.AGENT_MANAGER_VIP_HTTP_PORT;
@@ -64,6 +70,13 @@ public class SenderManager {
     // in case of thread abusing.
     private static final ThreadFactory SHARED_FACTORY = new DefaultThreadFactory("agent-client-io",
             Thread.currentThread().isDaemon());
+    // the encoder reuses its buffers, one for each flushing thread
+    private static final ThreadLocal<BatchBodyEncoder> BATCH_ENCODER =
+            ThreadLocal.withInitial(BatchBodyEncoder::new);
+    // failed async batches are sent again from the timer, never by sleeping in the sdk callback threads
+    private static final HashedWheelTimer RETRY_TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("agent-sender-retry", true), 10, TimeUnit.MILLISECONDS);
+    private static final long EXCEPTION_RETRY_DELAY_MS = 1000;
 
     private final String managerHost;
     private final int managerPort;
@@ -73,6 +86,8 @@ public class SenderManager {
     private final int totalAsyncBufSize;
     private final int aliveConnectionNum;
     private final boolean isCompress;
+    private final boolean compressBatch;
+    private final boolean preEncode;
     private final int msgType;
     private final boolean isFile;
     private final long maxSenderTimeout;
@@ -87,6 +102,10 @@ public class SenderManager {
     private int ioThreadNum;
     private boolean enableBusyWait;
     private Semaphore semaphore;
+    // called when a batch is acked, or given up in sync sending
+    private volatile Consumer<BatchProxyMessage> batchFinishedListener;
+    // failed batches are not sent again once shut down
+    private volatile boolean shutdown = false;
 
     public SenderManager(JobProfile jobConf, String inlongGroupId, String sourcePath) {
         AgentConfiguration conf = AgentConfiguration.getAgentConf();
@@ -108,6 +127,20 @@ public class SenderManager {
         maxSenderPerGroup = jobConf.getInt(
                 CommonConstants.PROXY_MAX_SENDER_PER_GROUP, CommonConstants.DEFAULT_PROXY_MAX_SENDER_PER_GROUP);
         msgType = jobConf.getInt(CommonConstants.PROXY_MSG_TYPE, CommonConstants.DEFAULT_PROXY_MSG_TYPE);
+        String batchCodec = jobConf.get(CommonConstants.PROXY_BATCH_CODEC, isCompress
+                ? CommonConstants.PROXY_BATCH_CODEC_SNAPPY : CommonConstants.PROXY_BATCH_CODEC_NONE);
+        if (CommonConstants.PROXY_BATCH_CODEC_NONE.equalsIgnoreCase(batchCodec)) {
+            compressBatch = false;
+        } else {
+            // proxy only decodes snappy bodies
+            if (!CommonConstants.PROXY_BATCH_CODEC_SNAPPY.equalsIgnoreCase(batchCodec)) {
+                LOGGER.warn("batch codec {} is not supported by proxy, use snappy instead", batchCodec);
+            }
+            compressBatch = true;
+        }
+        // only the message type 7 carries an encoded body
+        preEncode = msgType == 7 && jobConf.getBoolean(
+                CommonConstants.PROXY_BATCH_PRE_ENCODE, CommonConstants.DEFAULT_PROXY_BATCH_PRE_ENCODE);
         maxSenderTimeout = jobConf.getInt(
                 CommonConstants.PROXY_SENDER_MAX_TIMEOUT, CommonConstants.DEFAULT_PROXY_SENDER_MAX_TIMEOUT);
         maxSenderRetry = jobConf.getInt(
@@ -159,7 +192,7 @@ public class SenderManager {
      * @param groupId group id
      * @return DefaultMessageSender
      */
-    private DefaultMessageSender createMessageSender(String groupId) throws Exception {
+    DefaultMessageSender createMessageSender(String groupId) throws Exception {
 
         ProxyClientConfig proxyClientConfig = new ProxyClientConfig(
                 localhost, isLocalVisit, managerHost, managerPort, groupId, netTag);
@@ -172,7 +205,7 @@ public class SenderManager {
 
         DefaultMessageSender sender = new DefaultMessageSender(proxyClientConfig, SHARED_FACTORY);
         sender.setMsgtype(msgType);
-        sender.setCompress(isCompress);
+        sender.setCompress(compressBatch);
         return sender;
     }
 
@@ -188,8 +221,64 @@ public class SenderManager {
         if (senderList.size() > maxSenderPerGroup) {
             return;
         }
-        DefaultMessageSender sender = createMessageSender(inlongGroupId);
-        senderList.add(sender);
+        senderList.add(createMessageSender(inlongGroupId));
+    }
+
+    /**
+     * encode the batch once before it is sent, so that it is not encoded again when sent again.
+     * A batch failed to encode is sent unencoded.
+     *
+     * @return whether the batch is encoded
+     */
+    public boolean encodeBatch(BatchProxyMessage batch) {
+        if (!preEncode || batch.getEncodedBatch() != null) {
+            return false;
+        }
+        try {
+            batch.setEncodedBatch(BATCH_ENCODER.get().encode(batch.getDataList(), compressBatch, false));
+            return true;
+        } catch (Exception e) {
+            LOGGER.warn("encode batch of stream {} fail, send it unencoded", batch.getStreamId(), e);
+            return false;
+        }
+    }
+
+    public void setBatchFinishedListener(Consumer<BatchProxyMessage> batchFinishedListener) {
+        this.batchFinishedListener = batchFinishedListener;
+    }
+
+    private void notifyBatchFinished(BatchProxyMessage batch) {
+        Consumer<BatchProxyMessage> listener = batchFinishedListener;
+        if (listener != null) {
+            listener.accept(batch);
+        }
+    }
+
+    /**
+     * stop sending the failed batches again, they are dropped without acking their offsets
+     * and read again after restart
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * release the in-flight slots of a batch which is not sent, its offsets are not acked
+     */
+    private void dropBatch(String jobId, BatchProxyMessage batch) {
+        LOGGER.warn("drop batch of stream {} with {} messages of job {} on shutdown, it is read again "
+                + "after restart", batch.getStreamId(), batch.getMessageCount(), jobId);
+        semaphore.release(batch.getMessageCount());
+        notifyBatchFinished(batch);
+    }
+
+    /**
+     * ack the offset sequences of a sent batch, the sink position moves only to the position of the watermark,
+     * so a batch acked before an earlier one does not cover the earlier one in the saved position
+     */
+    private void ackOffsets(String jobId, BatchProxyMessage batch) {
+        OffsetWatermark.ack(jobId, sourcePath, batch.getOffsetSeqs(),
+                position -> taskPositionManager.updateSinkPosition(jobId, sourcePath, position));
     }
 
     /**
@@ -199,17 +288,14 @@ public class SenderManager {
 
         private final int retry;
         private final String groupId;
-        private final List<byte[]> bodyList;
-        private final String streamId;
+        private final BatchProxyMessage batch;
         private final long dataTime;
         private final String jobId;
 
-        AgentSenderCallback(String jobId, String groupId, String streamId, List<byte[]> bodyList, int retry,
-                long dataTime) {
+        AgentSenderCallback(String jobId, String groupId, BatchProxyMessage batch, int retry, long dataTime) {
             this.retry = retry;
             this.groupId = groupId;
-            this.streamId = streamId;
-            this.bodyList = bodyList;
+            this.batch = batch;
             this.jobId = jobId;
             this.dataTime = dataTime;
         }
@@ -219,86 +305,125 @@ public class SenderManager {
             // if send result is not ok, retry again.
             if (result == null || !result.equals(SendResult.OK)) {
                 LOGGER.warn("send groupId {}, streamId {}, jobId {}, dataTime {} fail with times {}, "
-                        + "error {}", groupId, streamId, jobId, dataTime, retry, result);
-                sendBatchAsync(jobId, groupId, streamId, bodyList, retry + 1, dataTime);
+                        + "error {}", groupId, batch.getStreamId(), jobId, dataTime, retry, result);
+                scheduleRetry(jobId, groupId, batch, retry + 1, dataTime, 0);
                 return;
             }
-            semaphore.release(bodyList.size());
-            metric.incSendSuccessNum(bodyList.size());
-            if (sourcePath != null) {
-                taskPositionManager.updateSinkPosition(jobId, sourcePath, bodyList.size());
-            }
+            semaphore.release(batch.getMessageCount());
+            metric.incSendSuccessNum(batch.getMessageCount());
+            ackOffsets(jobId, batch);
+            notifyBatchFinished(batch);
         }
 
         @Override
         public void onException(Throwable e) {
             LOGGER.error("exception caught", e);
+            // send again, or the batch is never acked and its in-flight slot is never released
+            scheduleRetry(jobId, groupId, batch, retry + 1, dataTime, EXCEPTION_RETRY_DELAY_MS);
+        }
+    }
+
+    /**
+     * send the batch again on the retry timer after the delay, or after the retry sleep time
+     * once max retry is reached
+     */
+    private void scheduleRetry(String jobId, String groupId, BatchProxyMessage batch, int retry,
+            long dataTime, long delayMs) {
+        if (shutdown) {
+            dropBatch(jobId, batch);
+            return;
+        }
+        if (retry > maxSenderRetry) {
+            LOGGER.warn("max retry reached, retry count is {}, wait and send again", retry);
+            delayMs = Math.max(delayMs, retrySleepTime);
         }
+        RETRY_TIMER.newTimeout(timeout -> sendBatchAsync(jobId, groupId, batch, retry, dataTime),
+                delayMs, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Send message to proxy by batch, use message cache.
+     * Send message to proxy by batch, use message cache. A failed batch is sent again by the retry timer.
      *
      * @param groupId groupId
-     * @param streamId streamId
-     * @param bodyList body list
+     * @param batch batch of message, its offset sequences are acked when sent
      * @param retry retry time
      */
-    public void sendBatchAsync(String jobId, String groupId, String streamId,
-            List<byte[]> bodyList, int retry, long dataTime) {
-        if (retry > maxSenderRetry) {
-            LOGGER.warn("max retry reached, retry count is {}, sleep and send again", retry);
-            AgentUtils.silenceSleepInMs(retrySleepTime);
-        }
+    public void sendBatchAsync(String jobId, String groupId, BatchProxyMessage batch, int retry, long dataTime) {
         try {
-            selectSender(groupId).asyncSendMessage(
-                    new AgentSenderCallback(jobId, groupId, streamId, bodyList, retry, dataTime),
-                    bodyList, groupId, streamId,
-                    dataTime,
-                    SEQUENTIAL_ID.getNextUuid(),
-                    maxSenderTimeout,
-                    TimeUnit.SECONDS
-            );
+            DefaultMessageSender sender = selectSender(groupId);
+            AgentSenderCallback callback = new AgentSenderCallback(jobId, groupId, batch, retry, dataTime);
+            EncodedBatch encodedBatch = batch.getEncodedBatch();
+            if (encodedBatch != null) {
+                sender.asyncSendMessage(callback, encodedBatch, groupId, batch.getStreamId(),
+                        dataTime, SEQUENTIAL_ID.getNextUuid(), maxSenderTimeout, TimeUnit.SECONDS, null);
+            } else {
+                sender.asyncSendMessage(
+                        callback,
+                        batch.getDataList(), groupId, batch.getStreamId(),
+                        dataTime,
+                        SEQUENTIAL_ID.getNextUuid(),
+                        maxSenderTimeout,
+                        TimeUnit.SECONDS
+                );
+            }
         } catch (Exception exception) {
             LOGGER.error("Exception caught", exception);
-            // retry time
-            try {
-                TimeUnit.SECONDS.sleep(1);
-                sendBatchAsync(jobId, groupId, streamId, bodyList, retry + 1, dataTime);
-            } catch (Exception ignored) {
-                // ignore it.
-            }
+            scheduleRetry(jobId, groupId, batch, retry + 1, dataTime, EXCEPTION_RETRY_DELAY_MS);
         }
     }
 
     /**
-     * Send message to proxy by batch, use message cache.
+     * Send message to proxy by batch, use message cache. A failed batch is sent again until it succeeds,
+     * as the offsets behind it can not be committed before it.
      *
      * @param groupId groupId
-     * @param streamId streamId
-     * @param bodyList body list
+     * @param batch batch of message, its offset sequences are acked when sent
      * @param retry retry time
      */
-    public void sendBatchSync(String groupId, String streamId,
-            List<byte[]> bodyList, int retry, long dataTime, Map<String, String> extraMap) {
-        if (retry > maxSenderRetry) {
-            LOGGER.warn("max retry reached, retry count is {}, sleep and send again", retry);
-            AgentUtils.silenceSleepInMs(retrySleepTime);
-        }
-        try {
-            selectSender(groupId).sendMessage(
-                    bodyList, groupId, streamId, dataTime, "",
-                    maxSenderTimeout, TimeUnit.SECONDS, extraMap
-            );
-            semaphore.release(bodyList.size());
-        } catch (Exception exception) {
-            LOGGER.error("Exception caught", exception);
-            // retry time
+    public void sendBatchSync(String jobId, String groupId, BatchProxyMessage batch,
+            int retry, long dataTime, Map<String, String> extraMap) {
+        while (true) {
+            if (shutdown || Thread.currentThread().isInterrupted()) {
+                dropBatch(jobId, batch);
+                return;
+            }
+            if (retry > maxSenderRetry) {
+                LOGGER.warn("max retry reached, retry count is {}, sleep and send again", retry);
+                AgentUtils.silenceSleepInMs(retrySleepTime);
+            }
+            try {
+                DefaultMessageSender sender = selectSender(groupId);
+                EncodedBatch encodedBatch = batch.getEncodedBatch();
+                SendResult result;
+                if (encodedBatch != null) {
+                    result = sender.sendMessage(encodedBatch, groupId, batch.getStreamId(), dataTime, "",
+                            maxSenderTimeout, TimeUnit.SECONDS, extraMap);
+                } else {
+                    result = sender.sendMessage(
+                            batch.getDataList(), groupId, batch.getStreamId(), dataTime, "",
+                            maxSenderTimeout, TimeUnit.SECONDS, extraMap
+                    );
+                }
+                if (SendResult.OK.equals(result)) {
+                    semaphore.release(batch.getMessageCount());
+                    metric.incSendSuccessNum(batch.getMessageCount());
+                    ackOffsets(jobId, batch);
+                    notifyBatchFinished(batch);
+                    return;
+                }
+                LOGGER.warn("send groupId {}, streamId {}, jobId {} fail with times {}, error {}",
+                        groupId, batch.getStreamId(), jobId, retry, result);
+            } catch (Exception exception) {
+                LOGGER.error("Exception caught", exception);
+            }
+            retry++;
             try {
                 TimeUnit.SECONDS.sleep(1);
-                sendBatchSync(groupId, streamId, bodyList, retry + 1, dataTime, extraMap);
-            } catch (Exception ignored) {
-                // ignore it.
+            } catch (InterruptedException e) {
+                // the sink is destroyed, the offsets of the batch are not committed and read again after restart
+                Thread.currentThread().interrupt();
+                dropBatch(jobId, batch);
+                return;
             }
         }
     }
@@ -55,7 +55,7 @@ public class BinlogSource implements Source {
 
     @Override
     public List<Reader> split(JobProfile conf) {
-        Reader binlogReader = new BinlogReader();
+        Reader binlogReader = new BinlogReader(conf.getInstanceId());
         List<Reader> readerList = new ArrayList<>();
         readerList.add(binlogReader);
         sourceMetrics.incSourceSuccessCount();
@@ -36,6 +36,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static org.apache.inlong.agent.constant.CommonConstants.FINGERPRINT_SUFFIX;
+import static org.apache.inlong.agent.constant.CommonConstants.OFFSET_SUFFIX;
 import static org.apache.inlong.agent.constant.CommonConstants.POSITION_SUFFIX;
 import static org.apache.inlong.agent.constant.JobConstants.DEFAULT_JOB_LINE_FILTER;
 import static org.apache.inlong.agent.constant.JobConstants.DEFAULT_JOB_READ_WAIT_TIMEOUT;
@@ -51,9 +53,6 @@ public class TextFileSource implements Source {
 
     private static final String TEXT_FILE_SOURCE_TAG_NAME = "AgentTextFileSourceMetric";
 
-    // path + suffix
-    public static final String MD5_SUFFIX = ".md5";
-
     private final SourceMetrics sourceMetrics;
     private static AtomicLong metricsIndex = new AtomicLong(0);
 
@@ -73,11 +72,7 @@ public class TextFileSource implements Source {
         List<Reader> result = new ArrayList<>();
         String filterPattern = jobConf.get(JOB_LINE_FILTER_PATTERN, DEFAULT_JOB_LINE_FILTER);
         for (File file : allFiles) {
-            int seekPosition = jobConf.getInt(file.getAbsolutePath() + POSITION_SUFFIX, 0);
-            LOGGER.info("read from history position {} with job profile {}, file absolute path: {}", seekPosition,
-                    jobConf.getInstanceId(), file.getAbsolutePath());
-            String md5 = jobConf.get(file.getAbsolutePath() + MD5_SUFFIX, "");
-            TextFileReader textFileReader = new TextFileReader(file, seekPosition);
+            TextFileReader textFileReader = createReader(jobConf, file);
             long waitTimeout = jobConf.getLong(JOB_READ_WAIT_TIMEOUT, DEFAULT_JOB_READ_WAIT_TIMEOUT);
             textFileReader.setWaitMillisecs(waitTimeout);
             addValidator(filterPattern, textFileReader);
@@ -88,6 +83,23 @@ public class TextFileSource implements Source {
         return result;
     }
 
+    /**
+     * resume from the byte offset if present, otherwise from the line position written by older versions
+     */
+    private TextFileReader createReader(JobProfile jobConf, File file) {
+        String path = file.getAbsolutePath();
+        if (jobConf.hasKey(path + OFFSET_SUFFIX)) {
+            long offset = jobConf.getLong(path + OFFSET_SUFFIX, 0);
+            LOGGER.info("read from history offset {} with job profile {}, file absolute path: {}", offset,
+                    jobConf.getInstanceId(), path);
+            return new TextFileReader(file, offset, jobConf.get(path + FINGERPRINT_SUFFIX, ""));
+        }
+        int seekPosition = jobConf.getInt(path + POSITION_SUFFIX, 0);
+        LOGGER.info("read from history position {} with job profile {}, file absolute path: {}", seekPosition,
+                jobConf.getInstanceId(), path);
+        return new TextFileReader(file, seekPosition);
+    }
+
     private void addValidator(String filterPattern, TextFileReader textFileReader) {
         textFileReader.addPatternValidator(filterPattern);
     }
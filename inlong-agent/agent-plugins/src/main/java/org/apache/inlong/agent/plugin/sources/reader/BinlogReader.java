@@ -18,12 +18,13 @@
 package org.apache.inlong.agent.plugin.sources.reader;
 
 import com.google.common.base.Preconditions;
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.debezium.connector.mysql.MySqlConnector;
 import io.debezium.engine.ChangeEvent;
 import io.debezium.engine.DebeziumEngine;
+import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.relational.history.FileDatabaseHistory;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.inlong.agent.conf.AgentConfiguration;
 import org.apache.inlong.agent.conf.JobProfile;
 import org.apache.inlong.agent.constant.AgentConstants;
@@ -32,10 +33,10 @@ import org.apache.inlong.agent.constant.SnapshotModeConstants;
 import org.apache.inlong.agent.message.DefaultMessage;
 import org.apache.inlong.agent.plugin.Message;
 import org.apache.inlong.agent.plugin.Reader;
+import org.apache.inlong.agent.plugin.message.OffsetWatermark;
 import org.apache.inlong.agent.plugin.sources.snapshot.BinlogSnapshotBase;
 import org.apache.inlong.agent.plugin.utils.InLongDatabaseHistory;
 import org.apache.inlong.agent.plugin.utils.InLongFileOffsetBackingStore;
-import org.apache.inlong.agent.pojo.DebeziumFormat;
 import org.apache.inlong.agent.pojo.DebeziumOffset;
 import org.apache.inlong.agent.utils.AgentUtils;
 import org.apache.inlong.agent.utils.DebeziumOffsetSerializer;
@@ -46,16 +47,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 
 import static org.apache.inlong.agent.constant.CommonConstants.DEFAULT_MAP_CAPACITY;
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_DATA;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_OFFSET_SEQ;
 
 /**
  * read binlog data
@@ -79,14 +87,21 @@ public class BinlogReader implements Reader {
     public static final String JOB_DATABASE_HISTORY_MONITOR_DDL = "job.binlogJob.ddl";
     public static final String JOB_DATABASE_PORT = "job.binlogJob.port";
     public static final String JOB_DATABASE_QUEUE_SIZE = "job.binlogJob.queueSize";
+    public static final String JOB_DATABASE_MAX_UNCOMMITTED = "job.binlogJob.maxUncommitted";
     private static final Logger LOGGER = LoggerFactory.getLogger(BinlogReader.class);
-    private static final Gson gson = new Gson();
     private final AgentConfiguration agentConf = AgentConfiguration.getAgentConf();
+    private LinkedBlockingQueue<Message> binlogMessagesQueue;
     /**
-     * pair.left: table name
-     * pair.right: actual data
+     * records not committed yet, key is the offset sequence of record.
+     * offsets are committed only after records are acked by proxy
      */
-    private LinkedBlockingQueue<Pair<String, String>> binlogMessagesQueue;
+    private final ConcurrentSkipListMap<Long, ChangeEvent<String, String>> uncommittedRecords =
+            new ConcurrentSkipListMap<>();
+    // bounds the uncommitted records, the engine blocks until acked records are committed
+    private Semaphore uncommittedPermits;
+    private OffsetWatermark offsetWatermark;
+    private volatile RecordCommitter<ChangeEvent<String, String>> recordCommitter;
+    private long committedSeq = -1;
     private boolean finished = false;
     private String userName;
     private String password;
@@ -117,21 +132,95 @@ public class BinlogReader implements Reader {
     public BinlogReader() {
     }
 
+    /**
+     * the read source is the job instance id, known before init as sinks get it when tasks are created
+     */
+    public BinlogReader(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
     @Override
     public Message read() {
-        if (!binlogMessagesQueue.isEmpty()) {
-            return getBinlogMessage();
-        } else {
-            return null;
-        }
+        commitAckedOffsets();
+        return binlogMessagesQueue.poll();
+    }
+
+    @Override
+    public List<Message> readBatch(int maxSize) {
+        commitAckedOffsets();
+        List<Message> messages = new ArrayList<>();
+        binlogMessagesQueue.drainTo(messages, maxSize);
+        return messages;
     }
 
-    private DefaultMessage getBinlogMessage() {
-        Pair<String, String> message = binlogMessagesQueue.poll();
+    private DefaultMessage getBinlogMessage(long offsetSeq, ChangeEvent<String, String> record) {
         Map<String, String> header = new HashMap<>(DEFAULT_MAP_CAPACITY);
-        header.put(PROXY_KEY_DATA, message.getKey());
-        return new DefaultMessage(message.getValue().getBytes(StandardCharsets.UTF_8),
-                header);
+        try {
+            String tableName = parseTableName(record.value());
+            if (tableName != null) {
+                header.put(PROXY_KEY_DATA, tableName);
+            }
+        } catch (Exception e) {
+            // still deliver the record, or the offset watermark will never pass it
+            LOGGER.error("parse table name of binlog message error", e);
+        }
+        header.put(PROXY_KEY_OFFSET_SEQ, String.valueOf(offsetSeq));
+        return new DefaultMessage(record.value().getBytes(StandardCharsets.UTF_8), header);
+    }
+
+    /**
+     * Get source table name of debezium json, only source object is parsed and other
+     * fields such as before and after are skipped.
+     *
+     * @return table name, null if not present
+     */
+    public static String parseTableName(String value) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(value))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"source".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("table".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                        return reader.nextString();
+                    }
+                    reader.skipValue();
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Commit offsets of records up to the watermark of acked records, so that records not
+     * acked by proxy are read again after restart.
+     */
+    private void commitAckedOffsets() {
+        RecordCommitter<ChangeEvent<String, String>> committer = recordCommitter;
+        long watermark = offsetWatermark.getWatermark();
+        if (committer == null || watermark <= committedSeq) {
+            return;
+        }
+        NavigableMap<Long, ChangeEvent<String, String>> ackedRecords = uncommittedRecords.headMap(watermark, true);
+        try {
+            int committed = 0;
+            for (ChangeEvent<String, String> record : ackedRecords.values()) {
+                committer.markProcessed(record);
+                committed++;
+            }
+            committer.markBatchFinished();
+            ackedRecords.clear();
+            uncommittedPermits.release(committed);
+            committedSeq = watermark;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.error("commit binlog offset error", e);
+        }
     }
 
     @Override
@@ -154,8 +243,12 @@ public class BinlogReader implements Reader {
         includeSchemaChanges = jobConf.get(JOB_DATABASE_INCLUDE_SCHEMA_CHANGES, "false");
         historyMonitorDdl = jobConf.get(JOB_DATABASE_HISTORY_MONITOR_DDL, "false");
         binlogMessagesQueue = new LinkedBlockingQueue<>(jobConf.getInt(JOB_DATABASE_QUEUE_SIZE, 1000));
-        instanceId = jobConf.getInstanceId();
+        uncommittedPermits = new Semaphore(jobConf.getInt(JOB_DATABASE_MAX_UNCOMMITTED, 10000));
+        if (instanceId == null) {
+            instanceId = jobConf.getInstanceId();
+        }
         finished = false;
+        offsetWatermark = OffsetWatermark.register(instanceId, getReadSource());
 
         offset = jobConf.get(JOB_DATABASE_OFFSETS, "");
         specificOffsetFile = jobConf.get(JOB_DATABASE_OFFSET_SPECIFIC_OFFSET_FILE, "");
@@ -191,14 +284,16 @@ public class BinlogReader implements Reader {
                 .using(props)
                 .notifying((records, committer) -> {
                     try {
+                        // offsets are committed by read thread once records are acked
+                        recordCommitter = committer;
                         for (ChangeEvent<String, String> record : records) {
-                            DebeziumFormat debeziumFormat = gson
-                                    .fromJson(record.value(), DebeziumFormat.class);
-                            binlogMessagesQueue.put(Pair.of(debeziumFormat.getSource().getTable(),
-                                    record.value()));
-                            committer.markProcessed(record);
+                            uncommittedPermits.acquire();
+                            long offsetSeq = offsetWatermark.next();
+                            uncommittedRecords.put(offsetSeq, record);
+                            binlogMessagesQueue.put(getBinlogMessage(offsetSeq, record));
                         }
-                        committer.markBatchFinished();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
                     } catch (Exception e) {
                         LOGGER.error("parse binlog message error", e);
 
@@ -294,6 +389,8 @@ public class BinlogReader implements Reader {
     public void destroy() {
         synchronized (this) {
             if (!destroyed) {
+                commitAckedOffsets();
+                OffsetWatermark.unregister(instanceId, getReadSource());
                 executor.shutdownNow();
                 binlogSnapshot.close();
                 destroyed = true;
@@ -21,31 +21,54 @@ import static java.sql.Types.BINARY;
 import static java.sql.Types.BLOB;
 import static java.sql.Types.LONGVARBINARY;
 import static java.sql.Types.VARBINARY;
+import static org.apache.inlong.agent.constant.CommonConstants.DEFAULT_MAP_CAPACITY;
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_GROUP_ID;
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_STREAM_ID;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_OFFSET_SEQ;
 
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.lang3.CharUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.inlong.agent.common.AgentThreadFactory;
+import org.apache.inlong.agent.conf.AgentConfiguration;
 import org.apache.inlong.agent.conf.JobProfile;
+import org.apache.inlong.agent.constant.AgentConstants;
 import org.apache.inlong.agent.message.DefaultMessage;
 import org.apache.inlong.agent.metrics.audit.AuditUtils;
 import org.apache.inlong.agent.plugin.Message;
+import org.apache.inlong.agent.plugin.message.OffsetWatermark;
+import org.apache.inlong.agent.plugin.sources.snapshot.SqlChunkSnapshot;
 import org.apache.inlong.agent.utils.AgentDbUtils;
 import org.apache.inlong.agent.utils.AgentUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Read data from database by SQL
+ * Read data from database by SQL.
+ *
+ * <p>If the chunk key is set, the result is split into ranges of the numeric key, and the
+ * chunks are read in parallel, each reader thread owns a connection. A chunk is saved to
+ * the local checkpoint once all its rows are acked by proxy, so a restarted job skips it.
+ * The reader is finished only after all the chunks are saved.
  */
 public class SqlReader extends AbstractReader {
 
@@ -60,6 +83,21 @@ public class SqlReader extends AbstractReader {
 
     private static final String JOB_DATABASE_BATCH_SIZE = "job.sql.batchSize";
     private static final int DEFAULT_JOB_DATABASE_BATCH_SIZE = 1000;
+    // rows fetched from server at a time in chunked reading, default to batch size
+    private static final String JOB_DATABASE_FETCH_SIZE = "job.sql.fetchSize";
+
+    // numeric key to split the result into chunks, usually the primary key
+    private static final String JOB_DATABASE_CHUNK_KEY = "job.sql.chunk.key";
+    // key range of a chunk
+    private static final String JOB_DATABASE_CHUNK_SIZE = "job.sql.chunk.size";
+    private static final long DEFAULT_JOB_DATABASE_CHUNK_SIZE = 100000;
+    private static final String JOB_DATABASE_CHUNK_PARALLELISM = "job.sql.chunk.parallelism";
+    private static final int DEFAULT_JOB_DATABASE_CHUNK_PARALLELISM = 4;
+    private static final String JOB_DATABASE_CHUNK_QUEUE_SIZE = "job.sql.chunk.queueSize";
+    private static final int DEFAULT_JOB_DATABASE_CHUNK_QUEUE_SIZE = 10000;
+    // chunk size is enlarged for sparse keys, to limit the number of queries
+    private static final int MAX_CHUNK_COUNT = 1000000;
+    private static final String CHUNK_TABLE_ALIAS = "t_chunk";
 
     private static final String JOB_DATABASE_DRIVER_CLASS = "job.database.driverClass";
     private static final String DEFAULT_JOB_DATABASE_DRIVER_CLASS = "com.mysql.jdbc.Driver";
@@ -71,9 +109,6 @@ public class SqlReader extends AbstractReader {
     /* Standard short field separator */
     private static final String STD_FIELD_SEPARATOR_SHORT = "\001";
     private static final String JOB_DATABASE_SEPARATOR = "job.sql.separator";
-    private static final String[] NEW_LINE_CHARS = new String[]{String.valueOf(CharUtils.CR),
-            String.valueOf(CharUtils.LF)};
-    private static final String[] EMPTY_CHARS = new String[]{StringUtils.EMPTY, StringUtils.EMPTY};
 
     private final String sql;
 
@@ -82,13 +117,27 @@ public class SqlReader extends AbstractReader {
     private PreparedStatement preparedStatement;
     private Connection conn;
     private ResultSet resultSet;
-    private int columnCount;
 
-    // column types
-    private String[] columnTypeNames;
-    private int[] columnTypeCodes;
-    private boolean finished = false;
-    private String separator;
+    // whether columns are binary, which are encoded with base64
+    private boolean[] binaryColumns;
+    private volatile boolean finished = false;
+    private byte[] separator;
+    private final RowBuffer rowBuffer = new RowBuffer();
+
+    // chunked reading, chunk key is null if disabled
+    private String chunkKey;
+    private SqlChunkSnapshot chunkSnapshot;
+    private OffsetWatermark offsetWatermark;
+    private String instanceId;
+    private ExecutorService chunkExecutor;
+    private LinkedBlockingQueue<Message> chunkMessageQueue;
+    private final ConcurrentLinkedQueue<Integer> pendingChunks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger runningChunkReaders = new AtomicInteger(0);
+    // key is the offset sequence of the last row of a read chunk, value is the chunk index
+    private final ConcurrentSkipListMap<Long, Integer> readChunks = new ConcurrentSkipListMap<>();
+    private volatile Exception chunkException;
+    // chunk readers stop once the reader is destroyed
+    private volatile boolean stopped = false;
 
     public SqlReader(String sql) {
         this.sql = sql;
@@ -96,32 +145,18 @@ public class SqlReader extends AbstractReader {
 
     @Override
     public Message read() {
+        if (chunkKey != null) {
+            List<Message> messages = readBatch(1);
+            return messages.isEmpty() ? null : messages.get(0);
+        }
         try {
             if (resultSet.next()) {
-                List<String> lineColumns = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String dataValue = null;
-                    /* handle special blob value, encode with base64, BLOB=2004 */
-                    int typeCode = columnTypeCodes[i - 1];
-                    String typeName = columnTypeNames[i - 1];
-
-                    // binary type
-                    if (typeCode == BLOB || typeCode == BINARY || typeCode == VARBINARY
-                            || typeCode == LONGVARBINARY || typeName.contains("BLOB")) {
-                        byte[] data = resultSet.getBytes(i);
-                        dataValue = new String(Base64.encodeBase64(data, false), StandardCharsets.UTF_8);
-                    } else {
-                        // non-binary type
-                        dataValue = StringUtils.replaceEachRepeatedly(resultSet.getString(i),
-                                NEW_LINE_CHARS, EMPTY_CHARS);
-                    }
-                    lineColumns.add(dataValue);
-                }
+                formatRow(resultSet, binaryColumns, rowBuffer);
                 AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_READ_SUCCESS,
                         inlongGroupId, inlongStreamId, System.currentTimeMillis());
                 readerMetric.incReadNum();
                 streamMetric.incReadNum();
-                return generateMessage(lineColumns);
+                return new DefaultMessage(rowBuffer.toByteArray());
             } else {
                 finished = true;
             }
@@ -134,8 +169,47 @@ public class SqlReader extends AbstractReader {
         return null;
     }
 
-    private Message generateMessage(List<String> lineColumns) {
-        return new DefaultMessage(StringUtils.join(lineColumns, separator).getBytes(StandardCharsets.UTF_8));
+    @Override
+    public List<Message> readBatch(int maxSize) {
+        if (chunkKey == null) {
+            return super.readBatch(maxSize);
+        }
+        if (chunkException != null) {
+            readerMetric.incReadFailedNum();
+            streamMetric.incReadFailedNum();
+            throw new RuntimeException(chunkException);
+        }
+        saveAckedChunks();
+        List<Message> messages = new ArrayList<>();
+        chunkMessageQueue.drainTo(messages, maxSize);
+        // check queue again, readers may put their last rows before exiting, and the read chunks
+        // are not finished until all their rows are acked and the chunks are saved to the checkpoint
+        if (messages.isEmpty() && runningChunkReaders.get() == 0 && chunkMessageQueue.isEmpty()
+                && pendingChunks.isEmpty() && readChunks.isEmpty()) {
+            finished = true;
+        }
+        return messages;
+    }
+
+    /**
+     * Format columns of current row as separated bytes, binary columns are encoded with base64
+     * and new line chars are removed from the others.
+     */
+    private void formatRow(ResultSet rs, boolean[] binaryColumns, RowBuffer buffer) throws SQLException {
+        buffer.reset();
+        for (int i = 0; i < binaryColumns.length; i++) {
+            if (i > 0) {
+                buffer.write(separator);
+            }
+            if (binaryColumns[i]) {
+                byte[] data = rs.getBytes(i + 1);
+                if (data != null) {
+                    buffer.write(Base64.encodeBase64(data, false));
+                }
+            } else {
+                buffer.writeWithoutNewLine(rs.getString(i + 1));
+            }
+        }
     }
 
     @Override
@@ -174,21 +248,22 @@ public class SqlReader extends AbstractReader {
     }
 
     /**
-     * Init column meta data.
+     * Get column meta data.
      *
-     * @throws Exception - sql exception
+     * @return whether columns are binary
+     * @throws SQLException - sql exception
      */
-    private void initColumnMeta() throws Exception {
-        columnCount = resultSet.getMetaData().getColumnCount();
-        columnTypeNames = new String[columnCount];
-        columnTypeCodes = new int[columnCount];
-        for (int i = 0; i < columnCount; i++) {
-            columnTypeCodes[i] = resultSet.getMetaData().getColumnType(i + 1);
-            String t = resultSet.getMetaData().getColumnTypeName(i + 1);
-            if (t != null) {
-                columnTypeNames[i] = t.toUpperCase();
-            }
+    private static boolean[] getBinaryColumns(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        boolean[] binaryColumns = new boolean[metaData.getColumnCount()];
+        for (int i = 0; i < binaryColumns.length; i++) {
+            /* handle special blob value, encode with base64, BLOB=2004 */
+            int typeCode = metaData.getColumnType(i + 1);
+            String typeName = metaData.getColumnTypeName(i + 1);
+            binaryColumns[i] = typeCode == BLOB || typeCode == BINARY || typeCode == VARBINARY
+                    || typeCode == LONGVARBINARY || (typeName != null && typeName.toUpperCase().contains("BLOB"));
         }
+        return binaryColumns;
     }
 
     @Override
@@ -204,11 +279,23 @@ public class SqlReader extends AbstractReader {
 
         String driverClass = jobConf.get(JOB_DATABASE_DRIVER_CLASS,
                 DEFAULT_JOB_DATABASE_DRIVER_CLASS);
-        separator = jobConf.get(JOB_DATABASE_SEPARATOR, STD_FIELD_SEPARATOR_SHORT);
+        separator = jobConf.get(JOB_DATABASE_SEPARATOR, STD_FIELD_SEPARATOR_SHORT).getBytes(StandardCharsets.UTF_8);
+        chunkKey = StringUtils.trimToNull(jobConf.get(JOB_DATABASE_CHUNK_KEY, ""));
+        instanceId = jobConf.getInstanceId();
         finished = false;
+        stopped = false;
         try {
             String databaseType = jobConf.get(JOB_DATABASE_TYPE, MYSQL);
             String url = String.format("jdbc:%s://%s:%d", databaseType, hostName, port);
+            if (chunkKey != null) {
+                // mysql streams the whole result unless cursor fetch is used
+                if (databaseType.equals(MYSQL)) {
+                    url += "?useCursorFetch=true";
+                }
+                initChunks(jobConf, driverClass, url, userName, password,
+                        jobConf.getInt(JOB_DATABASE_FETCH_SIZE, batchSize));
+                return;
+            }
             conn = AgentDbUtils.getConnectionFailover(
                     driverClass, url, userName, password);
             if (databaseType.equals(MYSQL)) {
@@ -222,7 +309,7 @@ public class SqlReader extends AbstractReader {
                 preparedStatement.setFetchSize(batchSize);
                 resultSet = preparedStatement.executeQuery();
             }
-            initColumnMeta();
+            binaryColumns = getBinaryColumns(resultSet);
         } catch (Exception ex) {
             LOGGER.error("error create statement", ex);
             destroy();
@@ -231,12 +318,232 @@ public class SqlReader extends AbstractReader {
 
     }
 
+    /**
+     * Split key range into chunks and start chunk readers, chunks saved in checkpoint are skipped.
+     */
+    private void initChunks(JobProfile jobConf, String driverClass, String url, String userName,
+            String password, int fetchSize) throws Exception {
+        chunkMessageQueue = new LinkedBlockingQueue<>(
+                jobConf.getInt(JOB_DATABASE_CHUNK_QUEUE_SIZE, DEFAULT_JOB_DATABASE_CHUNK_QUEUE_SIZE));
+        offsetWatermark = OffsetWatermark.register(instanceId, getReadSource());
+        chunkSnapshot = new SqlChunkSnapshot(getChunkSnapshotPath());
+        if (!chunkSnapshot.load()) {
+            conn = AgentDbUtils.getConnectionFailover(driverClass, url, userName, password);
+            statement = conn.createStatement();
+            resultSet = statement.executeQuery(String.format("SELECT MIN(%s), MAX(%s) FROM (%s) %s",
+                    chunkKey, chunkKey, sql, CHUNK_TABLE_ALIAS));
+            resultSet.next();
+            long minKey = resultSet.getLong(1);
+            boolean empty = resultSet.wasNull();
+            long maxKey = resultSet.getLong(2);
+            AgentUtils.finallyClose(resultSet);
+            AgentUtils.finallyClose(statement);
+            AgentUtils.finallyClose(conn);
+            if (empty) {
+                LOGGER.info("no data to read in chunks for sql {}", sql);
+                return;
+            }
+            long chunkSize = jobConf.getLong(JOB_DATABASE_CHUNK_SIZE, DEFAULT_JOB_DATABASE_CHUNK_SIZE);
+            chunkSnapshot.init(minKey, maxKey, Math.max(chunkSize, (maxKey - minKey) / MAX_CHUNK_COUNT + 1));
+        }
+        int chunkCount = chunkSnapshot.getChunkCount();
+        for (int i = 0; i < chunkCount; i++) {
+            if (!chunkSnapshot.isChunkFinished(i)) {
+                pendingChunks.add(i);
+            }
+        }
+        LOGGER.info("read sql {} in chunks, key {} from {} to {}, {} of {} chunks to read", sql, chunkKey,
+                chunkSnapshot.getMinKey(), chunkSnapshot.getMaxKey(), pendingChunks.size(), chunkCount);
+
+        String chunkSql = String.format("SELECT * FROM (%s) %s WHERE %s BETWEEN ? AND ?",
+                sql, CHUNK_TABLE_ALIAS, chunkKey);
+        int parallelism = Math.min(pendingChunks.size(),
+                jobConf.getInt(JOB_DATABASE_CHUNK_PARALLELISM, DEFAULT_JOB_DATABASE_CHUNK_PARALLELISM));
+        if (parallelism <= 0) {
+            return;
+        }
+        chunkExecutor = Executors.newFixedThreadPool(parallelism, new AgentThreadFactory("sql-chunk-reader"));
+        runningChunkReaders.set(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            chunkExecutor.execute(() -> runChunkReader(driverClass, url, userName, password, chunkSql, fetchSize));
+        }
+        chunkExecutor.shutdown();
+    }
+
+    /**
+     * Read pending chunks one by one with a dedicated connection.
+     */
+    private void runChunkReader(String driverClass, String url, String userName, String password,
+            String chunkSql, int fetchSize) {
+        Connection connection = null;
+        PreparedStatement chunkStatement = null;
+        try {
+            connection = AgentDbUtils.getConnectionFailover(driverClass, url, userName, password);
+            chunkStatement = connection.prepareStatement(chunkSql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            chunkStatement.setFetchSize(fetchSize);
+            RowBuffer buffer = new RowBuffer();
+            Integer chunkIndex;
+            while (!stopped && (chunkIndex = pendingChunks.poll()) != null) {
+                readChunk(chunkStatement, chunkIndex, buffer);
+            }
+        } catch (Exception ex) {
+            LOGGER.error("error while reading chunk of sql {}", sql, ex);
+            chunkException = ex;
+        } finally {
+            AgentUtils.finallyClose(chunkStatement);
+            AgentUtils.finallyClose(connection);
+            runningChunkReaders.decrementAndGet();
+        }
+    }
+
+    private void readChunk(PreparedStatement chunkStatement, int chunkIndex, RowBuffer buffer) throws Exception {
+        long lowerKey = chunkSnapshot.getMinKey() + chunkIndex * chunkSnapshot.getChunkSize();
+        long upperKey = Math.min(lowerKey + chunkSnapshot.getChunkSize() - 1, chunkSnapshot.getMaxKey());
+        chunkStatement.setLong(1, lowerKey);
+        chunkStatement.setLong(2, upperKey);
+        long lastSeq = -1;
+        try (ResultSet chunkResult = chunkStatement.executeQuery()) {
+            boolean[] chunkBinaryColumns = getBinaryColumns(chunkResult);
+            while (chunkResult.next()) {
+                formatRow(chunkResult, chunkBinaryColumns, buffer);
+                Map<String, String> header = new HashMap<>(DEFAULT_MAP_CAPACITY);
+                lastSeq = offsetWatermark.next();
+                header.put(PROXY_KEY_OFFSET_SEQ, String.valueOf(lastSeq));
+                Message message = new DefaultMessage(buffer.toByteArray(), header);
+                while (!chunkMessageQueue.offer(message, 1, TimeUnit.SECONDS)) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+                AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_READ_SUCCESS,
+                        inlongGroupId, inlongStreamId, System.currentTimeMillis());
+                readerMetric.incReadNum();
+                streamMetric.incReadNum();
+            }
+        }
+        if (lastSeq < 0) {
+            // nothing to ack for empty chunk
+            chunkSnapshot.saveChunk(chunkIndex);
+        } else {
+            readChunks.put(lastSeq, chunkIndex);
+        }
+    }
+
+    /**
+     * Save chunks whose rows are all acked, the watermark passes the last row of them.
+     */
+    private void saveAckedChunks() {
+        long watermark = offsetWatermark.getWatermark();
+        Map.Entry<Long, Integer> entry;
+        while ((entry = readChunks.firstEntry()) != null && entry.getKey() <= watermark) {
+            chunkSnapshot.saveChunk(entry.getValue());
+            readChunks.remove(entry.getKey());
+        }
+    }
+
+    private String getChunkSnapshotPath() {
+        AgentConfiguration agentConf = AgentConfiguration.getAgentConf();
+        String historyPath = agentConf.get(
+                AgentConstants.AGENT_HISTORY_PATH, AgentConstants.DEFAULT_AGENT_HISTORY_PATH);
+        String parentPath = agentConf.get(
+                AgentConstants.AGENT_HOME, AgentConstants.DEFAULT_AGENT_HOME);
+        return AgentUtils.makeDirsIfNotExist(historyPath, parentPath).getAbsolutePath()
+                + "/sql-chunk.dat" + instanceId + "_" + Integer.toHexString(sql.hashCode());
+    }
+
     @Override
     public void destroy() {
+        stopped = true;
         finished = true;
+        if (chunkExecutor != null) {
+            chunkExecutor.shutdownNow();
+        }
+        if (offsetWatermark != null) {
+            saveAckedChunks();
+            OffsetWatermark.unregister(instanceId, getReadSource());
+        }
         AgentUtils.finallyClose(resultSet);
         AgentUtils.finallyClose(statement);
         AgentUtils.finallyClose(preparedStatement);
         AgentUtils.finallyClose(conn);
     }
+
+    /**
+     * Reusable buffer to format rows, it grows to the largest row.
+     */
+    private static class RowBuffer {
+
+        private byte[] buf = new byte[1024];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void write(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        /**
+         * write value as utf-8 bytes, CR and LF are removed
+         */
+        void writeWithoutNewLine(String value) {
+            if (value == null) {
+                return;
+            }
+            int length = value.length();
+            ensureCapacity(length * 3);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c != '\r' && c != '\n') {
+                        buf[size++] = (byte) c;
+                    }
+                } else if (c < 0x800) {
+                    buf[size++] = (byte) (0xc0 | (c >> 6));
+                    buf[size++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && indexOfLowSurrogate(value, i + 1) > 0) {
+                    // new line chars between the surrogates are removed too
+                    i = indexOfLowSurrogate(value, i + 1);
+                    int codePoint = Character.toCodePoint(c, value.charAt(i));
+                    buf[size++] = (byte) (0xf0 | (codePoint >> 18));
+                    buf[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buf[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buf[size++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // malformed surrogate, same as String.getBytes
+                    buf[size++] = '?';
+                } else {
+                    buf[size++] = (byte) (0xe0 | (c >> 12));
+                    buf[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buf[size++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+        }
+
+        /**
+         * index of the low surrogate from index, skipping new line chars
+         *
+         * @return index, -1 if not found
+         */
+        private static int indexOfLowSurrogate(String value, int index) {
+            while (index < value.length() && (value.charAt(index) == '\r' || value.charAt(index) == '\n')) {
+                index++;
+            }
+            return index < value.length() && Character.isLowSurrogate(value.charAt(index)) ? index : -1;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + length));
+            }
+        }
+    }
 }
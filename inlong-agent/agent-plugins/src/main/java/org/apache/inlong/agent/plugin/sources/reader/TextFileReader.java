@@ -19,45 +19,80 @@ package org.apache.inlong.agent.plugin.sources.reader;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.inlong.agent.conf.JobProfile;
+import org.apache.inlong.agent.core.task.TaskPositionManager;
 import org.apache.inlong.agent.message.DefaultMessage;
 import org.apache.inlong.agent.metrics.audit.AuditUtils;
 import org.apache.inlong.agent.plugin.Message;
+import org.apache.inlong.agent.plugin.TailableReader;
 import org.apache.inlong.agent.plugin.Validator;
 import org.apache.inlong.agent.plugin.except.FileException;
+import org.apache.inlong.agent.plugin.message.OffsetWatermark;
 import org.apache.inlong.agent.plugin.validator.PatternValidator;
 import org.apache.inlong.agent.utils.AgentUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Stream;
 
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_OFFSET_SEQ;
 import static org.apache.inlong.agent.constant.JobConstants.DEFAULT_JOB_FILE_MAX_WAIT;
 import static org.apache.inlong.agent.constant.JobConstants.JOB_FILE_MAX_WAIT;
 
 /**
- * read file data
+ * read file data line by line, the position is tracked as byte offset so that reading
+ * can be resumed by seeking the file channel.
  */
-public class TextFileReader extends AbstractReader {
+public class TextFileReader extends AbstractReader implements TailableReader {
 
     public static final int NEVER_STOP_SIGN = -1;
     private static final Logger LOGGER = LoggerFactory.getLogger(TextFileReader.class);
     private static final String TEXT_FILE_READER_TAG_NAME = "AgentTextMetric";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int INIT_LINE_SIZE = 1024;
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
     private final File file;
 
-    private final int position;
+    // byte offset to start reading from
+    private final long startOffset;
+
+    // line count to skip, only used when resuming from a position written by older versions
+    private final int linePosition;
+
+    private final String fingerprint;
+
+    private FileChannel channel;
+
+    private ByteBuffer readBuffer;
+
+    // bytes of the line which is not terminated yet
+    private byte[] lineBuffer = new byte[INIT_LINE_SIZE];
+
+    private int lineLength;
 
-    private final String md5;
+    // byte offset of the next unread line
+    private long offset;
 
-    private Iterator<String> iterator;
+    // each message takes a sequence with the offset after it, the sink saves the offset of the acked watermark
+    private OffsetWatermark offsetWatermark;
 
-    private Stream<String> stream;
+    private String jobInstanceId;
+
+    // return the last line without line feed when reader is going to finish
+    private boolean flushLastLine;
 
     private long timeout;
 
@@ -67,43 +102,165 @@ public class TextFileReader extends AbstractReader {
 
     private List<Validator> validators = new ArrayList<>();
 
+    /**
+     * @param position line count to skip, which is the position saved by older versions
+     */
     public TextFileReader(File file, int position) {
-        this(file, position, "");
+        this(file, 0, position, "");
     }
 
-    public TextFileReader(File file, int position, String md5) {
-        this.file = file;
-        this.position = position;
-        this.md5 = md5;
+    /**
+     * @param offset byte offset to start reading from
+     * @param fingerprint fingerprint of the file when offset was saved, the offset is ignored if not matched
+     */
+    public TextFileReader(File file, long offset, String fingerprint) {
+        this(file, offset, 0, fingerprint);
     }
 
     public TextFileReader(File file) {
         this(file, 0);
     }
 
+    private TextFileReader(File file, long startOffset, int linePosition, String fingerprint) {
+        this.file = file;
+        this.startOffset = startOffset;
+        this.linePosition = linePosition;
+        this.fingerprint = fingerprint;
+    }
+
     @Override
     public Message read() {
-        if (iterator != null && iterator.hasNext()) {
-            String message = iterator.next();
-            if (validateMessage(message)) {
-                AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_READ_SUCCESS,
-                        inlongGroupId, inlongStreamId, System.currentTimeMillis());
-                if (streamMetric != null) {
-                    readerMetric.incReadNum();
-                    streamMetric.incReadNum();
+        Message message = poll();
+        if (message == null) {
+            AgentUtils.silenceSleepInMs(waitTimeout);
+        }
+        return message;
+    }
+
+    @Override
+    public Message poll() {
+        if (channel != null) {
+            try {
+                byte[] line;
+                while ((line = readLine()) != null) {
+                    if (validateMessage(line)) {
+                        AuditUtils.add(AuditUtils.AUDIT_ID_AGENT_READ_SUCCESS,
+                                inlongGroupId, inlongStreamId, System.currentTimeMillis());
+                        if (streamMetric != null) {
+                            readerMetric.incReadNum();
+                            streamMetric.incReadNum();
+                        }
+                        Map<String, String> header = new HashMap<>();
+                        // filtered lines before the message are covered by its offset
+                        header.put(PROXY_KEY_OFFSET_SEQ, String.valueOf(offsetWatermark.next(offset)));
+                        return new DefaultMessage(line, header);
+                    }
                 }
-                return new DefaultMessage(message.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                throw new FileException("error read file " + file.getPath(), ex);
             }
         }
-        AgentUtils.silenceSleepInMs(waitTimeout);
         return null;
     }
 
-    private boolean validateMessage(String message) {
+    /**
+     * scan the read buffer for line feed, and refill it from channel when all bytes are scanned.
+     *
+     * @return line without line separator, null if there is no complete line for now
+     */
+    private byte[] readLine() throws IOException {
+        while (true) {
+            int start = readBuffer.position();
+            int limit = readBuffer.limit();
+            for (int i = start; i < limit; i++) {
+                if (readBuffer.get(i) == LINE_FEED) {
+                    appendLine(i - start);
+                    readBuffer.position(i + 1);
+                    return takeLine(1);
+                }
+            }
+            appendLine(limit - start);
+            readBuffer.clear();
+            int readSize = channel.read(readBuffer);
+            readBuffer.flip();
+            if (readSize > 0) {
+                flushLastLine = false;
+                continue;
+            }
+            if (channel.size() < offset + lineLength) {
+                LOGGER.warn("file {} is truncated to {}, read from the beginning", file, channel.size());
+                seek(0);
+                continue;
+            }
+            return flushLastLine && lineLength > 0 ? takeLine(0) : null;
+        }
+    }
+
+    private void appendLine(int length) {
+        if (lineLength + length > lineBuffer.length) {
+            lineBuffer = Arrays.copyOf(lineBuffer, Math.max(lineBuffer.length * 2, lineLength + length));
+        }
+        readBuffer.get(lineBuffer, lineLength, length);
+        lineLength += length;
+    }
+
+    private byte[] takeLine(int separatorLength) {
+        offset += lineLength + separatorLength;
+        int length = lineLength;
+        if (separatorLength > 0 && length > 0 && lineBuffer[length - 1] == CARRIAGE_RETURN) {
+            length--;
+        }
+        lineLength = 0;
+        return Arrays.copyOf(lineBuffer, length);
+    }
+
+    private void seek(long position) throws IOException {
+        channel.position(position);
+        readBuffer.clear().flip();
+        offset = position;
+        lineLength = 0;
+    }
+
+    /**
+     * count line feeds from the beginning of the file without decoding
+     *
+     * @return byte offset after the skipped lines
+     */
+    private long skipLines(int lines) throws IOException {
+        long skipped = 0;
+        int count = 0;
+        while (count < lines) {
+            readBuffer.clear();
+            int readSize = channel.read(readBuffer, skipped);
+            if (readSize <= 0) {
+                break;
+            }
+            readBuffer.flip();
+            while (readBuffer.hasRemaining() && count < lines) {
+                skipped++;
+                if (readBuffer.get() == LINE_FEED) {
+                    count++;
+                }
+            }
+        }
+        return skipped;
+    }
+
+    private boolean validateMessage(byte[] message) {
         if (validators.isEmpty()) {
             return true;
         }
-        return validators.stream().allMatch(v -> v.validate(message));
+        String line = new String(message, StandardCharsets.UTF_8);
+        return validators.stream().allMatch(v -> v.validate(line));
+    }
+
+    private boolean hasUnreadBytes() {
+        try {
+            return readBuffer.hasRemaining() || channel.size() > channel.position();
+        } catch (IOException ex) {
+            LOGGER.warn("cannot get size of {}", file, ex);
+            return false;
+        }
     }
 
     @Override
@@ -111,17 +268,24 @@ public class TextFileReader extends AbstractReader {
         if (timeout == NEVER_STOP_SIGN) {
             return false;
         }
-        if (iterator == null) {
+        if (channel == null) {
             return true;
         }
-        if (iterator.hasNext()) {
+        if (hasUnreadBytes()) {
             lastTime = 0;
             return false;
         } else {
             if (lastTime == 0) {
                 lastTime = System.currentTimeMillis();
             }
-            return System.currentTimeMillis() - lastTime > timeout;
+            if (System.currentTimeMillis() - lastTime <= timeout) {
+                return false;
+            }
+            if (lineLength > 0 && !flushLastLine) {
+                flushLastLine = true;
+                return false;
+            }
+            return true;
         }
     }
 
@@ -130,6 +294,11 @@ public class TextFileReader extends AbstractReader {
         return file.getAbsolutePath();
     }
 
+    @Override
+    public Path getTailedFile() {
+        return file.toPath().toAbsolutePath();
+    }
+
     @Override
     public void setReadTimeout(long millis) {
         timeout = millis;
@@ -162,24 +331,55 @@ public class TextFileReader extends AbstractReader {
         validators.add(new PatternValidator(pattern));
     }
 
+    /**
+     * byte offset of the next unread line
+     */
+    public long getOffset() {
+        return offset;
+    }
+
     @Override
     public void init(JobProfile jobConf) {
         try {
             super.init(jobConf);
             intMetric(TEXT_FILE_READER_TAG_NAME);
             initReadTimeout(jobConf);
-            String md5 = AgentUtils.getFileMd5(file);
-            if (StringUtils.isNotBlank(this.md5) && !this.md5.equals(md5)) {
-                LOGGER.warn("md5 is differ from origin, origin: {}, new {}", this.md5, md5);
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            long position = startOffset;
+            if (StringUtils.isNotBlank(fingerprint) && !AgentUtils.matchFileFingerprint(file, fingerprint)) {
+                LOGGER.warn("file {} differs from the one with fingerprint {}, read from the beginning",
+                        file, fingerprint);
+                position = 0;
+            } else if (position > channel.size()) {
+                LOGGER.warn("offset {} exceeds size of file {}, read from the beginning", position, file);
+                position = 0;
+            }
+            if (linePosition > 0) {
+                position = skipLines(linePosition);
             }
-            LOGGER.info("file name for task is {}, md5 is {}", file, md5);
-            stream = Files.newBufferedReader(file.toPath()).lines().skip(position);
-            iterator = stream.iterator();
+            seek(position);
+            LOGGER.info("file name for task is {}, fingerprint is {}, read from offset {}",
+                    file, AgentUtils.getFileFingerprint(file), position);
+            jobInstanceId = jobConf.getInstanceId();
+            offsetWatermark = OffsetWatermark.register(jobInstanceId, getReadSource(), offset);
+            resetSinkPosition();
         } catch (Exception ex) {
+            AgentUtils.finallyClose(channel);
+            channel = null;
             throw new FileException("error init stream for " + file.getPath(), ex);
         }
     }
 
+    /**
+     * the sink position starts from the offset the reader starts from, and moves with the acked watermark
+     */
+    private void resetSinkPosition() {
+        if (jobInstanceId != null && TaskPositionManager.isInitialized()) {
+            TaskPositionManager.getTaskPositionManager().resetSinkPosition(jobInstanceId, getReadSource(), offset);
+        }
+    }
+
     private void initReadTimeout(JobProfile jobConf) {
         int waitTime = jobConf.getInt(JOB_FILE_MAX_WAIT,
                 DEFAULT_JOB_FILE_MAX_WAIT);
@@ -192,11 +392,12 @@ public class TextFileReader extends AbstractReader {
 
     @Override
     public void destroy() {
-        if (stream == null) {
+        if (channel == null) {
             return;
         }
-        AgentUtils.finallyClose(stream);
-        LOGGER.info("destroy reader with read {} num {}",
-                streamMetric.getTagName(), streamMetric.getReadNum());
+        AgentUtils.finallyClose(channel);
+        OffsetWatermark.unregister(jobInstanceId, getReadSource());
+        LOGGER.info("destroy reader with read {} num {}, offset {}",
+                streamMetric.getTagName(), streamMetric.getReadNum(), offset);
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.sources.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Checkpoint of chunked sql reading. The first line of file is the key range and size of
+ * chunks, and each of the following lines is the index of a chunk which is finished.
+ */
+public class SqlChunkSnapshot implements SnapshotBase {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlChunkSnapshot.class);
+    private static final String SPLITTER = ",";
+
+    private final File file;
+    private final BitSet finishedChunks = new BitSet();
+    private long minKey;
+    private long maxKey;
+    private long chunkSize;
+
+    public SqlChunkSnapshot(String filePath) {
+        file = new File(filePath);
+    }
+
+    /**
+     * load checkpoint from local file
+     *
+     * @return true if the chunk range is loaded, false if there is no valid checkpoint
+     */
+    public boolean load() {
+        finishedChunks.clear();
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                return false;
+            }
+            String[] range = lines.get(0).split(SPLITTER);
+            minKey = Long.parseLong(range[0]);
+            maxKey = Long.parseLong(range[1]);
+            chunkSize = Long.parseLong(range[2]);
+            for (String line : lines.subList(1, lines.size())) {
+                // the last line may be partially written
+                if (!line.isEmpty()) {
+                    finishedChunks.set(Integer.parseInt(line));
+                }
+            }
+            return true;
+        } catch (Exception ex) {
+            log.error("load sql chunk checkpoint error, read from the beginning", ex);
+            finishedChunks.clear();
+            return false;
+        }
+    }
+
+    /**
+     * start a new checkpoint with the key range and size of chunks
+     */
+    public synchronized void init(long minKey, long maxKey, long chunkSize) {
+        this.minKey = minKey;
+        this.maxKey = maxKey;
+        this.chunkSize = chunkSize;
+        finishedChunks.clear();
+        write(String.join(SPLITTER, String.valueOf(minKey), String.valueOf(maxKey),
+                String.valueOf(chunkSize)), false);
+    }
+
+    /**
+     * save a finished chunk, it's not read again after restart
+     */
+    public synchronized void saveChunk(int chunkIndex) {
+        finishedChunks.set(chunkIndex);
+        write(String.valueOf(chunkIndex), true);
+    }
+
+    public synchronized boolean isChunkFinished(int chunkIndex) {
+        return finishedChunks.get(chunkIndex);
+    }
+
+    public long getMinKey() {
+        return minKey;
+    }
+
+    public long getMaxKey() {
+        return maxKey;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * number of chunks of the key range
+     */
+    public int getChunkCount() {
+        return (int) ((maxKey - minKey) / chunkSize + 1);
+    }
+
+    private void write(String line, boolean append) {
+        try (OutputStream output = new FileOutputStream(file, append)) {
+            output.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.error("save sql chunk checkpoint to file error", e);
+        }
+    }
+
+    @Override
+    public synchronized String getSnapshot() {
+        if (chunkSize <= 0) {
+            return "";
+        }
+        return finishedChunks.cardinality() + "/" + getChunkCount();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -37,26 +37,39 @@ import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 /**
  * Watch directory, if new valid files are created, create jobs correspondingly.
+ * Path patterns are compiled into a {@link PathTrie}, only directories which can match are walked and watched.
  */
 public class DirectoryTrigger extends AbstractDaemon implements Trigger {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryTrigger.class);
     private static volatile WatchService watchService;
-    private final ConcurrentHashMap<PathPattern, List<WatchKey>> allWatchers =
-            new ConcurrentHashMap<>();
+    private final Set<PathPattern> patterns = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Path, WatchKey> watchers = new ConcurrentHashMap<>();
+    // directory -> files modified since this time are checked, only accessed by the event handler
+    private final Map<Path, Long> pendingRescans = new LinkedHashMap<>();
+    // files found in one check, used to filter duplicated files
+    private final Set<Path> foundFiles = ConcurrentHashMap.newKeySet();
     private final LinkedBlockingQueue<JobProfile> queue = new LinkedBlockingQueue<>();
+    private volatile PathTrie trie = PathTrie.build(patterns);
+    private ForkJoinPool walkPool;
     private TriggerProfile profile;
     private int interval;
+    private int rescanMaxDirs;
+    private long lastCheckTime;
 
     private static void initWatchService() {
         try {
@@ -100,80 +113,158 @@ public class DirectoryTrigger extends AbstractDaemon implements Trigger {
     public void stop() {
         waitForTerminate();
         releaseResource();
+        if (walkPool != null) {
+            walkPool.shutdownNow();
+        }
     }
 
     /**
-     * register all sub-directory
+     * watch directory if not watched
      *
-     * @param entity entity
-     * @param path path
-     * @param tmpWatchers watchers
+     * @return true if directory is newly watched
      */
-    private void registerAllSubDir(PathPattern entity,
-            Path path,
-            List<WatchKey> tmpWatchers) throws Exception {
-        // check regex
-        LOGGER.info("check whether path {} is suitable", path);
-        if (entity.suitForWatch(path.toString())) {
-            if (path.toFile().isDirectory()) {
-                WatchKey watchKey = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
-                tmpWatchers.add(watchKey);
-                try (Stream<Path> stream = Files.list(path)) {
-                    Iterator<Path> iterator = stream.iterator();
-                    while (iterator.hasNext()) {
-                        registerAllSubDir(entity, iterator.next().toAbsolutePath(), tmpWatchers);
-                    }
-                }
-            } else {
-                JobProfile copiedJobProfile = PluginUtils.copyJobProfile(profile,
-                        entity.getSuitTime(), path.toFile());
-                LOGGER.info("trigger {} generate job profile to read file {}",
-                        getTriggerProfile().getTriggerId(), path.toString());
-                queue.offer(copiedJobProfile);
+    private boolean watch(Path dir) throws IOException {
+        if (watchers.containsKey(dir)) {
+            return false;
+        }
+        WatchKey watchKey = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+        return watchers.putIfAbsent(dir, watchKey) == null;
+    }
+
+    private boolean watchQuietly(Path dir) {
+        try {
+            return watch(dir);
+        } catch (IOException ex) {
+            LOGGER.warn("cannot watch directory {}", dir, ex);
+            return false;
+        }
+    }
+
+    /**
+     * create jobs for file matched by patterns
+     *
+     * @param file file path
+     * @param states trie nodes matched by file path
+     */
+    private void offerJobs(Path file, List<PathTrie.Node> states) {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        Set<PathPattern> matchedPatterns = PathTrie.matchedPatterns(states);
+        if (matchedPatterns.isEmpty() || !foundFiles.add(file)) {
+            return;
+        }
+        for (PathPattern pattern : matchedPatterns) {
+            JobProfile copiedJobProfile = PluginUtils.copyJobProfile(profile,
+                    pattern.getSuitTime(), file.toFile());
+            LOGGER.info("trigger {} generate job profile to read file {}",
+                    getTriggerProfile().getTriggerId(), file);
+            queue.offer(copiedJobProfile);
+        }
+    }
+
+    /**
+     * if a path is created, then check whether it can match
+     */
+    private void checkNewPath(Path path) {
+        PathTrie currentTrie = trie;
+        List<PathTrie.Node> states = currentTrie.match(path);
+        if (states.isEmpty()) {
+            return;
+        }
+        if (Files.isDirectory(path)) {
+            if (watchQuietly(path)) {
+                walkPool.invoke(new WalkTask(currentTrie, path, states, true));
             }
+        } else {
+            offerJobs(path, states);
         }
     }
 
     /**
-     * if directory has created, then check whether directory is valid
+     * events of directory may be lost when overflow, check children of the directory only,
+     * sub-directories already watched report overflow by themselves.
      *
-     * @param entity entity
-     * @param watchKey watch key
-     * @param tmpWatchers watchers
+     * @param dir directory to check
+     * @param since files modified before this time are ignored
      */
-    private void registerNewDir(PathPattern entity,
-            WatchKey watchKey,
-            List<WatchKey> tmpWatchers,
-            List<WatchKey> tmpDeletedWatchers) throws Exception {
-        Path parentPath = (Path) watchKey.watchable();
-        for (WatchEvent<?> event : watchKey.pollEvents()) {
-            // if watch event is too much, then event would be overflow.
-            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
-                // only watch create event, so else is create-event.
-                entity.updateDateFormatRegex();
-                Path createdPath = (Path) event.context();
-                if (createdPath != null) {
-                    registerAllSubDir(entity, parentPath.resolve(createdPath), tmpWatchers);
+    private void rescan(Path dir, long since) {
+        if (!watchers.containsKey(dir)) {
+            return;
+        }
+        PathTrie currentTrie = trie;
+        List<PathTrie.Node> states = currentTrie.match(dir);
+        try (Stream<Path> pathStream = Files.list(dir)) {
+            for (Iterator<Path> it = pathStream.iterator(); it.hasNext(); ) {
+                Path childPath = it.next();
+                List<PathTrie.Node> childStates = currentTrie.childStates(states, childPath.getFileName().toString());
+                if (childStates.isEmpty()) {
+                    continue;
                 }
-            } else if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
-                LOGGER.info("overflow got {}", parentPath);
-                // check whether parent path is valid.
-                if (Files.isDirectory(parentPath)) {
-                    try (final Stream<Path> pathStream = Files.list(parentPath)) {
-                        for (Iterator<Path> it = pathStream.iterator(); it.hasNext(); ) {
-                            Path childPath = it.next();
-                            registerAllSubDir(entity, parentPath.resolve(childPath), tmpWatchers);
-                        }
-                    } catch (Exception e) {
-                        LOGGER.error("error caught", e);
+                if (Files.isDirectory(childPath)) {
+                    if (watchQuietly(childPath)) {
+                        walkPool.invoke(new WalkTask(currentTrie, childPath, childStates, true));
+                    }
+                } else if (childPath.toFile().lastModified() >= since) {
+                    offerJobs(childPath, childStates);
+                }
+            }
+        } catch (Exception ex) {
+            LOGGER.error("error caught when rescan {}", dir, ex);
+        }
+    }
+
+    /**
+     * rescan at most rescanMaxDirs directories, others are left to next check
+     */
+    private void rescanOverflowDirs() {
+        Iterator<Map.Entry<Path, Long>> iterator = pendingRescans.entrySet().iterator();
+        for (int i = 0; i < rescanMaxDirs && iterator.hasNext(); i++) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            iterator.remove();
+            rescan(entry.getKey(), entry.getValue());
+        }
+        if (!pendingRescans.isEmpty()) {
+            LOGGER.info("{} overflow directories left to rescan", pendingRescans.size());
+        }
+    }
+
+    /**
+     * poll events of all watchers, then check new paths and overflow directories
+     */
+    private void checkWatchers() {
+        List<Path> createdPaths = new ArrayList<>();
+        long since = lastCheckTime - TimeUnit.SECONDS.toMillis(interval);
+        for (Iterator<Map.Entry<Path, WatchKey>> it = watchers.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, WatchKey> entry = it.next();
+            Path parentPath = entry.getKey();
+            for (WatchEvent<?> event : entry.getValue().pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    Path createdPath = (Path) event.context();
+                    if (createdPath != null) {
+                        createdPaths.add(parentPath.resolve(createdPath));
                     }
+                } else if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // if watch event is too much, then event would be overflow.
+                    LOGGER.info("overflow got {}", parentPath);
+                    pendingRescans.putIfAbsent(parentPath, since);
                 }
             }
+            if (!entry.getValue().isValid() || !Files.exists(parentPath)) {
+                LOGGER.warn("{} not exist, remove watcher", parentPath);
+                entry.getValue().cancel();
+                it.remove();
+            }
+        }
+        if (createdPaths.isEmpty() && pendingRescans.isEmpty()) {
+            return;
         }
-        if (!Files.exists(parentPath)) {
-            LOGGER.warn("{} not exist, add watcher to pending delete list", parentPath);
-            tmpDeletedWatchers.add(watchKey);
+        foundFiles.clear();
+        updateTrie();
+        for (Path createdPath : createdPaths) {
+            checkNewPath(createdPath);
         }
+        rescanOverflowDirs();
     }
 
     /**
@@ -186,20 +277,9 @@ public class DirectoryTrigger extends AbstractDaemon implements Trigger {
             while (isRunnable()) {
                 try {
                     TimeUnit.SECONDS.sleep(interval);
-                    allWatchers.forEach((pathPattern, watchKeys) -> {
-                        List<WatchKey> tmpWatchers = new ArrayList<>();
-                        List<WatchKey> tmpDeletedWatchers = new ArrayList<>();
-                        pathPattern.cleanup();
-                        try {
-                            for (WatchKey watchKey : watchKeys) {
-                                registerNewDir(pathPattern, watchKey, tmpWatchers, tmpDeletedWatchers);
-                            }
-                        } catch (Exception ex) {
-                            LOGGER.error("error caught", ex);
-                        }
-                        watchKeys.addAll(tmpWatchers);
-                        watchKeys.removeAll(tmpDeletedWatchers);
-                    });
+                    long checkTime = System.currentTimeMillis();
+                    checkWatchers();
+                    lastCheckTime = checkTime;
                 } catch (Exception ex) {
                     LOGGER.error("error caught", ex);
                 }
@@ -207,11 +287,42 @@ public class DirectoryTrigger extends AbstractDaemon implements Trigger {
         };
     }
 
+    /**
+     * update regex of patterns since time may change, and rebuild trie if any regex changes
+     */
+    private synchronized void updateTrie() {
+        boolean changed = false;
+        for (PathPattern pattern : patterns) {
+            String formattedRegex = pattern.getFormattedRegex();
+            pattern.updateDateFormatRegex();
+            changed |= !formattedRegex.equals(pattern.getFormattedRegex());
+        }
+        if (changed) {
+            rebuildTrie();
+        }
+    }
+
+    /**
+     * rebuild trie with all patterns, and cancel watchers of directories which can not match any more
+     */
+    private synchronized PathTrie rebuildTrie() {
+        PathTrie currentTrie = PathTrie.build(patterns);
+        trie = currentTrie;
+        for (Iterator<Map.Entry<Path, WatchKey>> it = watchers.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, WatchKey> entry = it.next();
+            if (currentTrie.match(entry.getKey()).isEmpty()) {
+                LOGGER.info("{} can not match any pattern, remove watcher", entry.getKey());
+                entry.getValue().cancel();
+                it.remove();
+            }
+        }
+        return currentTrie;
+    }
+
     private void releaseResource() {
-        allWatchers.forEach((absoluteFilePath, watchKeys) -> {
-            watchKeys.forEach(WatchKey::cancel);
-        });
-        allWatchers.clear();
+        watchers.values().forEach(WatchKey::cancel);
+        watchers.clear();
+        patterns.clear();
     }
 
     @Override
@@ -235,33 +346,36 @@ public class DirectoryTrigger extends AbstractDaemon implements Trigger {
         innerRegister(pathPattern, entity);
     }
 
+    /**
+     * watch root directory of pattern, and walk existing directories which can match in parallel,
+     * files already existing are not collected here, they are found when the job starts.
+     */
     private void innerRegister(String pathPattern, PathPattern entity) throws IOException {
-        List<WatchKey> tmpKeyList = new ArrayList<>();
-        List<WatchKey> keyList = allWatchers.putIfAbsent(entity, tmpKeyList);
-        if (keyList == null) {
-            Path rootPath = Paths.get(entity.getRootDir());
-            LOGGER.info("watch root path is {}", rootPath);
-            WatchKey key = rootPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
-            tmpKeyList.add(key);
-        } else {
+        if (!patterns.add(entity)) {
             LOGGER.error("{} exists in watcher list, please check it", pathPattern);
+            return;
         }
+        PathTrie currentTrie = rebuildTrie();
+        Path rootPath = Paths.get(entity.getRootDir());
+        LOGGER.info("watch root path is {}", rootPath);
+        watch(rootPath);
+        long startTime = System.currentTimeMillis();
+        walkPool.invoke(new WalkTask(currentTrie, rootPath, currentTrie.match(rootPath), false));
+        LOGGER.info("finish walking {}, {} directories are watched, cost {}ms", rootPath,
+                watchers.size(), System.currentTimeMillis() - startTime);
     }
 
     public void unregister(String pathPattern) {
         PathPattern entity = new PathPattern(pathPattern);
-        Collection<WatchKey> allKeys = allWatchers.remove(entity);
-        if (allKeys != null) {
+        if (patterns.remove(entity)) {
+            rebuildTrie();
             LOGGER.info("unregister pattern {}, total size of path {}", pathPattern,
-                    allKeys.size());
-            for (WatchKey key : allKeys) {
-                key.cancel();
-            }
+                    watchers.size());
         }
     }
 
-    ConcurrentHashMap<PathPattern, List<WatchKey>> getAllWatchers() {
-        return allWatchers;
+    Map<Path, WatchKey> getWatchers() {
+        return watchers;
     }
 
     @Override
@@ -269,6 +383,11 @@ public class DirectoryTrigger extends AbstractDaemon implements Trigger {
         initWatchService();
         interval = profile.getInt(
                 AgentConstants.TRIGGER_CHECK_INTERVAL, AgentConstants.DEFAULT_TRIGGER_CHECK_INTERVAL);
+        rescanMaxDirs = profile.getInt(
+                AgentConstants.TRIGGER_RESCAN_MAX_DIRS, AgentConstants.DEFAULT_TRIGGER_RESCAN_MAX_DIRS);
+        walkPool = new ForkJoinPool(profile.getInt(
+                AgentConstants.TRIGGER_WALK_PARALLELISM, AgentConstants.DEFAULT_TRIGGER_WALK_PARALLELISM));
+        lastCheckTime = System.currentTimeMillis();
         this.profile = profile;
 
         if (this.profile.hasKey(JobConstants.JOB_DIR_FILTER_PATTERN)) {
@@ -290,4 +409,52 @@ public class DirectoryTrigger extends AbstractDaemon implements Trigger {
             throw new IllegalStateException(exception);
         }
     }
+
+    /**
+     * walk directory, watch sub-directories which can match, and walk them in parallel
+     */
+    private class WalkTask extends RecursiveAction {
+
+        private final PathTrie walkTrie;
+        private final Path dir;
+        private final List<PathTrie.Node> states;
+        private final boolean collectFiles;
+
+        WalkTask(PathTrie walkTrie, Path dir, List<PathTrie.Node> states, boolean collectFiles) {
+            this.walkTrie = walkTrie;
+            this.dir = dir;
+            this.states = states;
+            this.collectFiles = collectFiles;
+        }
+
+        @Override
+        protected void compute() {
+            if (states.isEmpty()) {
+                return;
+            }
+            List<WalkTask> subTasks = new ArrayList<>();
+            try (Stream<Path> pathStream = Files.list(dir)) {
+                for (Iterator<Path> it = pathStream.iterator(); it.hasNext(); ) {
+                    Path childPath = it.next();
+                    List<PathTrie.Node> childStates = walkTrie.childStates(states,
+                            childPath.getFileName().toString());
+                    if (childStates.isEmpty()) {
+                        continue;
+                    }
+                    if (Files.isDirectory(childPath)) {
+                        // directories watched by other patterns are walked again when registering,
+                        // symbolic links are not, in case of loops
+                        if (watchQuietly(childPath) || (!collectFiles && !Files.isSymbolicLink(childPath))) {
+                            subTasks.add(new WalkTask(walkTrie, childPath, childStates, collectFiles));
+                        }
+                    } else if (collectFiles) {
+                        offerJobs(childPath, childStates);
+                    }
+                }
+            } catch (Exception ex) {
+                LOGGER.warn("cannot walk {}, please check it", dir, ex);
+            }
+            invokeAll(subTasks);
+        }
+    }
 }
@@ -17,7 +17,6 @@
 
 package org.apache.inlong.agent.plugin.trigger;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.inlong.agent.plugin.filter.DateFormatRegex;
 import org.slf4j.Logger;
@@ -29,8 +28,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -44,19 +41,16 @@ public class PathPattern {
 
     private final String watchDir;
     private final String rootDir;
-    private final Set<String> subDirs;
 
     public PathPattern(String watchDir) {
         this.watchDir = watchDir;
         rootDir = findRoot(watchDir);
-        subDirs = new HashSet<>();
         dateFormatRegex = DateFormatRegex.ofRegex(watchDir);
     }
 
     public PathPattern(String watchDir, String offset) {
         this.watchDir = watchDir;
         rootDir = findRoot(watchDir);
-        subDirs = new HashSet<>();
         dateFormatRegex = DateFormatRegex.ofRegex(watchDir).withOffset(offset);
     }
 
@@ -112,37 +106,7 @@ public class PathPattern {
     }
 
     /**
-     * cleanup local cache, subDirs is only used to filter duplicated directories
-     * in one term watch key check.
-     */
-    public void cleanup() {
-        subDirs.clear();
-    }
-
-    /**
-     * whether path is suitable
-     *
-     * @param pathStr pathString
-     * @return true if suit else false.
-     */
-    public boolean suitForWatch(String pathStr) {
-        // remove common root dir
-        String briefSubDir = StringUtils.substringAfter(pathStr, rootDir);
-        // if already watched, then stop deep find
-        if (subDirs.contains(briefSubDir)) {
-            LOGGER.info("already watched {}", pathStr);
-            return false;
-        }
-        boolean matched = dateFormatRegex.withFile(new File(pathStr)).match();
-        if (matched) {
-            LOGGER.info("add path {}", pathStr);
-            subDirs.add(briefSubDir);
-        }
-        return matched;
-    }
-
-    /**
-     * when a new file is found, update regex since time may change.
+     * update regex with current time, since time may change.
      */
     public void updateDateFormatRegex() {
         dateFormatRegex.setRegexWithCurrentTime(this.watchDir);
@@ -179,6 +143,10 @@ public class PathPattern {
         return rootDir;
     }
 
+    public String getFormattedRegex() {
+        return dateFormatRegex.getFormattedRegex();
+    }
+
     public String getSuitTime() {
         return dateFormatRegex.getFormattedTime();
     }
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.trigger;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * prefix trie of path patterns, each level is one name of the path, which is either a literal name or a regex.
+ * a path can match if there are nodes at its level, a pattern is matched once its last node is reached,
+ * and like {@link org.apache.inlong.agent.utils.AgentUtils#regexMatch}, paths under it are matched as well.
+ */
+public class PathTrie {
+
+    private static final String SEPARATOR = FileSystems.getDefault().getSeparator();
+    private static final String REGEX_CHARS = "\\^$.|?*+()[]{}";
+
+    private final Node root = new Node(null);
+
+    private PathTrie() {
+    }
+
+    /**
+     * build trie with current formatted regex of patterns
+     */
+    public static PathTrie build(Collection<PathPattern> patterns) {
+        PathTrie trie = new PathTrie();
+        for (PathPattern pattern : patterns) {
+            trie.add(pattern);
+        }
+        return trie;
+    }
+
+    private void add(PathPattern pattern) {
+        Node node = root;
+        for (String name : StringUtils.split(pattern.getFormattedRegex(), SEPARATOR)) {
+            node = node.getOrCreateChild(name);
+        }
+        node.patterns.add(pattern);
+    }
+
+    /**
+     * nodes matched by path, empty if neither the path nor paths under it can match
+     */
+    public List<Node> match(Path path) {
+        List<Node> states = Collections.singletonList(root);
+        for (Path name : path) {
+            states = childStates(states, name.toString());
+            if (states.isEmpty()) {
+                break;
+            }
+        }
+        return states;
+    }
+
+    /**
+     * nodes matched by child of the path matched by states
+     *
+     * @param states nodes matched by parent path
+     * @param name file name of child
+     */
+    public List<Node> childStates(List<Node> states, String name) {
+        List<Node> result = new ArrayList<>(1);
+        for (Node state : states) {
+            if (!state.patterns.isEmpty()) {
+                addState(result, state);
+            }
+            Node literal = state.literalChildren.get(name);
+            if (literal != null) {
+                addState(result, literal);
+            }
+            for (Node child : state.regexChildren.values()) {
+                if (child.regex.matcher(name).matches()) {
+                    addState(result, child);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addState(List<Node> states, Node node) {
+        if (!states.contains(node)) {
+            states.add(node);
+        }
+    }
+
+    /**
+     * patterns matched by the path matched by states
+     */
+    public static Set<PathPattern> matchedPatterns(List<Node> states) {
+        Set<PathPattern> result = new HashSet<>();
+        for (Node state : states) {
+            result.addAll(state.patterns);
+        }
+        return result;
+    }
+
+    private static boolean isLiteral(String name) {
+        return StringUtils.containsNone(name, REGEX_CHARS);
+    }
+
+    /**
+     * one level of patterns
+     */
+    public static class Node {
+
+        private final Pattern regex;
+        private final Map<String, Node> literalChildren = new HashMap<>();
+        private final Map<String, Node> regexChildren = new LinkedHashMap<>();
+        private final Set<PathPattern> patterns = new HashSet<>();
+
+        private Node(Pattern regex) {
+            this.regex = regex;
+        }
+
+        private Node getOrCreateChild(String name) {
+            if (isLiteral(name)) {
+                return literalChildren.computeIfAbsent(name, key -> new Node(null));
+            }
+            return regexChildren.computeIfAbsent(name, key -> new Node(Pattern.compile(key)));
+        }
+    }
+}
@@ -42,6 +42,7 @@ import static org.apache.inlong.agent.constant.CommonConstants.AGENT_NUX_OS;
 import static org.apache.inlong.agent.constant.CommonConstants.AGENT_OS_NAME;
 import static org.apache.inlong.agent.constant.CommonConstants.DEFAULT_FILE_MAX_NUM;
 import static org.apache.inlong.agent.constant.CommonConstants.FILE_MAX_NUM;
+import static org.apache.inlong.agent.constant.CommonConstants.FINGERPRINT_SUFFIX;
 import static org.apache.inlong.agent.constant.JobConstants.JOB_DIR_FILTER_PATTERN;
 import static org.apache.inlong.agent.constant.JobConstants.JOB_RETRY_TIME;
 
@@ -108,8 +109,8 @@ public class PluginUtils {
     public static JobProfile copyJobProfile(TriggerProfile triggerProfile, String dataTime,
             File pendingFile) {
         JobProfile copiedProfile = TriggerProfile.parseJsonStr(triggerProfile.toJsonStr());
-        String md5 = AgentUtils.getFileMd5(pendingFile);
-        copiedProfile.set(pendingFile.getAbsolutePath() + ".md5", md5);
+        String fingerprint = AgentUtils.getFileFingerprint(pendingFile);
+        copiedProfile.set(pendingFile.getAbsolutePath() + FINGERPRINT_SUFFIX, fingerprint);
         copiedProfile.set(JobConstants.JOB_DIR_FILTER_PATTERN, pendingFile.getAbsolutePath());
         // the time suit for file name is just the data time
         copiedProfile.set(JobConstants.JOB_DATA_TIME, dataTime);
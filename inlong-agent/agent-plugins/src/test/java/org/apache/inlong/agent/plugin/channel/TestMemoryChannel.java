@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.channel;
+
+import org.apache.inlong.agent.conf.JobProfile;
+import org.apache.inlong.agent.message.DefaultMessage;
+import org.apache.inlong.agent.plugin.Message;
+import org.apache.inlong.agent.plugin.utils.TestUtils;
+import org.apache.inlong.common.metric.MetricRegister;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.inlong.agent.constant.AgentConstants.CHANNEL_MEMORY_CAPACITY;
+import static org.apache.inlong.agent.constant.AgentConstants.CHANNEL_MEMORY_CAPACITY_BYTES;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.management.*", "javax.script.*", "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*",
+        "org.w3c.*"})
+@PrepareForTest({MetricRegister.class})
+public class TestMemoryChannel {
+
+    private MemoryChannel createChannel(int capacity, long byteCapacity) throws Exception {
+        TestUtils.mockMetricRegister();
+        JobProfile jobProfile = new JobProfile();
+        jobProfile.setInt(CHANNEL_MEMORY_CAPACITY, capacity);
+        jobProfile.setLong(CHANNEL_MEMORY_CAPACITY_BYTES, byteCapacity);
+        MemoryChannel channel = new MemoryChannel();
+        channel.init(jobProfile);
+        return channel;
+    }
+
+    @Test
+    public void testByteCapacity() throws Exception {
+        MemoryChannel channel = createChannel(100, 1000);
+        List<Message> messages = Arrays.asList(new DefaultMessage(new byte[600]), new DefaultMessage(new byte[600]));
+        Assert.assertEquals(1, channel.pushBatch(messages, 0, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, channel.pullBatch(10, 0, TimeUnit.MILLISECONDS).size());
+        // message larger than byte capacity is accepted by empty channel
+        Assert.assertTrue(channel.push(new DefaultMessage(new byte[5000]), 0, TimeUnit.MILLISECONDS));
+        Assert.assertFalse(channel.push(new DefaultMessage(new byte[1]), 0, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(5000, channel.pull(0, TimeUnit.MILLISECONDS).getBody().length);
+        Assert.assertNull(channel.pull(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testBatchInOrder() throws Exception {
+        MemoryChannel channel = createChannel(8, Long.MAX_VALUE);
+        int total = 100000;
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            List<Message> batch = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                batch.add(new DefaultMessage(String.valueOf(i).getBytes()));
+                if (batch.size() == 5 || i == total - 1) {
+                    int pushed = 0;
+                    while (pushed < batch.size()) {
+                        pushed += channel.pushBatch(batch.subList(pushed, batch.size()), 1, TimeUnit.SECONDS);
+                    }
+                    batch.clear();
+                }
+            }
+        });
+        int count = 0;
+        while (count < total) {
+            for (Message message : channel.pullBatch(3, 1, TimeUnit.SECONDS)) {
+                Assert.assertEquals(String.valueOf(count), message.toString());
+                count++;
+            }
+        }
+        writer.get(10, TimeUnit.SECONDS);
+        channel.destroy();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.sinks;
+
+import org.apache.inlong.agent.conf.JobProfile;
+import org.apache.inlong.agent.core.task.TaskPositionManager;
+import org.apache.inlong.agent.message.DefaultMessage;
+import org.apache.inlong.agent.plugin.Message;
+import org.apache.inlong.agent.plugin.MessageFilter;
+import org.apache.inlong.agent.plugin.utils.TestUtils;
+import org.apache.inlong.common.metric.MetricRegister;
+import org.apache.inlong.sdk.dataproxy.DefaultMessageSender;
+import org.apache.inlong.sdk.dataproxy.SendMessageCallback;
+import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.inlong.agent.constant.AgentConstants.AGENT_MESSAGE_FILTER_CLASSNAME;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_BATCH_PRE_ENCODE;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INFLIGHT_WINDOW;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_GROUP_ID;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_PACKAGE_MAX_SIZE;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_PACKAGE_MAX_TIMEOUT_MS;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_SINK_DESTROY_TIMEOUT_MS;
+import static org.apache.inlong.agent.constant.JobConstants.JOB_INSTANCE_ID;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.management.*", "javax.script.*", "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*",
+        "org.w3c.*"})
+@PrepareForTest({MetricRegister.class, TaskPositionManager.class})
+public class TestProxySink {
+
+    private static final String STREAM_HEADER = "testStream";
+    // two messages make a full batch, a batch carries one message
+    private static final String RECORD = "12345678";
+    private static final long VERIFY_TIMEOUT_MS = 2000;
+
+    /**
+     * route messages to the stream in their header
+     */
+    public static class HeaderStreamFilter implements MessageFilter {
+
+        @Override
+        public String filterStreamId(Message message, byte[] fieldSplitter) {
+            return message.getHeader().get(STREAM_HEADER);
+        }
+    }
+
+    private static ProxySink mockProxySink(String groupId, DefaultMessageSender sender) throws Exception {
+        TestUtils.mockMetricRegister();
+        PowerMockito.mockStatic(TaskPositionManager.class);
+        PowerMockito.when(TaskPositionManager.getTaskPositionManager())
+                .thenReturn(PowerMockito.mock(TaskPositionManager.class));
+        JobProfile jobProfile = JobProfile.parseJsonStr("{}");
+        jobProfile.set(JOB_INSTANCE_ID, groupId);
+        jobProfile.set(PROXY_INLONG_GROUP_ID, groupId);
+        jobProfile.set(PROXY_PACKAGE_MAX_SIZE, "10");
+        jobProfile.set(PROXY_PACKAGE_MAX_TIMEOUT_MS, "100");
+        jobProfile.set(PROXY_INFLIGHT_WINDOW, "1");
+        jobProfile.set(PROXY_SINK_DESTROY_TIMEOUT_MS, "200");
+        jobProfile.set(PROXY_BATCH_PRE_ENCODE, "false");
+        jobProfile.set(AGENT_MESSAGE_FILTER_CLASSNAME, HeaderStreamFilter.class.getName());
+        ProxySink proxySink = new ProxySink() {
+            @Override
+            SenderManager createSenderManager(JobProfile jobConf) {
+                return new SenderManager(jobConf, groupId, null) {
+                    @Override
+                    DefaultMessageSender createMessageSender(String groupId) {
+                        return sender;
+                    }
+                };
+            }
+        };
+        proxySink.init(jobProfile);
+        return proxySink;
+    }
+
+    /**
+     * mock a sender keeping the callbacks of async sends, sends are acked by calling the callbacks
+     */
+    private static DefaultMessageSender mockSender(List<SendMessageCallback> callbacks) throws Exception {
+        DefaultMessageSender sender = PowerMockito.mock(DefaultMessageSender.class);
+        Mockito.doAnswer(invocation -> {
+            callbacks.add(invocation.getArgument(0));
+            return null;
+        }).when(sender).asyncSendMessage(any(SendMessageCallback.class), ArgumentMatchers.<List<byte[]>>any(),
+                anyString(), anyString(), anyLong(), anyString(), anyLong(), any(TimeUnit.class));
+        return sender;
+    }
+
+    private static void verifySent(DefaultMessageSender sender, String streamId, int times) throws Exception {
+        Mockito.verify(sender, Mockito.timeout(VERIFY_TIMEOUT_MS).times(times)).asyncSendMessage(
+                any(SendMessageCallback.class), ArgumentMatchers.<List<byte[]>>any(), anyString(), eq(streamId),
+                anyLong(), anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    private static void write(ProxySink proxySink, String streamId) {
+        Map<String, String> header = new HashMap<>();
+        header.put(STREAM_HEADER, streamId);
+        proxySink.write(new DefaultMessage(RECORD.getBytes(StandardCharsets.UTF_8), header));
+    }
+
+    @Test
+    public void testFlushPerKeyIndependently() throws Exception {
+        List<SendMessageCallback> callbacks = new CopyOnWriteArrayList<>();
+        DefaultMessageSender sender = mockSender(callbacks);
+        ProxySink proxySink = mockProxySink("testFlushPerKeyIndependently", sender);
+
+        // the window of the slow stream is full and its batch is never acked
+        write(proxySink, "slow");
+        write(proxySink, "slow");
+        verifySent(sender, "slow", 1);
+        // the fast stream is flushed by itself, not behind the slow one
+        write(proxySink, "fast");
+        write(proxySink, "fast");
+        verifySent(sender, "fast", 1);
+        callbacks.get(1).onMessageAck(SendResult.OK);
+        verifySent(sender, "fast", 2);
+        verifySent(sender, "slow", 1);
+        Assert.assertFalse(proxySink.sinkFinish());
+    }
+
+    @Test
+    public void testWindowReleaseOnAck() throws Exception {
+        List<SendMessageCallback> callbacks = new CopyOnWriteArrayList<>();
+        DefaultMessageSender sender = mockSender(callbacks);
+        ProxySink proxySink = mockProxySink("testWindowReleaseOnAck", sender);
+
+        write(proxySink, "stream");
+        write(proxySink, "stream");
+        verifySent(sender, "stream", 1);
+        // the second batch waits for the in-flight one, over the batch timeout
+        TimeUnit.MILLISECONDS.sleep(300);
+        verifySent(sender, "stream", 1);
+        Assert.assertFalse(proxySink.sinkFinish());
+
+        // the ack releases the window, the waiting batch is sent
+        callbacks.get(0).onMessageAck(SendResult.OK);
+        verifySent(sender, "stream", 2);
+        Assert.assertFalse(proxySink.sinkFinish());
+        // a failed send is sent again and keeps its slot
+        callbacks.get(1).onMessageAck(SendResult.TIMEOUT);
+        verifySent(sender, "stream", 3);
+        Assert.assertFalse(proxySink.sinkFinish());
+        callbacks.get(2).onMessageAck(SendResult.OK);
+        Assert.assertTrue(proxySink.sinkFinish());
+    }
+
+    @Test
+    public void testDestroyBounded() throws Exception {
+        List<SendMessageCallback> callbacks = new CopyOnWriteArrayList<>();
+        DefaultMessageSender sender = mockSender(callbacks);
+        ProxySink proxySink = mockProxySink("testDestroyBounded", sender);
+
+        // flushed on the batch timeout
+        write(proxySink, "stream");
+        verifySent(sender, "stream", 1);
+        // the batch is never acked, destroy gives up after its timeout
+        long start = System.currentTimeMillis();
+        proxySink.destroy();
+        Assert.assertTrue(System.currentTimeMillis() - start < VERIFY_TIMEOUT_MS);
+        Assert.assertFalse(proxySink.sinkFinish());
+        // a batch failed after destroy is not sent again, its slot is released without acking
+        callbacks.get(0).onMessageAck(SendResult.TIMEOUT);
+        Assert.assertTrue(proxySink.sinkFinish());
+        verifySent(sender, "stream", 1);
+    }
+}
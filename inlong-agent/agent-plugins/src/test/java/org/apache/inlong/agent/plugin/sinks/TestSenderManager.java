@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.sinks;
+
+import org.apache.inlong.agent.conf.JobProfile;
+import org.apache.inlong.agent.core.task.TaskPositionManager;
+import org.apache.inlong.agent.plugin.Reader;
+import org.apache.inlong.agent.plugin.message.BatchProxyMessage;
+import org.apache.inlong.agent.plugin.message.OffsetWatermark;
+import org.apache.inlong.agent.plugin.sources.BinlogSource;
+import org.apache.inlong.agent.plugin.utils.TestUtils;
+import org.apache.inlong.common.metric.MetricRegister;
+import org.apache.inlong.sdk.dataproxy.DefaultMessageSender;
+import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_GROUP_ID;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_STREAM_ID;
+import static org.apache.inlong.agent.constant.JobConstants.JOB_INSTANCE_ID;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.management.*", "javax.script.*", "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*",
+        "org.w3c.*"})
+@PrepareForTest({MetricRegister.class, TaskPositionManager.class})
+public class TestSenderManager {
+
+    private static SenderManager mockSenderManager(JobProfile jobProfile, String groupId, String sourceName,
+            DefaultMessageSender sender) throws Exception {
+        PowerMockito.mockStatic(TaskPositionManager.class);
+        PowerMockito.when(TaskPositionManager.getTaskPositionManager())
+                .thenReturn(PowerMockito.mock(TaskPositionManager.class));
+        SenderManager senderManager = new SenderManager(jobProfile, groupId, sourceName) {
+            @Override
+            DefaultMessageSender createMessageSender(String groupId) {
+                return sender;
+            }
+        };
+        senderManager.addMessageSender();
+        return senderManager;
+    }
+
+    @Test
+    public void testAckBinlogWatermark() throws Exception {
+        TestUtils.mockMetricRegister();
+        JobProfile jobProfile = JobProfile.parseJsonStr("{}");
+        jobProfile.set(JOB_INSTANCE_ID, "testAckBinlogWatermark");
+        jobProfile.set(PROXY_INLONG_GROUP_ID, "testAckBinlogWatermark");
+        jobProfile.set(PROXY_INLONG_STREAM_ID, "streamid");
+
+        // sinks get the source name of the reader when tasks are created, before the reader is inited
+        Reader reader = new BinlogSource().split(jobProfile).get(0);
+        String sourceName = reader.getReadSource();
+        Assert.assertEquals("testAckBinlogWatermark", sourceName);
+        // the reader registers its watermark in init in the same way
+        OffsetWatermark watermark = OffsetWatermark.register(jobProfile.getInstanceId(), sourceName);
+        watermark.next();
+        watermark.next();
+
+        DefaultMessageSender sender = PowerMockito.mock(DefaultMessageSender.class);
+        PowerMockito.when(sender.sendMessage(ArgumentMatchers.<List<byte[]>>any(), anyString(), anyString(),
+                anyLong(), anyString(), anyLong(), any(TimeUnit.class), ArgumentMatchers.<Map<String, String>>any()))
+                .thenReturn(SendResult.OK);
+        SenderManager senderManager = mockSenderManager(jobProfile, "testAckBinlogWatermark", sourceName, sender);
+        BatchProxyMessage batch = new BatchProxyMessage("streamid",
+                Collections.singletonList("data".getBytes(StandardCharsets.UTF_8)), new long[]{0, 1}, 4,
+                System.currentTimeMillis());
+        senderManager.sendBatchSync(jobProfile.getInstanceId(), "testAckBinlogWatermark", batch, 0,
+                System.currentTimeMillis(), null);
+        Assert.assertEquals(1, watermark.getWatermark());
+        // binlog offsets are committed by the reader, not saved as sink position
+        Mockito.verify(TaskPositionManager.getTaskPositionManager(), Mockito.never())
+                .updateSinkPosition(anyString(), anyString(), anyLong());
+        OffsetWatermark.unregister(jobProfile.getInstanceId(), sourceName);
+    }
+
+    @Test
+    public void testAckFilePositionInOrder() throws Exception {
+        TestUtils.mockMetricRegister();
+        JobProfile jobProfile = JobProfile.parseJsonStr("{}");
+        jobProfile.set(JOB_INSTANCE_ID, "testAckFilePositionInOrder");
+        // the file reader takes a sequence with the offset after each line
+        OffsetWatermark watermark = OffsetWatermark.register("testAckFilePositionInOrder", "file", 0L);
+        watermark.next(10L);
+        watermark.next(20L);
+        watermark.next(30L);
+
+        DefaultMessageSender sender = PowerMockito.mock(DefaultMessageSender.class);
+        PowerMockito.when(sender.sendMessage(ArgumentMatchers.<List<byte[]>>any(), anyString(), anyString(),
+                anyLong(), anyString(), anyLong(), any(TimeUnit.class), ArgumentMatchers.<Map<String, String>>any()))
+                .thenReturn(SendResult.OK);
+        SenderManager senderManager = mockSenderManager(jobProfile, "testAckFilePositionInOrder", "file", sender);
+        TaskPositionManager taskPositionManager = TaskPositionManager.getTaskPositionManager();
+        BatchProxyMessage earlier = new BatchProxyMessage("stream1",
+                Collections.singletonList("data".getBytes(StandardCharsets.UTF_8)), new long[]{0}, 4,
+                System.currentTimeMillis());
+        BatchProxyMessage later = new BatchProxyMessage("stream2",
+                Collections.singletonList("data".getBytes(StandardCharsets.UTF_8)), new long[]{1, 2}, 4,
+                System.currentTimeMillis());
+
+        // the later batch is acked first, the saved position must not cover the earlier one
+        senderManager.sendBatchSync("testAckFilePositionInOrder", "testAckFilePositionInOrder", later, 0,
+                System.currentTimeMillis(), null);
+        Mockito.verify(taskPositionManager, Mockito.never())
+                .updateSinkPosition(anyString(), anyString(), anyLong());
+        Assert.assertEquals(0L, watermark.getPosition());
+
+        senderManager.sendBatchSync("testAckFilePositionInOrder", "testAckFilePositionInOrder", earlier, 0,
+                System.currentTimeMillis(), null);
+        Mockito.verify(taskPositionManager).updateSinkPosition("testAckFilePositionInOrder", "file", 30L);
+        Assert.assertEquals(30L, watermark.getPosition());
+        OffsetWatermark.unregister("testAckFilePositionInOrder", "file");
+    }
+
+    @Test
+    public void testRetryFailedSyncBatch() throws Exception {
+        TestUtils.mockMetricRegister();
+        JobProfile jobProfile = JobProfile.parseJsonStr("{}");
+        jobProfile.set(JOB_INSTANCE_ID, "testRetryFailedSyncBatch");
+        OffsetWatermark watermark = OffsetWatermark.register("testRetryFailedSyncBatch", "source");
+        watermark.next();
+
+        DefaultMessageSender sender = PowerMockito.mock(DefaultMessageSender.class);
+        PowerMockito.when(sender.sendMessage(ArgumentMatchers.<List<byte[]>>any(), anyString(), anyString(),
+                anyLong(), anyString(), anyLong(), any(TimeUnit.class), ArgumentMatchers.<Map<String, String>>any()))
+                .thenReturn(SendResult.TIMEOUT, SendResult.OK);
+        SenderManager senderManager = mockSenderManager(jobProfile, "testRetryFailedSyncBatch", "source", sender);
+        BatchProxyMessage batch = new BatchProxyMessage("streamid",
+                Collections.singletonList("data".getBytes(StandardCharsets.UTF_8)), new long[]{0}, 4,
+                System.currentTimeMillis());
+        senderManager.sendBatchSync("testRetryFailedSyncBatch", "testRetryFailedSyncBatch", batch, 0,
+                System.currentTimeMillis(), null);
+        // the failed batch is sent again instead of being dropped
+        Mockito.verify(sender, Mockito.times(2)).sendMessage(ArgumentMatchers.<List<byte[]>>any(), anyString(),
+                anyString(), anyLong(), anyString(), anyLong(), any(TimeUnit.class),
+                ArgumentMatchers.<Map<String, String>>any());
+        Assert.assertEquals(0, watermark.getWatermark());
+        OffsetWatermark.unregister("testRetryFailedSyncBatch", "source");
+    }
+
+    @Test
+    public void testInterruptedSyncBatchReleased() throws Exception {
+        TestUtils.mockMetricRegister();
+        JobProfile jobProfile = JobProfile.parseJsonStr("{}");
+        jobProfile.set(JOB_INSTANCE_ID, "testInterruptedSyncBatchReleased");
+        OffsetWatermark watermark = OffsetWatermark.register("testInterruptedSyncBatchReleased", "source");
+        watermark.next();
+
+        DefaultMessageSender sender = PowerMockito.mock(DefaultMessageSender.class);
+        PowerMockito.when(sender.sendMessage(ArgumentMatchers.<List<byte[]>>any(), anyString(), anyString(),
+                anyLong(), anyString(), anyLong(), any(TimeUnit.class), ArgumentMatchers.<Map<String, String>>any()))
+                .thenReturn(SendResult.TIMEOUT);
+        SenderManager senderManager = mockSenderManager(jobProfile, "testInterruptedSyncBatchReleased", "source",
+                sender);
+        List<BatchProxyMessage> finished = new CopyOnWriteArrayList<>();
+        senderManager.setBatchFinishedListener(finished::add);
+        BatchProxyMessage batch = new BatchProxyMessage("streamid",
+                Collections.singletonList("data".getBytes(StandardCharsets.UTF_8)), new long[]{0}, 4,
+                System.currentTimeMillis());
+        Thread sendThread = new Thread(() -> senderManager.sendBatchSync("testInterruptedSyncBatchReleased",
+                "testInterruptedSyncBatchReleased", batch, 0, System.currentTimeMillis(), null));
+        sendThread.start();
+        Mockito.verify(sender, Mockito.timeout(2000).atLeastOnce()).sendMessage(
+                ArgumentMatchers.<List<byte[]>>any(), anyString(), anyString(), anyLong(), anyString(), anyLong(),
+                any(TimeUnit.class), ArgumentMatchers.<Map<String, String>>any());
+        // the sink is destroyed while the batch waits to be sent again
+        sendThread.interrupt();
+        sendThread.join(2000);
+        Assert.assertFalse(sendThread.isAlive());
+        // the in-flight slot is released, but the offsets are not acked
+        Assert.assertEquals(Collections.singletonList(batch), finished);
+        Assert.assertEquals(-1, watermark.getWatermark());
+        OffsetWatermark.unregister("testInterruptedSyncBatchReleased", "source");
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.inlong.agent.plugin.sources;
 import com.google.gson.Gson;
 import org.apache.inlong.agent.conf.JobProfile;
 import org.apache.inlong.agent.constant.SnapshotModeConstants;
+import org.apache.inlong.agent.plugin.message.OffsetWatermark;
 import org.apache.inlong.agent.plugin.sources.reader.BinlogReader;
 import org.apache.inlong.agent.pojo.DebeziumFormat;
 import org.junit.Assert;
@@ -64,6 +65,36 @@ public class TestBinlogReader {
         Assert.assertEquals("customers", debeziumFormat.getSource().getTable());
     }
 
+    @Test
+    public void testParseTableName() throws Exception {
+        String debeziumJson = "{\"before\":null,\"after\":{\"id\":1004,\"source\":\"a\\\"}\","
+                + "\"tags\":[{\"table\":\"t\"}]},\"source\":{\"version\":\"1.8.1.Final\",\"gtid\":null,"
+                + "\"snapshot\":true,\"db\":\"inventory\",\"table\":\"customers\"},\"op\":\"r\"}";
+        Assert.assertEquals("customers", BinlogReader.parseTableName(debeziumJson));
+        Assert.assertNull(BinlogReader.parseTableName("{\"source\":{\"table\":null},\"op\":\"r\"}"));
+        Assert.assertNull(BinlogReader.parseTableName("{\"op\":\"r\"}"));
+    }
+
+    @Test
+    public void testOffsetWatermark() {
+        OffsetWatermark watermark = OffsetWatermark.register("testOffsetWatermark", "source");
+        Assert.assertEquals(-1, watermark.getWatermark());
+        for (int i = 0; i < 5; i++) {
+            watermark.next();
+        }
+        // batches of different streams are acked out of order
+        OffsetWatermark.ack("testOffsetWatermark", "source", new long[]{1, 3});
+        Assert.assertEquals(-1, watermark.getWatermark());
+        OffsetWatermark.ack("testOffsetWatermark", "source", new long[]{0});
+        Assert.assertEquals(1, watermark.getWatermark());
+        OffsetWatermark.ack("testOffsetWatermark", "source", new long[]{2, 4});
+        Assert.assertEquals(4, watermark.getWatermark());
+        OffsetWatermark.unregister("testOffsetWatermark", "source");
+        watermark.next();
+        OffsetWatermark.ack("testOffsetWatermark", "source", new long[]{5});
+        Assert.assertEquals(4, watermark.getWatermark());
+    }
+
     // @Test
     public void binlogStartSpacialTest() throws Exception {
         JobProfile jobProfile = new JobProfile();
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.sources;
+
+import org.apache.inlong.agent.plugin.AgentBaseTestsHelper;
+import org.apache.inlong.agent.plugin.sources.snapshot.SqlChunkSnapshot;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class TestSqlChunkSnapshot {
+
+    private static AgentBaseTestsHelper helper;
+    private static final String fileName = "sql-chunk.dat";
+    private static Path filePath;
+
+    @BeforeClass
+    public static void setup() {
+        helper = new AgentBaseTestsHelper(TestSqlChunkSnapshot.class.getName()).setupAgentHome();
+        Path testDir = helper.getTestRootDir();
+        filePath = Paths.get(testDir.toString(), fileName);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        helper.teardownAgentHome();
+    }
+
+    @Test
+    public void testChunkCheckpoint() {
+        SqlChunkSnapshot snapshot = new SqlChunkSnapshot(filePath.toString());
+        Assert.assertFalse(snapshot.load());
+        snapshot.init(10, 250, 100);
+        Assert.assertEquals(3, snapshot.getChunkCount());
+        snapshot.saveChunk(2);
+        snapshot.saveChunk(0);
+
+        // resume after restart
+        SqlChunkSnapshot restored = new SqlChunkSnapshot(filePath.toString());
+        Assert.assertTrue(restored.load());
+        Assert.assertEquals(10, restored.getMinKey());
+        Assert.assertEquals(250, restored.getMaxKey());
+        Assert.assertEquals(100, restored.getChunkSize());
+        Assert.assertTrue(restored.isChunkFinished(0));
+        Assert.assertFalse(restored.isChunkFinished(1));
+        Assert.assertTrue(restored.isChunkFinished(2));
+        Assert.assertEquals("2/3", restored.getSnapshot());
+    }
+}
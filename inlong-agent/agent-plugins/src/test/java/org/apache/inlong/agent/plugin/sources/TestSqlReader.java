@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.sources;
+
+import org.apache.inlong.agent.conf.JobProfile;
+import org.apache.inlong.agent.plugin.AgentBaseTestsHelper;
+import org.apache.inlong.agent.plugin.Message;
+import org.apache.inlong.agent.plugin.message.OffsetWatermark;
+import org.apache.inlong.agent.plugin.sources.reader.SqlReader;
+import org.apache.inlong.agent.plugin.utils.TestUtils;
+import org.apache.inlong.agent.utils.AgentDbUtils;
+import org.apache.inlong.common.metric.MetricRegister;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_GROUP_ID;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_STREAM_ID;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_OFFSET_SEQ;
+import static org.apache.inlong.agent.constant.JobConstants.JOB_INSTANCE_ID;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"javax.management.*", "javax.script.*", "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*",
+        "org.w3c.*"})
+@PrepareForTest({MetricRegister.class, AgentDbUtils.class})
+public class TestSqlReader {
+
+    private static final String SQL = "SELECT id FROM test";
+    // keys from 1 to 25 in chunks of 10 keys
+    private static final long MAX_KEY = 25;
+    private static final long CHUNK_SIZE = 10;
+    private static final long READ_TIMEOUT_MS = 5000;
+    private static AgentBaseTestsHelper helper;
+
+    @BeforeClass
+    public static void setup() {
+        helper = new AgentBaseTestsHelper(TestSqlReader.class.getName()).setupAgentHome();
+    }
+
+    @AfterClass
+    public static void teardown() {
+        helper.teardownAgentHome();
+    }
+
+    /**
+     * mock a table of one numeric column, each connection answers the key range query and the chunk queries
+     */
+    private static void mockTable() throws Exception {
+        PowerMockito.mockStatic(AgentDbUtils.class);
+        PowerMockito.when(AgentDbUtils.getConnectionFailover(anyString(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> mockConnection());
+    }
+
+    private static Connection mockConnection() throws Exception {
+        Connection connection = Mockito.mock(Connection.class);
+        Statement statement = Mockito.mock(Statement.class);
+        ResultSet rangeResult = Mockito.mock(ResultSet.class);
+        Mockito.when(rangeResult.next()).thenReturn(true);
+        Mockito.when(rangeResult.getLong(1)).thenReturn(1L);
+        Mockito.when(rangeResult.getLong(2)).thenReturn(MAX_KEY);
+        Mockito.when(statement.executeQuery(anyString())).thenReturn(rangeResult);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+        Mockito.when(connection.prepareStatement(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> mockChunkStatement());
+        return connection;
+    }
+
+    private static PreparedStatement mockChunkStatement() throws Exception {
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        long[] range = new long[2];
+        Mockito.doAnswer(invocation -> {
+            range[(int) invocation.getArgument(0) - 1] = invocation.getArgument(1);
+            return null;
+        }).when(statement).setLong(anyInt(), anyLong());
+        Mockito.when(statement.executeQuery()).thenAnswer(invocation -> mockRows(LongStream.rangeClosed(
+                Math.max(range[0], 1), Math.min(range[1], MAX_KEY)).boxed().collect(Collectors.toList())));
+        return statement;
+    }
+
+    private static ResultSet mockRows(List<Long> keys) throws Exception {
+        ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        Mockito.when(metaData.getColumnCount()).thenReturn(1);
+        Mockito.when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        Mockito.when(metaData.getColumnTypeName(1)).thenReturn("BIGINT");
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        AtomicInteger index = new AtomicInteger(-1);
+        Mockito.when(resultSet.getMetaData()).thenReturn(metaData);
+        Mockito.when(resultSet.next()).thenAnswer(invocation -> index.incrementAndGet() < keys.size());
+        Mockito.when(resultSet.getString(1)).thenAnswer(invocation -> String.valueOf(keys.get(index.get())));
+        return resultSet;
+    }
+
+    private static JobProfile chunkJobProfile() {
+        JobProfile jobProfile = JobProfile.parseJsonStr("{}");
+        jobProfile.set(JOB_INSTANCE_ID, "testChunkReader");
+        jobProfile.set(PROXY_INLONG_GROUP_ID, "groupid");
+        jobProfile.set(PROXY_INLONG_STREAM_ID, "streamid");
+        jobProfile.set("job.sql.user", "user");
+        jobProfile.set("job.sql.password", "password");
+        jobProfile.set("job.sql.hostname", "localhost");
+        jobProfile.set("job.sql.port", "3306");
+        jobProfile.set("job.sql.chunk.key", "id");
+        jobProfile.set("job.sql.chunk.size", String.valueOf(CHUNK_SIZE));
+        jobProfile.set("job.sql.chunk.parallelism", "2");
+        return jobProfile;
+    }
+
+    /**
+     * read until the expected number of rows, key is the offset sequence and value is the key of the row
+     */
+    private static Map<Long, Long> readRows(SqlReader reader, int expected) throws Exception {
+        Map<Long, Long> rows = new HashMap<>();
+        long deadline = System.currentTimeMillis() + READ_TIMEOUT_MS;
+        while (rows.size() < expected && System.currentTimeMillis() < deadline) {
+            for (Message message : reader.readBatch(10)) {
+                rows.put(Long.parseLong(message.getHeader().get(PROXY_KEY_OFFSET_SEQ)),
+                        Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.assertEquals(expected, rows.size());
+        return rows;
+    }
+
+    private static long[] seqsUpTo(Map<Long, Long> rows, long maxSeq) {
+        return rows.keySet().stream().filter(seq -> seq <= maxSeq).mapToLong(Long::longValue).toArray();
+    }
+
+    @Test
+    public void testParallelChunkReader() throws Exception {
+        TestUtils.mockMetricRegister();
+        mockTable();
+        JobProfile jobProfile = chunkJobProfile();
+        SqlReader reader = new SqlReader(SQL);
+        reader.init(jobProfile);
+
+        // all rows of the 3 chunks are read once by the parallel readers
+        Map<Long, Long> rows = readRows(reader, (int) MAX_KEY);
+        Assert.assertEquals(LongStream.rangeClosed(1, MAX_KEY).boxed().collect(Collectors.toSet()),
+                new TreeSet<>(rows.values()));
+        // the rows are read but not acked, the chunks are not saved yet
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assert.assertTrue(reader.readBatch(10).isEmpty());
+        Assert.assertFalse(reader.isFinished());
+
+        // ack the rows up to the last row of the first chunk read completely
+        Map<Long, Long> lastSeqOfChunks = new HashMap<>();
+        rows.forEach((seq, key) -> lastSeqOfChunks.merge((key - 1) / CHUNK_SIZE, seq, Math::max));
+        long ackedSeq = lastSeqOfChunks.values().stream().mapToLong(Long::longValue).min().getAsLong();
+        OffsetWatermark.ack(jobProfile.getInstanceId(), SQL, seqsUpTo(rows, ackedSeq));
+        Assert.assertTrue(reader.readBatch(10).isEmpty());
+        Assert.assertFalse(reader.isFinished());
+        reader.destroy();
+
+        // the restarted reader skips the saved chunks, and reads the others again
+        List<Long> expectedKeys = new ArrayList<>();
+        lastSeqOfChunks.forEach((chunk, lastSeq) -> {
+            if (lastSeq > ackedSeq) {
+                LongStream.rangeClosed(chunk * CHUNK_SIZE + 1, Math.min((chunk + 1) * CHUNK_SIZE, MAX_KEY))
+                        .forEach(expectedKeys::add);
+            }
+        });
+        Assert.assertTrue(expectedKeys.size() < MAX_KEY);
+        SqlReader restarted = new SqlReader(SQL);
+        restarted.init(jobProfile);
+        Map<Long, Long> resumedRows = readRows(restarted, expectedKeys.size());
+        Assert.assertEquals(new TreeSet<>(expectedKeys), new TreeSet<>(resumedRows.values()));
+        Assert.assertFalse(restarted.isFinished());
+
+        // finished once all the rows are acked and the chunks are saved
+        OffsetWatermark.ack(jobProfile.getInstanceId(), SQL, seqsUpTo(resumedRows, Long.MAX_VALUE));
+        Assert.assertTrue(restarted.readBatch(10).isEmpty());
+        Assert.assertTrue(restarted.isFinished());
+        restarted.destroy();
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.inlong.agent.conf.JobProfile;
 import org.apache.inlong.agent.plugin.AgentBaseTestsHelper;
 import org.apache.inlong.agent.plugin.Message;
 import org.apache.inlong.agent.plugin.Reader;
+import org.apache.inlong.agent.plugin.message.OffsetWatermark;
 import org.apache.inlong.agent.plugin.sources.reader.TextFileReader;
 import org.apache.inlong.agent.plugin.utils.TestUtils;
 import org.apache.inlong.agent.utils.AgentUtils;
@@ -43,6 +44,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -52,6 +54,7 @@ import java.util.stream.Stream;
 
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_GROUP_ID;
 import static org.apache.inlong.agent.constant.CommonConstants.PROXY_INLONG_STREAM_ID;
+import static org.apache.inlong.agent.constant.CommonConstants.PROXY_KEY_OFFSET_SEQ;
 import static org.apache.inlong.agent.constant.JobConstants.JOB_DIR_FILTER_PATTERN;
 import static org.apache.inlong.agent.constant.JobConstants.JOB_FILE_MAX_WAIT;
 import static org.apache.inlong.agent.constant.JobConstants.JOB_INSTANCE_ID;
@@ -151,6 +154,52 @@ public class TestTextFileReader {
 
     }
 
+    @Test
+    public void testTextOffsetReader() throws Exception {
+        TestUtils.mockMetricRegister();
+        Path localPath = Paths.get(testDir.toString(), "test2.txt");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add("line" + i);
+        }
+        Files.write(localPath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        JobProfile jobProfile = new JobProfile();
+        jobProfile.set(JOB_INSTANCE_ID, "testTextOffsetReader");
+        jobProfile.set(PROXY_INLONG_GROUP_ID, "groupid");
+        jobProfile.set(PROXY_INLONG_STREAM_ID, "streamid");
+        String fingerprint = AgentUtils.getFileFingerprint(localPath.toFile());
+
+        TextFileReader reader = new TextFileReader(localPath.toFile(), 0, fingerprint);
+        reader.addPatternValidator("line[0-9]*[02468]");
+        reader.init(jobProfile);
+        Message message = reader.read();
+        Assert.assertEquals("line0", message.toString());
+        Assert.assertEquals("0", message.getHeader().get(PROXY_KEY_OFFSET_SEQ));
+        message = reader.read();
+        Assert.assertEquals("line2", message.toString());
+        Assert.assertEquals("1", message.getHeader().get(PROXY_KEY_OFFSET_SEQ));
+        long offset = reader.getOffset();
+        Assert.assertEquals(18, offset);
+
+        // the position only moves over messages acked in order, filtered line1 is covered by line2
+        List<Long> positions = new ArrayList<>();
+        OffsetWatermark.ack("testTextOffsetReader", reader.getReadSource(), new long[]{1}, positions::add);
+        Assert.assertTrue(positions.isEmpty());
+        OffsetWatermark.ack("testTextOffsetReader", reader.getReadSource(), new long[]{0}, positions::add);
+        Assert.assertEquals(Collections.singletonList(18L), positions);
+        reader.destroy();
+
+        TextFileReader resumed = new TextFileReader(localPath.toFile(), offset, fingerprint);
+        resumed.init(jobProfile);
+        Assert.assertEquals("line3", new String(resumed.read().getBody()));
+        resumed.destroy();
+
+        TextFileReader replaced = new TextFileReader(localPath.toFile(), offset, "(dev=0,ino=0)|4|0");
+        replaced.init(jobProfile);
+        Assert.assertEquals("line0", new String(replaced.read().getBody()));
+        replaced.destroy();
+    }
+
     @Test
     public void testTextTailTimeout() throws Exception {
         TestUtils.mockMetricRegister();
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.agent.plugin.trigger;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPathTrie {
+
+    @Test
+    public void testMatch() {
+        PathPattern pattern = new PathPattern("/not_exist_dir/log/app_[0-9]+/.*\\.log");
+        PathTrie trie = PathTrie.build(Collections.singletonList(pattern));
+
+        Assert.assertFalse(trie.match(Paths.get("/not_exist_dir")).isEmpty());
+        Assert.assertFalse(trie.match(Paths.get("/not_exist_dir/log/app_1")).isEmpty());
+        Assert.assertTrue(trie.match(Paths.get("/not_exist_dir/tmp")).isEmpty());
+        Assert.assertTrue(trie.match(Paths.get("/not_exist_dir/log/app_x")).isEmpty());
+        Assert.assertTrue(trie.match(Paths.get("/not_exist_dir/log/app_1/a.txt")).isEmpty());
+        Assert.assertTrue(PathTrie.matchedPatterns(trie.match(Paths.get("/not_exist_dir/log/app_1"))).isEmpty());
+        Assert.assertEquals(Collections.singleton(pattern),
+                PathTrie.matchedPatterns(trie.match(Paths.get("/not_exist_dir/log/app_1/a.log"))));
+    }
+
+    @Test
+    public void testSharedPrefix() {
+        PathPattern pattern1 = new PathPattern("/not_exist_dir/log/a/.*\\.log");
+        PathPattern pattern2 = new PathPattern("/not_exist_dir/log/[ab]/.*");
+        PathTrie trie = PathTrie.build(Arrays.asList(pattern1, pattern2));
+
+        List<PathTrie.Node> states = trie.match(Paths.get("/not_exist_dir/log/a"));
+        Assert.assertEquals(2, states.size());
+        Assert.assertEquals(2, PathTrie.matchedPatterns(trie.childStates(states, "1.log")).size());
+        Assert.assertEquals(Collections.singleton(pattern2),
+                PathTrie.matchedPatterns(trie.match(Paths.get("/not_exist_dir/log/b/1.log"))));
+        // paths under a matched pattern are matched as well
+        Assert.assertEquals(Collections.singleton(pattern2),
+                PathTrie.matchedPatterns(trie.match(Paths.get("/not_exist_dir/log/b/1.txt/2.txt"))));
+    }
+}
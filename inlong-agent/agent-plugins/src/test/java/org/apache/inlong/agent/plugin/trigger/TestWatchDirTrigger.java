@@ -17,10 +17,14 @@
 
 package org.apache.inlong.agent.plugin.trigger;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.inlong.agent.conf.JobProfile;
 import org.apache.inlong.agent.conf.TriggerProfile;
 import org.apache.inlong.agent.constant.AgentConstants;
+import org.apache.inlong.agent.constant.JobConstants;
 import org.apache.inlong.agent.plugin.AgentBaseTestsHelper;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -66,4 +70,29 @@ public class TestWatchDirTrigger {
         Assert.assertEquals(a1, a2);
         Assert.assertEquals(10, result.intValue());
     }
+
+    @Test
+    public void testWatchMatchedDirs() throws Exception {
+        Path appDir = Files.createDirectories(testRootDir.resolve("app_1"));
+        Path otherDir = Files.createDirectories(testRootDir.resolve("other"));
+        String pattern = testRootDir.resolve("app_[0-9]+").resolve(".*\\.log").toString();
+        dirTrigger.register(pattern);
+        Assert.assertTrue(dirTrigger.getWatchers().containsKey(testRootDir));
+        Assert.assertTrue(dirTrigger.getWatchers().containsKey(appDir));
+        Assert.assertFalse(dirTrigger.getWatchers().containsKey(otherDir));
+
+        Files.createFile(otherDir.resolve("b.log"));
+        Files.createFile(appDir.resolve("a.log"));
+        JobProfile jobProfile = null;
+        for (int i = 0; i < 100 && jobProfile == null; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+            jobProfile = dirTrigger.fetchJobProfile();
+        }
+        Assert.assertNotNull(jobProfile);
+        Assert.assertEquals(appDir.resolve("a.log").toString(), jobProfile.get(JobConstants.JOB_DIR_FILTER_PATTERN));
+        Assert.assertNull(dirTrigger.fetchJobProfile());
+
+        dirTrigger.unregister(pattern);
+        Assert.assertTrue(dirTrigger.getWatchers().isEmpty());
+    }
 }
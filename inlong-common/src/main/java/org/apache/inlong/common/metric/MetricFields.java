@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.metric;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MetricFields<br>
+ * Field accessors of the dimensions and metrics of a MetricItem class.<br>
+ * The annotations are scanned once per class, the values are read by method handles.
+ */
+public final class MetricFields {
+
+    private static final ClassValue<MetricFields> CACHE = new ClassValue<MetricFields>() {
+
+        @Override
+        protected MetricFields computeValue(Class<?> type) {
+            return new MetricFields(type);
+        }
+    };
+
+    private final List<Accessor> dimensions = new ArrayList<>();
+    private final List<Accessor> countMetrics = new ArrayList<>();
+    private final List<Accessor> gaugeMetrics = new ArrayList<>();
+
+    /**
+     * Constructor
+     * 
+     * @param clazz
+     */
+    private MetricFields(Class<?> clazz) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Field field : MetricItem.getDeclaredFieldsIncludingInherited(clazz)) {
+            for (Annotation fieldAnnotation : field.getAnnotations()) {
+                String name = null;
+                List<Accessor> accessors = null;
+                if (fieldAnnotation instanceof Dimension) {
+                    name = ((Dimension) fieldAnnotation).name();
+                    accessors = dimensions;
+                } else if (fieldAnnotation instanceof CountMetric) {
+                    name = ((CountMetric) fieldAnnotation).name();
+                    accessors = countMetrics;
+                } else if (fieldAnnotation instanceof GaugeMetric) {
+                    name = ((GaugeMetric) fieldAnnotation).name();
+                    accessors = gaugeMetrics;
+                } else {
+                    continue;
+                }
+                name = (name != null && name.length() > 0) ? name : field.getName();
+                try {
+                    field.setAccessible(true);
+                    accessors.add(new Accessor(name, lookup.unreflectGetter(field)));
+                } catch (Throwable t) {
+                    MetricItem.LOGGER.error(t.getMessage(), t);
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * of
+     * 
+     * @param  clazz
+     * @return       the cached accessors of the class
+     */
+    public static MetricFields of(Class<?> clazz) {
+        return CACHE.get(clazz);
+    }
+
+    /**
+     * get dimensions
+     * 
+     * @return the dimensions
+     */
+    public List<Accessor> getDimensions() {
+        return Collections.unmodifiableList(dimensions);
+    }
+
+    /**
+     * get countMetrics
+     * 
+     * @return the countMetrics
+     */
+    public List<Accessor> getCountMetrics() {
+        return Collections.unmodifiableList(countMetrics);
+    }
+
+    /**
+     * get gaugeMetrics
+     * 
+     * @return the gaugeMetrics
+     */
+    public List<Accessor> getGaugeMetrics() {
+        return Collections.unmodifiableList(gaugeMetrics);
+    }
+
+    /**
+     * Accessor of a field
+     */
+    public static final class Accessor {
+
+        private final String name;
+        private final MethodHandle getter;
+
+        /**
+         * Constructor
+         * 
+         * @param name
+         * @param getter
+         */
+        private Accessor(String name, MethodHandle getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        /**
+         * get name
+         * 
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * get the field value of the item
+         * 
+         * @param  item
+         * @return
+         */
+        public Object get(Object item) {
+            try {
+                return getter.invoke(item);
+            } catch (Throwable t) {
+                MetricItem.LOGGER.error(t.getMessage(), t);
+                return null;
+            }
+        }
+
+        /**
+         * get the AtomicLong of a metric field
+         * 
+         * @param  item
+         * @return      null if the field is not an AtomicLong
+         */
+        public AtomicLong getAtomicLong(Object item) {
+            Object value = this.get(item);
+            return (value instanceof AtomicLong) ? (AtomicLong) value : null;
+        }
+    }
+}
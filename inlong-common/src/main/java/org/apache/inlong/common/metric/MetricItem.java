@@ -20,7 +20,6 @@ package org.apache.inlong.common.metric;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -75,30 +74,12 @@ public abstract class MetricItem implements MetricItemMBean {
         if (dimensions != null) {
             return dimensions;
         }
-        dimensions = new HashMap<>();
-
-        // get all fields
-        List<Field> fields = getDeclaredFieldsIncludingInherited(this.getClass());
-
-        // filter dimension fields
-        for (Field field : fields) {
-            field.setAccessible(true);
-            for (Annotation fieldAnnotation : field.getAnnotations()) {
-                if (fieldAnnotation instanceof Dimension) {
-                    Dimension dimension = (Dimension) fieldAnnotation;
-                    String name = dimension.name();
-                    name = (name != null && name.length() > 0) ? name : field.getName();
-                    try {
-                        Object fieldValue = field.get(this);
-                        String value = (fieldValue == null) ? "" : fieldValue.toString();
-                        dimensions.put(name, value);
-                    } catch (Throwable t) {
-                        LOGGER.error(t.getMessage(), t);
-                    }
-                    break;
-                }
-            }
+        Map<String, String> dimensionMap = new HashMap<>();
+        for (MetricFields.Accessor accessor : MetricFields.of(this.getClass()).getDimensions()) {
+            Object fieldValue = accessor.get(this);
+            dimensionMap.put(accessor.getName(), (fieldValue == null) ? "" : fieldValue.toString());
         }
+        this.dimensions = dimensionMap;
         return dimensions;
     }
 
@@ -112,6 +93,16 @@ public abstract class MetricItem implements MetricItemMBean {
         this.dimensions.putAll(dimensions);
     }
 
+    /**
+     * set metricKey, the dimensions of the key are shared without copy
+     *
+     * @param metricKey the metricKey to set
+     */
+    public void setMetricKey(MetricKey metricKey) {
+        this.dimensions = metricKey.getDimensions();
+        this.key = metricKey.getKey();
+    }
+
     /**
      * snapshot
      */
@@ -132,47 +123,56 @@ public abstract class MetricItem implements MetricItemMBean {
     }
 
     /**
-     * initMetricField
+     * snapshot of the count metrics only
      */
-    protected void initMetricField() {
-        this.countMetrics = new HashMap<>();
-        this.gaugeMetrics = new HashMap<>();
+    public Map<String, MetricValue> snapshotCountMetrics() {
+        if (this.countMetrics == null || this.gaugeMetrics == null) {
+            this.initMetricField();
+        }
+        Map<String, MetricValue> metrics = new HashMap<>();
+        this.countMetrics.forEach((key, value) -> {
+            metrics.put(key, MetricValue.of(key, value.getAndSet(0)));
+        });
+        return metrics;
+    }
 
-        // get all fields
-        List<Field> fields = getDeclaredFieldsIncludingInherited(this.getClass());
+    /**
+     * hasCountMetricValue
+     *
+     * @return true if any CountMetric is not zero
+     */
+    public boolean hasCountMetricValue() {
+        if (this.countMetrics == null || this.gaugeMetrics == null) {
+            this.initMetricField();
+        }
+        for (AtomicLong value : this.countMetrics.values()) {
+            if (value.get() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        // filter metric fields
-        for (Field field : fields) {
-            field.setAccessible(true);
-            for (Annotation fieldAnnotation : field.getAnnotations()) {
-                if (fieldAnnotation instanceof CountMetric) {
-                    CountMetric countMetric = (CountMetric) fieldAnnotation;
-                    String name = countMetric.name();
-                    name = (name != null && name.length() > 0) ? name : field.getName();
-                    try {
-                        Object fieldValue = field.get(this);
-                        if (fieldValue instanceof AtomicLong) {
-                            this.countMetrics.put(name, (AtomicLong) fieldValue);
-                        }
-                    } catch (Throwable t) {
-                        LOGGER.error(t.getMessage(), t);
-                    }
-                    break;
-                } else if (fieldAnnotation instanceof GaugeMetric) {
-                    GaugeMetric gaugeMetric = (GaugeMetric) fieldAnnotation;
-                    String name = gaugeMetric.name();
-                    name = (name != null && name.length() > 0) ? name : field.getName();
-                    try {
-                        Object fieldValue = field.get(this);
-                        if (fieldValue instanceof AtomicLong) {
-                            this.gaugeMetrics.put(name, (AtomicLong) fieldValue);
-                        }
-                    } catch (Throwable t) {
-                        LOGGER.error(t.getMessage(), t);
-                    }
-                    break;
-                }
+    /**
+     * initMetricField
+     */
+    protected void initMetricField() {
+        Map<String, AtomicLong> countMetricMap = new HashMap<>();
+        Map<String, AtomicLong> gaugeMetricMap = new HashMap<>();
+        MetricFields fields = MetricFields.of(this.getClass());
+        for (MetricFields.Accessor accessor : fields.getCountMetrics()) {
+            AtomicLong fieldValue = accessor.getAtomicLong(this);
+            if (fieldValue != null) {
+                countMetricMap.put(accessor.getName(), fieldValue);
+            }
+        }
+        for (MetricFields.Accessor accessor : fields.getGaugeMetrics()) {
+            AtomicLong fieldValue = accessor.getAtomicLong(this);
+            if (fieldValue != null) {
+                gaugeMetricMap.put(accessor.getName(), fieldValue);
             }
         }
+        this.countMetrics = countMetricMap;
+        this.gaugeMetrics = gaugeMetricMap;
     }
 }
@@ -29,7 +29,10 @@ public abstract class MetricItemSet<T extends MetricItem> implements MetricItemS
 
     protected String name;
 
-    protected Map<String, T> itemMap = new ConcurrentHashMap<>();
+    protected volatile Map<String, T> itemMap = new ConcurrentHashMap<>();
+
+    // items swapped out by the previous snapshot, collect the updates of the writers still holding them
+    private Map<String, T> retiredItemMap = new ConcurrentHashMap<>();
 
     /**
      * Constructor
@@ -54,27 +57,69 @@ public abstract class MetricItemSet<T extends MetricItem> implements MetricItemS
      * findMetricItem
      */
     public T findMetricItem(Map<String, String> dimensions) {
-        String key = MetricUtils.getDimensionsKey(dimensions);
-        T currentItem = this.itemMap.get(key);
+        return this.findMetricItem(MetricKey.of(dimensions));
+    }
+
+    /**
+     * findMetricItem, no allocation if the item of the key exists
+     */
+    public T findMetricItem(MetricKey metricKey) {
+        Map<String, T> currentItemMap = this.itemMap;
+        T currentItem = currentItemMap.get(metricKey.getKey());
         if (currentItem != null) {
             return currentItem;
         }
         currentItem = createItem();
-        currentItem.setDimensions(dimensions);
-        T oldItem = this.itemMap.putIfAbsent(key, currentItem);
+        currentItem.setMetricKey(metricKey);
+        T oldItem = currentItemMap.putIfAbsent(metricKey.getKey(), currentItem);
         return (oldItem == null) ? currentItem : oldItem;
     }
 
     /**
-     * snapshot
+     * snapshot<br>
+     * Double buffered: the current items are swapped out and reported, the writers which got an item
+     * before the swap may still update it, these late updates are reported by the next snapshot.
+     * Only the count metrics of a retired item are reported, its gauges are reported by the current item.
      */
     @Override
-    public List<MetricItem> snapshot() {
+    public synchronized List<MetricItem> snapshot() {
         Map<String, T> oldItemMap = itemMap;
         this.itemMap = new ConcurrentHashMap<>();
-        MetricUtils.sleepOneInterval();
         List<MetricItem> result = new ArrayList<>(oldItemMap.size());
         result.addAll(oldItemMap.values());
+        for (T retiredItem : retiredItemMap.values()) {
+            if (retiredItem.hasCountMetricValue()) {
+                result.add(new RetiredMetricItem(retiredItem));
+            }
+        }
+        this.retiredItemMap = oldItemMap;
         return result;
     }
+
+    /**
+     * RetiredMetricItem, the late count metrics of an item swapped out by the previous snapshot
+     */
+    private static class RetiredMetricItem extends MetricItem {
+
+        private final MetricItem item;
+
+        RetiredMetricItem(MetricItem item) {
+            this.item = item;
+        }
+
+        @Override
+        public String getDimensionsKey() {
+            return item.getDimensionsKey();
+        }
+
+        @Override
+        public Map<String, String> getDimensions() {
+            return item.getDimensions();
+        }
+
+        @Override
+        public Map<String, MetricValue> snapshot() {
+            return item.snapshotCountMetrics();
+        }
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.metric;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * MetricKey<br>
+ * Immutable dimension tuple of a metric item with the precomputed dimensions key.<br>
+ * Build it once and cache it per stream route, a lookup with a cached key does not allocate.
+ */
+public final class MetricKey {
+
+    private final Map<String, String> dimensions;
+    private final String key;
+
+    /**
+     * Constructor
+     * 
+     * @param dimensions
+     */
+    private MetricKey(Map<String, String> dimensions) {
+        Map<String, String> sortedDimensions = new TreeMap<>();
+        dimensions.forEach((name, value) -> {
+            sortedDimensions.put(name, (value == null) ? "" : value);
+        });
+        this.dimensions = Collections.unmodifiableMap(sortedDimensions);
+        this.key = MetricUtils.getDimensionsKey(this.dimensions);
+    }
+
+    /**
+     * of
+     * 
+     * @param  dimensions
+     * @return
+     */
+    public static MetricKey of(Map<String, String> dimensions) {
+        return new MetricKey(dimensions);
+    }
+
+    /**
+     * get dimensions
+     * 
+     * @return the unmodifiable dimensions
+     */
+    public Map<String, String> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * get key
+     * 
+     * @return the dimensions key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MetricKey)) {
+            return false;
+        }
+        return key.equals(((MetricKey) obj).key);
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.metric.prometheus;
+
+import io.prometheus.client.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DurationHistogram<br>
+ * Latency distributions of the sink, node and end-to-end(whole) durations of a component.<br>
+ * The labels are only component, cluster and stage, so the scrape cost does not grow with the number of
+ * inlong streams; the stream of a sample is kept as the exemplar of its bucket.
+ */
+public class DurationHistogram {
+
+    public static final String METRIC_NAME = "inlong_duration_seconds";
+    public static final String LABEL_COMPONENT = "component";
+    public static final String LABEL_CLUSTER = "cluster";
+    public static final String LABEL_STAGE = "stage";
+    public static final String STAGE_SINK = "sink";
+    public static final String STAGE_NODE = "node";
+    public static final String STAGE_WHOLE = "whole";
+    public static final String EXEMPLAR_GROUP_ID = "inlongGroupId";
+    public static final String EXEMPLAR_STREAM_ID = "inlongStreamId";
+
+    // one exemplar per stage in the interval, the other samples only update the buckets
+    public static final long EXEMPLAR_INTERVAL = 1000L;
+    // the limit of the exemplar labels in OpenMetrics
+    private static final int MAX_EXEMPLAR_LENGTH = 128;
+
+    private static final Histogram HISTOGRAM = PrometheusExporter.register(METRIC_NAME,
+            Histogram.build().name(METRIC_NAME)
+                    .help("The duration distribution of InLong components.")
+                    .labelNames(LABEL_COMPONENT, LABEL_CLUSTER, LABEL_STAGE)
+                    .buckets(0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300)
+                    .withExemplars()
+                    .create());
+    private static final Map<String, DurationHistogram> INSTANCES = new ConcurrentHashMap<>();
+
+    private final StageHistogram sink;
+    private final StageHistogram node;
+    private final StageHistogram whole;
+
+    /**
+     * Constructor
+     *
+     * @param component
+     * @param cluster
+     */
+    private DurationHistogram(String component, String cluster) {
+        this.sink = new StageHistogram(HISTOGRAM.labels(component, cluster, STAGE_SINK));
+        this.node = new StageHistogram(HISTOGRAM.labels(component, cluster, STAGE_NODE));
+        this.whole = new StageHistogram(HISTOGRAM.labels(component, cluster, STAGE_WHOLE));
+    }
+
+    /**
+     * get the histogram of a component cluster, keep the result instead of calling it per event
+     *
+     * @param  component
+     * @param  cluster
+     * @return
+     */
+    public static DurationHistogram of(String component, String cluster) {
+        String safeCluster = (cluster == null) ? "" : cluster;
+        return INSTANCES.computeIfAbsent(component + "." + safeCluster,
+                k -> new DurationHistogram(component, safeCluster));
+    }
+
+    /**
+     * observe the durations of an event
+     *
+     * @param sinkDuration   milliseconds
+     * @param nodeDuration   milliseconds
+     * @param wholeDuration  milliseconds
+     * @param inlongGroupId
+     * @param inlongStreamId
+     */
+    public void observe(long sinkDuration, long nodeDuration, long wholeDuration,
+            String inlongGroupId, String inlongStreamId) {
+        long currentTime = System.currentTimeMillis();
+        this.sink.observe(sinkDuration, currentTime, inlongGroupId, inlongStreamId);
+        this.node.observe(nodeDuration, currentTime, inlongGroupId, inlongStreamId);
+        this.whole.observe(wholeDuration, currentTime, inlongGroupId, inlongStreamId);
+    }
+
+    /**
+     * StageHistogram
+     */
+    private static class StageHistogram {
+
+        private final Histogram.Child child;
+        private volatile long lastExemplarTime = 0;
+
+        StageHistogram(Histogram.Child child) {
+            this.child = child;
+        }
+
+        /**
+         * observe
+         *
+         * @param duration       milliseconds
+         * @param currentTime
+         * @param inlongGroupId
+         * @param inlongStreamId
+         */
+        void observe(long duration, long currentTime, String inlongGroupId, String inlongStreamId) {
+            // the clocks of the upstream nodes may be ahead
+            double seconds = Math.max(duration, 0L) / 1000.0;
+            if (currentTime - lastExemplarTime < EXEMPLAR_INTERVAL || inlongGroupId == null
+                    || inlongStreamId == null
+                    || inlongGroupId.length() + inlongStreamId.length() + EXEMPLAR_GROUP_ID.length()
+                            + EXEMPLAR_STREAM_ID.length() > MAX_EXEMPLAR_LENGTH) {
+                child.observe(seconds);
+                return;
+            }
+            this.lastExemplarTime = currentTime;
+            child.observeWithExemplar(seconds, EXEMPLAR_GROUP_ID, inlongGroupId, EXEMPLAR_STREAM_ID, inlongStreamId);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.metric.prometheus;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.HTTPServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PrometheusExporter<br>
+ * The single prometheus endpoint of a process, all InLong components register their collectors here.<br>
+ * The endpoint serves the prometheus text format and the OpenMetrics format (with exemplars) by the Accept header.
+ */
+public final class PrometheusExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrometheusExporter.class);
+
+    public static final String KEY_PROMETHEUS_HTTP_PORT = "prometheusHttpPort";
+    public static final int DEFAULT_PROMETHEUS_HTTP_PORT = 8080;
+
+    private static final Map<String, Collector> COLLECTORS = new ConcurrentHashMap<>();
+    private static HTTPServer httpServer;
+    private static int httpPort;
+
+    /**
+     * Constructor
+     */
+    private PrometheusExporter() {
+    }
+
+    /**
+     * start the http endpoint, only the first call of a process opens the port
+     *
+     * @param port
+     * @throws IOException
+     */
+    public static synchronized void start(int port) throws IOException {
+        if (httpServer != null) {
+            if (port != httpPort) {
+                LOGGER.warn("prometheus http server has been started on port:{}, ignore port:{}", httpPort, port);
+            }
+            return;
+        }
+        httpServer = new HTTPServer(port);
+        httpPort = port;
+        LOGGER.info("prometheus http server started on port:{}", port);
+    }
+
+    /**
+     * stop the http endpoint
+     */
+    public static synchronized void stop() {
+        if (httpServer == null) {
+            return;
+        }
+        httpServer.stop();
+        httpServer = null;
+        LOGGER.info("prometheus http server stopped on port:{}", httpPort);
+    }
+
+    /**
+     * isStarted
+     *
+     * @return
+     */
+    public static synchronized boolean isStarted() {
+        return httpServer != null;
+    }
+
+    /**
+     * register a collector once by name
+     *
+     * @param  name      the unique name of the collector
+     * @param  collector
+     * @return           the registered collector of the name
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Collector> T register(String name, T collector) {
+        Collector oldCollector = COLLECTORS.putIfAbsent(name, collector);
+        if (oldCollector != null) {
+            return (T) oldCollector;
+        }
+        try {
+            CollectorRegistry.defaultRegistry.register(collector);
+        } catch (IllegalArgumentException e) {
+            COLLECTORS.remove(name, collector);
+            throw e;
+        }
+        return collector;
+    }
+
+    /**
+     * unregister a collector by name
+     *
+     * @param name
+     */
+    public static void unregister(String name) {
+        Collector collector = COLLECTORS.remove(name);
+        if (collector != null) {
+            CollectorRegistry.defaultRegistry.unregister(collector);
+        }
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.msg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.xerial.snappy.Snappy;
+
+/**
+ * A read-only view over a serialized {@link InLongMsg}.
+ *
+ * <p>Unlike {@link InLongMsg#parseFrom(ByteBuffer)}, parsing only indexes the attribute blocks of the
+ * message. Message bodies are returned as slices of the input, or of a per-thread decompression
+ * buffer for snappy blocks, without copying. Attributes are decoded only when they are accessed.</p>
+ *
+ * <p>A body of a compressed block is only valid until the next compressed block is iterated by the
+ * same thread. Copy it if it must outlive that. Versions 3 and 4 repack the messages of a block by
+ * their private attributes, so they are parsed by {@link InLongMsg} and then exposed through the
+ * same view.</p>
+ */
+public class InLongMsgView {
+
+    private static final byte[] MAGIC0 = {(byte) 0xf, (byte) 0x0};
+    private static final byte[] MAGIC1 = {(byte) 0xf, (byte) 0x1};
+    private static final byte[] MAGIC2 = {(byte) 0xf, (byte) 0x2};
+    private static final byte[] MAGIC3 = {(byte) 0xf, (byte) 0x3};
+    private static final byte[] MAGIC4 = {(byte) 0xf, (byte) 0x4};
+
+    private static final int MAGIC_SIZE = 2;
+    private static final int COMPRESS_SNAPPY = 1;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    // larger buffers are allocated per block and not kept by the thread
+    private static final int MAX_REUSED_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> HEAP_UNCOMPRESS_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+    private static final ThreadLocal<ByteBuffer> DIRECT_UNCOMPRESS_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE));
+
+    private final int version;
+    private final long createtime;
+    private final int msgcnt;
+    private final List<AttrBlock> blocks;
+
+    private InLongMsgView(int version, long createtime, int msgcnt, List<AttrBlock> blocks) {
+        this.version = version;
+        this.createtime = createtime;
+        this.msgcnt = msgcnt;
+        this.blocks = blocks;
+    }
+
+    public static InLongMsgView parseFrom(byte[] data) {
+        return parseFrom(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * index a serialized message, the buffer must not be modified while the view is used
+     *
+     * @param buffer serialized message between position and limit
+     * @return the view, null if the buffer is not a valid message
+     */
+    public static InLongMsgView parseFrom(ByteBuffer buffer) {
+        int version = getVersion(buffer);
+        if (version < 0) {
+            return null;
+        }
+        try {
+            if (version >= 3) {
+                return parseByInLongMsg(buffer, version);
+            }
+            return parseDefault(buffer.duplicate(), version);
+        } catch (RuntimeException e) {
+            // truncated or corrupted message
+            return null;
+        }
+    }
+
+    private static int getVersion(ByteBuffer buffer) {
+        int pos = buffer.position();
+        int rem = buffer.remaining();
+        if (rem < 4) {
+            return -1;
+        }
+        byte first = buffer.get(pos);
+        byte second = buffer.get(pos + 1);
+        if (first != buffer.get(pos + rem - 2) || second != buffer.get(pos + rem - 1)) {
+            return -1;
+        }
+        byte[][] magics = {MAGIC0, MAGIC1, MAGIC2, MAGIC3, MAGIC4};
+        for (int version = 0; version < magics.length; version++) {
+            if (first == magics[version][0] && second == magics[version][1]) {
+                return version;
+            }
+        }
+        return -1;
+    }
+
+    private static InLongMsgView parseDefault(ByteBuffer buffer, int version) {
+        int pos = buffer.position() + MAGIC_SIZE;
+        long createtime = -1;
+        int msgcnt = 0;
+        if (version >= 1) {
+            createtime = buffer.getLong(pos);
+            pos += 8;
+        }
+        if (version >= 2) {
+            msgcnt = buffer.getInt(pos);
+            pos += 4;
+        }
+        int attrcnt = buffer.getInt(pos);
+        pos += 4;
+
+        List<AttrBlock> blocks = new ArrayList<>(attrcnt);
+        for (int i = 0; i < attrcnt; i++) {
+            int attrLen = buffer.getShort(pos) & 0xFFFF;
+            LazyAttributes attributes = new LazyAttributes(buffer, pos + 2, attrLen);
+            pos += 2 + attrLen;
+            int cnt = 0;
+            if (version == 2) {
+                cnt = buffer.getInt(pos);
+                pos += 4;
+            }
+            // the length covers the compress flag and the data
+            int len = buffer.getInt(pos);
+            pos += 4;
+            if (len < 1 || pos + len > buffer.limit() - MAGIC_SIZE) {
+                throw new IllegalArgumentException("illegal block length " + len);
+            }
+            ByteBuffer raw = buffer.duplicate();
+            raw.limit(pos + len);
+            raw.position(pos);
+            blocks.add(new AttrBlock(attributes, raw.slice(), cnt));
+            pos += len;
+        }
+        return new InLongMsgView(version, createtime, msgcnt, blocks);
+    }
+
+    private static InLongMsgView parseByInLongMsg(ByteBuffer buffer, int version) {
+        ByteBuffer heapBuffer = buffer;
+        if (!buffer.hasArray()) {
+            heapBuffer = ByteBuffer.allocate(buffer.remaining());
+            heapBuffer.put(buffer.duplicate());
+            heapBuffer.flip();
+        }
+        InLongMsg msg = InLongMsg.parseFrom(heapBuffer);
+        if (msg == null) {
+            return null;
+        }
+        List<AttrBlock> blocks = new ArrayList<>();
+        for (String attr : msg.getAttrs()) {
+            blocks.add(new AttrBlock(new LazyAttributes(attr), msg.getRawDataBuffer(attr).slice(),
+                    msg.getMsgCnt(attr)));
+        }
+        return new InLongMsgView(version, msg.getCreatetime(), msg.getMsgCnt(), blocks);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public long getCreatetime() {
+        return createtime;
+    }
+
+    public int getMsgCnt() {
+        return msgcnt;
+    }
+
+    public int getAttrCount() {
+        return blocks.size();
+    }
+
+    public List<AttrBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * uncompress a snappy block into the buffer of the current thread
+     */
+    private static ByteBuffer uncompress(ByteBuffer compressed) throws IOException {
+        if (compressed.hasArray()) {
+            byte[] array = compressed.array();
+            int offset = compressed.arrayOffset() + compressed.position();
+            int length = compressed.remaining();
+            int uncompressedLen = Snappy.uncompressedLength(array, offset, length);
+            byte[] target = HEAP_UNCOMPRESS_BUFFER.get();
+            if (target.length < uncompressedLen) {
+                target = new byte[uncompressedLen];
+                if (uncompressedLen <= MAX_REUSED_BUFFER_SIZE) {
+                    HEAP_UNCOMPRESS_BUFFER.set(target);
+                }
+            }
+            int len = Snappy.uncompress(array, offset, length, target, 0);
+            return ByteBuffer.wrap(target, 0, len);
+        }
+        int uncompressedLen = Snappy.uncompressedLength(compressed);
+        ByteBuffer target = DIRECT_UNCOMPRESS_BUFFER.get();
+        if (target.capacity() < uncompressedLen) {
+            target = ByteBuffer.allocateDirect(uncompressedLen);
+            if (uncompressedLen <= MAX_REUSED_BUFFER_SIZE) {
+                DIRECT_UNCOMPRESS_BUFFER.set(target);
+            }
+        }
+        target.clear();
+        Snappy.uncompress(compressed, target);
+        return target.duplicate();
+    }
+
+    /**
+     * the messages sharing one attribute string
+     */
+    public static final class AttrBlock implements Iterable<ByteBuffer> {
+
+        private final LazyAttributes attributes;
+        // compress flag followed by the data
+        private final ByteBuffer raw;
+        private final int msgCnt;
+
+        private AttrBlock(LazyAttributes attributes, ByteBuffer raw, int msgCnt) {
+            this.attributes = attributes;
+            this.raw = raw;
+            this.msgCnt = msgCnt;
+        }
+
+        public String getAttr() {
+            return attributes.getRaw();
+        }
+
+        public LazyAttributes getAttributes() {
+            return attributes;
+        }
+
+        /**
+         * @return message count of the block, only carried by version 2 messages
+         */
+        public int getMsgCnt() {
+            return msgCnt;
+        }
+
+        /**
+         * iterate the message bodies of the block, uncompressing it first if needed
+         *
+         * @return slices of the message bodies
+         */
+        @Override
+        public Iterator<ByteBuffer> iterator() {
+            ByteBuffer data = raw.duplicate();
+            int compress = data.get();
+            if (compress == COMPRESS_SNAPPY) {
+                try {
+                    data = uncompress(data.slice());
+                } catch (IOException e) {
+                    throw new IllegalStateException("uncompress block of " + getAttr() + " failed", e);
+                }
+            }
+            return new BodyIterator(data);
+        }
+    }
+
+    /**
+     * walk the length prefixed bodies of an uncompressed block
+     */
+    private static final class BodyIterator implements Iterator<ByteBuffer> {
+
+        private final ByteBuffer data;
+        private int pos;
+        private final int end;
+
+        private BodyIterator(ByteBuffer data) {
+            this.data = data;
+            this.pos = data.position();
+            this.end = data.limit();
+        }
+
+        @Override
+        public boolean hasNext() {
+            // a truncated body ends the block, as the copying iterator of InLongMsg does
+            if (end - pos < 4) {
+                return false;
+            }
+            int len = data.getInt(pos);
+            return len >= 0 && len <= end - pos - 4;
+        }
+
+        @Override
+        public ByteBuffer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int len = data.getInt(pos);
+            ByteBuffer body = data.duplicate();
+            body.limit(pos + 4 + len);
+            body.position(pos + 4);
+            pos += 4 + len;
+            return body.slice();
+        }
+    }
+
+    /**
+     * Attributes of a block, the string is only decoded when it is accessed and split into a map only
+     * when the map is asked for.
+     */
+    public static final class LazyAttributes {
+
+        private final ByteBuffer source;
+        private final int offset;
+        private final int length;
+        private String raw;
+        private Map<String, String> map;
+
+        private LazyAttributes(ByteBuffer source, int offset, int length) {
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private LazyAttributes(String raw) {
+            this.source = null;
+            this.offset = 0;
+            this.length = 0;
+            this.raw = raw;
+        }
+
+        /**
+         * @return the attribute string, like k1=v1&amp;k2=v2
+         */
+        public String getRaw() {
+            if (raw == null) {
+                raw = decodeModifiedUtf8(source, offset, length);
+            }
+            return raw;
+        }
+
+        /**
+         * look up one attribute without building the map
+         *
+         * @param key attribute key
+         * @return the value, null if absent
+         */
+        public String get(String key) {
+            if (map != null) {
+                return map.get(key);
+            }
+            String attr = getRaw();
+            int start = 0;
+            int attrLen = attr.length();
+            while (start <= attrLen) {
+                int end = attr.indexOf(AttributeConstants.SEPARATOR, start);
+                if (end < 0) {
+                    end = attrLen;
+                }
+                int sep = attr.indexOf(AttributeConstants.KEY_VALUE_SEPARATOR, start);
+                if (sep > start && sep < end && attr.substring(start, sep).trim().equals(key)) {
+                    return attr.substring(sep + 1, end).trim();
+                }
+                start = end + 1;
+            }
+            return null;
+        }
+
+        /**
+         * @return all attributes in order, built on first call
+         */
+        public Map<String, String> toMap() {
+            if (map == null) {
+                Map<String, String> result = new LinkedHashMap<>();
+                String attr = getRaw();
+                int start = 0;
+                int attrLen = attr.length();
+                while (start < attrLen) {
+                    int end = attr.indexOf(AttributeConstants.SEPARATOR, start);
+                    if (end < 0) {
+                        end = attrLen;
+                    }
+                    int sep = attr.indexOf(AttributeConstants.KEY_VALUE_SEPARATOR, start);
+                    if (sep > start && sep < end) {
+                        result.put(attr.substring(start, sep).trim(), attr.substring(sep + 1, end).trim());
+                    }
+                    start = end + 1;
+                }
+                map = Collections.unmodifiableMap(result);
+            }
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return getRaw();
+        }
+
+        /**
+         * decode the modified UTF-8 written by {@link java.io.DataOutput#writeUTF(String)}
+         */
+        private static String decodeModifiedUtf8(ByteBuffer buffer, int offset, int length) {
+            char[] chars = new char[length];
+            int count = 0;
+            int pos = offset;
+            int end = offset + length;
+            while (pos < end) {
+                int c = buffer.get(pos) & 0xFF;
+                if (c < 0x80) {
+                    chars[count++] = (char) c;
+                    pos++;
+                } else if ((c >> 5) == 0x6 && pos + 1 < end) {
+                    chars[count++] = (char) (((c & 0x1F) << 6) | (buffer.get(pos + 1) & 0x3F));
+                    pos += 2;
+                } else if ((c >> 4) == 0xE && pos + 2 < end) {
+                    chars[count++] = (char) (((c & 0x0F) << 12) | ((buffer.get(pos + 1) & 0x3F) << 6)
+                            | (buffer.get(pos + 2) & 0x3F));
+                    pos += 3;
+                } else {
+                    throw new IllegalArgumentException("malformed attribute at " + pos);
+                }
+            }
+            return new String(chars, 0, count);
+        }
+    }
+}
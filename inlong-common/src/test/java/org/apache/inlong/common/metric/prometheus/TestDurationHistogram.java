@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.metric.prometheus;
+
+import static org.junit.Assert.assertEquals;
+
+import io.prometheus.client.CollectorRegistry;
+import org.junit.Test;
+
+/**
+ * 
+ * TestDurationHistogram
+ */
+public class TestDurationHistogram {
+
+    private static final String[] LABEL_NAMES = new String[]{DurationHistogram.LABEL_COMPONENT,
+            DurationHistogram.LABEL_CLUSTER, DurationHistogram.LABEL_STAGE};
+    private static final String[] BUCKET_LABEL_NAMES = new String[]{DurationHistogram.LABEL_COMPONENT,
+            DurationHistogram.LABEL_CLUSTER, DurationHistogram.LABEL_STAGE, "le"};
+
+    /**
+     * testObserve
+     */
+    @Test
+    public void testObserve() {
+        DurationHistogram histogram = DurationHistogram.of("test", "cluster1");
+        assertEquals(histogram, DurationHistogram.of("test", "cluster1"));
+        histogram.observe(3, 40, 2000, "group1", "stream1");
+        histogram.observe(3, 40, -10, "group1", "stream1");
+        CollectorRegistry registry = CollectorRegistry.defaultRegistry;
+        assertEquals(2.0, registry.getSampleValue(DurationHistogram.METRIC_NAME + "_count", LABEL_NAMES,
+                new String[]{"test", "cluster1", DurationHistogram.STAGE_SINK}), 0.0);
+        assertEquals(0.006, registry.getSampleValue(DurationHistogram.METRIC_NAME + "_sum", LABEL_NAMES,
+                new String[]{"test", "cluster1", DurationHistogram.STAGE_SINK}), 0.0001);
+        assertEquals(2.0, registry.getSampleValue(DurationHistogram.METRIC_NAME + "_bucket", BUCKET_LABEL_NAMES,
+                new String[]{"test", "cluster1", DurationHistogram.STAGE_NODE, "0.05"}), 0.0);
+        // the negative duration is counted as zero
+        assertEquals(1.0, registry.getSampleValue(DurationHistogram.METRIC_NAME + "_bucket", BUCKET_LABEL_NAMES,
+                new String[]{"test", "cluster1", DurationHistogram.STAGE_WHOLE, "1.0"}), 0.0);
+        assertEquals(2.0, registry.getSampleValue(DurationHistogram.METRIC_NAME + "_sum", LABEL_NAMES,
+                new String[]{"test", "cluster1", DurationHistogram.STAGE_WHOLE}), 0.0001);
+    }
+}
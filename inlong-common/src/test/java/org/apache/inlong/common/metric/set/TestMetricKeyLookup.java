@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.metric.set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.inlong.common.metric.MetricItem;
+import org.apache.inlong.common.metric.MetricItemSet;
+import org.apache.inlong.common.metric.MetricKey;
+import org.apache.inlong.common.metric.MetricUtils;
+import org.apache.inlong.common.metric.MetricValue;
+import org.apache.inlong.common.metric.item.AgentMetricItem;
+import org.junit.Test;
+
+/**
+ * 
+ * TestMetricKeyLookup
+ */
+public class TestMetricKeyLookup {
+
+    /**
+     * createItemSet
+     * 
+     * @return
+     */
+    private static MetricItemSet<DataProxyMetricItem> createItemSet() {
+        return new MetricItemSet<DataProxyMetricItem>("TestMetricKeyLookup") {
+
+            @Override
+            protected DataProxyMetricItem createItem() {
+                return new DataProxyMetricItem();
+            }
+        };
+    }
+
+    /**
+     * createDimensions
+     * 
+     * @return
+     */
+    private static Map<String, String> createDimensions() {
+        Map<String, String> dimensions = new HashMap<>();
+        dimensions.put("sourceId", "agent-source");
+        dimensions.put("inlongGroupId", "03a00000026");
+        dimensions.put("inlongStreamId", null);
+        return dimensions;
+    }
+
+    /**
+     * testKeyLookup
+     */
+    @Test
+    public void testKeyLookup() {
+        MetricItemSet<DataProxyMetricItem> itemSet = createItemSet();
+        Map<String, String> dimensions = createDimensions();
+        MetricKey metricKey = MetricKey.of(dimensions);
+        assertEquals(MetricUtils.getDimensionsKey(dimensions), metricKey.getKey());
+        assertEquals(metricKey, MetricKey.of(createDimensions()));
+        // the key copies the dimensions
+        dimensions.put("inlongGroupId", "03a00000126");
+        assertEquals("03a00000026", metricKey.getDimensions().get("inlongGroupId"));
+        assertEquals("", metricKey.getDimensions().get("inlongStreamId"));
+        // the map lookup and the key lookup find the same item
+        DataProxyMetricItem item = itemSet.findMetricItem(metricKey);
+        assertSame(item, itemSet.findMetricItem(metricKey));
+        assertSame(item, itemSet.findMetricItem(createDimensions()));
+        assertEquals(metricKey.getKey(), item.getDimensionsKey());
+        assertEquals("agent-source", item.getDimensions().get("sourceId"));
+    }
+
+    /**
+     * testLateWrite
+     */
+    @Test
+    public void testLateWrite() {
+        MetricItemSet<DataProxyMetricItem> itemSet = createItemSet();
+        MetricKey metricKey = MetricKey.of(createDimensions());
+        DataProxyMetricItem item = itemSet.findMetricItem(metricKey);
+        item.readSuccessCount.addAndGet(10);
+        List<MetricItem> items = itemSet.snapshot();
+        assertEquals(1, items.size());
+        assertEquals(10, items.get(0).snapshot().get("readSuccessCount").value);
+        // a writer still holding the swapped item
+        item.readSuccessCount.addAndGet(5);
+        DataProxyMetricItem newItem = itemSet.findMetricItem(metricKey);
+        assertTrue(newItem != item);
+        newItem.readSuccessCount.addAndGet(1);
+        items = itemSet.snapshot();
+        assertEquals(2, items.size());
+        long total = 0;
+        for (MetricItem itemObj : items) {
+            Map<String, MetricValue> metricMap = itemObj.snapshot();
+            total += metricMap.get("readSuccessCount").value;
+        }
+        assertEquals(6, total);
+        // no late write, the retired item is not reported again
+        items = itemSet.snapshot();
+        assertEquals(0, items.size());
+    }
+
+    /**
+     * testRetiredItemGauge
+     */
+    @Test
+    public void testRetiredItemGauge() {
+        MetricItemSet<AgentMetricItem> itemSet = new MetricItemSet<AgentMetricItem>("AgentMetricItemSet") {
+
+            @Override
+            protected AgentMetricItem createItem() {
+                return new AgentMetricItem();
+            }
+        };
+        MetricKey metricKey = MetricKey.of(createDimensions());
+        AgentMetricItem item = itemSet.findMetricItem(metricKey);
+        item.runningTasks.set(3);
+        itemSet.snapshot();
+        // a late write to the swapped item, the gauge is kept by the new item
+        item.sendNum.addAndGet(2);
+        AgentMetricItem newItem = itemSet.findMetricItem(metricKey);
+        newItem.runningTasks.set(3);
+        List<MetricItem> items = itemSet.snapshot();
+        assertEquals(2, items.size());
+        long runningTasks = 0;
+        long sendNum = 0;
+        for (MetricItem itemObj : items) {
+            assertEquals(metricKey.getKey(), itemObj.getDimensionsKey());
+            Map<String, MetricValue> metricMap = itemObj.snapshot();
+            if (metricMap.containsKey("runningTasks")) {
+                runningTasks += metricMap.get("runningTasks").value;
+            }
+            sendNum += metricMap.get("sendNum").value;
+        }
+        // the gauge of the retired item is not added on top of the new one
+        assertEquals(3, runningTasks);
+        assertEquals(2, sendNum);
+        assertFalse(item.hasCountMetricValue());
+    }
+}
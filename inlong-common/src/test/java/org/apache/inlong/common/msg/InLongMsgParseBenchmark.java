@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.msg;
+
+import com.google.common.base.Splitter;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.inlong.common.msg.InLongMsgView.AttrBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the copying {@link InLongMsg} parser with the zero-copy {@link InLongMsgView},
+ * reading every body and the stream id of every block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InLongMsgParseBenchmark {
+
+    // eager attribute parsing, as the callers of InLongMsg do
+    private static final Splitter.MapSplitter MAP_SPLITTER = Splitter.on(AttributeConstants.SEPARATOR)
+            .trimResults().withKeyValueSeparator(AttributeConstants.KEY_VALUE_SEPARATOR);
+
+    @Param({"true", "false"})
+    private boolean compress;
+
+    @Param({"100", "1000"})
+    private int bodyCount;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        InLongMsg msg = InLongMsg.newInLongMsg(1024 * 1024, compress);
+        byte[] body = new byte[256];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        for (int i = 0; i < bodyCount; i++) {
+            msg.addMsg("m=0&iname=stream" + (i % 4) + "&dt=1656658800000", body);
+        }
+        data = msg.buildArray();
+    }
+
+    @Benchmark
+    public void inLongMsg(Blackhole blackhole) {
+        InLongMsg msg = InLongMsg.parseFrom(data);
+        for (String attr : msg.getAttrs()) {
+            blackhole.consume(MAP_SPLITTER.split(attr).get("iname"));
+            Iterator<byte[]> iterator = msg.getIterator(attr);
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        }
+    }
+
+    @Benchmark
+    public void inLongMsgView(Blackhole blackhole) {
+        InLongMsgView view = InLongMsgView.parseFrom(data);
+        for (AttrBlock block : view.getBlocks()) {
+            blackhole.consume(block.getAttributes().get("iname"));
+            for (ByteBuffer body : block) {
+                blackhole.consume(body);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(InLongMsgParseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.msg;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.inlong.common.msg.InLongMsgView.AttrBlock;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InLongMsgViewTest {
+
+    private static final String ATTR1 = "m=0&iname=stream1&dt=1656658800000&t=20220701150000";
+    private static final String ATTR2 = "m=0&iname=stream2&dt=1656658800000";
+
+    private byte[] buildMsg(boolean compress, int version) {
+        InLongMsg msg = InLongMsg.newInLongMsg(compress, version);
+        for (int i = 0; i < 10; i++) {
+            msg.addMsg(ATTR1, ("body1-" + i).getBytes(StandardCharsets.UTF_8));
+            msg.addMsg(ATTR2, ("body2-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return msg.buildArray(1656658800000L);
+    }
+
+    private void assertSameAsInLongMsg(byte[] data, InLongMsgView view) {
+        InLongMsg msg = InLongMsg.parseFrom(data);
+        Assert.assertNotNull(view);
+        Assert.assertEquals(msg.getCreatetime(), view.getCreatetime());
+        Assert.assertEquals(msg.getMsgCnt(), view.getMsgCnt());
+
+        List<String> attrs = new ArrayList<>(msg.getAttrs());
+        Assert.assertEquals(attrs.size(), view.getAttrCount());
+        for (int i = 0; i < attrs.size(); i++) {
+            AttrBlock block = view.getBlocks().get(i);
+            Assert.assertEquals(attrs.get(i), block.getAttr());
+            Iterator<byte[]> expected = msg.getIterator(attrs.get(i));
+            Iterator<ByteBuffer> actual = block.iterator();
+            while (expected.hasNext()) {
+                Assert.assertTrue(actual.hasNext());
+                ByteBuffer body = actual.next();
+                byte[] bytes = new byte[body.remaining()];
+                body.get(bytes);
+                Assert.assertArrayEquals(expected.next(), bytes);
+            }
+            Assert.assertFalse(actual.hasNext());
+        }
+    }
+
+    @Test
+    public void testParseCompressed() {
+        byte[] data = buildMsg(true, 1);
+        assertSameAsInLongMsg(data, InLongMsgView.parseFrom(data));
+    }
+
+    @Test
+    public void testParseUncompressedWithCount() {
+        byte[] data = buildMsg(false, 2);
+        InLongMsgView view = InLongMsgView.parseFrom(data);
+        assertSameAsInLongMsg(data, view);
+        Assert.assertEquals(2, view.getVersion());
+        Assert.assertEquals(20, view.getMsgCnt());
+        Assert.assertEquals(10, view.getBlocks().get(0).getMsgCnt());
+    }
+
+    @Test
+    public void testParseDirectBuffer() {
+        byte[] data = buildMsg(true, 1);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data);
+        direct.flip();
+        assertSameAsInLongMsg(data, InLongMsgView.parseFrom(direct));
+    }
+
+    @Test
+    public void testBodyIsSliceOfInput() {
+        byte[] data = buildMsg(false, 1);
+        ByteBuffer body = InLongMsgView.parseFrom(data).getBlocks().get(0).iterator().next();
+        Assert.assertSame(data, body.array());
+    }
+
+    @Test
+    public void testLazyAttributes() {
+        InLongMsgView view = InLongMsgView.parseFrom(buildMsg(true, 1));
+        InLongMsgView.LazyAttributes attributes = view.getBlocks().get(0).getAttributes();
+        Assert.assertEquals("stream1", attributes.get("iname"));
+        Assert.assertEquals("20220701150000", attributes.get("t"));
+        Assert.assertNull(attributes.get("missing"));
+        Assert.assertEquals(4, attributes.toMap().size());
+        Assert.assertEquals("1656658800000", attributes.toMap().get("dt"));
+    }
+
+    @Test
+    public void testParseIllegal() {
+        Assert.assertNull(InLongMsgView.parseFrom(new byte[]{1, 2, 3, 4, 5}));
+        byte[] data = buildMsg(true, 1);
+        // keep the magic but corrupt the block length
+        data[2 + 8 + 4 + 2 + ATTR1.length()] = 0x7f;
+        Assert.assertNull(InLongMsgView.parseFrom(data));
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.util.EntityUtils;
 import org.apache.inlong.common.pojo.dataproxy.DataProxyTopicInfo;
 import org.apache.inlong.common.pojo.dataproxy.MQClusterInfo;
+import org.apache.inlong.dataproxy.config.holder.ConfigUpdateCallback;
 import org.apache.inlong.dataproxy.config.holder.FileConfigHolder;
 import org.apache.inlong.dataproxy.config.holder.GroupIdPropertiesHolder;
 import org.apache.inlong.dataproxy.config.holder.MQClusterConfigHolder;
@@ -66,6 +67,8 @@ public class ConfigManager {
     private final PropertiesConfigHolder tubeSwitchConfig = new PropertiesConfigHolder("tube_switch.properties");
     private final PropertiesConfigHolder weightHolder = new PropertiesConfigHolder("weight.properties");
     private final FileConfigHolder blackListConfig = new FileConfigHolder("blacklist.properties");
+    // routing table compiled from topicConfig and mxConfig
+    private volatile RouteTable routeTable = RouteTable.EMPTY;
 
     /**
      * get instance for config manager
@@ -80,6 +83,16 @@ public class ConfigManager {
                 for (ConfigHolder holder : CONFIG_HOLDER_LIST) {
                     holder.loadFromFileToHolder();
                 }
+                instance.compileRouteTable();
+                ConfigUpdateCallback routeCallback = new ConfigUpdateCallback() {
+
+                    @Override
+                    public void update() {
+                        instance.compileRouteTable();
+                    }
+                };
+                instance.topicConfig.addUpdateCallback(routeCallback);
+                instance.mxConfig.addUpdateCallback(routeCallback);
                 ReloadConfigWorker reloadProperties = ReloadConfigWorker.create(instance);
                 reloadProperties.setDaemon(true);
                 reloadProperties.start();
@@ -89,6 +102,20 @@ public class ConfigManager {
         return instance;
     }
 
+    /**
+     * compile routing table from topic and mx properties, and swap it
+     */
+    private void compileRouteTable() {
+        this.routeTable = RouteTable.compile(getTopicProperties(), getMxPropertiesMaps());
+    }
+
+    /**
+     * get routing table, (groupId, streamId) to topic and mx attributes
+     */
+    public RouteTable getRouteTable() {
+        return routeTable;
+    }
+
     public Map<String, String> getWeightProperties() {
         return weightHolder.getHolder();
     }
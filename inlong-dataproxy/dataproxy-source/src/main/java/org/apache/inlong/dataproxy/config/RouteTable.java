@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.config;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routing table compiled from topics.properties and mx.properties,
+ * maps (groupId, streamId) to a pre-resolved route, so that the hot path
+ * resolves the topic and mx attributes of a message with lookups only.
+ * The table is immutable, ConfigManager swaps a new one on every reload.
+ */
+public class RouteTable {
+
+    public static final RouteTable EMPTY = new RouteTable(Collections.emptyMap());
+    public static final char GROUP_STREAM_SEPARATOR = '/';
+
+    private final Map<String, GroupRoutes> groupRoutesMap;
+
+    private RouteTable(Map<String, GroupRoutes> groupRoutesMap) {
+        this.groupRoutesMap = groupRoutesMap;
+    }
+
+    /**
+     * compile route table
+     *
+     * @param topicProperties - groupId or groupId/streamId to topic
+     * @param mxProperties - groupId to mx attributes
+     * @return route table
+     */
+    public static RouteTable compile(Map<String, String> topicProperties,
+            Map<String, Map<String, String>> mxProperties) {
+        Map<String, GroupRoutes> groupRoutesMap = new HashMap<>();
+        // group routes
+        if (mxProperties != null) {
+            for (Map.Entry<String, Map<String, String>> entry : mxProperties.entrySet()) {
+                if (entry.getValue() != null && entry.getValue().size() != 0) {
+                    groupRoutesMap.computeIfAbsent(entry.getKey(), k -> new GroupRoutes()).mxAttributes =
+                            Collections.unmodifiableMap(new HashMap<>(entry.getValue()));
+                }
+            }
+        }
+        if (topicProperties != null) {
+            for (Map.Entry<String, String> entry : topicProperties.entrySet()) {
+                if (StringUtils.isEmpty(entry.getValue())) {
+                    continue;
+                }
+                String key = entry.getKey();
+                int index = key.indexOf(GROUP_STREAM_SEPARATOR);
+                if (index < 0) {
+                    groupRoutesMap.computeIfAbsent(key, k -> new GroupRoutes()).topic = entry.getValue().trim();
+                }
+            }
+        }
+        // stream routes, which fall back to group routes
+        Map<String, GroupRoutes> result = new HashMap<>(groupRoutesMap.size() * 2);
+        for (Map.Entry<String, GroupRoutes> entry : groupRoutesMap.entrySet()) {
+            GroupRoutes groupRoutes = entry.getValue();
+            groupRoutes.defaultRoute = new Route(groupRoutes.topic, groupRoutes.mxAttributes);
+            result.put(entry.getKey(), groupRoutes);
+        }
+        if (topicProperties != null) {
+            for (Map.Entry<String, String> entry : topicProperties.entrySet()) {
+                String key = entry.getKey();
+                int index = key.indexOf(GROUP_STREAM_SEPARATOR);
+                if (index < 0 || StringUtils.isEmpty(entry.getValue())) {
+                    continue;
+                }
+                String groupId = key.substring(0, index);
+                String streamId = key.substring(index + 1);
+                GroupRoutes groupRoutes = result.get(groupId);
+                if (groupRoutes == null) {
+                    groupRoutes = new GroupRoutes();
+                    groupRoutes.defaultRoute = new Route(null, null);
+                    result.put(groupId, groupRoutes);
+                }
+                groupRoutes.streamRoutes.put(streamId, new Route(entry.getValue().trim(), groupRoutes.mxAttributes));
+            }
+        }
+        return new RouteTable(result);
+    }
+
+    /**
+     * find route
+     *
+     * @param groupId - inlong group id
+     * @param streamId - inlong stream id, may be empty
+     * @return route, null if the group is not configured
+     */
+    public Route find(String groupId, String streamId) {
+        if (StringUtils.isEmpty(groupId)) {
+            return null;
+        }
+        GroupRoutes groupRoutes = groupRoutesMap.get(groupId);
+        if (groupRoutes == null) {
+            return null;
+        }
+        if (StringUtils.isNotEmpty(streamId)) {
+            Route route = groupRoutes.streamRoutes.get(streamId);
+            if (route != null) {
+                return route;
+            }
+        }
+        return groupRoutes.defaultRoute;
+    }
+
+    /**
+     * find topic
+     *
+     * @param groupId - inlong group id
+     * @param streamId - inlong stream id, may be empty
+     * @return topic, null if not configured
+     */
+    public String findTopic(String groupId, String streamId) {
+        Route route = this.find(groupId, streamId);
+        return (route == null) ? null : route.getTopic();
+    }
+
+    public int size() {
+        return groupRoutesMap.size();
+    }
+
+    /**
+     * routes of one group
+     */
+    private static class GroupRoutes {
+
+        private String topic;
+        private Map<String, String> mxAttributes;
+        private Route defaultRoute;
+        private final Map<String, Route> streamRoutes = new HashMap<>();
+    }
+
+    /**
+     * pre-resolved route of one stream
+     */
+    public static class Route {
+
+        private final String topic;
+        private final Map<String, String> mxAttributes;
+
+        public Route(String topic, Map<String, String> mxAttributes) {
+            this.topic = topic;
+            this.mxAttributes = mxAttributes;
+        }
+
+        /**
+         * get topic
+         *
+         * @return topic, null if not configured
+         */
+        public String getTopic() {
+            return topic;
+        }
+
+        /**
+         * get mx attributes
+         *
+         * @return unmodifiable mx attributes, null if not configured
+         */
+        public Map<String, String> getMxAttributes() {
+            return mxAttributes;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.dispatch;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.flume.Context;
+import org.apache.inlong.sdk.commons.protocol.EventUtils;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.INLONG_COMPRESSED_TYPE;
+import org.apache.inlong.sdk.commons.utils.GzipUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 
+ * CompressTypeSelector, choose the compress type of every stream from sampled compression ratio and cpu cost.
+ * <p>
+ * Every sampleInterval packs of a stream, the pack body is compressed with all candidate types,
+ * the type with the lowest cost(compressed bytes * byteCost + compress nanoseconds * cpuCost) is kept
+ * until the next sample. When adaptive is disabled, the static compressType is always returned.
+ * </p>
+ */
+public class CompressTypeSelector {
+
+    public static final Logger LOG = LoggerFactory.getLogger(CompressTypeSelector.class);
+
+    public static final String KEY_COMPRESS_ADAPTIVE = "compressAdaptive";
+    public static final String KEY_COMPRESS_CANDIDATES = "compressCandidates";
+    public static final String KEY_COMPRESS_SAMPLE_INTERVAL = "compressSampleInterval";
+    public static final String KEY_COMPRESS_BYTE_COST = "compressByteCost";
+    public static final String KEY_COMPRESS_CPU_COST = "compressCpuCost";
+
+    public static final String DEFAULT_COMPRESS_CANDIDATES = "INLONG_NO_COMPRESS INLONG_SNAPPY INLONG_GZ";
+    public static final long DEFAULT_COMPRESS_SAMPLE_INTERVAL = 1000;
+    // cost of one byte shipped, relative to the cost of one nanosecond spent on compression
+    public static final double DEFAULT_COMPRESS_BYTE_COST = 10.0;
+    public static final double DEFAULT_COMPRESS_CPU_COST = 1.0;
+
+    private final INLONG_COMPRESSED_TYPE defaultType;
+    private final boolean adaptive;
+    private final List<INLONG_COMPRESSED_TYPE> candidates = new ArrayList<>();
+    private final long sampleInterval;
+    private final double byteCost;
+    private final double cpuCost;
+    private final DispatchMetricItem metricItem;
+    private final Map<String, StreamCompressType> streamTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * 
+     * @param context
+     * @param defaultType
+     * @param metricItem
+     */
+    public CompressTypeSelector(Context context, INLONG_COMPRESSED_TYPE defaultType, DispatchMetricItem metricItem) {
+        this.defaultType = defaultType;
+        this.metricItem = metricItem;
+        this.adaptive = context.getBoolean(KEY_COMPRESS_ADAPTIVE, false);
+        this.sampleInterval = Math.max(1, context.getLong(KEY_COMPRESS_SAMPLE_INTERVAL,
+                DEFAULT_COMPRESS_SAMPLE_INTERVAL));
+        this.byteCost = Double.parseDouble(context.getString(KEY_COMPRESS_BYTE_COST,
+                String.valueOf(DEFAULT_COMPRESS_BYTE_COST)));
+        this.cpuCost = Double.parseDouble(context.getString(KEY_COMPRESS_CPU_COST,
+                String.valueOf(DEFAULT_COMPRESS_CPU_COST)));
+        String strCandidates = context.getString(KEY_COMPRESS_CANDIDATES, DEFAULT_COMPRESS_CANDIDATES);
+        for (String strType : StringUtils.split(strCandidates)) {
+            try {
+                candidates.add(INLONG_COMPRESSED_TYPE.valueOf(strType));
+            } catch (IllegalArgumentException e) {
+                LOG.error("unknown compress type:{}, it is ignored.", strType);
+            }
+        }
+        if (candidates.size() == 0) {
+            candidates.add(defaultType);
+        }
+    }
+
+    /**
+     * select compress type of a DispatchProfile
+     * 
+     * @param  profile
+     * @return         compress type
+     */
+    public INLONG_COMPRESSED_TYPE select(DispatchProfile profile) {
+        INLONG_COMPRESSED_TYPE type = defaultType;
+        if (adaptive) {
+            StreamCompressType streamType = streamTypes.get(profile.getUid());
+            if (streamType == null) {
+                streamType = new StreamCompressType(defaultType);
+                StreamCompressType oldType = streamTypes.putIfAbsent(profile.getUid(), streamType);
+                streamType = (oldType == null) ? streamType : oldType;
+            }
+            if (streamType.packCounter.getAndIncrement() % sampleInterval == 0) {
+                streamType.type = this.sample(profile, streamType.type);
+            }
+            type = streamType.type;
+        }
+        this.addPackMetric(type);
+        return type;
+    }
+
+    /**
+     * sample all candidate compress types with the body of DispatchProfile
+     * 
+     * @param  profile
+     * @param  currentType
+     * @return             the compress type with the lowest cost
+     */
+    private INLONG_COMPRESSED_TYPE sample(DispatchProfile profile, INLONG_COMPRESSED_TYPE currentType) {
+        try {
+            byte[] srcBytes = EventUtils.encodeCacheMessageBody(INLONG_COMPRESSED_TYPE.INLONG_NO_COMPRESS,
+                    profile.getEvents());
+            INLONG_COMPRESSED_TYPE bestType = currentType;
+            double bestCost = Double.MAX_VALUE;
+            for (INLONG_COMPRESSED_TYPE candidate : candidates) {
+                long beginTime = System.nanoTime();
+                int compressLength = compress(candidate, srcBytes).length;
+                long costTime = System.nanoTime() - beginTime;
+                double cost = compressLength * byteCost + costTime * cpuCost;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestType = candidate;
+                }
+            }
+            if (bestType != currentType) {
+                LOG.info("change compress type of stream:{} from {} to {}", profile.getUid(), currentType,
+                        bestType);
+            }
+            return bestType;
+        } catch (Throwable t) {
+            LOG.error("fail to sample compress type of stream:{},error:{}", profile.getUid(), t.getMessage());
+            return currentType;
+        }
+    }
+
+    /**
+     * compress
+     * 
+     * @param  type
+     * @param  srcBytes
+     * @return          compressed bytes
+     * @throws IOException
+     */
+    private static byte[] compress(INLONG_COMPRESSED_TYPE type, byte[] srcBytes) throws IOException {
+        switch (type) {
+            case INLONG_SNAPPY :
+                return Snappy.compress(srcBytes);
+            case INLONG_GZ :
+                return GzipUtils.compress(srcBytes);
+            case INLONG_NO_COMPRESS :
+            default :
+                return srcBytes;
+        }
+    }
+
+    /**
+     * addPackMetric
+     * 
+     * @param type
+     */
+    private void addPackMetric(INLONG_COMPRESSED_TYPE type) {
+        switch (type) {
+            case INLONG_SNAPPY :
+                metricItem.snappyPackCount.incrementAndGet();
+                break;
+            case INLONG_GZ :
+                metricItem.gzipPackCount.incrementAndGet();
+                break;
+            case INLONG_NO_COMPRESS :
+            default :
+                metricItem.noCompressPackCount.incrementAndGet();
+                break;
+        }
+    }
+
+    /**
+     * get compress type of a stream
+     * 
+     * @param  uid
+     * @return     compress type
+     */
+    public INLONG_COMPRESSED_TYPE getStreamCompressType(String uid) {
+        StreamCompressType streamType = streamTypes.get(uid);
+        return (streamType == null) ? defaultType : streamType.type;
+    }
+
+    /**
+     * 
+     * StreamCompressType
+     */
+    private static class StreamCompressType {
+
+        private final AtomicLong packCounter = new AtomicLong(0);
+        private volatile INLONG_COMPRESSED_TYPE type;
+
+        StreamCompressType(INLONG_COMPRESSED_TYPE type) {
+            this.type = type;
+        }
+    }
+}
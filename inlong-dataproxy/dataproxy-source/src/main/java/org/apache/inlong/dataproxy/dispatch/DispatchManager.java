@@ -45,9 +45,7 @@ public class DispatchManager {
     public static final long DEFAULT_DISPATCH_MAX_PACKSIZE = 327680;
     public static final long MINUTE_MS = 60L * 1000;
 
-    private final long dispatchTimeout;
-    private final long maxPackCount;
-    private final long maxPackSize;
+    private final DispatchTuner tuner;
     private LinkedBlockingQueue<DispatchProfile> dispatchQueue;
     private ConcurrentHashMap<String, DispatchProfile> profileCache = new ConcurrentHashMap<>();
     // flag that manager need to output overtime data.
@@ -62,10 +60,18 @@ public class DispatchManager {
      * @param dispatchQueue
      */
     public DispatchManager(Context context, LinkedBlockingQueue<DispatchProfile> dispatchQueue) {
+        this(dispatchQueue, new DispatchTuner(context));
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param dispatchQueue
+     * @param tuner
+     */
+    public DispatchManager(LinkedBlockingQueue<DispatchProfile> dispatchQueue, DispatchTuner tuner) {
         this.dispatchQueue = dispatchQueue;
-        this.dispatchTimeout = context.getLong(KEY_DISPATCH_TIMEOUT, DEFAULT_DISPATCH_TIMEOUT);
-        this.maxPackCount = context.getLong(KEY_DISPATCH_MAX_PACKCOUNT, DEFAULT_DISPATCH_MAX_PACKCOUNT);
-        this.maxPackSize = context.getLong(KEY_DISPATCH_MAX_PACKSIZE, DEFAULT_DISPATCH_MAX_PACKSIZE);
+        this.tuner = tuner;
     }
 
     /**
@@ -86,6 +92,8 @@ public class DispatchManager {
             this.profileCache.put(dispatchKey, dispatchProfile);
         }
         // add event
+        long maxPackCount = tuner.getMaxPackCount();
+        long maxPackSize = tuner.getMaxPackSize();
         boolean addResult = dispatchProfile.addEvent(event, maxPackCount, maxPackSize);
         if (!addResult) {
             DispatchProfile newDispatchProfile = new DispatchProfile(eventUid, event.getInlongGroupId(),
@@ -111,6 +119,8 @@ public class DispatchManager {
         DispatchProfileCallback callback = new DispatchProfileCallback(packEvent.getEvents().size(),
                 packEvent.getCallback());
         dispatchProfile.setCallback(callback);
+        long maxPackCount = tuner.getMaxPackCount();
+        long maxPackSize = tuner.getMaxPackSize();
         // offer queue
         for (ProxyEvent event : packEvent.getEvents()) {
             inCounter.incrementAndGet();
@@ -144,7 +154,7 @@ public class DispatchManager {
         LOG.info("start to outputOvertimeData profileCacheSize:{},dispatchQueueSize:{}",
                 profileCache.size(), dispatchQueue.size());
         long currentTime = System.currentTimeMillis();
-        long createThreshold = currentTime - dispatchTimeout;
+        long createThreshold = currentTime - tuner.getDispatchTimeout();
         List<String> removeKeys = new ArrayList<>();
         long eventCount = 0;
         for (Entry<String, DispatchProfile> entry : this.profileCache.entrySet()) {
@@ -175,7 +185,7 @@ public class DispatchManager {
      * @return the dispatchTimeout
      */
     public long getDispatchTimeout() {
-        return dispatchTimeout;
+        return tuner.getDispatchTimeout();
     }
 
     /**
@@ -184,7 +194,7 @@ public class DispatchManager {
      * @return the maxPackCount
      */
     public long getMaxPackCount() {
-        return maxPackCount;
+        return tuner.getMaxPackCount();
     }
 
     /**
@@ -193,7 +203,16 @@ public class DispatchManager {
      * @return the maxPackSize
      */
     public long getMaxPackSize() {
-        return maxPackSize;
+        return tuner.getMaxPackSize();
+    }
+
+    /**
+     * get tuner
+     * 
+     * @return the tuner
+     */
+    public DispatchTuner getTuner() {
+        return tuner;
     }
 
     /**
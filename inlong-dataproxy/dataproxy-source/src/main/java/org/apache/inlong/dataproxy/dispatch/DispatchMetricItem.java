@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.dispatch;
+
+import org.apache.inlong.common.metric.CountMetric;
+import org.apache.inlong.common.metric.Dimension;
+import org.apache.inlong.common.metric.GaugeMetric;
+import org.apache.inlong.common.metric.MetricDomain;
+import org.apache.inlong.common.metric.MetricItem;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 
+ * DispatchMetricItem, the dispatch parameters chosen by DispatchTuner and CompressTypeSelector of one sink.
+ */
+@MetricDomain(name = "DataProxyDispatch")
+public class DispatchMetricItem extends MetricItem {
+
+    public static final String KEY_CLUSTER_ID = "clusterId";
+    public static final String KEY_SINK_ID = "sinkId";
+    //
+    public static final String M_MAX_PACK_COUNT = "maxPackCount";
+    public static final String M_MAX_PACK_SIZE = "maxPackSize";
+    public static final String M_DISPATCH_TIMEOUT = "dispatchTimeout";
+    public static final String M_SEND_LATENCY = "sendLatency";
+    public static final String M_DISPATCH_QUEUE_SIZE = "dispatchQueueSize";
+    public static final String M_NO_COMPRESS_PACK_COUNT = "noCompressPackCount";
+    public static final String M_GZIP_PACK_COUNT = "gzipPackCount";
+    public static final String M_SNAPPY_PACK_COUNT = "snappyPackCount";
+
+    @Dimension
+    public String clusterId;
+    @Dimension
+    public String sinkId;
+    @GaugeMetric
+    public AtomicLong maxPackCount = new AtomicLong(0);
+    @GaugeMetric
+    public AtomicLong maxPackSize = new AtomicLong(0);
+    @GaugeMetric
+    public AtomicLong dispatchTimeout = new AtomicLong(0);
+    @GaugeMetric
+    // average send latency of the last adjust window(milliseconds)
+    public AtomicLong sendLatency = new AtomicLong(0);
+    @GaugeMetric
+    public AtomicLong dispatchQueueSize = new AtomicLong(0);
+    @CountMetric
+    public AtomicLong noCompressPackCount = new AtomicLong(0);
+    @CountMetric
+    public AtomicLong gzipPackCount = new AtomicLong(0);
+    @CountMetric
+    public AtomicLong snappyPackCount = new AtomicLong(0);
+}
@@ -0,0 +1,241 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.dispatch;
+
+import org.apache.flume.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 
+ * DispatchTuner, adjust the pack count, pack size and linger time of DispatchProfile
+ * according to the observed send latency and the depth of dispatch queue.
+ * <p>
+ * When the queue is backing up or the send latency exceeds the target, the packs grow multiplicatively
+ * so that the sink sends fewer and bigger requests; when the sink is idle, they shrink additively
+ * to the lower bounds so that the end-to-end latency stays low.
+ * </p>
+ */
+public class DispatchTuner {
+
+    public static final Logger LOG = LoggerFactory.getLogger(DispatchTuner.class);
+
+    public static final String KEY_DISPATCH_ADAPTIVE = "dispatchAdaptive";
+    public static final String KEY_DISPATCH_MIN_PACKCOUNT = "dispatchMinPackCount";
+    public static final String KEY_DISPATCH_UPPER_PACKCOUNT = "dispatchUpperPackCount";
+    public static final String KEY_DISPATCH_MIN_PACKSIZE = "dispatchMinPackSize";
+    public static final String KEY_DISPATCH_UPPER_PACKSIZE = "dispatchUpperPackSize";
+    public static final String KEY_DISPATCH_MIN_TIMEOUT = "dispatchMinTimeout";
+    public static final String KEY_DISPATCH_UPPER_TIMEOUT = "dispatchUpperTimeout";
+    public static final String KEY_DISPATCH_TARGET_LATENCY = "dispatchTargetLatency";
+    public static final String KEY_DISPATCH_QUEUE_HIGH_WATERMARK = "dispatchQueueHighWatermark";
+    public static final String KEY_DISPATCH_QUEUE_LOW_WATERMARK = "dispatchQueueLowWatermark";
+    public static final String KEY_DISPATCH_ADJUST_INTERVAL = "dispatchAdjustInterval";
+
+    public static final long DEFAULT_DISPATCH_TARGET_LATENCY = 200;
+    public static final long DEFAULT_DISPATCH_QUEUE_HIGH_WATERMARK = 1000;
+    public static final long DEFAULT_DISPATCH_QUEUE_LOW_WATERMARK = 10;
+    public static final long DEFAULT_DISPATCH_ADJUST_INTERVAL = 1000;
+    // lower bound is the default value divided by this factor, upper bound is multiplied by it
+    public static final long DEFAULT_BOUND_FACTOR = 4;
+    // additive decrease step is 1/DECREASE_DIVISOR of the current value
+    public static final long DECREASE_DIVISOR = 8;
+
+    private final boolean adaptive;
+    private final long minPackCount;
+    private final long upperPackCount;
+    private final long minPackSize;
+    private final long upperPackSize;
+    private final long minTimeout;
+    private final long upperTimeout;
+    private final long targetLatency;
+    private final long queueHighWatermark;
+    private final long queueLowWatermark;
+    private final long adjustInterval;
+
+    private volatile long maxPackCount;
+    private volatile long maxPackSize;
+    private volatile long dispatchTimeout;
+
+    private final AtomicLong latencySum = new AtomicLong(0);
+    private final AtomicLong latencyCount = new AtomicLong(0);
+    private final DispatchMetricItem metricItem;
+
+    /**
+     * Constructor
+     * 
+     * @param context
+     */
+    public DispatchTuner(Context context) {
+        this(context, new DispatchMetricItem());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param context
+     * @param metricItem
+     */
+    public DispatchTuner(Context context, DispatchMetricItem metricItem) {
+        this.metricItem = metricItem;
+        this.adaptive = context.getBoolean(KEY_DISPATCH_ADAPTIVE, false);
+        this.maxPackCount = context.getLong(DispatchManager.KEY_DISPATCH_MAX_PACKCOUNT,
+                DispatchManager.DEFAULT_DISPATCH_MAX_PACKCOUNT);
+        this.maxPackSize = context.getLong(DispatchManager.KEY_DISPATCH_MAX_PACKSIZE,
+                DispatchManager.DEFAULT_DISPATCH_MAX_PACKSIZE);
+        this.dispatchTimeout = context.getLong(DispatchManager.KEY_DISPATCH_TIMEOUT,
+                DispatchManager.DEFAULT_DISPATCH_TIMEOUT);
+        this.minPackCount = Math.max(1, context.getLong(KEY_DISPATCH_MIN_PACKCOUNT,
+                maxPackCount / DEFAULT_BOUND_FACTOR));
+        this.upperPackCount = Math.max(maxPackCount, context.getLong(KEY_DISPATCH_UPPER_PACKCOUNT,
+                maxPackCount * DEFAULT_BOUND_FACTOR));
+        this.minPackSize = Math.max(1, context.getLong(KEY_DISPATCH_MIN_PACKSIZE,
+                maxPackSize / DEFAULT_BOUND_FACTOR));
+        this.upperPackSize = Math.max(maxPackSize, context.getLong(KEY_DISPATCH_UPPER_PACKSIZE,
+                maxPackSize * DEFAULT_BOUND_FACTOR));
+        this.minTimeout = Math.max(1, context.getLong(KEY_DISPATCH_MIN_TIMEOUT,
+                dispatchTimeout / DEFAULT_BOUND_FACTOR));
+        this.upperTimeout = Math.max(dispatchTimeout, context.getLong(KEY_DISPATCH_UPPER_TIMEOUT,
+                dispatchTimeout * DEFAULT_BOUND_FACTOR));
+        this.targetLatency = context.getLong(KEY_DISPATCH_TARGET_LATENCY, DEFAULT_DISPATCH_TARGET_LATENCY);
+        this.queueHighWatermark = context.getLong(KEY_DISPATCH_QUEUE_HIGH_WATERMARK,
+                DEFAULT_DISPATCH_QUEUE_HIGH_WATERMARK);
+        this.queueLowWatermark = context.getLong(KEY_DISPATCH_QUEUE_LOW_WATERMARK,
+                DEFAULT_DISPATCH_QUEUE_LOW_WATERMARK);
+        this.adjustInterval = context.getLong(KEY_DISPATCH_ADJUST_INTERVAL, DEFAULT_DISPATCH_ADJUST_INTERVAL);
+        this.updateMetric();
+    }
+
+    /**
+     * onSendComplete
+     * 
+     * @param latency send latency of one DispatchProfile(milliseconds)
+     */
+    public void onSendComplete(long latency) {
+        if (!adaptive || latency < 0) {
+            return;
+        }
+        latencySum.addAndGet(latency);
+        latencyCount.incrementAndGet();
+    }
+
+    /**
+     * adjust
+     * 
+     * @param queueSize current size of dispatch queue
+     */
+    public void adjust(long queueSize) {
+        metricItem.dispatchQueueSize.set(queueSize);
+        if (!adaptive) {
+            return;
+        }
+        long count = latencyCount.getAndSet(0);
+        long sum = latencySum.getAndSet(0);
+        long avgLatency = (count > 0) ? sum / count : 0;
+        metricItem.sendLatency.set(avgLatency);
+        if (queueSize >= queueHighWatermark || avgLatency > targetLatency) {
+            // sink is congested, amortize the per-request cost with bigger packs
+            this.maxPackCount = Math.min(upperPackCount, maxPackCount * 2);
+            this.maxPackSize = Math.min(upperPackSize, maxPackSize * 2);
+            this.dispatchTimeout = Math.min(upperTimeout, dispatchTimeout + dispatchTimeout / 2);
+        } else if (queueSize <= queueLowWatermark && avgLatency <= targetLatency / 2) {
+            // sink is idle, shrink packs to reduce the time events wait in the profile cache
+            this.maxPackCount = Math.max(minPackCount, maxPackCount - Math.max(1, maxPackCount / DECREASE_DIVISOR));
+            this.maxPackSize = Math.max(minPackSize, maxPackSize - Math.max(1, maxPackSize / DECREASE_DIVISOR));
+            this.dispatchTimeout = Math.max(minTimeout,
+                    dispatchTimeout - Math.max(1, dispatchTimeout / DECREASE_DIVISOR));
+        }
+        this.updateMetric();
+        LOG.debug("adjust dispatch parameters, queueSize:{},avgLatency:{},maxPackCount:{},maxPackSize:{},"
+                + "dispatchTimeout:{}", queueSize, avgLatency, maxPackCount, maxPackSize, dispatchTimeout);
+    }
+
+    /**
+     * updateMetric
+     */
+    private void updateMetric() {
+        metricItem.maxPackCount.set(maxPackCount);
+        metricItem.maxPackSize.set(maxPackSize);
+        metricItem.dispatchTimeout.set(dispatchTimeout);
+    }
+
+    /**
+     * isAdaptive
+     * 
+     * @return the adaptive
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * get maxPackCount
+     * 
+     * @return the maxPackCount
+     */
+    public long getMaxPackCount() {
+        return maxPackCount;
+    }
+
+    /**
+     * get maxPackSize
+     * 
+     * @return the maxPackSize
+     */
+    public long getMaxPackSize() {
+        return maxPackSize;
+    }
+
+    /**
+     * get dispatchTimeout
+     * 
+     * @return the dispatchTimeout
+     */
+    public long getDispatchTimeout() {
+        return dispatchTimeout;
+    }
+
+    /**
+     * get the interval of checking overtime DispatchProfile, the lowest possible dispatchTimeout.
+     * 
+     * @return the check interval
+     */
+    public long getCheckInterval() {
+        return adaptive ? minTimeout : dispatchTimeout;
+    }
+
+    /**
+     * get adjustInterval
+     * 
+     * @return the adjustInterval
+     */
+    public long getAdjustInterval() {
+        return adjustInterval;
+    }
+
+    /**
+     * get metricItem
+     * 
+     * @return the metricItem
+     */
+    public DispatchMetricItem getMetricItem() {
+        return metricItem;
+    }
+}
@@ -66,33 +66,15 @@ public class MessageFilter implements Filter {
             return;
         }
 
-        String invalidKey = null;
         String groupId = req.getParameter(AttributeConstants.GROUP_ID);
         String streamId = req.getParameter(AttributeConstants.STREAM_ID);
         String dt = req.getParameter(AttributeConstants.DATA_TIME);
         String body = req.getParameter(AttributeConstants.BODY);
 
-        if (StringUtils.isEmpty(groupId)) {
-            invalidKey = "groupId";
-        } else if (StringUtils.isEmpty(streamId)) {
-            invalidKey = "streamId";
-        } else if (StringUtils.isEmpty(dt)) {
-            invalidKey = "dt";
-        } else if (StringUtils.isEmpty(body)) {
-            invalidKey = "body";
-        }
-
+        String callback = req.getParameter("callback");
+        String result = this.checkParameters(groupId, streamId, dt, body, callback);
         try {
-            if (invalidKey != null) {
-                LOG.warn("Received bad request from client. " + invalidKey + " is empty.");
-                code = StatusCode.ILLEGAL_ARGUMENT;
-                message = "Bad request from client. " + invalidKey + " must not be empty.";
-            } else if (body.length() > maxMsgLength) {
-                LOG.warn("Received bad request from client. Body length is " + body.length());
-                code = StatusCode.EXCEED_LEN;
-                message = "Bad request from client. " + "Body length is " + body.length()
-                        + ",exceeding the limit:" + maxMsgLength;
-            } else {
+            if (result == null) {
                 chain.doFilter(request, response);
             }
         } catch (Throwable t) {
@@ -105,18 +87,61 @@ public class MessageFilter implements Filter {
             }
         }
 
-        String callback = req.getParameter("callback");
+        if (result == null) {
+            result = getResultContent(code, message, callback);
+        }
         resp.setCharacterEncoding(req.getCharacterEncoding());
         resp.setStatus(HttpServletResponse.SC_OK);
-        resp.getWriter().write(getResultContent(code, message, callback));
+        resp.getWriter().write(result);
         resp.flushBuffer();
     }
 
+    /**
+     * check the request parameters, shared by the servlet filter and the netty http source
+     *
+     * @param  groupId
+     * @param  streamId
+     * @param  dt
+     * @param  body
+     * @param  callback
+     * @return          null if the parameters are valid, else the result content of the bad request
+     */
+    public String checkParameters(String groupId, String streamId, String dt, String body, String callback) {
+        String invalidKey = null;
+        if (StringUtils.isEmpty(groupId)) {
+            invalidKey = "groupId";
+        } else if (StringUtils.isEmpty(streamId)) {
+            invalidKey = "streamId";
+        } else if (StringUtils.isEmpty(dt)) {
+            invalidKey = "dt";
+        } else if (StringUtils.isEmpty(body)) {
+            invalidKey = "body";
+        }
+        if (invalidKey != null) {
+            LOG.warn("Received bad request from client. " + invalidKey + " is empty.");
+            return getResultContent(StatusCode.ILLEGAL_ARGUMENT,
+                    "Bad request from client. " + invalidKey + " must not be empty.", callback);
+        } else if (body.length() > maxMsgLength) {
+            LOG.warn("Received bad request from client. Body length is " + body.length());
+            return getResultContent(StatusCode.EXCEED_LEN, "Bad request from client. "
+                    + "Body length is " + body.length() + ",exceeding the limit:" + maxMsgLength, callback);
+        }
+        return null;
+    }
+
     @Override
     public void destroy() {
     }
 
-    private String getResultContent(int code, String message, String callback) {
+    /**
+     * getResultContent
+     *
+     * @param  code
+     * @param  message
+     * @param  callback
+     * @return
+     */
+    public static String getResultContent(int code, String message, String callback) {
         StringBuilder builder = new StringBuilder();
         if (StringUtils.isNotEmpty(callback)) {
             builder.append(callback).append("(");
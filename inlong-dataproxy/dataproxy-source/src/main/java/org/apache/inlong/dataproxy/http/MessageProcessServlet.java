@@ -54,6 +54,8 @@ public class MessageProcessServlet extends HttpServlet {
             context.put(AttributeConstants.STREAM_ID, req.getParameter(AttributeConstants.STREAM_ID));
             context.put(AttributeConstants.DATA_TIME, req.getParameter(AttributeConstants.DATA_TIME));
             context.put(AttributeConstants.BODY, req.getParameter(AttributeConstants.BODY));
+            context.put(AttributeConstants.MESSAGE_COUNT, req.getParameter(AttributeConstants.MESSAGE_COUNT));
+            context.put(AttributeConstants.NODE_IP, req.getRemoteAddr());
 
             context.put(AttributeConstants.HTTP_REQUEST, req);
             context.put(AttributeConstants.HTTP_RESPONSE, resp);
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.http;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerKeepAliveHandler;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NettyHttpChannelInitializer<br>
+ * HTTP/1.1 pipeline: codec, keep-alive, aggregator of the chunked bodies, request handler.<br>
+ * HTTP/2 pipeline (prior knowledge or upgrade from HTTP/1.1): frame codec and a multiplex handler,
+ * every stream gets its own aggregator and request handler.<br>
+ * When HTTP/2 is enabled, the HTTP/1.1 handlers are only added by the first request which is not
+ * upgraded, so an upgraded connection keeps no HTTP/1.1 handler.
+ */
+public class NettyHttpChannelInitializer extends ChannelInitializer<Channel> {
+
+    private static final String HTTP1_INITIALIZER = "http1Initializer";
+
+    private final MessageHandler messageHandler;
+    private final MessageFilter messageFilter;
+    private final ExecutorService workerPool;
+    private final int maxContentLength;
+    private final int maxPipelinedRequests;
+    private final int maxIdleTime;
+    private final boolean http2Enabled;
+
+    /**
+     * Constructor
+     * 
+     * @param messageHandler
+     * @param messageFilter
+     * @param workerPool
+     * @param maxContentLength
+     * @param maxPipelinedRequests
+     * @param maxIdleTime
+     * @param http2Enabled
+     */
+    public NettyHttpChannelInitializer(MessageHandler messageHandler, MessageFilter messageFilter,
+            ExecutorService workerPool, int maxContentLength, int maxPipelinedRequests, int maxIdleTime,
+            boolean http2Enabled) {
+        this.messageHandler = messageHandler;
+        this.messageFilter = messageFilter;
+        this.workerPool = workerPool;
+        this.maxContentLength = maxContentLength;
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        this.maxIdleTime = maxIdleTime;
+        this.http2Enabled = http2Enabled;
+    }
+
+    @Override
+    protected void initChannel(Channel ch) throws Exception {
+        ChannelPipeline pipeline = ch.pipeline();
+        pipeline.addLast("readTimeoutHandler", new ReadTimeoutHandler(maxIdleTime, TimeUnit.MILLISECONDS));
+        HttpServerCodec sourceCodec = new HttpServerCodec();
+        if (http2Enabled) {
+            HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(sourceCodec,
+                    protocol -> {
+                        if (AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)) {
+                            return this.newHttp2UpgradeCodec();
+                        }
+                        return null;
+                    }, maxContentLength);
+            pipeline.addLast("http2UpgradeHandler",
+                    new CleartextHttp2ServerUpgradeHandler(sourceCodec, upgradeHandler, this.newHttp2Handler()));
+            pipeline.addLast(HTTP1_INITIALIZER, this.newHttp1Initializer());
+        } else {
+            pipeline.addLast("httpCodec", sourceCodec);
+            this.addHttp1Handlers(pipeline, "httpCodec");
+        }
+    }
+
+    /**
+     * addHttp1Handlers, add the HTTP/1.1 handlers after the handler with baseName
+     * 
+     * @param pipeline
+     * @param baseName
+     */
+    private void addHttp1Handlers(ChannelPipeline pipeline, String baseName) {
+        pipeline.addAfter(baseName, "requestHandler", this.newRequestHandler());
+        pipeline.addAfter(baseName, "aggregator", new HttpObjectAggregator(maxContentLength));
+        pipeline.addAfter(baseName, "keepAliveHandler", new HttpServerKeepAliveHandler());
+    }
+
+    /**
+     * newHttp1Initializer, a request reaching this handler is not upgraded, so the HTTP/1.1 handlers
+     * take its place. The upgrade and prior knowledge paths remove it instead.
+     * 
+     * @return
+     */
+    private ChannelHandler newHttp1Initializer() {
+        return new SimpleChannelInboundHandler<HttpMessage>() {
+
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, HttpMessage msg) {
+                ChannelPipeline pipeline = ctx.pipeline();
+                addHttp1Handlers(pipeline, ctx.name());
+                pipeline.remove(this);
+                ctx.fireChannelRead(ReferenceCountUtil.retain(msg));
+            }
+        };
+    }
+
+    /**
+     * newHttp2UpgradeCodec, for the HTTP/2 connections upgraded from HTTP/1.1
+     * 
+     * @return
+     */
+    private Http2ServerUpgradeCodec newHttp2UpgradeCodec() {
+        return new Http2ServerUpgradeCodec(Http2FrameCodecBuilder.forServer().build(),
+                new Http2MultiplexHandler(this.newStreamInitializer())) {
+
+            @Override
+            public void upgradeTo(ChannelHandlerContext ctx, FullHttpRequest upgradeRequest) {
+                super.upgradeTo(ctx, upgradeRequest);
+                ctx.pipeline().remove(HTTP1_INITIALIZER);
+            }
+        };
+    }
+
+    /**
+     * newHttp2Handler, for the HTTP/2 connections with prior knowledge
+     * 
+     * @return
+     */
+    private ChannelHandler newHttp2Handler() {
+        return new ChannelInitializer<Channel>() {
+
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().remove(HTTP1_INITIALIZER);
+                ch.pipeline().addLast(Http2FrameCodecBuilder.forServer().build(),
+                        new Http2MultiplexHandler(newStreamInitializer()));
+            }
+        };
+    }
+
+    /**
+     * newStreamInitializer
+     * 
+     * @return
+     */
+    private ChannelHandler newStreamInitializer() {
+        return new ChannelInitializer<Channel>() {
+
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(true),
+                        new HttpObjectAggregator(maxContentLength), newRequestHandler());
+            }
+        };
+    }
+
+    /**
+     * newRequestHandler
+     * 
+     * @return
+     */
+    private NettyHttpRequestHandler newRequestHandler() {
+        return new NettyHttpRequestHandler(messageHandler, messageFilter, workerPool, maxPipelinedRequests);
+    }
+}
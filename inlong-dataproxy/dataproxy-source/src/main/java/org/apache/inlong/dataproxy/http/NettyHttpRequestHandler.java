@@ -0,0 +1,282 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.ReferenceCountUtil;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.flume.ChannelException;
+import org.apache.inlong.common.monitor.LogCounter;
+import org.apache.inlong.dataproxy.consts.AttributeConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * NettyHttpRequestHandler<br>
+ * One instance per HTTP/1.1 connection or HTTP/2 stream. The requests of a connection are processed one
+ * by one in the worker pool and answered in order, so pipelined requests get their responses in the
+ * order they were sent. When too many requests are pending, the connection stops reading.
+ */
+public class NettyHttpRequestHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NettyHttpRequestHandler.class);
+    private static final LogCounter logCounter = new LogCounter(10, 100000, 60 * 1000);
+
+    public static final String PATH_PREFIX = "/dataproxy/";
+    public static final String PATH_HEARTBEAT = "heartbeat";
+    public static final String PARAM_CALLBACK = "callback";
+    public static final String CONTENT_TYPE = "text/plain; charset=UTF-8";
+
+    private final MessageHandler messageHandler;
+    private final MessageFilter messageFilter;
+    private final ExecutorService workerPool;
+    private final int maxPipelinedRequests;
+    // only accessed in the event loop of the channel
+    private final ArrayDeque<FullHttpRequest> pendingRequests = new ArrayDeque<>();
+    private boolean processing = false;
+
+    /**
+     * Constructor
+     * 
+     * @param messageHandler
+     * @param messageFilter
+     * @param workerPool
+     * @param maxPipelinedRequests
+     */
+    public NettyHttpRequestHandler(MessageHandler messageHandler, MessageFilter messageFilter,
+            ExecutorService workerPool, int maxPipelinedRequests) {
+        this.messageHandler = messageHandler;
+        this.messageFilter = messageFilter;
+        this.workerPool = workerPool;
+        this.maxPipelinedRequests = maxPipelinedRequests;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof FullHttpRequest)) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        pendingRequests.offer((FullHttpRequest) msg);
+        if (pendingRequests.size() >= maxPipelinedRequests) {
+            ctx.channel().config().setAutoRead(false);
+        }
+        this.processNext(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        FullHttpRequest request = null;
+        while ((request = pendingRequests.poll()) != null) {
+            request.release();
+        }
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (logCounter.shouldPrint()) {
+            LOG.error("exception caught cause = {}", cause);
+        }
+        ctx.close();
+    }
+
+    /**
+     * processNext, hand over the first pending request to the worker pool
+     * 
+     * @param ctx
+     */
+    private void processNext(ChannelHandlerContext ctx) {
+        if (processing || pendingRequests.isEmpty()) {
+            return;
+        }
+        FullHttpRequest request = pendingRequests.poll();
+        SocketAddress remoteAddress = ctx.channel().remoteAddress();
+        processing = true;
+        try {
+            workerPool.execute(new Runnable() {
+
+                public void run() {
+                    FullHttpResponse response = null;
+                    try {
+                        response = processRequest(request, remoteAddress);
+                    } catch (Throwable t) {
+                        if (logCounter.shouldPrint()) {
+                            LOG.error("Request error!", t);
+                        }
+                        response = newResponse(request,
+                                MessageFilter.getResultContent(StatusCode.SERVICE_ERR, "Service error!", null));
+                    } finally {
+                        request.release();
+                    }
+                    FullHttpResponse result = response;
+                    ctx.executor().execute(new Runnable() {
+
+                        public void run() {
+                            complete(ctx, result);
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            FullHttpResponse response = newResponse(request,
+                    MessageFilter.getResultContent(StatusCode.SERVICE_ERR, "Service busy!", null));
+            request.release();
+            this.complete(ctx, response);
+        }
+    }
+
+    /**
+     * complete, write the response and continue with the next request
+     * 
+     * @param ctx
+     * @param response
+     */
+    private void complete(ChannelHandlerContext ctx, FullHttpResponse response) {
+        processing = false;
+        if (!ctx.channel().isActive()) {
+            response.release();
+            return;
+        }
+        ctx.writeAndFlush(response);
+        if (pendingRequests.size() < maxPipelinedRequests && !ctx.channel().config().isAutoRead()) {
+            ctx.channel().config().setAutoRead(true);
+        }
+        this.processNext(ctx);
+    }
+
+    /**
+     * processRequest
+     * 
+     * @param  request
+     * @param  remoteAddress
+     * @return
+     */
+    protected FullHttpResponse processRequest(FullHttpRequest request, SocketAddress remoteAddress) {
+        QueryStringDecoder uriDecoder = new QueryStringDecoder(request.uri());
+        String path = uriDecoder.path();
+        if (!path.startsWith(PATH_PREFIX)) {
+            FullHttpResponse response = newResponse(request, "");
+            response.setStatus(HttpResponseStatus.NOT_FOUND);
+            return response;
+        }
+        if (PATH_HEARTBEAT.equals(path.substring(PATH_PREFIX.length()))) {
+            return newResponse(request, "");
+        }
+        // the parameters of the query string and of the form body
+        Map<String, String> params = new HashMap<>();
+        this.putParameters(params, uriDecoder.parameters());
+        ByteBuf content = request.content();
+        if (content.isReadable()) {
+            String body = content.toString(StandardCharsets.UTF_8);
+            this.putParameters(params, new QueryStringDecoder(body, StandardCharsets.UTF_8, false).parameters());
+        }
+        String groupId = params.get(AttributeConstants.GROUP_ID);
+        String streamId = params.get(AttributeConstants.STREAM_ID);
+        String dt = params.get(AttributeConstants.DATA_TIME);
+        String body = params.get(AttributeConstants.BODY);
+        String callback = params.get(PARAM_CALLBACK);
+        String result = messageFilter.checkParameters(groupId, streamId, dt, body, callback);
+        if (result != null) {
+            return newResponse(request, result);
+        }
+        int code = StatusCode.SUCCESS;
+        String message = "success";
+        try {
+            Context context = new MappedContext();
+            context.put(AttributeConstants.GROUP_ID, groupId);
+            context.put(AttributeConstants.STREAM_ID, streamId);
+            context.put(AttributeConstants.DATA_TIME, dt);
+            context.put(AttributeConstants.BODY, body);
+            context.put(AttributeConstants.MESSAGE_COUNT, params.get(AttributeConstants.MESSAGE_COUNT));
+            context.put(AttributeConstants.NODE_IP, getRemoteIp(remoteAddress));
+            messageHandler.processMessage(context);
+        } catch (ChannelException e) {
+            code = StatusCode.SERVICE_ERR;
+            message = "Channel error!";
+        } catch (Throwable t) {
+            code = StatusCode.SERVICE_ERR;
+            message = "Service error!";
+            if (logCounter.shouldPrint()) {
+                LOG.error("Request error!", t);
+            }
+        }
+        return newResponse(request, MessageFilter.getResultContent(code, message, callback));
+    }
+
+    /**
+     * putParameters, keep the first value of every parameter
+     * 
+     * @param params
+     * @param decoded
+     */
+    private void putParameters(Map<String, String> params, Map<String, List<String>> decoded) {
+        for (Entry<String, List<String>> entry : decoded.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                params.putIfAbsent(entry.getKey(), entry.getValue().get(0));
+            }
+        }
+    }
+
+    /**
+     * getRemoteIp
+     * 
+     * @param  remoteAddress
+     * @return
+     */
+    private static String getRemoteIp(SocketAddress remoteAddress) {
+        if (remoteAddress instanceof InetSocketAddress) {
+            return ((InetSocketAddress) remoteAddress).getAddress().getHostAddress();
+        }
+        return String.valueOf(remoteAddress);
+    }
+
+    /**
+     * newResponse
+     * 
+     * @param  request
+     * @param  content
+     * @return
+     */
+    private static FullHttpResponse newResponse(FullHttpRequest request, String content) {
+        FullHttpResponse response = new DefaultFullHttpResponse(request.protocolVersion(), HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, CONTENT_TYPE);
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        return response;
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.http;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.lang.reflect.Constructor;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.flume.Context;
+import org.apache.flume.channel.ChannelProcessor;
+import org.apache.flume.source.http.HTTPSourceConfigurationConstants;
+import org.apache.inlong.common.monitor.CounterGroup;
+import org.apache.inlong.common.monitor.CounterGroupExt;
+import org.apache.inlong.dataproxy.consts.ConfigConstants;
+import org.apache.inlong.dataproxy.source.ServiceDecoder;
+import org.apache.inlong.dataproxy.utils.EventLoopUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * NettyHttpSource<br>
+ * Http source on netty event loops, accepts HTTP/1.1 (keep-alive, pipelining, chunked bodies) and
+ * cleartext HTTP/2. The requests are validated by the MessageFilter and put to the channel processor
+ * by the MessageHandler in a bounded worker pool, so that the event loops never block on the channels.
+ */
+public class NettyHttpSource extends HttpBaseSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NettyHttpSource.class);
+
+    public static final String IDEL_TIME = "idelTime";
+    public static final String BACKLOG = "backlog";
+    public static final String WORKER_THREADS = "workerThreads";
+    public static final String WORKER_QUEUE_SIZE = "workerQueueSize";
+    public static final String MAX_PIPELINED_REQUESTS = "maxPipelinedRequests";
+    public static final String HTTP2_ENABLED = "http2Enabled";
+    public static final String MAX_CONTENT_LENGTH = "maxContentLength";
+
+    private int maxThreads = 32;
+    private int workerThreads = 64;
+    private int workerQueueSize = 10000;
+    private int maxPipelinedRequests = 16;
+    private int maxContentLength;
+    private int maxIdelTime = 600000;
+    private int backlog = 2048;
+    private int receiveBufferSize = 64 * 1024;
+    private int sendBufferSize = 64 * 1024;
+    private boolean http2Enabled = true;
+    private Map<String, String> subProps;
+
+    private MessageHandler messageHandler;
+    private EventLoopGroup acceptorGroup;
+    private EventLoopGroup workerGroup;
+    private ThreadPoolExecutor workerPool;
+    private ChannelFuture channelFuture;
+
+    @Override
+    public void configure(Context context) {
+        super.configure(context);
+        maxThreads = context.getInteger(ConfigConstants.MAX_THREADS, 32);
+        workerThreads = context.getInteger(WORKER_THREADS, 64);
+        workerQueueSize = context.getInteger(WORKER_QUEUE_SIZE, 10000);
+        maxPipelinedRequests = context.getInteger(MAX_PIPELINED_REQUESTS, 16);
+        maxIdelTime = context.getInteger(IDEL_TIME, 600000);
+        backlog = context.getInteger(BACKLOG, 2048);
+        receiveBufferSize = context.getInteger(ConfigConstants.RECEIVE_BUFFER_SIZE, 64 * 1024);
+        sendBufferSize = context.getInteger(ConfigConstants.SEND_BUFFER_SIZE, 64 * 1024);
+        http2Enabled = context.getBoolean(HTTP2_ENABLED, true);
+        // the form encoded request carries the body and the other parameters
+        maxContentLength = context.getInteger(MAX_CONTENT_LENGTH, maxMsgLength * 4);
+        Preconditions.checkArgument(maxThreads > 0, "max-threads must be > 0");
+        Preconditions.checkArgument(workerThreads > 0, "workerThreads must be > 0");
+        Preconditions.checkArgument(workerQueueSize > 0, "workerQueueSize must be > 0");
+        Preconditions.checkArgument(maxPipelinedRequests > 0, "maxPipelinedRequests must be > 0");
+        subProps = context.getSubProperties(HTTPSourceConfigurationConstants.CONFIG_HANDLER_PREFIX);
+        LOG.info("netty http source maxThreads {}, workerThreads {}, workerQueueSize {}, http2Enabled {}",
+                maxThreads, workerThreads, workerQueueSize, http2Enabled);
+    }
+
+    @Override
+    public synchronized void start() {
+        super.start();
+        try {
+            @SuppressWarnings("unchecked")
+            Class<? extends MessageHandler> clazz = (Class<? extends MessageHandler>) Class
+                    .forName(messageHandlerName);
+            Constructor<? extends MessageHandler> ctor = clazz.getConstructor(ChannelProcessor.class,
+                    CounterGroup.class, CounterGroupExt.class, ServiceDecoder.class);
+            LOG.info("Using channel processor:{}", getChannelProcessor().getClass().getName());
+            messageHandler = ctor.newInstance(getChannelProcessor(), counterGroup, counterGroupExt, null);
+            messageHandler.configure(new Context(subProps));
+            // bounded worker pool, the requests over the queue size are rejected with a service error
+            workerPool = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(workerQueueSize),
+                    new DefaultThreadFactory("httpSource-worker-threadGroup"),
+                    new ThreadPoolExecutor.AbortPolicy());
+
+            acceptorGroup = EventLoopUtil.newEventLoopGroup(1, false,
+                    new DefaultThreadFactory("httpSource-nettyBoss-threadGroup"));
+            workerGroup = EventLoopUtil.newEventLoopGroup(maxThreads, false,
+                    new DefaultThreadFactory("httpSource-nettyWorker-threadGroup"));
+            ServerBootstrap bootstrap = new ServerBootstrap();
+            bootstrap.option(ChannelOption.SO_BACKLOG, backlog);
+            bootstrap.option(ChannelOption.SO_REUSEADDR, true);
+            bootstrap.childOption(ChannelOption.ALLOCATOR, ByteBufAllocator.DEFAULT);
+            bootstrap.childOption(ChannelOption.TCP_NODELAY, true);
+            bootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, receiveBufferSize);
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, sendBufferSize);
+            bootstrap.channel(EventLoopUtil.getServerSocketChannelClass(workerGroup));
+            EventLoopUtil.enableTriggeredMode(bootstrap);
+            bootstrap.group(acceptorGroup, workerGroup);
+            bootstrap.childHandler(new NettyHttpChannelInitializer(messageHandler,
+                    new MessageFilter(maxMsgLength), workerPool, maxContentLength, maxPipelinedRequests,
+                    maxIdelTime, http2Enabled));
+            channelFuture = bootstrap.bind(new InetSocketAddress(host, port)).sync();
+        } catch (Exception ex) {
+            LOG.error("Error while starting NettyHttpSource. Exception follows.", ex);
+            Throwables.propagate(ex);
+        }
+        LOG.info("Netty Http Source started at host {}, port {}", host, port);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (channelFuture != null) {
+            try {
+                channelFuture.channel().close().sync();
+            } catch (InterruptedException e) {
+                LOG.warn("Netty Http Source stop ex, {}", e);
+            }
+        }
+        if (acceptorGroup != null) {
+            EventLoopUtil.shutdownGracefully(acceptorGroup);
+        }
+        if (workerGroup != null) {
+            EventLoopUtil.shutdownGracefully(workerGroup);
+        }
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
+        if (messageHandler != null) {
+            messageHandler.destroy();
+        }
+        super.stop();
+    }
+}
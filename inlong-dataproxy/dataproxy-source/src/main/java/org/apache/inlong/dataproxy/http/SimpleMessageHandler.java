@@ -17,7 +17,6 @@
 
 package org.apache.inlong.dataproxy.http;
 
-import org.apache.commons.lang.StringUtils;
 import org.apache.flume.ChannelException;
 import org.apache.flume.Event;
 import org.apache.flume.channel.ChannelProcessor;
@@ -37,7 +36,6 @@ import org.apache.inlong.dataproxy.source.ServiceDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.servlet.http.HttpServletRequest;
 import java.io.UnsupportedEncodingException;
 import java.text.SimpleDateFormat;
 import java.util.HashMap;
@@ -109,11 +107,9 @@ public class SimpleMessageHandler implements MessageHandler {
 
         newAttrBuffer.append("&groupId=").append(groupId).append("&streamId=").append(streamId)
                 .append("&dt=").append(dt);
-        HttpServletRequest request =
-                (HttpServletRequest) context.get(AttributeConstants.HTTP_REQUEST);
-        String strRemoteIP = request.getRemoteAddr();
+        String strRemoteIP = (String) context.get(AttributeConstants.NODE_IP);
         newAttrBuffer.append("&NodeIP=").append(strRemoteIP);
-        String msgCount = request.getParameter(AttributeConstants.MESSAGE_COUNT);
+        String msgCount = (String) context.get(AttributeConstants.MESSAGE_COUNT);
         if (msgCount == null || "".equals(msgCount)) {
             msgCount = "1";
         }
@@ -208,15 +204,7 @@ public class SimpleMessageHandler implements MessageHandler {
     }
 
     private String getTopic(String groupId, String streamId) {
-        String topic = null;
-        if (StringUtils.isNotEmpty(groupId)) {
-            if (StringUtils.isNotEmpty(streamId)) {
-                topic = configManager.getTopicProperties().get(groupId + "/" + streamId);
-            }
-            if (StringUtils.isEmpty(topic)) {
-                topic = configManager.getTopicProperties().get(groupId);
-            }
-        }
+        String topic = configManager.getRouteTable().findTopic(groupId, streamId);
         LOG.debug("Get topic by groupId/streamId = {}, topic = {}", groupId + "/" + streamId, topic);
         return topic;
     }
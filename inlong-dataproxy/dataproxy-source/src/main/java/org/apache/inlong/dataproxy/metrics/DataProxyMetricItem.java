@@ -37,6 +37,7 @@ import org.apache.inlong.dataproxy.utils.Constants;
 @MetricDomain(name = "DataProxy")
 public class DataProxyMetricItem extends MetricItem {
 
+    public static final String COMPONENT_NAME = "dataproxy";
     public static final String KEY_CLUSTER_ID = "clusterId";
     public static final String KEY_SOURCE_ID = "sourceId";
     public static final String KEY_SOURCE_DATA_ID = "sourceDataId";
@@ -60,6 +61,9 @@ public class DataProxyMetricItem extends MetricItem {
     public static final String M_SINK_DURATION = "sinkDuration";
     public static final String M_NODE_DURATION = "nodeDuration";
     public static final String M_WHOLE_DURATION = "wholeDuration";
+    //
+    public static final String M_THROTTLE_COUNT = "throttleCount";
+    public static final String M_THROTTLE_DURATION = "throttleDuration";
 
     @Dimension
     public String clusterId;
@@ -106,6 +110,12 @@ public class DataProxyMetricItem extends MetricItem {
     @CountMetric
     // sinkCallbackTime - eventCreateTime(milliseconds)
     public AtomicLong wholeDuration = new AtomicLong(0);
+    @CountMetric
+    // count of connections paused by source flow control
+    public AtomicLong throttleCount = new AtomicLong(0);
+    @CountMetric
+    // resumeTime - pauseTime of the paused connections(milliseconds)
+    public AtomicLong throttleDuration = new AtomicLong(0);
 
     /**
      * fillInlongId
@@ -302,4 +312,22 @@ public class DataProxyMetricItem extends MetricItem {
         return wholeDuration.get() / longSendSuccessCount;
     }
 
-}
\ No newline at end of file
+    /**
+     * get throttleCount
+     *
+     * @return the throttleCount
+     */
+    public long getThrottleCount() {
+        return throttleCount.get();
+    }
+
+    /**
+     * get throttleDuration
+     *
+     * @return the throttleDuration
+     */
+    public long getThrottleDuration() {
+        return throttleDuration.get();
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.inlong.common.metric.MetricKey;
+import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
+
+/**
+ * SinkMetricKeyCache<br>
+ * Cache the MetricKey of each sink data id and inlong stream of a sink, the key is rebuilt only when the audit
+ * time window of the route moves, so the metric lookup of a dispatch profile does not build dimension maps
+ * and key strings.
+ */
+public class SinkMetricKeyCache {
+
+    private static final String BLANK_ID = "-";
+
+    private final Map<String, String> baseDimensions = new HashMap<>();
+    // sinkDataId -> inlongGroupId -> inlongStreamId -> metric key of the latest audit time window
+    private final Map<String, Map<String, Map<String, TimedMetricKey>>> routeKeyMap = new ConcurrentHashMap<>();
+    // metric key of the failures without dispatch profile
+    private volatile TimedMetricKey noRouteKey;
+
+    /**
+     * Constructor
+     *
+     * @param clusterId
+     * @param sinkId
+     */
+    public SinkMetricKeyCache(String clusterId, String sinkId) {
+        this.baseDimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, clusterId);
+        this.baseDimensions.put(DataProxyMetricItem.KEY_SINK_ID, sinkId);
+    }
+
+    /**
+     * getMetricKey
+     *
+     * @param  sinkDataId
+     * @param  inlongGroupId
+     * @param  inlongStreamId
+     * @param  msgTime
+     * @return
+     */
+    public MetricKey getMetricKey(String sinkDataId, String inlongGroupId, String inlongStreamId, long msgTime) {
+        String groupId = StringUtils.isBlank(inlongGroupId) ? BLANK_ID : inlongGroupId;
+        String streamId = StringUtils.isBlank(inlongStreamId) ? BLANK_ID : inlongStreamId;
+        long auditFormatTime = formatTime(msgTime);
+        Map<String, TimedMetricKey> groupKeyMap = this.routeKeyMap
+                .computeIfAbsent(String.valueOf(sinkDataId), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(groupId, k -> new ConcurrentHashMap<>());
+        TimedMetricKey timedKey = groupKeyMap.get(streamId);
+        if (timedKey == null || timedKey.auditFormatTime != auditFormatTime) {
+            Map<String, String> dimensions = new HashMap<>(this.baseDimensions);
+            dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID, sinkDataId);
+            dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID, groupId);
+            dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID, streamId);
+            dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
+            timedKey = new TimedMetricKey(auditFormatTime, MetricKey.of(dimensions));
+            groupKeyMap.put(streamId, timedKey);
+        }
+        return timedKey.metricKey;
+    }
+
+    /**
+     * getMetricKey of the failures without dispatch profile
+     *
+     * @param  msgTime
+     * @return
+     */
+    public MetricKey getMetricKey(long msgTime) {
+        long auditFormatTime = formatTime(msgTime);
+        TimedMetricKey timedKey = this.noRouteKey;
+        if (timedKey == null || timedKey.auditFormatTime != auditFormatTime) {
+            Map<String, String> dimensions = new HashMap<>(this.baseDimensions);
+            dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
+            timedKey = new TimedMetricKey(auditFormatTime, MetricKey.of(dimensions));
+            this.noRouteKey = timedKey;
+        }
+        return timedKey.metricKey;
+    }
+
+    /**
+     * formatTime
+     *
+     * @param  msgTime
+     * @return
+     */
+    private static long formatTime(long msgTime) {
+        return msgTime - msgTime % CommonPropertiesHolder.getAuditFormatInterval();
+    }
+
+    /**
+     * TimedMetricKey
+     */
+    private static class TimedMetricKey {
+
+        private final long auditFormatTime;
+        private final MetricKey metricKey;
+
+        TimedMetricKey(long auditFormatTime, MetricKey metricKey) {
+            this.auditFormatTime = auditFormatTime;
+            this.metricKey = metricKey;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.flume.Event;
+import org.apache.inlong.common.metric.MetricKey;
+import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
+import org.apache.inlong.dataproxy.metrics.audit.AuditUtils;
+
+/**
+ * StreamMetricKeyCache<br>
+ * Cache the MetricKey of each inlong stream of a source, the key is rebuilt only when the audit time window
+ * of the stream moves, so the metric lookup of an event does not build dimension maps and key strings.
+ */
+public class StreamMetricKeyCache {
+
+    private final Map<String, String> baseDimensions = new HashMap<>();
+    // inlongGroupId -> inlongStreamId -> metric key of the latest audit time window
+    private final Map<String, Map<String, TimedMetricKey>> streamKeyMap = new ConcurrentHashMap<>();
+    // metric key of the requests without event
+    private volatile TimedMetricKey noEventKey;
+
+    /**
+     * Constructor
+     * 
+     * @param clusterId
+     * @param sourceId
+     * @param sourceDataId
+     */
+    public StreamMetricKeyCache(String clusterId, String sourceId, String sourceDataId) {
+        this.baseDimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, clusterId);
+        this.baseDimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, sourceId);
+        this.baseDimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, sourceDataId);
+    }
+
+    /**
+     * getMetricKey
+     * 
+     * @param  event the event, null if the request is rejected before an event is built
+     * @return
+     */
+    public MetricKey getMetricKey(Event event) {
+        if (event == null) {
+            long auditFormatTime = formatTime(System.currentTimeMillis());
+            TimedMetricKey timedKey = this.noEventKey;
+            if (timedKey == null || timedKey.auditFormatTime != auditFormatTime) {
+                timedKey = new TimedMetricKey(auditFormatTime, this.buildMetricKey(null, null, auditFormatTime));
+                this.noEventKey = timedKey;
+            }
+            return timedKey.metricKey;
+        }
+        Map<String, String> headers = event.getHeaders();
+        String inlongGroupId = DataProxyMetricItem.getInlongGroupId(headers);
+        String inlongStreamId = DataProxyMetricItem.getInlongStreamId(headers);
+        long auditFormatTime = formatTime(AuditUtils.getLogTime(event));
+        Map<String, TimedMetricKey> groupKeyMap = this.streamKeyMap.computeIfAbsent(inlongGroupId,
+                k -> new ConcurrentHashMap<>());
+        TimedMetricKey timedKey = groupKeyMap.get(inlongStreamId);
+        if (timedKey == null || timedKey.auditFormatTime != auditFormatTime) {
+            timedKey = new TimedMetricKey(auditFormatTime,
+                    this.buildMetricKey(inlongGroupId, inlongStreamId, auditFormatTime));
+            groupKeyMap.put(inlongStreamId, timedKey);
+        }
+        return timedKey.metricKey;
+    }
+
+    /**
+     * formatTime
+     * 
+     * @param  msgTime
+     * @return
+     */
+    private static long formatTime(long msgTime) {
+        return msgTime - msgTime % CommonPropertiesHolder.getAuditFormatInterval();
+    }
+
+    /**
+     * buildMetricKey
+     * 
+     * @param  inlongGroupId
+     * @param  inlongStreamId
+     * @param  auditFormatTime
+     * @return
+     */
+    private MetricKey buildMetricKey(String inlongGroupId, String inlongStreamId, long auditFormatTime) {
+        Map<String, String> dimensions = new HashMap<>(this.baseDimensions);
+        if (inlongGroupId != null) {
+            dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID, inlongGroupId);
+            dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID, inlongStreamId);
+        }
+        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
+        return MetricKey.of(dimensions);
+    }
+
+    /**
+     * TimedMetricKey
+     */
+    private static class TimedMetricKey {
+
+        private final long auditFormatTime;
+        private final MetricKey metricKey;
+
+        TimedMetricKey(long auditFormatTime, MetricKey metricKey) {
+            this.auditFormatTime = auditFormatTime;
+            this.metricKey = metricKey;
+        }
+    }
+}
@@ -31,6 +31,8 @@ import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_SIZ
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_SUCCESS_COUNT;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_SUCCESS_SIZE;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SINK_DURATION;
+import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_THROTTLE_COUNT;
+import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_THROTTLE_DURATION;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_WHOLE_DURATION;
 
 import java.io.IOException;
@@ -47,6 +49,7 @@ import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.apache.inlong.common.metric.MetricValue;
+import org.apache.inlong.common.metric.prometheus.PrometheusExporter;
 import org.apache.inlong.dataproxy.config.RemoteConfigManager;
 import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
@@ -57,7 +60,6 @@ import org.slf4j.LoggerFactory;
 
 import io.prometheus.client.Collector;
 import io.prometheus.client.CounterMetricFamily;
-import io.prometheus.client.exporter.HTTPServer;
 
 /**
  *
@@ -66,14 +68,13 @@ import io.prometheus.client.exporter.HTTPServer;
 public class PrometheusMetricListener extends Collector implements MetricListener {
 
     private static final Logger LOG = LoggerFactory.getLogger(PrometheusMetricListener.class);
-    public static final String KEY_PROMETHEUS_HTTP_PORT = "prometheusHttpPort";
-    public static final int DEFAULT_PROMETHEUS_HTTP_PORT = 8080;
+    public static final String KEY_PROMETHEUS_HTTP_PORT = PrometheusExporter.KEY_PROMETHEUS_HTTP_PORT;
+    public static final int DEFAULT_PROMETHEUS_HTTP_PORT = PrometheusExporter.DEFAULT_PROMETHEUS_HTTP_PORT;
     public static final String DEFAULT_DIMENSION_LABEL = "dimension";
 
     private String metricName;
     private DataProxyMetricItem metricItem;
     private Map<String, AtomicLong> metricValueMap = new ConcurrentHashMap<>();
-    protected HTTPServer httpServer;
     private Map<String, MetricItemValue> dimensionMetricValueMap = new ConcurrentHashMap<>();
     private List<String> dimensionKeys = new ArrayList<>();
 
@@ -111,11 +112,14 @@ public class PrometheusMetricListener extends Collector implements MetricListene
         metricValueMap.put(M_SINK_DURATION, metricItem.sinkDuration);
         metricValueMap.put(M_NODE_DURATION, metricItem.nodeDuration);
         metricValueMap.put(M_WHOLE_DURATION, metricItem.wholeDuration);
+        //
+        metricValueMap.put(M_THROTTLE_COUNT, metricItem.throttleCount);
+        metricValueMap.put(M_THROTTLE_DURATION, metricItem.throttleDuration);
 
         int httpPort = CommonPropertiesHolder.getInteger(KEY_PROMETHEUS_HTTP_PORT, DEFAULT_PROMETHEUS_HTTP_PORT);
         try {
-            this.httpServer = new HTTPServer(httpPort);
-            this.register();
+            PrometheusExporter.start(httpPort);
+            PrometheusExporter.register("DataProxy." + metricName, this);
         } catch (IOException e) {
             LOG.error("exception while register prometheus http server:{},error:{}", metricName, e.getMessage());
         }
@@ -198,6 +202,9 @@ public class PrometheusMetricListener extends Collector implements MetricListene
         totalCounter.addMetric(Arrays.asList(M_SINK_DURATION), metricItem.sinkDuration.get());
         totalCounter.addMetric(Arrays.asList(M_NODE_DURATION), metricItem.nodeDuration.get());
         totalCounter.addMetric(Arrays.asList(M_WHOLE_DURATION), metricItem.wholeDuration.get());
+        //
+        totalCounter.addMetric(Arrays.asList(M_THROTTLE_COUNT), metricItem.throttleCount.get());
+        totalCounter.addMetric(Arrays.asList(M_THROTTLE_DURATION), metricItem.throttleDuration.get());
         List<MetricFamilySamples> mfs = new ArrayList<>();
         mfs.add(totalCounter);
 
@@ -223,6 +230,9 @@ public class PrometheusMetricListener extends Collector implements MetricListene
             addCounterMetricFamily(M_SINK_DURATION, itemValue, idCounter);
             addCounterMetricFamily(M_NODE_DURATION, itemValue, idCounter);
             addCounterMetricFamily(M_WHOLE_DURATION, itemValue, idCounter);
+            // throttle
+            addCounterMetricFamily(M_THROTTLE_COUNT, itemValue, idCounter);
+            addCounterMetricFamily(M_THROTTLE_DURATION, itemValue, idCounter);
         }
         mfs.add(idCounter);
         return mfs;
@@ -40,7 +40,9 @@ import org.apache.flume.conf.Configurable;
 import org.apache.flume.sink.AbstractSink;
 import org.apache.flume.source.shaded.guava.RateLimiter;
 import org.apache.inlong.common.metric.MetricRegister;
+import org.apache.inlong.common.metric.prometheus.DurationHistogram;
 import org.apache.inlong.dataproxy.config.ConfigManager;
+import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
 import org.apache.inlong.dataproxy.config.holder.ConfigUpdateCallback;
 import org.apache.inlong.dataproxy.consts.AttributeConstants;
 import org.apache.inlong.dataproxy.consts.ConfigConstants;
@@ -145,6 +147,7 @@ public class SimpleMessageTubeSink extends AbstractSink implements Configurable
     //
     private Map<String, String> dimensions;
     private DataProxyMetricItemSet metricItemSet;
+    private DurationHistogram durationHistogram;
 
     private static final LoadingCache<String, Long> agentIdCache = CacheBuilder
             .newBuilder().concurrencyLevel(4 * 8).initialCapacity(5000000).expireAfterAccess(30, TimeUnit.SECONDS)
@@ -337,6 +340,8 @@ public class SimpleMessageTubeSink extends AbstractSink implements Configurable
         //register metrics
         this.metricItemSet = new DataProxyMetricItemSet(this.getName());
         MetricRegister.register(metricItemSet);
+        this.durationHistogram = DurationHistogram.of(DataProxyMetricItem.COMPONENT_NAME,
+                CommonPropertiesHolder.getString(CommonPropertiesHolder.KEY_PROXY_CLUSTER_NAME));
         
         //create tube connection
         try {
@@ -607,6 +612,9 @@ public class SimpleMessageTubeSink extends AbstractSink implements Configurable
                     metricItem.sinkDuration.addAndGet(sinkDuration);
                     metricItem.nodeDuration.addAndGet(nodeDuration);
                     metricItem.wholeDuration.addAndGet(wholeDuration);
+                    SimpleMessageTubeSink.this.durationHistogram.observe(sinkDuration, nodeDuration, wholeDuration,
+                            dimensions.get(DataProxyMetricItem.KEY_INLONG_GROUP_ID),
+                            dimensions.get(DataProxyMetricItem.KEY_INLONG_STREAM_ID));
                 }
             } else {
                 metricItem.sendFailCount.incrementAndGet();
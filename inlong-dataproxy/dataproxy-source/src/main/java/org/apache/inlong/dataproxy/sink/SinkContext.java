@@ -20,7 +20,9 @@ package org.apache.inlong.dataproxy.sink;
 import org.apache.flume.Channel;
 import org.apache.flume.Context;
 import org.apache.inlong.common.metric.MetricRegister;
+import org.apache.inlong.common.metric.prometheus.DurationHistogram;
 import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
+import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +53,7 @@ public class SinkContext {
     protected final long reloadInterval;
 
     protected final DataProxyMetricItemSet metricItemSet;
+    protected final DurationHistogram durationHistogram;
     protected Timer reloadTimer;
 
     /**
@@ -67,6 +70,8 @@ public class SinkContext {
         //
         this.metricItemSet = new DataProxyMetricItemSet(sinkName);
         MetricRegister.register(this.metricItemSet);
+        this.durationHistogram = DurationHistogram.of(DataProxyMetricItem.COMPONENT_NAME,
+                CommonPropertiesHolder.getString(CommonPropertiesHolder.KEY_PROXY_CLUSTER_NAME));
     }
 
     /**
@@ -183,4 +188,13 @@ public class SinkContext {
     public DataProxyMetricItemSet getMetricItemSet() {
         return metricItemSet;
     }
+
+    /**
+     * get durationHistogram
+     *
+     * @return the durationHistogram
+     */
+    public DurationHistogram getDurationHistogram() {
+        return durationHistogram;
+    }
 }
@@ -32,7 +32,9 @@ import org.apache.flume.conf.Configurable;
 import org.apache.flume.sink.AbstractSink;
 import org.apache.flume.source.shaded.guava.RateLimiter;
 import org.apache.inlong.common.metric.MetricRegister;
+import org.apache.inlong.common.metric.prometheus.DurationHistogram;
 import org.apache.inlong.dataproxy.config.ConfigManager;
+import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
 import org.apache.inlong.dataproxy.config.holder.ConfigUpdateCallback;
 import org.apache.inlong.dataproxy.config.pojo.MQClusterConfig;
 import org.apache.inlong.dataproxy.consts.AttributeConstants;
@@ -106,6 +108,7 @@ public class TubeSink extends AbstractSink implements Configurable {
     private Thread[] sinkThreadPool;
     private Map<String, String> dimensions;
     private DataProxyMetricItemSet metricItemSet;
+    private DurationHistogram durationHistogram;
     private IdCacheCleaner idCacheCleaner;
     private int maxSurvivedTime = 3 * 1000 * 30;
     private int maxSurvivedSize = 100000;
@@ -389,6 +392,8 @@ public class TubeSink extends AbstractSink implements Configurable {
         // register metrics
         this.metricItemSet = new DataProxyMetricItemSet(this.getName());
         MetricRegister.register(metricItemSet);
+        this.durationHistogram = DurationHistogram.of(DataProxyMetricItem.COMPONENT_NAME,
+                CommonPropertiesHolder.getString(CommonPropertiesHolder.KEY_PROXY_CLUSTER_NAME));
 
         // create tube connection
         try {
@@ -800,6 +805,9 @@ public class TubeSink extends AbstractSink implements Configurable {
                     metricItem.sinkDuration.addAndGet(sinkDuration);
                     metricItem.nodeDuration.addAndGet(nodeDuration);
                     metricItem.wholeDuration.addAndGet(wholeDuration);
+                    TubeSink.this.durationHistogram.observe(sinkDuration, nodeDuration, wholeDuration,
+                            dimensions.get(DataProxyMetricItem.KEY_INLONG_GROUP_ID),
+                            dimensions.get(DataProxyMetricItem.KEY_INLONG_STREAM_ID));
                 }
             } else {
                 metricItem.sendFailCount.incrementAndGet();
@@ -24,6 +24,7 @@ import org.apache.inlong.dataproxy.config.pojo.CacheClusterConfig;
 import org.apache.inlong.dataproxy.dispatch.DispatchProfile;
 import org.apache.inlong.sdk.commons.protocol.EventConstants;
 import org.apache.inlong.sdk.commons.protocol.EventUtils;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.INLONG_COMPRESSED_TYPE;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -132,9 +133,10 @@ public class KafkaClusterProducer implements LifecycleAware {
                 return false;
             }
             // headers
-            Map<String, String> headers = this.encodeCacheMessageHeaders(event);
+            INLONG_COMPRESSED_TYPE compressType = sinkContext.selectCompressType(event);
+            Map<String, String> headers = this.encodeCacheMessageHeaders(event, compressType);
             // compress
-            byte[] bodyBytes = EventUtils.encodeCacheMessageBody(sinkContext.getCompressType(), event.getEvents());
+            byte[] bodyBytes = EventUtils.encodeCacheMessageBody(compressType, event.getEvents());
             // sendAsync
             long sendTime = System.currentTimeMillis();
 
@@ -177,9 +179,11 @@ public class KafkaClusterProducer implements LifecycleAware {
      * encodeCacheMessageHeaders
      * 
      * @param  event
+     * @param  compressType
      * @return       Map
      */
-    public Map<String, String> encodeCacheMessageHeaders(DispatchProfile event) {
+    public Map<String, String> encodeCacheMessageHeaders(DispatchProfile event,
+            INLONG_COMPRESSED_TYPE compressType) {
         Map<String, String> headers = new HashMap<>();
         // version int32 protocol version, the value is 1
         headers.put(HEADER_KEY_VERSION, HEADER_CACHE_VERSION_1);
@@ -201,7 +205,7 @@ public class KafkaClusterProducer implements LifecycleAware {
         // INLONG_GZ = 1,
         // INLONG_SNAPPY = 2
         headers.put(EventConstants.HEADER_KEY_COMPRESS_TYPE,
-                String.valueOf(sinkContext.getCompressType().getNumber()));
+                String.valueOf(compressType.getNumber()));
         // messageKey string partition hash key, optional
         return headers;
     }
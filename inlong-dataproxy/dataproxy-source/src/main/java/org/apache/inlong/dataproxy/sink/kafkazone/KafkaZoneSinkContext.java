@@ -20,11 +20,15 @@ package org.apache.inlong.dataproxy.sink.kafkazone;
 import org.apache.commons.lang.StringUtils;
 import org.apache.flume.Channel;
 import org.apache.flume.Context;
+import org.apache.inlong.common.metric.MetricRegister;
 import org.apache.inlong.dataproxy.config.RemoteConfigManager;
 import org.apache.inlong.dataproxy.config.holder.CacheClusterConfigHolder;
 import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
 import org.apache.inlong.dataproxy.config.holder.IdTopicConfigHolder;
+import org.apache.inlong.dataproxy.dispatch.CompressTypeSelector;
+import org.apache.inlong.dataproxy.dispatch.DispatchMetricItem;
 import org.apache.inlong.dataproxy.dispatch.DispatchProfile;
+import org.apache.inlong.dataproxy.dispatch.DispatchTuner;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
 import org.apache.inlong.dataproxy.metrics.audit.AuditUtils;
 import org.apache.inlong.dataproxy.sink.SinkContext;
@@ -53,6 +57,10 @@ public class KafkaZoneSinkContext extends SinkContext {
     private final IdTopicConfigHolder idTopicHolder;
     private final CacheClusterConfigHolder cacheHolder;
     private final INLONG_COMPRESSED_TYPE compressType;
+    //
+    private final DispatchMetricItem dispatchMetricItem;
+    private final DispatchTuner dispatchTuner;
+    private final CompressTypeSelector compressTypeSelector;
 
     /**
      * Constructor
@@ -71,6 +79,12 @@ public class KafkaZoneSinkContext extends SinkContext {
         String strCompressionType = CommonPropertiesHolder.getString(KEY_COMPRESS_TYPE,
                 INLONG_COMPRESSED_TYPE.INLONG_SNAPPY.name());
         this.compressType = INLONG_COMPRESSED_TYPE.valueOf(strCompressionType);
+        // dispatchTuner and compressTypeSelector
+        this.dispatchMetricItem = new DispatchMetricItem();
+        this.dispatchMetricItem.clusterId = this.proxyClusterId;
+        this.dispatchMetricItem.sinkId = sinkName;
+        this.dispatchTuner = new DispatchTuner(context, dispatchMetricItem);
+        this.compressTypeSelector = new CompressTypeSelector(context, compressType, dispatchMetricItem);
         // producerContext
         Map<String, String> producerParams = context.getSubProperties(PREFIX_PRODUCER);
         this.producerContext = new Context(producerParams);
@@ -90,6 +104,7 @@ public class KafkaZoneSinkContext extends SinkContext {
         super.start();
         this.idTopicHolder.start();
         this.cacheHolder.start();
+        MetricRegister.register(this.dispatchMetricItem);
     }
 
     /**
@@ -99,6 +114,7 @@ public class KafkaZoneSinkContext extends SinkContext {
         super.close();
         this.idTopicHolder.close();
         this.cacheHolder.close();
+        MetricRegister.unregister(this.dispatchMetricItem);
     }
 
     /**
@@ -155,6 +171,25 @@ public class KafkaZoneSinkContext extends SinkContext {
         return compressType;
     }
 
+    /**
+     * select compressType of a DispatchProfile
+     * 
+     * @param  currentRecord
+     * @return               the compressType
+     */
+    public INLONG_COMPRESSED_TYPE selectCompressType(DispatchProfile currentRecord) {
+        return compressTypeSelector.select(currentRecord);
+    }
+
+    /**
+     * get dispatchTuner
+     * 
+     * @return the dispatchTuner
+     */
+    public DispatchTuner getDispatchTuner() {
+        return dispatchTuner;
+    }
+
     /**
      * get nodeId
      * 
@@ -260,6 +295,7 @@ public class KafkaZoneSinkContext extends SinkContext {
             });
             if (sendTime > 0) {
                 long currentTime = System.currentTimeMillis();
+                dispatchTuner.onSendComplete(currentTime - sendTime);
                 currentRecord.getEvents().forEach((event) -> {
                     long sinkDuration = currentTime - sendTime;
                     long nodeDuration = currentTime - event.getSourceTime();
@@ -267,6 +303,8 @@ public class KafkaZoneSinkContext extends SinkContext {
                     metricItem.sinkDuration.addAndGet(sinkDuration);
                     metricItem.nodeDuration.addAndGet(nodeDuration);
                     metricItem.wholeDuration.addAndGet(wholeDuration);
+                    durationHistogram.observe(sinkDuration, nodeDuration, wholeDuration,
+                            currentRecord.getInlongGroupId(), currentRecord.getInlongStreamId());
                 });
             }
         } else {
@@ -27,6 +27,7 @@ import org.apache.inlong.dataproxy.config.holder.CacheClusterConfigHolder;
 import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
 import org.apache.inlong.dataproxy.config.holder.IdTopicConfigHolder;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
+import org.apache.inlong.dataproxy.source.FlowController;
 import org.apache.inlong.dataproxy.utils.BufferQueue;
 
 /**
@@ -42,6 +43,7 @@ public class PulsarFederationSinkContext {
     public static final String KEY_MAXBUFFERQUEUESIZE = "maxBufferQueueSize";
     public static final String PREFIX_PRODUCER = "producer.";
 
+    private final String sinkName;
     private final String proxyClusterId;
     private final Context sinkContext;
     private final Context producerContext;
@@ -63,6 +65,7 @@ public class PulsarFederationSinkContext {
      * @param context
      */
     public PulsarFederationSinkContext(String sinkName, Context context) {
+        this.sinkName = sinkName;
         this.proxyClusterId = CommonPropertiesHolder.getString(RemoteConfigManager.KEY_PROXY_CLUSTER_NAME);
         this.sinkContext = context;
         this.maxThreads = context.getInteger(KEY_MAX_THREADS, 10);
@@ -80,6 +83,7 @@ public class PulsarFederationSinkContext {
         //
         int maxBufferQueueSize = context.getInteger(KEY_MAXBUFFERQUEUESIZE, 128 * 1024);
         this.bufferQueue = new BufferQueue<Event>(maxBufferQueueSize);
+        FlowController.registerBufferQueue(sinkName, bufferQueue);
         //
         Map<String, String> producerParams = context.getSubProperties(PREFIX_PRODUCER);
         this.producerContext = new Context(producerParams);
@@ -94,6 +98,7 @@ public class PulsarFederationSinkContext {
     public void close() {
         this.idTopicHolder.close();
         this.cacheHolder.close();
+        FlowController.unregisterBufferQueue(sinkName);
     }
 
     /**
@@ -29,6 +29,7 @@ import org.apache.flume.Context;
 import org.apache.flume.Event;
 import org.apache.flume.lifecycle.LifecycleAware;
 import org.apache.flume.lifecycle.LifecycleState;
+import org.apache.inlong.common.metric.prometheus.DurationHistogram;
 import org.apache.inlong.dataproxy.config.pojo.CacheClusterConfig;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
 import org.apache.inlong.dataproxy.metrics.audit.AuditUtils;
@@ -79,6 +80,7 @@ public class PulsarProducerCluster implements LifecycleAware {
     private final PulsarFederationSinkContext sinkContext;
     private final Context context;
     private final String cacheClusterName;
+    private final DurationHistogram durationHistogram;
     private LifecycleState state;
 
     /**
@@ -103,6 +105,8 @@ public class PulsarProducerCluster implements LifecycleAware {
         this.context = context.getProducerContext();
         this.state = LifecycleState.IDLE;
         this.cacheClusterName = config.getClusterName();
+        this.durationHistogram = DurationHistogram.of(DataProxyMetricItem.COMPONENT_NAME,
+                context.getProxyClusterId());
     }
 
     /**
@@ -297,6 +301,9 @@ public class PulsarProducerCluster implements LifecycleAware {
                 metricItem.sinkDuration.addAndGet(sinkDuration);
                 metricItem.nodeDuration.addAndGet(nodeDuration);
                 metricItem.wholeDuration.addAndGet(wholeDuration);
+                durationHistogram.observe(sinkDuration, nodeDuration, wholeDuration,
+                        dimensions.get(DataProxyMetricItem.KEY_INLONG_GROUP_ID),
+                        dimensions.get(DataProxyMetricItem.KEY_INLONG_STREAM_ID));
             }
         } else {
             metricItem.sendFailCount.incrementAndGet();
@@ -24,6 +24,7 @@ import org.apache.inlong.dataproxy.config.pojo.CacheClusterConfig;
 import org.apache.inlong.dataproxy.dispatch.DispatchProfile;
 import org.apache.inlong.sdk.commons.protocol.EventConstants;
 import org.apache.inlong.sdk.commons.protocol.EventUtils;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.INLONG_COMPRESSED_TYPE;
 import org.apache.pulsar.client.api.AuthenticationFactory;
 import org.apache.pulsar.client.api.CompressionType;
 import org.apache.pulsar.client.api.MessageId;
@@ -37,6 +38,7 @@ import org.apache.pulsar.client.api.SizeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.HashMap;
 import java.util.Map;
@@ -146,7 +148,7 @@ public class PulsarClusterProducer implements LifecycleAware {
             this.baseBuilder
                     .accessMode(ProducerAccessMode.Shared)
                     .messageRoutingMode(MessageRoutingMode.RoundRobinPartition)
-                    .blockIfQueueFull(context.getBoolean(KEY_BLOCKIFQUEUEFULL, true));
+                    .blockIfQueueFull(context.getBoolean(KEY_BLOCKIFQUEUEFULL, false));
             this.baseBuilder
                     .roundRobinRouterBatchingPartitionSwitchFrequency(
                             context.getInteger(KEY_ROUNDROBINROUTERBATCHINGPARTITIONSWITCHFREQUENCY, 60))
@@ -255,26 +257,19 @@ public class PulsarClusterProducer implements LifecycleAware {
                 sinkContext.processSendFail(event, producerTopic, 0);
                 return false;
             }
-            // headers
-            Map<String, String> headers = this.encodeCacheMessageHeaders(event);
-            // compress
-            byte[] bodyBytes = EventUtils.encodeCacheMessageBody(sinkContext.getCompressType(), event.getEvents());
-            // sendAsync
-            long sendTime = System.currentTimeMillis();
-            CompletableFuture<MessageId> future = producer.newMessage().properties(headers)
-                    .value(bodyBytes).sendAsync();
-            // callback
-            future.whenCompleteAsync((msgId, ex) -> {
-                if (ex != null) {
-                    LOG.error("Send fail:{}", ex.getMessage());
-                    LOG.error(ex.getMessage(), ex);
-                    sinkContext.processSendFail(event, producerTopic, sendTime);
-                } else {
-                    sinkContext.addSendResultMetric(event, producerTopic, true, sendTime);
-                    event.ack();
-                }
-            });
-            return true;
+            // in-flight window is full, the event is parked and resent after a send of the topic completes
+            TopicInflightWindow inflightWindow = sinkContext.getInflightWindow();
+            if (!inflightWindow.tryAcquire(producerTopic, event)) {
+                return false;
+            }
+            // metric, a parked profile is counted when it is sent rather than every time it is polled
+            sinkContext.addSendMetric(event, workerName);
+            try {
+                return this.sendAsync(producer, producerTopic, event);
+            } catch (Exception e) {
+                inflightWindow.release(producerTopic);
+                throw e;
+            }
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
             sinkContext.processSendFail(event, event.getUid(), 0);
@@ -282,13 +277,50 @@ public class PulsarClusterProducer implements LifecycleAware {
         }
     }
 
+    /**
+     * sendAsync
+     * 
+     * @param  producer
+     * @param  producerTopic
+     * @param  event
+     * @return
+     * @throws IOException
+     */
+    private boolean sendAsync(Producer<byte[]> producer, String producerTopic, DispatchProfile event)
+            throws IOException {
+        // headers
+        INLONG_COMPRESSED_TYPE compressType = sinkContext.selectCompressType(event);
+        Map<String, String> headers = this.encodeCacheMessageHeaders(event, compressType);
+        // compress
+        byte[] bodyBytes = EventUtils.encodeCacheMessageBody(compressType, event.getEvents());
+        // sendAsync
+        long sendTime = System.currentTimeMillis();
+        CompletableFuture<MessageId> future = producer.newMessage().properties(headers)
+                .value(bodyBytes).sendAsync();
+        // callback
+        future.whenCompleteAsync((msgId, ex) -> {
+            sinkContext.getInflightWindow().release(producerTopic);
+            if (ex != null) {
+                LOG.error("Send fail:{}", ex.getMessage());
+                LOG.error(ex.getMessage(), ex);
+                sinkContext.processSendFail(event, producerTopic, sendTime);
+            } else {
+                sinkContext.addSendResultMetric(event, producerTopic, true, sendTime);
+                event.ack();
+            }
+        }, sinkContext.getCompletionExecutor());
+        return true;
+    }
+
     /**
      * encodeCacheMessageHeaders
      * 
      * @param  event
+     * @param  compressType
      * @return       Map
      */
-    public Map<String, String> encodeCacheMessageHeaders(DispatchProfile event) {
+    public Map<String, String> encodeCacheMessageHeaders(DispatchProfile event,
+            INLONG_COMPRESSED_TYPE compressType) {
         Map<String, String> headers = new HashMap<>();
         // version int32 protocol version, the value is 1
         headers.put(HEADER_KEY_VERSION, HEADER_CACHE_VERSION_1);
@@ -310,7 +342,7 @@ public class PulsarClusterProducer implements LifecycleAware {
         // INLONG_GZ = 1,
         // INLONG_SNAPPY = 2
         headers.put(EventConstants.HEADER_KEY_COMPRESS_TYPE,
-                String.valueOf(sinkContext.getCompressType().getNumber()));
+                String.valueOf(compressType.getNumber()));
         // messageKey string partition hash key, optional
         return headers;
     }
@@ -20,18 +20,25 @@ package org.apache.inlong.dataproxy.sink.pulsarzone;
 import org.apache.commons.lang.StringUtils;
 import org.apache.flume.Channel;
 import org.apache.flume.Context;
+import org.apache.inlong.common.metric.MetricKey;
+import org.apache.inlong.common.metric.MetricRegister;
 import org.apache.inlong.dataproxy.config.RemoteConfigManager;
 import org.apache.inlong.dataproxy.config.holder.CacheClusterConfigHolder;
 import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
 import org.apache.inlong.dataproxy.config.holder.IdTopicConfigHolder;
+import org.apache.inlong.dataproxy.dispatch.CompressTypeSelector;
+import org.apache.inlong.dataproxy.dispatch.DispatchMetricItem;
 import org.apache.inlong.dataproxy.dispatch.DispatchProfile;
+import org.apache.inlong.dataproxy.dispatch.DispatchTuner;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
+import org.apache.inlong.dataproxy.metrics.SinkMetricKeyCache;
 import org.apache.inlong.dataproxy.metrics.audit.AuditUtils;
 import org.apache.inlong.dataproxy.sink.SinkContext;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.INLONG_COMPRESSED_TYPE;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
@@ -43,6 +50,12 @@ public class PulsarZoneSinkContext extends SinkContext {
     public static final String KEY_NODE_ID = "nodeId";
     public static final String PREFIX_PRODUCER = "producer.";
     public static final String KEY_COMPRESS_TYPE = "compressType";
+    public static final String KEY_MAX_INFLIGHT_PER_TOPIC = "maxInflightPerTopic";
+    public static final String KEY_COMPLETION_THREADS = "completionThreads";
+    public static final String KEY_MAX_PARKED_COUNT = "maxParkedCount";
+    public static final int DEFAULT_MAX_INFLIGHT_PER_TOPIC = 500;
+    public static final int DEFAULT_COMPLETION_THREADS = 4;
+    public static final int DEFAULT_MAX_PARKED_COUNT = 1000;
 
     private final LinkedBlockingQueue<DispatchProfile> dispatchQueue;
 
@@ -53,6 +66,15 @@ public class PulsarZoneSinkContext extends SinkContext {
     private final IdTopicConfigHolder idTopicHolder;
     private final CacheClusterConfigHolder cacheHolder;
     private final INLONG_COMPRESSED_TYPE compressType;
+    //
+    private final DispatchMetricItem dispatchMetricItem;
+    private final DispatchTuner dispatchTuner;
+    private final CompressTypeSelector compressTypeSelector;
+    // in-flight window of every topic and completion executor, shared by all workers
+    private final TopicInflightWindow inflightWindow;
+    private final ExecutorService completionExecutor;
+    // metric key of every topic and inlong stream
+    private final SinkMetricKeyCache metricKeyCache;
 
     /**
      * Constructor
@@ -71,6 +93,19 @@ public class PulsarZoneSinkContext extends SinkContext {
         String strCompressionType = CommonPropertiesHolder.getString(KEY_COMPRESS_TYPE,
                 INLONG_COMPRESSED_TYPE.INLONG_SNAPPY.name());
         this.compressType = INLONG_COMPRESSED_TYPE.valueOf(strCompressionType);
+        // dispatchTuner and compressTypeSelector
+        this.dispatchMetricItem = new DispatchMetricItem();
+        this.dispatchMetricItem.clusterId = this.proxyClusterId;
+        this.dispatchMetricItem.sinkId = sinkName;
+        this.dispatchTuner = new DispatchTuner(context, dispatchMetricItem);
+        this.compressTypeSelector = new CompressTypeSelector(context, compressType, dispatchMetricItem);
+        // inflightWindow and completionExecutor
+        this.inflightWindow = new TopicInflightWindow(
+                context.getInteger(KEY_MAX_INFLIGHT_PER_TOPIC, DEFAULT_MAX_INFLIGHT_PER_TOPIC),
+                context.getInteger(KEY_MAX_PARKED_COUNT, DEFAULT_MAX_PARKED_COUNT), dispatchQueue);
+        this.completionExecutor = Executors.newFixedThreadPool(
+                context.getInteger(KEY_COMPLETION_THREADS, DEFAULT_COMPLETION_THREADS));
+        this.metricKeyCache = new SinkMetricKeyCache(this.proxyClusterId, sinkName);
         // producerContext
         Map<String, String> producerParams = context.getSubProperties(PREFIX_PRODUCER);
         this.producerContext = new Context(producerParams);
@@ -90,6 +125,7 @@ public class PulsarZoneSinkContext extends SinkContext {
         super.start();
         this.idTopicHolder.start();
         this.cacheHolder.start();
+        MetricRegister.register(this.dispatchMetricItem);
     }
 
     /**
@@ -99,6 +135,8 @@ public class PulsarZoneSinkContext extends SinkContext {
         super.close();
         this.idTopicHolder.close();
         this.cacheHolder.close();
+        MetricRegister.unregister(this.dispatchMetricItem);
+        this.completionExecutor.shutdown();
     }
 
     /**
@@ -155,6 +193,43 @@ public class PulsarZoneSinkContext extends SinkContext {
         return compressType;
     }
 
+    /**
+     * select compressType of a DispatchProfile
+     * 
+     * @param  currentRecord
+     * @return               the compressType
+     */
+    public INLONG_COMPRESSED_TYPE selectCompressType(DispatchProfile currentRecord) {
+        return compressTypeSelector.select(currentRecord);
+    }
+
+    /**
+     * get inflightWindow
+     * 
+     * @return the inflightWindow
+     */
+    public TopicInflightWindow getInflightWindow() {
+        return inflightWindow;
+    }
+
+    /**
+     * get completionExecutor
+     * 
+     * @return the completionExecutor
+     */
+    public ExecutorService getCompletionExecutor() {
+        return completionExecutor;
+    }
+
+    /**
+     * get dispatchTuner
+     * 
+     * @return the dispatchTuner
+     */
+    public DispatchTuner getDispatchTuner() {
+        return dispatchTuner;
+    }
+
     /**
      * get nodeId
      * 
@@ -171,16 +246,7 @@ public class PulsarZoneSinkContext extends SinkContext {
      * @param bid
      */
     public void addSendMetric(DispatchProfile currentRecord, String bid) {
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, this.getProxyClusterId());
-        // metric
-        fillInlongId(currentRecord, dimensions);
-        dimensions.put(DataProxyMetricItem.KEY_SINK_ID, this.getSinkName());
-        dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID, bid);
-        long msgTime = currentRecord.getDispatchTime();
-        long auditFormatTime = msgTime - msgTime % CommonPropertiesHolder.getAuditFormatInterval();
-        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
-        DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(dimensions);
+        DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(this.getMetricKey(currentRecord, bid));
         long count = currentRecord.getCount();
         long size = currentRecord.getSize();
         metricItem.sendCount.addAndGet(count);
@@ -191,16 +257,23 @@ public class PulsarZoneSinkContext extends SinkContext {
      * addReadFailMetric
      */
     public void addSendFailMetric() {
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, this.getProxyClusterId());
-        dimensions.put(DataProxyMetricItem.KEY_SINK_ID, this.getSinkName());
-        long msgTime = System.currentTimeMillis();
-        long auditFormatTime = msgTime - msgTime % CommonPropertiesHolder.getAuditFormatInterval();
-        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
-        DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(dimensions);
+        DataProxyMetricItem metricItem = this.getMetricItemSet()
+                .findMetricItem(this.metricKeyCache.getMetricKey(System.currentTimeMillis()));
         metricItem.readFailCount.incrementAndGet();
     }
 
+    /**
+     * getMetricKey
+     * 
+     * @param  currentRecord
+     * @param  bid
+     * @return
+     */
+    private MetricKey getMetricKey(DispatchProfile currentRecord, String bid) {
+        return this.metricKeyCache.getMetricKey(bid, currentRecord.getInlongGroupId(),
+                currentRecord.getInlongStreamId(), currentRecord.getDispatchTime());
+    }
+
     /**
      * fillInlongId
      * 
@@ -240,16 +313,7 @@ public class PulsarZoneSinkContext extends SinkContext {
      * @param sendTime
      */
     public void addSendResultMetric(DispatchProfile currentRecord, String bid, boolean result, long sendTime) {
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, this.getProxyClusterId());
-        // metric
-        fillInlongId(currentRecord, dimensions);
-        dimensions.put(DataProxyMetricItem.KEY_SINK_ID, this.getSinkName());
-        dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID, bid);
-        long dispatchTime = currentRecord.getDispatchTime();
-        long auditFormatTime = dispatchTime - dispatchTime % CommonPropertiesHolder.getAuditFormatInterval();
-        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
-        DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(dimensions);
+        DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(this.getMetricKey(currentRecord, bid));
         long count = currentRecord.getCount();
         long size = currentRecord.getSize();
         if (result) {
@@ -260,6 +324,7 @@ public class PulsarZoneSinkContext extends SinkContext {
             });
             if (sendTime > 0) {
                 long currentTime = System.currentTimeMillis();
+                dispatchTuner.onSendComplete(currentTime - sendTime);
                 currentRecord.getEvents().forEach((event) -> {
                     long sinkDuration = currentTime - sendTime;
                     long nodeDuration = currentTime - event.getSourceTime();
@@ -267,6 +332,8 @@ public class PulsarZoneSinkContext extends SinkContext {
                     metricItem.sinkDuration.addAndGet(sinkDuration);
                     metricItem.nodeDuration.addAndGet(nodeDuration);
                     metricItem.wholeDuration.addAndGet(wholeDuration);
+                    durationHistogram.observe(sinkDuration, nodeDuration, wholeDuration,
+                            currentRecord.getInlongGroupId(), currentRecord.getInlongStreamId());
                 });
             }
         } else {
@@ -83,9 +83,7 @@ public class PulsarZoneWorker extends Thread {
                     this.sleepOneInterval();
                     continue;
                 }
-                // metric
-                context.addSendMetric(event, workerName);
-                // send
+                // send, the metric is added by the producer once the profile gets a slot of its topic
                 this.zoneProducer.send(event);
             } catch (Throwable e) {
                 LOG.error(e.getMessage(), e);
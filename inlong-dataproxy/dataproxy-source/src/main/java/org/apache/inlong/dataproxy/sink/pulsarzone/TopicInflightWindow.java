@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.pulsarzone;
+
+import org.apache.inlong.dataproxy.dispatch.DispatchProfile;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * TopicInflightWindow, limit the in-flight DispatchProfile count of every topic.
+ * <p>
+ * A worker never blocks on a congested topic: when the window of the topic is full, the DispatchProfile
+ * is parked in the topic and the worker continues with other topics. Every completed send releases
+ * one slot and moves one parked DispatchProfile of the same topic back to the dispatch queue.
+ * </p>
+ * <p>
+ * The parked DispatchProfiles are bounded by maxParkedCount: once it is reached the sink stops taking
+ * events from the channel, so the dispatch queue drains into the windows and no more profiles are parked.
+ * </p>
+ */
+public class TopicInflightWindow {
+
+    private final int windowSize;
+    private final int maxParkedCount;
+    private final AtomicInteger parkedCount = new AtomicInteger(0);
+    private final LinkedBlockingQueue<DispatchProfile> dispatchQueue;
+    private final Map<String, TopicState> topicStates = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * 
+     * @param windowSize
+     * @param maxParkedCount
+     * @param dispatchQueue
+     */
+    public TopicInflightWindow(int windowSize, int maxParkedCount,
+            LinkedBlockingQueue<DispatchProfile> dispatchQueue) {
+        this.windowSize = Math.max(1, windowSize);
+        this.maxParkedCount = Math.max(1, maxParkedCount);
+        this.dispatchQueue = dispatchQueue;
+    }
+
+    /**
+     * try to acquire a slot of topic, park the DispatchProfile if the window is full.
+     * 
+     * @param  topic
+     * @param  profile
+     * @return         true if a slot is acquired, false if the profile is parked
+     */
+    public boolean tryAcquire(String topic, DispatchProfile profile) {
+        TopicState state = this.getTopicState(topic);
+        synchronized (state) {
+            if (state.inflight < windowSize) {
+                state.inflight++;
+                return true;
+            }
+            state.parked.offer(profile);
+            parkedCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * release a slot of topic, move one parked DispatchProfile back to dispatch queue.
+     * 
+     * @param topic
+     */
+    public void release(String topic) {
+        TopicState state = this.getTopicState(topic);
+        DispatchProfile next;
+        synchronized (state) {
+            if (state.inflight > 0) {
+                state.inflight--;
+            }
+            next = state.parked.poll();
+            if (next != null) {
+                parkedCount.decrementAndGet();
+            }
+        }
+        if (next != null) {
+            dispatchQueue.offer(next);
+        }
+    }
+
+    /**
+     * getTopicState
+     * 
+     * @param  topic
+     * @return
+     */
+    private TopicState getTopicState(String topic) {
+        TopicState state = topicStates.get(topic);
+        if (state == null) {
+            state = new TopicState();
+            TopicState oldState = topicStates.putIfAbsent(topic, state);
+            state = (oldState == null) ? state : oldState;
+        }
+        return state;
+    }
+
+    /**
+     * get in-flight count of topic
+     * 
+     * @param  topic
+     * @return
+     */
+    public int getInflightCount(String topic) {
+        TopicState state = topicStates.get(topic);
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.inflight;
+        }
+    }
+
+    /**
+     * get parked count of topic
+     * 
+     * @param  topic
+     * @return
+     */
+    public int getParkedCount(String topic) {
+        TopicState state = topicStates.get(topic);
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.parked.size();
+        }
+    }
+
+    /**
+     * is the parked count of all topics over maxParkedCount, the sink stops taking events if true
+     * 
+     * @return
+     */
+    public boolean isParkedFull() {
+        return parkedCount.get() >= maxParkedCount;
+    }
+
+    /**
+     * get windowSize
+     * 
+     * @return the windowSize
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * 
+     * TopicState
+     */
+    private static class TopicState {
+
+        private int inflight = 0;
+        private final Deque<DispatchProfile> parked = new ArrayDeque<>();
+    }
+}
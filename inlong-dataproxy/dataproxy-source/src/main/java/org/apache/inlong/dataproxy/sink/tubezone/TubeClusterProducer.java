@@ -25,6 +25,7 @@ import org.apache.inlong.dataproxy.consts.ConfigConstants;
 import org.apache.inlong.dataproxy.dispatch.DispatchProfile;
 import org.apache.inlong.sdk.commons.protocol.EventConstants;
 import org.apache.inlong.sdk.commons.protocol.EventUtils;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.INLONG_COMPRESSED_TYPE;
 import org.apache.inlong.tubemq.client.config.TubeClientConfig;
 import org.apache.inlong.tubemq.client.exception.TubeClientException;
 import org.apache.inlong.tubemq.client.factory.TubeMultiSessionFactory;
@@ -193,9 +194,10 @@ public class TubeClusterProducer implements LifecycleAware {
                 return false;
             }
             // headers
-            Map<String, String> headers = this.encodeCacheMessageHeaders(event);
+            INLONG_COMPRESSED_TYPE compressType = sinkContext.selectCompressType(event);
+            Map<String, String> headers = this.encodeCacheMessageHeaders(event, compressType);
             // compress
-            byte[] bodyBytes = EventUtils.encodeCacheMessageBody(sinkContext.getCompressType(), event.getEvents());
+            byte[] bodyBytes = EventUtils.encodeCacheMessageBody(compressType, event.getEvents());
             // sendAsync
             Message message = new Message(topic, bodyBytes);
             // add headers
@@ -232,9 +234,11 @@ public class TubeClusterProducer implements LifecycleAware {
      * encodeCacheMessageHeaders
      * 
      * @param  event
+     * @param  compressType
      * @return       Map
      */
-    public Map<String, String> encodeCacheMessageHeaders(DispatchProfile event) {
+    public Map<String, String> encodeCacheMessageHeaders(DispatchProfile event,
+            INLONG_COMPRESSED_TYPE compressType) {
         Map<String, String> headers = new HashMap<>();
         // version int32 protocol version, the value is 1
         headers.put(HEADER_KEY_VERSION, HEADER_CACHE_VERSION_1);
@@ -256,7 +260,7 @@ public class TubeClusterProducer implements LifecycleAware {
         // INLONG_GZ = 1,
         // INLONG_SNAPPY = 2
         headers.put(EventConstants.HEADER_KEY_COMPRESS_TYPE,
-                String.valueOf(sinkContext.getCompressType().getNumber()));
+                String.valueOf(compressType.getNumber()));
         // messageKey string partition hash key, optional
         return headers;
     }
@@ -26,6 +26,7 @@ import org.apache.flume.conf.Configurable;
 import org.apache.flume.sink.AbstractSink;
 import org.apache.inlong.dataproxy.dispatch.DispatchManager;
 import org.apache.inlong.dataproxy.dispatch.DispatchProfile;
+import org.apache.inlong.dataproxy.dispatch.DispatchTuner;
 import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
 import org.apache.inlong.sdk.commons.protocol.ProxyPackEvent;
 import org.slf4j.Logger;
@@ -78,16 +79,23 @@ public class TubeZoneSink extends AbstractSink implements Configurable {
                 LOG.error("channel is null");
             }
             this.context.start();
-            this.dispatchManager = new DispatchManager(parentContext, dispatchQueue);
+            this.dispatchManager = new DispatchManager(dispatchQueue, this.context.getDispatchTuner());
             this.scheduledPool = Executors.newScheduledThreadPool(2);
             // dispatch
+            DispatchTuner tuner = this.dispatchManager.getTuner();
             this.scheduledPool.scheduleWithFixedDelay(new Runnable() {
 
                 public void run() {
                     dispatchManager.setNeedOutputOvertimeData();
                 }
-            }, this.dispatchManager.getDispatchTimeout(), this.dispatchManager.getDispatchTimeout(),
-                    TimeUnit.MILLISECONDS);
+            }, tuner.getCheckInterval(), tuner.getCheckInterval(), TimeUnit.MILLISECONDS);
+            // adjust dispatch parameters
+            this.scheduledPool.scheduleWithFixedDelay(new Runnable() {
+
+                public void run() {
+                    tuner.adjust(dispatchQueue.size());
+                }
+            }, tuner.getAdjustInterval(), tuner.getAdjustInterval(), TimeUnit.MILLISECONDS);
             // create worker
             for (int i = 0; i < context.getMaxThreads(); i++) {
                 TubeZoneWorker worker = new TubeZoneWorker(this.getName(), i, context);
@@ -0,0 +1,353 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.source;
+
+import io.netty.channel.Channel;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.flume.Context;
+import org.apache.flume.source.AbstractSource;
+import org.apache.inlong.common.metric.MetricKey;
+import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
+import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
+import org.apache.inlong.dataproxy.utils.BufferQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FlowController<br>
+ * Watermark based back-pressure for tcp sources. When the occupancy of the flume channels or of the registered
+ * BufferQueues reaches the high watermark, connections are paused by turning autoRead off, so that the clients
+ * are throttled by tcp flow control instead of retrying rejected packages. Paused connections are resumed in
+ * the order they were paused, a limited batch per check, once the occupancy drops below the low watermark.
+ */
+public class FlowController {
+
+    public static final Logger LOG = LoggerFactory.getLogger(FlowController.class);
+
+    public static final String KEY_FLOW_CONTROL_ENABLE = "flowControlEnable";
+    public static final String KEY_HIGH_WATERMARK = "flowControlHighWatermark";
+    public static final String KEY_LOW_WATERMARK = "flowControlLowWatermark";
+    public static final String KEY_MAX_PAUSE_TIME = "flowControlMaxPauseTime";
+    public static final String KEY_CHECK_INTERVAL = "flowControlCheckInterval";
+    public static final String KEY_RESUME_BATCH = "flowControlResumeBatch";
+
+    public static final String FLUME_CHANNEL_DOMAIN = "org.apache.flume.channel";
+    public static final String ATTR_CHANNEL_FILL_PERCENTAGE = "ChannelFillPercentage";
+
+    // buffer queues registered by sinks, shared by all sources
+    private static final Map<String, BufferQueue<?>> BUFFER_QUEUES = new ConcurrentHashMap<>();
+
+    private final AbstractSource source;
+    private final DataProxyMetricItemSet metricItemSet;
+    private final String clusterId;
+    private final String sourceDataId;
+    // config
+    private final boolean enable;
+    private final double highWatermark;
+    private final double lowWatermark;
+    private final long maxPauseTime;
+    private final long checkInterval;
+    private final int resumeBatch;
+    // state
+    private volatile boolean overloaded = false;
+    private volatile double occupancy = 0;
+    private final Map<Channel, Long> pausedChannels = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Channel> resumeQueue = new ConcurrentLinkedQueue<>();
+    private volatile MetricKey metricKey;
+    private Timer checkTimer;
+
+    /**
+     * Constructor
+     * 
+     * @param source
+     * @param context
+     * @param metricItemSet
+     * @param clusterId
+     * @param sourceDataId
+     */
+    public FlowController(AbstractSource source, Context context, DataProxyMetricItemSet metricItemSet,
+            String clusterId, String sourceDataId) {
+        this.source = source;
+        this.metricItemSet = metricItemSet;
+        this.clusterId = clusterId;
+        this.sourceDataId = sourceDataId;
+        this.enable = context.getBoolean(KEY_FLOW_CONTROL_ENABLE, false);
+        this.highWatermark = context.getInteger(KEY_HIGH_WATERMARK, 80);
+        this.lowWatermark = Math.min(context.getInteger(KEY_LOW_WATERMARK, 60), this.highWatermark);
+        this.maxPauseTime = context.getLong(KEY_MAX_PAUSE_TIME, 10000L);
+        this.checkInterval = context.getLong(KEY_CHECK_INTERVAL, 100L);
+        this.resumeBatch = Math.max(1, context.getInteger(KEY_RESUME_BATCH, 16));
+    }
+
+    /**
+     * registerBufferQueue
+     * 
+     * @param name
+     * @param bufferQueue
+     */
+    public static void registerBufferQueue(String name, BufferQueue<?> bufferQueue) {
+        BUFFER_QUEUES.put(name, bufferQueue);
+    }
+
+    /**
+     * unregisterBufferQueue
+     * 
+     * @param name
+     */
+    public static void unregisterBufferQueue(String name) {
+        BUFFER_QUEUES.remove(name);
+    }
+
+    /**
+     * start
+     */
+    public void start() {
+        if (!enable) {
+            return;
+        }
+        this.checkTimer = new Timer("flowController-" + source.getName(), true);
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                try {
+                    check(System.currentTimeMillis());
+                } catch (Throwable t) {
+                    LOG.error(t.getMessage(), t);
+                }
+            }
+        };
+        this.checkTimer.schedule(task, new Date(System.currentTimeMillis() + checkInterval), checkInterval);
+    }
+
+    /**
+     * close
+     */
+    public void close() {
+        if (checkTimer != null) {
+            checkTimer.cancel();
+        }
+        long currentTime = System.currentTimeMillis();
+        Channel channel = null;
+        while ((channel = resumeQueue.poll()) != null) {
+            this.resume(channel, currentTime);
+        }
+    }
+
+    /**
+     * check the occupancy, resume the paused channels fairly
+     * 
+     * @param currentTime
+     */
+    public void check(long currentTime) {
+        this.occupancy = this.currentOccupancy();
+        if (this.occupancy >= highWatermark) {
+            this.overloaded = true;
+        } else if (this.occupancy <= lowWatermark) {
+            this.overloaded = false;
+        }
+        // resume the earliest paused channels first, a batch per check to avoid a burst
+        int resumed = 0;
+        while (!overloaded && resumed < resumeBatch) {
+            Channel channel = resumeQueue.poll();
+            if (channel == null) {
+                break;
+            }
+            if (this.resume(channel, currentTime)) {
+                resumed++;
+            }
+        }
+        // no connection stays paused longer than maxPauseTime
+        for (Entry<Channel, Long> entry : pausedChannels.entrySet()) {
+            if (currentTime - entry.getValue() >= maxPauseTime) {
+                resumeQueue.remove(entry.getKey());
+                this.resume(entry.getKey(), currentTime);
+            }
+        }
+    }
+
+    /**
+     * pause the channel if the source is overloaded
+     * 
+     * @param  channel
+     * @return         true if the channel is paused
+     */
+    public boolean pauseIfOverloaded(Channel channel) {
+        if (!enable || !overloaded) {
+            return false;
+        }
+        return this.pause(channel);
+    }
+
+    /**
+     * pause the channel after a rejected event, the channel is resumed by the check task
+     * 
+     * @param  channel
+     * @return         true if the channel is paused
+     */
+    public boolean pause(Channel channel) {
+        if (!enable || channel == null) {
+            return false;
+        }
+        // pause and resume of a channel are serialized, autoRead always follows pausedChannels
+        synchronized (channel) {
+            if (pausedChannels.putIfAbsent(channel, System.currentTimeMillis()) != null) {
+                return false;
+            }
+            channel.config().setAutoRead(false);
+            resumeQueue.offer(channel);
+        }
+        this.findMetricItem().throttleCount.incrementAndGet();
+        LOG.debug("pause channel {}, occupancy={}", channel, occupancy);
+        return true;
+    }
+
+    /**
+     * remove the inactive channel
+     * 
+     * @param channel
+     */
+    public void remove(Channel channel) {
+        if (channel == null) {
+            return;
+        }
+        Long pauseTime;
+        synchronized (channel) {
+            pauseTime = pausedChannels.remove(channel);
+            if (pauseTime != null) {
+                resumeQueue.remove(channel);
+            }
+        }
+        if (pauseTime != null) {
+            this.findMetricItem().throttleDuration.addAndGet(System.currentTimeMillis() - pauseTime);
+        }
+    }
+
+    /**
+     * resume
+     * 
+     * @param  channel
+     * @param  currentTime
+     * @return
+     */
+    private boolean resume(Channel channel, long currentTime) {
+        Long pauseTime;
+        synchronized (channel) {
+            pauseTime = pausedChannels.remove(channel);
+            if (pauseTime == null) {
+                return false;
+            }
+            if (channel.isActive()) {
+                channel.config().setAutoRead(true);
+            }
+        }
+        this.findMetricItem().throttleDuration.addAndGet(currentTime - pauseTime);
+        LOG.debug("resume channel {}, pause time={}", channel, currentTime - pauseTime);
+        return true;
+    }
+
+    /**
+     * currentOccupancy, the max fill percentage of the flume channels and the buffer queues
+     * 
+     * @return
+     */
+    protected double currentOccupancy() {
+        double result = 0;
+        if (source.getChannelProcessor() != null) {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            for (org.apache.flume.Channel channel : source.getChannelProcessor().getSelector().getAllChannels()) {
+                try {
+                    ObjectName objName = new ObjectName(FLUME_CHANNEL_DOMAIN + ":type=" + channel.getName());
+                    Object value = mbs.getAttribute(objName, ATTR_CHANNEL_FILL_PERCENTAGE);
+                    if (value instanceof Number) {
+                        result = Math.max(result, ((Number) value).doubleValue());
+                    }
+                } catch (Exception e) {
+                    LOG.debug("fail to get fill percentage of channel {}", channel.getName());
+                }
+            }
+        }
+        for (BufferQueue<?> bufferQueue : BUFFER_QUEUES.values()) {
+            result = Math.max(result, 100.0 - bufferQueue.getIdleRate());
+        }
+        return result;
+    }
+
+    /**
+     * findMetricItem
+     * 
+     * @return
+     */
+    private DataProxyMetricItem findMetricItem() {
+        MetricKey currentKey = this.metricKey;
+        if (currentKey == null) {
+            Map<String, String> dimensions = new HashMap<>();
+            dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, clusterId);
+            dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, source.getName());
+            dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, sourceDataId);
+            currentKey = MetricKey.of(dimensions);
+            this.metricKey = currentKey;
+        }
+        return metricItemSet.findMetricItem(currentKey);
+    }
+
+    /**
+     * get enable
+     * 
+     * @return the enable
+     */
+    public boolean isEnable() {
+        return enable;
+    }
+
+    /**
+     * get overloaded
+     * 
+     * @return the overloaded
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * get occupancy
+     * 
+     * @return the occupancy
+     */
+    public double getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * getPausedCount
+     * 
+     * @return
+     */
+    public int getPausedCount() {
+        return pausedChannels.size();
+    }
+}
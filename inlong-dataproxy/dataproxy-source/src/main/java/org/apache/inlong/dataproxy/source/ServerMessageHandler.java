@@ -51,12 +51,14 @@ import org.apache.inlong.common.msg.InLongMsg;
 import org.apache.inlong.dataproxy.base.OrderEvent;
 import org.apache.inlong.dataproxy.base.ProxyMessage;
 import org.apache.inlong.dataproxy.config.ConfigManager;
+import org.apache.inlong.dataproxy.config.RouteTable;
 import org.apache.inlong.dataproxy.consts.AttributeConstants;
 import org.apache.inlong.dataproxy.consts.ConfigConstants;
 import org.apache.inlong.dataproxy.exception.ErrorCode;
 import org.apache.inlong.dataproxy.exception.MessageIDException;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
+import org.apache.inlong.dataproxy.metrics.StreamMetricKeyCache;
 import org.apache.inlong.dataproxy.metrics.audit.AuditUtils;
 import org.apache.inlong.dataproxy.utils.MessageUtils;
 import org.apache.inlong.dataproxy.utils.NetworkUtils;
@@ -107,6 +109,8 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
 
     private String defaultMXAttr = "m=3";
 
+    private final Map<String, String> defaultMXAttrMap;
+
     private final String protocolType;
 
 
@@ -116,6 +120,9 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
 
     //
     private final DataProxyMetricItemSet metricItemSet;
+    private final StreamMetricKeyCache metricKeyCache;
+
+    private final FlowController flowController;
 
     /**
      * Constructor
@@ -145,6 +152,7 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
         if (null != attr) {
             this.defaultMXAttr = attr;
         }
+        this.defaultMXAttrMap = mapSplitter.split(this.defaultMXAttr);
 
         this.filterEmptyMsg = filterEmptyMsg;
         this.isCompressed = isCompressed;
@@ -152,8 +160,12 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
         this.protocolType = protocolType;
         if (source instanceof SimpleTcpSource) {
             this.metricItemSet = ((SimpleTcpSource) source).getMetricItemSet();
+            this.flowController = ((SimpleTcpSource) source).getFlowController();
+            this.metricKeyCache = ((SimpleTcpSource) source).getMetricKeyCache();
         } else {
             this.metricItemSet = new DataProxyMetricItemSet(this.toString());
+            this.metricKeyCache = new StreamMetricKeyCache("DataProxy", source.getName(), source.getName());
+            this.flowController = null;
         }
         this.monitorIndex = monitorIndex;
         this.monitorIndexExt = monitorIndexExt;
@@ -261,6 +273,9 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
         logger.error("channel inactive {}", ctx.channel());
         ctx.fireChannelInactive();
         allChannels.remove(ctx.channel());
+        if (flowController != null) {
+            flowController.remove(ctx.channel());
+        }
     }
 
     private void checkGroupIdInfo(ProxyMessage message, Map<String, String> commonAttrMap,
@@ -280,17 +295,17 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
                 }
             }
 
-            String value = MessageUtils.getTopic(configManager.getTopicProperties(), groupId,
-                    streamId);
+            RouteTable.Route route = configManager.getRouteTable().find(groupId, streamId);
+            String value = (route == null) ? null : route.getTopic();
             if (StringUtils.isNotEmpty(value)) {
                 topicInfo.set(value.trim());
             }
 
-            Map<String, String> mxValue = configManager.getMxPropertiesMaps().get(groupId);
-            if (mxValue != null && mxValue.size() != 0) {
+            Map<String, String> mxValue = (route == null) ? null : route.getMxAttributes();
+            if (mxValue != null) {
                 message.getAttributeMap().putAll(mxValue);
             } else {
-                message.getAttributeMap().putAll(mapSplitter.split(this.defaultMXAttr));
+                message.getAttributeMap().putAll(this.defaultMXAttrMap);
             }
         } else {
             String num2name = commonAttrMap.get(AttributeConstants.NUM2NAME);
@@ -317,8 +332,7 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
                     message.setGroupId(groupId);
                     message.setStreamId(streamId);
 
-                    String value = MessageUtils.getTopic(configManager.getTopicProperties(),
-                            groupId, streamId);
+                    String value = configManager.getRouteTable().findTopic(groupId, streamId);
                     if (StringUtils.isNotEmpty(value)) {
                         topicInfo.set(value.trim());
                     }
@@ -600,6 +614,10 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
             return;
         }
         ByteBuf cb = (ByteBuf) msg;
+        if (flowController != null) {
+            // stop reading from the connection before the channels are full
+            flowController.pauseIfOverloaded(ctx.channel());
+        }
         try {
             Channel remoteChannel = ctx.channel();
             String strRemoteIP = getRemoteIp(remoteChannel);
@@ -647,82 +665,114 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
 
             List<ProxyMessage> msgList = (List<ProxyMessage>) resultMap.get(ConfigConstants.MSG_LIST);
 
-            boolean checkMessageTopic = true;
-            if (msgList != null
-                    && !commonAttrMap.containsKey(ConfigConstants.FILE_CHECK_DATA)
-                    && !commonAttrMap.containsKey(ConfigConstants.MINUTE_CHECK_DATA)) {
-                Map<String, HashMap<String, List<ProxyMessage>>> messageMap =
-                        new HashMap<String, HashMap<String, List<ProxyMessage>>>(
-                                msgList.size());
-
-                checkMessageTopic = updateMsgList(msgList, commonAttrMap, messageMap, strRemoteIP,
-                        msgType);
-                if (checkMessageTopic) {
-                    formatMessagesAndSend(ctx, commonAttrMap, messageMap,
-                            strRemoteIP, msgType);
-                }
-            } else if (msgList != null && commonAttrMap.containsKey(ConfigConstants.FILE_CHECK_DATA)) {
-                Map<String, String> headers = new HashMap<String, String>();
-                headers.put("msgtype", "filestatus");
-                headers.put(ConfigConstants.FILE_CHECK_DATA,
-                        "true");
-                headers.put(AttributeConstants.UNIQ_ID,
-                        commonAttrMap.get(AttributeConstants.UNIQ_ID));
-                for (ProxyMessage message : msgList) {
-                    byte[] body = message.getData();
-                    Event event = EventBuilder.withBody(body, headers);
-                    if (MessageUtils.isSyncSendForOrder(commonAttrMap
-                            .get(AttributeConstants.MESSAGE_SYNC_SEND))) {
-                        event = new OrderEvent(ctx, event);
-                    }
-                    try {
-                        processor.processEvent(event);
-                        this.addMetric(true, body.length, event);
-                    } catch (Throwable ex) {
-                        logger.error("Error writing to controller,data will discard.", ex);
-                        this.addMetric(false, body.length, event);
-                        throw new ChannelException(
-                                "Process Controller Event error can't write event to channel.");
+            try {
+                boolean checkMessageTopic = true;
+                if (msgList != null
+                        && !commonAttrMap.containsKey(ConfigConstants.FILE_CHECK_DATA)
+                        && !commonAttrMap.containsKey(ConfigConstants.MINUTE_CHECK_DATA)) {
+                    Map<String, HashMap<String, List<ProxyMessage>>> messageMap =
+                            new HashMap<String, HashMap<String, List<ProxyMessage>>>(
+                                    msgList.size());
+
+                    checkMessageTopic = updateMsgList(msgList, commonAttrMap, messageMap, strRemoteIP,
+                            msgType);
+                    if (checkMessageTopic) {
+                        formatMessagesAndSend(ctx, commonAttrMap, messageMap,
+                                strRemoteIP, msgType);
                     }
-                }
-            } else if (msgList != null && commonAttrMap
-                    .containsKey(ConfigConstants.MINUTE_CHECK_DATA)) {
-                logger.info("i am in MINUTE_CHECK_DATA");
-                Map<String, String> headers = new HashMap<String, String>();
-                headers.put("msgtype", "measure");
-                headers.put(ConfigConstants.FILE_CHECK_DATA,
-                        "true");
-                headers.put(AttributeConstants.UNIQ_ID,
-                        commonAttrMap.get(AttributeConstants.UNIQ_ID));
-                for (ProxyMessage message : msgList) {
-                    byte[] body = message.getData();
-                    Event event = EventBuilder.withBody(body, headers);
-                    if (MessageUtils.isSyncSendForOrder(commonAttrMap
-                            .get(AttributeConstants.MESSAGE_SYNC_SEND))) {
-                        event = new OrderEvent(ctx, event);
+                } else if (msgList != null && commonAttrMap.containsKey(ConfigConstants.FILE_CHECK_DATA)) {
+                    Map<String, String> headers = new HashMap<String, String>();
+                    headers.put("msgtype", "filestatus");
+                    headers.put(ConfigConstants.FILE_CHECK_DATA,
+                            "true");
+                    headers.put(AttributeConstants.UNIQ_ID,
+                            commonAttrMap.get(AttributeConstants.UNIQ_ID));
+                    for (ProxyMessage message : msgList) {
+                        byte[] body = message.getData();
+                        Event event = EventBuilder.withBody(body, headers);
+                        if (MessageUtils.isSyncSendForOrder(commonAttrMap
+                                .get(AttributeConstants.MESSAGE_SYNC_SEND))) {
+                            event = new OrderEvent(ctx, event);
+                        }
+                        try {
+                            processor.processEvent(event);
+                            this.addMetric(true, body.length, event);
+                        } catch (Throwable ex) {
+                            logger.error("Error writing to controller,data will discard.", ex);
+                            this.addMetric(false, body.length, event);
+                            throw new ChannelException(
+                                    "Process Controller Event error can't write event to channel.");
+                        }
                     }
-                    try {
-                        processor.processEvent(event);
-                        this.addMetric(true, body.length, event);
-                    } catch (Throwable ex) {
-                        logger.error("Error writing to controller,data will discard.", ex);
-                        this.addMetric(false, body.length, event);
-                        throw new ChannelException(
-                                "Process Controller Event error can't write event to channel.");
+                } else if (msgList != null && commonAttrMap
+                        .containsKey(ConfigConstants.MINUTE_CHECK_DATA)) {
+                    logger.info("i am in MINUTE_CHECK_DATA");
+                    Map<String, String> headers = new HashMap<String, String>();
+                    headers.put("msgtype", "measure");
+                    headers.put(ConfigConstants.FILE_CHECK_DATA,
+                            "true");
+                    headers.put(AttributeConstants.UNIQ_ID,
+                            commonAttrMap.get(AttributeConstants.UNIQ_ID));
+                    for (ProxyMessage message : msgList) {
+                        byte[] body = message.getData();
+                        Event event = EventBuilder.withBody(body, headers);
+                        if (MessageUtils.isSyncSendForOrder(commonAttrMap
+                                .get(AttributeConstants.MESSAGE_SYNC_SEND))) {
+                            event = new OrderEvent(ctx, event);
+                        }
+                        try {
+                            processor.processEvent(event);
+                            this.addMetric(true, body.length, event);
+                        } catch (Throwable ex) {
+                            logger.error("Error writing to controller,data will discard.", ex);
+                            this.addMetric(false, body.length, event);
+                            throw new ChannelException(
+                                    "Process Controller Event error can't write event to channel.");
+                        }
                     }
                 }
-            }
-            SocketAddress remoteSocketAddress = remoteChannel.remoteAddress();
-            if (!checkMessageTopic || !MessageUtils.isSyncSendForOrder(commonAttrMap
-                    .get(AttributeConstants.MESSAGE_SYNC_SEND))) {
-                responsePackage(ctx, commonAttrMap, resultMap, remoteChannel,
-                        remoteSocketAddress, msgType);
+                SocketAddress remoteSocketAddress = remoteChannel.remoteAddress();
+                if (!checkMessageTopic || !MessageUtils.isSyncSendForOrder(commonAttrMap
+                        .get(AttributeConstants.MESSAGE_SYNC_SEND))) {
+                    responsePackage(ctx, commonAttrMap, resultMap, remoteChannel,
+                            remoteSocketAddress, msgType);
+                }
+            } catch (ChannelException ex) {
+                if (!pauseOnChannelFull(ctx, commonAttrMap, msgType)) {
+                    throw ex;
+                }
             }
         } finally {
             cb.release();
         }
     }
 
+    /**
+     * Fail the package back to the client and pause reading from the connection when the
+     * channel is full, instead of closing it and letting the client reconnect and retry.
+     * Only the binary protocol can carry an error code in its response, others are closed as before.
+     *
+     * @return true if the connection is paused
+     */
+    private boolean pauseOnChannelFull(ChannelHandlerContext ctx, Map<String, String> commonAttrMap,
+            MsgType msgType) {
+        if (flowController == null || !flowController.isEnable()
+                || !MsgType.MSG_BIN_MULTI_BODY.equals(msgType)) {
+            return false;
+        }
+        String uniqVal = commonAttrMap.get(AttributeConstants.UNIQ_ID);
+        if (uniqVal == null) {
+            return false;
+        }
+        if (!"false".equals(commonAttrMap.get(AttributeConstants.MESSAGE_IS_ACK))) {
+            ctx.channel().writeAndFlush(
+                    MessageUtils.getErrorResponsePackage(ErrorCode.OTHER_ERROR, msgType, uniqVal));
+        }
+        logger.warn("channel is full, pause reading from {}", ctx.channel());
+        flowController.pause(ctx.channel());
+        return true;
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         logger.error("exception caught cause = {}", cause);
@@ -738,13 +788,7 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
      * @param event
      */
     private void addMetric(boolean result, long size, Event event) {
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, "DataProxy");
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, source.getName());
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, source.getName());
-        DataProxyMetricItem.fillInlongId(event, dimensions);
-        DataProxyMetricItem.fillAuditFormatTime(event, dimensions);
-        DataProxyMetricItem metricItem = this.metricItemSet.findMetricItem(dimensions);
+        DataProxyMetricItem metricItem = this.metricItemSet.findMetricItem(metricKeyCache.getMetricKey(event));
         if (result) {
             metricItem.readSuccessCount.incrementAndGet();
             metricItem.readSuccessSize.addAndGet(size);
@@ -49,6 +49,7 @@ import org.apache.flume.source.AbstractSource;
 import org.apache.inlong.common.msg.InLongMsg;
 import org.apache.inlong.dataproxy.base.ProxyMessage;
 import org.apache.inlong.dataproxy.config.ConfigManager;
+import org.apache.inlong.dataproxy.config.RouteTable;
 import org.apache.inlong.dataproxy.consts.AttributeConstants;
 import org.apache.inlong.dataproxy.consts.ConfigConstants;
 import org.apache.inlong.dataproxy.exception.MessageIDException;
@@ -102,6 +103,7 @@ public class SimpleMessageHandler extends ChannelInboundHandlerAdapter {
     private final ServiceDecoder serviceProcessor;
     private final String defaultTopic;
     private String defaultMXAttr = "m=3";
+    private final Map<String, String> defaultMXAttrMap;
     private final String protocolType;
     private final DataProxyMetricItemSet metricItemSet;
 
@@ -131,6 +133,7 @@ public class SimpleMessageHandler extends ChannelInboundHandlerAdapter {
         if (null != attr) {
             this.defaultMXAttr = attr;
         }
+        this.defaultMXAttrMap = mapSplitter.split(this.defaultMXAttr);
 
         this.filterEmptyMsg = filterEmptyMsg;
         this.isCompressed = isCompressed;
@@ -250,16 +253,17 @@ public class SimpleMessageHandler extends ChannelInboundHandlerAdapter {
                 }
             }
 
-            String value = getTopic(groupId, streamId);
+            RouteTable.Route route = configManager.getRouteTable().find(groupId, streamId);
+            String value = (route == null) ? null : route.getTopic();
             if (StringUtils.isNotEmpty(value)) {
                 topicInfo.set(value.trim());
             }
 
-            Map<String, String> mxValue = configManager.getMxPropertiesMaps().get(groupId);
-            if (mxValue != null && mxValue.size() != 0) {
+            Map<String, String> mxValue = (route == null) ? null : route.getMxAttributes();
+            if (mxValue != null) {
                 message.getAttributeMap().putAll(mxValue);
             } else {
-                message.getAttributeMap().putAll(mapSplitter.split(this.defaultMXAttr));
+                message.getAttributeMap().putAll(this.defaultMXAttrMap);
             }
         } else {
             String num2name = commonAttrMap.get(AttributeConstants.NUM2NAME);
@@ -703,15 +707,7 @@ public class SimpleMessageHandler extends ChannelInboundHandlerAdapter {
      * get topic
      */
     private String getTopic(String groupId, String streamId) {
-        String topic = null;
-        if (StringUtils.isNotEmpty(groupId)) {
-            if (StringUtils.isNotEmpty(streamId)) {
-                topic = configManager.getTopicProperties().get(groupId + "/" + streamId);
-            }
-            if (StringUtils.isEmpty(topic)) {
-                topic = configManager.getTopicProperties().get(groupId);
-            }
-        }
+        String topic = configManager.getRouteTable().findTopic(groupId, streamId);
         logger.debug("Get topic by groupId = {} , streamId = {}", groupId, streamId);
         return topic;
     }
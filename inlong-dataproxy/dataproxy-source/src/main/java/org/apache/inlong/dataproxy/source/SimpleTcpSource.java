@@ -42,6 +42,7 @@ import org.apache.flume.conf.Configurable;
 import org.apache.inlong.common.metric.MetricRegister;
 import org.apache.inlong.dataproxy.consts.ConfigConstants;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
+import org.apache.inlong.dataproxy.metrics.StreamMetricKeyCache;
 import org.apache.inlong.dataproxy.utils.EventLoopUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,6 +86,10 @@ public class SimpleTcpSource extends BaseSource
 
     private DataProxyMetricItemSet metricItemSet;
 
+    private FlowController flowController;
+
+    private StreamMetricKeyCache metricKeyCache;
+
     public SimpleTcpSource() {
         super();
 
@@ -184,6 +189,9 @@ public class SimpleTcpSource extends BaseSource
         logger.info("start " + this.getName());
         this.metricItemSet = new DataProxyMetricItemSet(this.getName());
         MetricRegister.register(metricItemSet);
+        this.metricKeyCache = new StreamMetricKeyCache("DataProxy", this.getName(), this.getName());
+        this.flowController = new FlowController(this, context, metricItemSet, "DataProxy", this.getName());
+        this.flowController.start();
         checkBlackListThread = new CheckBlackListThread();
         checkBlackListThread.start();
 //        ThreadRenamingRunnable.setThreadNameDeterminer(ThreadNameDeterminer.CURRENT);
@@ -233,6 +241,9 @@ public class SimpleTcpSource extends BaseSource
     @Override
     public synchronized void stop() {
         checkBlackListThread.shutdouwn();
+        if (flowController != null) {
+            flowController.close();
+        }
         super.stop();
     }
 
@@ -278,6 +289,22 @@ public class SimpleTcpSource extends BaseSource
         return metricItemSet;
     }
 
+    /**
+     * get flowController
+     * @return the flowController
+     */
+    public FlowController getFlowController() {
+        return flowController;
+    }
+
+    /**
+     * get metricKeyCache
+     * @return the metricKeyCache
+     */
+    public StreamMetricKeyCache getMetricKeyCache() {
+        return metricKeyCache;
+    }
+
     @Override
     public String getProtocolName() {
         return "tcp";
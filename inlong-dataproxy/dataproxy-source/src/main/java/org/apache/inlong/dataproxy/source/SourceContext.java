@@ -28,6 +28,7 @@ import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
 import org.apache.inlong.dataproxy.config.holder.IdTopicConfigHolder;
 import org.apache.inlong.dataproxy.consts.ConfigConstants;
 import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
+import org.apache.inlong.dataproxy.metrics.StreamMetricKeyCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,12 +68,15 @@ public class SourceContext {
     // metric
     protected IdTopicConfigHolder idHolder;
     protected DataProxyMetricItemSet metricItemSet;
+    protected StreamMetricKeyCache metricKeyCache;
     // reload
     protected Context parentContext;
     protected long reloadInterval;
     protected Timer reloadTimer;
     // isRejectService
     protected boolean isRejectService = false;
+    // back-pressure
+    protected FlowController flowController;
 
     /**
      * Constructor
@@ -101,12 +105,15 @@ public class SourceContext {
         this.hostIp = this.getHostIp(context);
         this.hostPort = this.getHostPort(context);
         this.sourceDataId = String.valueOf(hostPort);
+        this.metricKeyCache = new StreamMetricKeyCache(proxyClusterId, sourceId, sourceDataId);
         // id topic
         this.idHolder = new IdTopicConfigHolder();
         this.idHolder.configure(context);
         //
         this.parentContext = context;
         this.reloadInterval = context.getLong(KEY_RELOADINTERVAL, 60000L);
+        // flow control
+        this.flowController = new FlowController(source, context, metricItemSet, proxyClusterId, sourceDataId);
     }
 
     /**
@@ -146,6 +153,7 @@ public class SourceContext {
         try {
             this.reload();
             this.setReloadTimer();
+            this.flowController.start();
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
         }
@@ -156,6 +164,7 @@ public class SourceContext {
      */
     public void close() {
         try {
+            this.flowController.close();
             this.reloadTimer.cancel();
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
@@ -322,4 +331,22 @@ public class SourceContext {
         this.isRejectService = isRejectService;
     }
 
+    /**
+     * get flowController
+     * 
+     * @return the flowController
+     */
+    public FlowController getFlowController() {
+        return flowController;
+    }
+
+    /**
+     * get metricKeyCache
+     * 
+     * @return the metricKeyCache
+     */
+    public StreamMetricKeyCache getMetricKeyCache() {
+        return metricKeyCache;
+    }
+
 }
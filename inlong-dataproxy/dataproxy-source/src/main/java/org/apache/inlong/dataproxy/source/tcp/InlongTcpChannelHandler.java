@@ -32,9 +32,7 @@ import org.apache.inlong.sdk.commons.protocol.ProxySdk.ResultCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import io.netty.buffer.ByteBuf;
@@ -84,6 +82,8 @@ public class InlongTcpChannelHandler extends ChannelInboundHandlerAdapter {
             return;
         }
         ByteBuf cb = (ByteBuf) msg;
+        // stop reading from the connection before the channels are full
+        sourceContext.getFlowController().pauseIfOverloaded(ctx.channel());
         try {
             int readableLength = cb.readableBytes();
             if (readableLength == 0) {
@@ -187,6 +187,7 @@ public class InlongTcpChannelHandler extends ChannelInboundHandlerAdapter {
             if (!callback.getHasResponsed().getAndSet(true)) {
                 this.responsePackage(ctx, ResultCode.ERR_REJECT, packObject);
             }
+            sourceContext.getFlowController().pause(ctx.channel());
         }
     }
 
@@ -213,6 +214,7 @@ public class InlongTcpChannelHandler extends ChannelInboundHandlerAdapter {
                 LOG.error("Process Controller Event error can't write event to channel.", ex);
                 this.addMetric(false, event.getBody().length, event);
                 this.responsePackage(ctx, ResultCode.ERR_REJECT, packObject);
+                sourceContext.getFlowController().pause(ctx.channel());
                 return;
             }
         }
@@ -227,13 +229,8 @@ public class InlongTcpChannelHandler extends ChannelInboundHandlerAdapter {
      * @param event
      */
     private void addMetric(boolean result, long size, Event event) {
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, sourceContext.getProxyClusterId());
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, sourceContext.getSourceId());
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, sourceContext.getSourceDataId());
-        DataProxyMetricItem.fillInlongId(event, dimensions);
-        DataProxyMetricItem.fillAuditFormatTime(event, dimensions);
-        DataProxyMetricItem metricItem = this.sourceContext.getMetricItemSet().findMetricItem(dimensions);
+        DataProxyMetricItem metricItem = this.sourceContext.getMetricItemSet()
+                .findMetricItem(sourceContext.getMetricKeyCache().getMetricKey(event));
         if (result) {
             metricItem.readSuccessCount.incrementAndGet();
             metricItem.readSuccessSize.addAndGet(size);
@@ -295,6 +292,7 @@ public class InlongTcpChannelHandler extends ChannelInboundHandlerAdapter {
                 LOG.error("Close connection error!", ex);
             }
             sourceContext.getAllChannels().remove(ctx.channel());
+            sourceContext.getFlowController().remove(ctx.channel());
         }
     }
 
@@ -315,7 +313,7 @@ public class InlongTcpChannelHandler extends ChannelInboundHandlerAdapter {
             LOG.error("channelInactive has exception e = {}", ex);
         }
         sourceContext.getAllChannels().remove(ctx.channel());
-
+        sourceContext.getFlowController().remove(ctx.channel());
     }
 
     /**
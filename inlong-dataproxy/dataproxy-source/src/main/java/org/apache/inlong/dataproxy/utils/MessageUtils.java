@@ -22,6 +22,7 @@ import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.apache.flume.Event;
 import org.apache.inlong.dataproxy.consts.AttributeConstants;
+import org.apache.inlong.dataproxy.exception.ErrorCode;
 import org.apache.inlong.dataproxy.source.MsgType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -87,6 +88,27 @@ public class MessageUtils {
         return binBuffer;
     }
 
+    /**
+     * Build a binary response carrying an error code, the client fails the message with it
+     *
+     * @param errorCode error code
+     * @param msgType message type
+     * @param sequenceId sequence Id
+     * @return ByteBuf
+     */
+    public static ByteBuf getErrorResponsePackage(ErrorCode errorCode, MsgType msgType, String sequenceId) {
+        byte[] errorAttr = errorCode.intToByteArray();
+        int binTotalLen = 1 + 4 + 2 + errorAttr.length + 2;
+        ByteBuf binBuffer = ByteBufAllocator.DEFAULT.buffer(4 + binTotalLen);
+        binBuffer.writeInt(binTotalLen);
+        binBuffer.writeByte(msgType.getValue());
+        binBuffer.writeInt((int) Long.parseLong(sequenceId));
+        binBuffer.writeShort(errorAttr.length);
+        binBuffer.writeBytes(errorAttr);
+        binBuffer.writeShort(0xee01);
+        return binBuffer;
+    }
+
     /**
      * get topic
      */
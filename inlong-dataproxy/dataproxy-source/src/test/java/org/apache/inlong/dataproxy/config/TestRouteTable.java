@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * 
+ * TestRouteTable
+ */
+public class TestRouteTable {
+
+    /**
+     * testFind
+     */
+    @Test
+    public void testFind() {
+        Map<String, String> topics = new HashMap<>();
+        topics.put("group1", " topic1 ");
+        topics.put("group1/stream1", "topic11");
+        topics.put("group1/stream2", "");
+        topics.put("group2/stream1", "topic21");
+        Map<String, Map<String, String>> mxMaps = new HashMap<>();
+        Map<String, String> mx1 = new HashMap<>();
+        mx1.put("m", "12");
+        mxMaps.put("group1", mx1);
+        mxMaps.put("group3", new HashMap<>());
+        RouteTable table = RouteTable.compile(topics, mxMaps);
+
+        assertEquals("topic1", table.findTopic("group1", null));
+        assertEquals("topic11", table.findTopic("group1", "stream1"));
+        // empty stream topic falls back to group topic
+        assertEquals("topic1", table.findTopic("group1", "stream2"));
+        assertEquals("topic1", table.findTopic("group1", "unknown"));
+        assertEquals("12", table.find("group1", "stream1").getMxAttributes().get("m"));
+        // stream route without group route
+        assertEquals("topic21", table.findTopic("group2", "stream1"));
+        assertNull(table.findTopic("group2", "stream2"));
+        assertNull(table.find("group2", "stream1").getMxAttributes());
+        // empty mx is ignored
+        assertNull(table.find("group3", null));
+        assertNull(table.find("", "stream1"));
+        assertNull(table.find(null, null));
+        assertEquals(2, table.size());
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.flume.Context;
+import org.junit.Test;
+
+/**
+ * 
+ * TestDispatchTuner
+ */
+public class TestDispatchTuner {
+
+    /**
+     * createContext
+     * 
+     * @param  adaptive
+     * @return
+     */
+    private static Context createContext(boolean adaptive) {
+        Map<String, String> params = new HashMap<>();
+        params.put(DispatchTuner.KEY_DISPATCH_ADAPTIVE, String.valueOf(adaptive));
+        params.put(DispatchManager.KEY_DISPATCH_MAX_PACKCOUNT, "256");
+        params.put(DispatchManager.KEY_DISPATCH_MAX_PACKSIZE, "327680");
+        params.put(DispatchManager.KEY_DISPATCH_TIMEOUT, "2000");
+        params.put(DispatchTuner.KEY_DISPATCH_TARGET_LATENCY, "200");
+        params.put(DispatchTuner.KEY_DISPATCH_QUEUE_HIGH_WATERMARK, "100");
+        params.put(DispatchTuner.KEY_DISPATCH_QUEUE_LOW_WATERMARK, "10");
+        return new Context(params);
+    }
+
+    /**
+     * testFixed
+     */
+    @Test
+    public void testFixed() {
+        DispatchTuner tuner = new DispatchTuner(createContext(false));
+        tuner.onSendComplete(5000);
+        tuner.adjust(10000);
+        assertEquals(256, tuner.getMaxPackCount());
+        assertEquals(327680, tuner.getMaxPackSize());
+        assertEquals(2000, tuner.getDispatchTimeout());
+    }
+
+    /**
+     * testCongested
+     */
+    @Test
+    public void testCongested() {
+        DispatchTuner tuner = new DispatchTuner(createContext(true));
+        tuner.adjust(1000);
+        assertEquals(512, tuner.getMaxPackCount());
+        assertEquals(3000, tuner.getDispatchTimeout());
+        tuner.onSendComplete(1000);
+        tuner.adjust(0);
+        assertEquals(1024, tuner.getMaxPackCount());
+        // upper bound
+        for (int i = 0; i < 10; i++) {
+            tuner.adjust(1000);
+        }
+        assertEquals(1024, tuner.getMaxPackCount());
+        assertEquals(327680 * 4, tuner.getMaxPackSize());
+        assertEquals(8000, tuner.getDispatchTimeout());
+        assertEquals(1024, tuner.getMetricItem().maxPackCount.get());
+    }
+
+    /**
+     * testIdle
+     */
+    @Test
+    public void testIdle() {
+        DispatchTuner tuner = new DispatchTuner(createContext(true));
+        tuner.onSendComplete(10);
+        tuner.adjust(0);
+        assertEquals(224, tuner.getMaxPackCount());
+        assertTrue(tuner.getDispatchTimeout() < 2000);
+        // lower bound
+        for (int i = 0; i < 100; i++) {
+            tuner.adjust(0);
+        }
+        assertEquals(64, tuner.getMaxPackCount());
+        assertEquals(500, tuner.getDispatchTimeout());
+        assertEquals(500, tuner.getCheckInterval());
+    }
+}
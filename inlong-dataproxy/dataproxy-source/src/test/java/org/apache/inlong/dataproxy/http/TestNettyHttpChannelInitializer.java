@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.inlong.dataproxy.consts.AttributeConstants;
+import org.junit.Test;
+
+/**
+ *
+ * TestNettyHttpChannelInitializer
+ */
+public class TestNettyHttpChannelInitializer {
+
+    private final List<String> bodies = new ArrayList<>();
+
+    /**
+     * createChannel
+     *
+     * @return
+     */
+    private EmbeddedChannel createChannel() {
+        MessageHandler messageHandler = new MessageHandler() {
+
+            @Override
+            public void configure(org.apache.flume.Context context) {
+            }
+
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public void processMessage(Context context) {
+                bodies.add((String) context.get(AttributeConstants.BODY));
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+        return new EmbeddedChannel(new NettyHttpChannelInitializer(messageHandler, new MessageFilter(1024),
+                MoreExecutors.newDirectExecutorService(), 1024, 4, 60000, true));
+    }
+
+    /**
+     * writeText
+     *
+     * @param channel
+     * @param text
+     */
+    private void writeText(EmbeddedChannel channel, String text) {
+        channel.writeInbound(Unpooled.copiedBuffer(text, StandardCharsets.UTF_8));
+        channel.runPendingTasks();
+    }
+
+    /**
+     * readText
+     *
+     * @param  channel
+     * @return
+     */
+    private String readText(EmbeddedChannel channel) {
+        ByteBuf buf = channel.readOutbound();
+        String text = buf.toString(StandardCharsets.UTF_8);
+        buf.release();
+        return text;
+    }
+
+    /**
+     * assertNoHttp1Handlers
+     *
+     * @param pipeline
+     */
+    private void assertNoHttp1Handlers(ChannelPipeline pipeline) {
+        assertNull(pipeline.get("http1Initializer"));
+        assertNull(pipeline.get("keepAliveHandler"));
+        assertNull(pipeline.get("aggregator"));
+        assertNull(pipeline.get("requestHandler"));
+    }
+
+    /**
+     * testHttp1Request
+     */
+    @Test
+    public void testHttp1Request() {
+        EmbeddedChannel channel = this.createChannel();
+        String body = "groupId=g&streamId=s&dt=1650000000000&body=msg";
+        this.writeText(channel, "POST /dataproxy/message HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Type: application/x-www-form-urlencoded\r\n"
+                + "Content-Length: " + body.length() + "\r\n\r\n" + body);
+
+        ChannelPipeline pipeline = channel.pipeline();
+        assertNull(pipeline.get("http1Initializer"));
+        assertNotNull(pipeline.get("keepAliveHandler"));
+        assertNotNull(pipeline.get("aggregator"));
+        assertNotNull(pipeline.get("requestHandler"));
+        assertTrue(this.readText(channel).startsWith("HTTP/1.1 200 OK"));
+        assertEquals(1, bodies.size());
+        assertEquals("msg", bodies.get(0));
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * testUpgradeToHttp2
+     */
+    @Test
+    public void testUpgradeToHttp2() {
+        EmbeddedChannel channel = this.createChannel();
+        this.writeText(channel, "GET /dataproxy/message HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Connection: Upgrade, HTTP2-Settings\r\n"
+                + "Upgrade: h2c\r\n"
+                + "HTTP2-Settings: AAMAAABkAAQAAP__\r\n\r\n");
+
+        assertTrue(this.readText(channel).startsWith("HTTP/1.1 101 Switching Protocols"));
+        ChannelPipeline pipeline = channel.pipeline();
+        this.assertNoHttp1Handlers(pipeline);
+        assertNotNull(pipeline.get(Http2FrameCodec.class));
+        assertNotNull(pipeline.get(Http2MultiplexHandler.class));
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * testHttp2PriorKnowledge
+     */
+    @Test
+    public void testHttp2PriorKnowledge() {
+        EmbeddedChannel channel = this.createChannel();
+        channel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+        channel.runPendingTasks();
+
+        ChannelPipeline pipeline = channel.pipeline();
+        this.assertNoHttp1Handlers(pipeline);
+        assertNotNull(pipeline.get(Http2FrameCodec.class));
+        assertNotNull(pipeline.get(Http2MultiplexHandler.class));
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.inlong.dataproxy.consts.AttributeConstants;
+import org.junit.Test;
+
+/**
+ * 
+ * TestNettyHttpRequestHandler
+ */
+public class TestNettyHttpRequestHandler {
+
+    private final List<String> bodies = new ArrayList<>();
+
+    /**
+     * createChannel
+     * 
+     * @return
+     */
+    private EmbeddedChannel createChannel() {
+        MessageHandler messageHandler = new MessageHandler() {
+
+            @Override
+            public void configure(org.apache.flume.Context context) {
+            }
+
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public void processMessage(Context context) {
+                bodies.add((String) context.get(AttributeConstants.BODY));
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+        return new EmbeddedChannel(new NettyHttpRequestHandler(messageHandler, new MessageFilter(1024),
+                MoreExecutors.newDirectExecutorService(), 4));
+    }
+
+    /**
+     * createRequest
+     * 
+     * @param  content
+     * @return
+     */
+    private FullHttpRequest createRequest(String content) {
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/dataproxy/message",
+                Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * readResponse
+     * 
+     * @param  channel
+     * @return
+     */
+    private String readResponse(EmbeddedChannel channel) {
+        channel.runPendingTasks();
+        FullHttpResponse response = channel.readOutbound();
+        String content = response.content().toString(StandardCharsets.UTF_8);
+        response.release();
+        return content;
+    }
+
+    /**
+     * testPipelinedRequests
+     */
+    @Test
+    public void testPipelinedRequests() {
+        EmbeddedChannel channel = this.createChannel();
+        for (int i = 0; i < 3; i++) {
+            channel.writeInbound(this.createRequest("groupId=g&streamId=s&dt=1650000000000&body=msg" + i));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals("{\"code\":\"1\",\"msg\":\"success\"}", this.readResponse(channel));
+        }
+        assertEquals(3, bodies.size());
+        assertEquals("msg0", bodies.get(0));
+        assertEquals("msg2", bodies.get(2));
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    /**
+     * testBadRequest
+     */
+    @Test
+    public void testBadRequest() {
+        EmbeddedChannel channel = this.createChannel();
+        channel.writeInbound(this.createRequest("groupId=g&dt=1650000000000&body=msg"));
+        assertEquals("{\"code\":\"-100\",\"msg\":\"Bad request from client. streamId must not be empty.\"}",
+                this.readResponse(channel));
+        assertEquals(0, bodies.size());
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.inlong.common.metric.MetricKey;
+import org.apache.inlong.dataproxy.config.holder.CommonPropertiesHolder;
+import org.junit.Test;
+
+/**
+ *
+ * TestSinkMetricKeyCache
+ */
+public class TestSinkMetricKeyCache {
+
+    private static final String CLUSTER_ID = "inlong5th_sz";
+    private static final String SINK_ID = "inlong5th-pulsar-sz";
+    private static final String TOPIC = "PULSAR_TOPIC_1";
+
+    /**
+     * testSameWindowReusesKey
+     */
+    @Test
+    public void testSameWindowReusesKey() {
+        SinkMetricKeyCache cache = new SinkMetricKeyCache(CLUSTER_ID, SINK_ID);
+        long interval = CommonPropertiesHolder.getAuditFormatInterval();
+        long windowTime = System.currentTimeMillis() / interval * interval;
+        MetricKey key = cache.getMetricKey(TOPIC, "group", "stream", windowTime);
+        assertSame(key, cache.getMetricKey(TOPIC, "group", "stream", windowTime + interval - 1));
+        // the same dimensions as the ones built for each dispatch profile before
+        Map<String, String> dimensions = new HashMap<>();
+        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, CLUSTER_ID);
+        dimensions.put(DataProxyMetricItem.KEY_SINK_ID, SINK_ID);
+        dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID, TOPIC);
+        dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID, "group");
+        dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID, "stream");
+        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(windowTime));
+        assertEquals(MetricKey.of(dimensions), key);
+        // the next window, the other topic and stream
+        assertNotEquals(key, cache.getMetricKey(TOPIC, "group", "stream", windowTime + interval));
+        assertNotEquals(key, cache.getMetricKey("PULSAR_TOPIC_2", "group", "stream", windowTime));
+        assertNotEquals(key, cache.getMetricKey(TOPIC, "group", "stream2", windowTime));
+    }
+
+    /**
+     * testBlankInlongId
+     */
+    @Test
+    public void testBlankInlongId() {
+        SinkMetricKeyCache cache = new SinkMetricKeyCache(CLUSTER_ID, SINK_ID);
+        Map<String, String> dimensions = cache.getMetricKey(TOPIC, null, "", 0).getDimensions();
+        assertEquals("-", dimensions.get(DataProxyMetricItem.KEY_INLONG_GROUP_ID));
+        assertEquals("-", dimensions.get(DataProxyMetricItem.KEY_INLONG_STREAM_ID));
+        MetricKey noRouteKey = cache.getMetricKey(0);
+        assertSame(noRouteKey, cache.getMetricKey(0));
+        assertEquals(null, noRouteKey.getDimensions().get(DataProxyMetricItem.KEY_SINK_DATA_ID));
+    }
+}
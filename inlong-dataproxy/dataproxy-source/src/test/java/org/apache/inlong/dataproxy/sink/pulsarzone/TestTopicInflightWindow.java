@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.pulsarzone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.inlong.dataproxy.dispatch.DispatchProfile;
+import org.junit.Test;
+
+/**
+ * 
+ * TestTopicInflightWindow, a stand-in of PulsarZoneWorker and pulsar producers:
+ * sends of the slow topic never complete, sends of the fast topic complete at once.
+ */
+public class TestTopicInflightWindow {
+
+    private static final String SLOW_TOPIC = "pulsar/inlong/slow";
+    private static final String FAST_TOPIC = "pulsar/inlong/fast";
+    private static final int WINDOW_SIZE = 4;
+    private static final int MAX_PARKED_COUNT = 10;
+
+    /**
+     * testNoHeadOfLineBlocking
+     */
+    @Test
+    public void testNoHeadOfLineBlocking() {
+        LinkedBlockingQueue<DispatchProfile> dispatchQueue = new LinkedBlockingQueue<>();
+        TopicInflightWindow window = new TopicInflightWindow(WINDOW_SIZE, 1000, dispatchQueue);
+        // the slow topic is at the head of the queue
+        for (int i = 0; i < 100; i++) {
+            dispatchQueue.offer(new DispatchProfile(SLOW_TOPIC, "slowGroup", "slowStream", 0));
+        }
+        for (int i = 0; i < 100; i++) {
+            dispatchQueue.offer(new DispatchProfile(FAST_TOPIC, "fastGroup", "fastStream", 0));
+        }
+        // worker loop, never blocks
+        List<DispatchProfile> slowInflight = new ArrayList<>();
+        int fastSent = 0;
+        DispatchProfile profile;
+        while ((profile = dispatchQueue.poll()) != null) {
+            String topic = profile.getUid();
+            if (!window.tryAcquire(topic, profile)) {
+                continue;
+            }
+            if (SLOW_TOPIC.equals(topic)) {
+                slowInflight.add(profile);
+            } else {
+                fastSent++;
+                window.release(topic);
+            }
+        }
+        assertEquals(100, fastSent);
+        assertEquals(WINDOW_SIZE, slowInflight.size());
+        assertEquals(WINDOW_SIZE, window.getInflightCount(SLOW_TOPIC));
+        assertEquals(100 - WINDOW_SIZE, window.getParkedCount(SLOW_TOPIC));
+        assertEquals(0, window.getInflightCount(FAST_TOPIC));
+        // the slow topic completes one send, one parked profile is moved back to the queue
+        window.release(SLOW_TOPIC);
+        assertEquals(1, dispatchQueue.size());
+        assertEquals(100 - WINDOW_SIZE - 1, window.getParkedCount(SLOW_TOPIC));
+        assertEquals(true, window.tryAcquire(SLOW_TOPIC, dispatchQueue.poll()));
+        assertEquals(WINDOW_SIZE, window.getInflightCount(SLOW_TOPIC));
+    }
+
+    /**
+     * testParkedFull
+     */
+    @Test
+    public void testParkedFull() {
+        LinkedBlockingQueue<DispatchProfile> dispatchQueue = new LinkedBlockingQueue<>();
+        TopicInflightWindow window = new TopicInflightWindow(WINDOW_SIZE, MAX_PARKED_COUNT, dispatchQueue);
+        for (int i = 0; i < WINDOW_SIZE + MAX_PARKED_COUNT - 1; i++) {
+            window.tryAcquire(SLOW_TOPIC, new DispatchProfile(SLOW_TOPIC, "slowGroup", "slowStream", 0));
+        }
+        assertFalse(window.isParkedFull());
+        // the sink stops taking from the channel once the bound is reached
+        window.tryAcquire(SLOW_TOPIC, new DispatchProfile(SLOW_TOPIC, "slowGroup", "slowStream", 0));
+        assertEquals(MAX_PARKED_COUNT, window.getParkedCount(SLOW_TOPIC));
+        assertTrue(window.isParkedFull());
+        // a completed send moves a parked profile back to the queue and the sink takes again
+        window.release(SLOW_TOPIC);
+        assertEquals(1, dispatchQueue.size());
+        assertFalse(window.isParkedFull());
+    }
+}
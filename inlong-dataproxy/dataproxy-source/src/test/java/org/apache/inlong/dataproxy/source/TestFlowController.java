@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.flume.Context;
+import org.apache.flume.source.AbstractSource;
+import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
+import org.junit.Test;
+
+/**
+ * 
+ * TestFlowController
+ */
+public class TestFlowController {
+
+    private double occupancy = 0;
+
+    /**
+     * createFlowController
+     * 
+     * @return
+     */
+    private FlowController createFlowController() {
+        Map<String, String> params = new HashMap<>();
+        params.put(FlowController.KEY_FLOW_CONTROL_ENABLE, "true");
+        params.put(FlowController.KEY_HIGH_WATERMARK, "80");
+        params.put(FlowController.KEY_LOW_WATERMARK, "60");
+        params.put(FlowController.KEY_MAX_PAUSE_TIME, "10000");
+        params.put(FlowController.KEY_RESUME_BATCH, "2");
+        AbstractSource source = new AbstractSource() {
+        };
+        source.setName("testSource");
+        return new FlowController(source, new Context(params), new DataProxyMetricItemSet("testSource"),
+                "testCluster", "testSource") {
+
+            @Override
+            protected double currentOccupancy() {
+                return occupancy;
+            }
+        };
+    }
+
+    /**
+     * testWatermark
+     */
+    @Test
+    public void testWatermark() {
+        FlowController controller = this.createFlowController();
+        EmbeddedChannel channel = new EmbeddedChannel();
+        // below high watermark
+        occupancy = 70;
+        controller.check(0);
+        assertFalse(controller.pauseIfOverloaded(channel));
+        assertTrue(channel.config().isAutoRead());
+        // above high watermark
+        occupancy = 90;
+        controller.check(0);
+        assertTrue(controller.pauseIfOverloaded(channel));
+        assertFalse(channel.config().isAutoRead());
+        // between the watermarks, stay paused
+        occupancy = 70;
+        controller.check(100);
+        assertTrue(controller.isOverloaded());
+        assertFalse(channel.config().isAutoRead());
+        // below low watermark
+        occupancy = 50;
+        controller.check(200);
+        assertFalse(controller.isOverloaded());
+        assertTrue(channel.config().isAutoRead());
+        assertEquals(0, controller.getPausedCount());
+    }
+
+    /**
+     * testFairResume
+     */
+    @Test
+    public void testFairResume() {
+        FlowController controller = this.createFlowController();
+        occupancy = 90;
+        controller.check(0);
+        EmbeddedChannel[] channels = new EmbeddedChannel[5];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new EmbeddedChannel();
+            assertTrue(controller.pause(channels[i]));
+        }
+        // a paused channel is not queued twice
+        assertFalse(controller.pause(channels[0]));
+        assertEquals(5, controller.getPausedCount());
+        // resume the earliest paused channels first, a batch per check
+        occupancy = 0;
+        controller.check(100);
+        assertTrue(channels[0].config().isAutoRead());
+        assertTrue(channels[1].config().isAutoRead());
+        assertFalse(channels[2].config().isAutoRead());
+        controller.check(200);
+        assertTrue(channels[3].config().isAutoRead());
+        assertFalse(channels[4].config().isAutoRead());
+        controller.remove(channels[4]);
+        assertEquals(0, controller.getPausedCount());
+    }
+
+    /**
+     * testMaxPauseTime
+     */
+    @Test
+    public void testMaxPauseTime() {
+        FlowController controller = this.createFlowController();
+        occupancy = 90;
+        controller.check(0);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        assertTrue(controller.pause(channel));
+        controller.check(System.currentTimeMillis() + 5000);
+        assertFalse(channel.config().isAutoRead());
+        controller.check(System.currentTimeMillis() + 20000);
+        assertTrue(channel.config().isAutoRead());
+    }
+}
@@ -39,6 +39,23 @@ public class ConfigConstants {
     public static final int ASYNC_CALLBACK_SIZE = 50000;
     public static final int MAX_ASYNC_CALLBACK_SIZE = 2000000;
 
+    /* Configure the accumulator which batches the single messages of asynchronously sending. */
+    public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+    // the message count of a batch is carried in 16 bits
+    public static final int MAX_BATCH_RECORDS = 0xFFFF;
+    public static final int DEFAULT_BATCH_MAX_RECORDS = 4096;
+    // max chars of the msgUUIDs of a batch, joined by commas, the attributes are carried in 16 bits
+    public static final int MAX_BATCH_MSG_UUIDS_LENGTH = 8 * 1024;
+    public static final long DEFAULT_LINGER_MS = 5;
+    public static final long DEFAULT_ACCUMULATOR_BUFFER_MEMORY = 32 * 1024 * 1024L;
+
+    /* Configure the local disk spool used when all the proxies are unreachable. */
+    public static final long DEFAULT_SPOOL_MAX_BYTES = 1024 * 1024 * 1024L;
+    public static final long DEFAULT_SPOOL_SEGMENT_BYTES = 64 * 1024 * 1024L;
+    public static final int DEFAULT_SPOOL_REPLAY_RATE = 1000;
+    public static final int DEFAULT_SPOOL_CURSOR_SYNC_RECORDS = 1000;
+    public static final long DEFAULT_SPOOL_CURSOR_SYNC_INTERVAL_MS = 1000;
+
     /* Configure the proxy IP list refresh parameters. */
     public static final int PROXY_UPDATE_INTERVAL_MINUTES = 5;
 
@@ -26,9 +26,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.inlong.sdk.dataproxy.codec.EncodeObject;
+import org.apache.inlong.sdk.dataproxy.codec.EncodedBatch;
 import org.apache.inlong.sdk.dataproxy.config.ProxyConfigEntry;
 import org.apache.inlong.sdk.dataproxy.config.ProxyConfigManager;
 import org.apache.inlong.sdk.dataproxy.network.ProxysdkException;
+import org.apache.inlong.sdk.dataproxy.network.RecordAccumulator;
 import org.apache.inlong.sdk.dataproxy.network.Sender;
 import org.apache.inlong.sdk.dataproxy.network.SequentialID;
 import org.apache.inlong.sdk.dataproxy.network.Utils;
@@ -56,6 +58,8 @@ public class DefaultMessageSender implements MessageSender {
             new ConcurrentHashMap<>();
 
     private final IndexCollectThread indexCol;
+    /* Batch the single messages of async sending, null if not enabled */
+    private final RecordAccumulator accumulator;
     /* Store index <groupId_streamId,cnt>*/
     private final Map<String, Long> storeIndex = new ConcurrentHashMap<String, Long>();
 
@@ -130,6 +134,16 @@ public class DefaultMessageSender implements MessageSender {
         groupId = configure.getGroupId();
         indexCol = new IndexCollectThread(storeIndex);
         indexCol.start();
+        if (configure.isEnableBatchAccumulate()) {
+            accumulator = new RecordAccumulator(batch -> asyncSendMessage(batch, batch.getBodyList(),
+                    batch.getGroupId(), batch.getStreamId(), batch.getDt(),
+                    batch.getMsgUUID() == null ? idGenerator.getNextId() : batch.getMsgUUID(),
+                    batch.getTimeout(), batch.getTimeUnit()),
+                    configure.getBatchSize(), configure.getBatchMaxRecords(), configure.getLingerMs(),
+                    configure.getAccumulatorBufferMemory());
+        } else {
+            accumulator = null;
+        }
 
         if (configure.isEnableSaveManagerVIps()
                 && configure.isLocalVisit()
@@ -319,6 +333,25 @@ public class DefaultMessageSender implements MessageSender {
         return null;
     }
 
+    /**
+     * send a batch encoded by {@link org.apache.inlong.sdk.dataproxy.codec.BatchBodyEncoder},
+     * only the message type 7 carries an encoded body, the extra attributes are optional
+     */
+    public SendResult sendMessage(EncodedBatch encodedBatch, String groupId, String streamId, long dt,
+                                  String msgUUID, long timeout, TimeUnit timeUnit, Map<String, String> extraAttrMap) {
+        dt = ProxyUtils.covertZeroDt(dt);
+        boolean hasAttrs = extraAttrMap != null && !extraAttrMap.isEmpty();
+        if (msgtype != 7 || encodedBatch == null || encodedBatch.getCnt() == 0 || !ProxyUtils.isDtValid(dt)
+                || (hasAttrs && !ProxyUtils.isAttrKeysValid(extraAttrMap))) {
+            return SendResult.INVALID_ATTRIBUTES;
+        }
+        addIndexCnt(groupId, streamId, encodedBatch.getCnt());
+        String attrs = hasAttrs ? ProxyUtils.convertAttrToStr(extraAttrMap).toString() : "";
+        EncodeObject encodeObject = new EncodeObject(encodedBatch, msgtype, isReport, isGroupIdTransfer,
+                dt / 1000, idGenerator.getNextInt(), groupId, streamId, attrs);
+        return sender.syncSendMessage(encodeObject, msgUUID, timeout, timeUnit);
+    }
+
     @Deprecated
     public void asyncSendMessage(SendMessageCallback callback, byte[] body, String attributes, String msgUUID,
                                  long timeout, TimeUnit timeUnit) throws ProxysdkException {
@@ -333,6 +366,11 @@ public class DefaultMessageSender implements MessageSender {
         if (!ProxyUtils.isBodyValid(body) || !ProxyUtils.isDtValid(dt)) {
             throw new ProxysdkException(SendResult.INVALID_ATTRIBUTES.toString());
         }
+        if (accumulator != null) {
+            // the batch is sent through the body list sending, which counts the index
+            accumulator.append(groupId, streamId, dt, body, msgUUID, callback, timeout, timeUnit);
+            return;
+        }
         addIndexCnt(groupId, streamId, 1);
 
         boolean isCompressEnd = (isCompress && (body.length > cpsSize));
@@ -457,6 +495,26 @@ public class DefaultMessageSender implements MessageSender {
 
     }
 
+    /**
+     * asynchronously send a batch encoded by {@link org.apache.inlong.sdk.dataproxy.codec.BatchBodyEncoder},
+     * only the message type 7 carries an encoded body, the extra attributes are optional
+     */
+    public void asyncSendMessage(SendMessageCallback callback, EncodedBatch encodedBatch, String groupId,
+                                 String streamId, long dt, String msgUUID, long timeout, TimeUnit timeUnit,
+                                 Map<String, String> extraAttrMap) throws ProxysdkException {
+        dt = ProxyUtils.covertZeroDt(dt);
+        boolean hasAttrs = extraAttrMap != null && !extraAttrMap.isEmpty();
+        if (msgtype != 7 || encodedBatch == null || encodedBatch.getCnt() == 0 || !ProxyUtils.isDtValid(dt)
+                || (hasAttrs && !ProxyUtils.isAttrKeysValid(extraAttrMap))) {
+            throw new ProxysdkException(SendResult.INVALID_ATTRIBUTES.toString());
+        }
+        addIndexCnt(groupId, streamId, encodedBatch.getCnt());
+        String attrs = hasAttrs ? ProxyUtils.convertAttrToStr(extraAttrMap).toString() : "";
+        EncodeObject encodeObject = new EncodeObject(encodedBatch, msgtype, isReport, isGroupIdTransfer,
+                dt / 1000, idGenerator.getNextInt(), groupId, streamId, attrs);
+        sender.asyncSendMessage(encodeObject, callback, msgUUID, timeout, timeUnit);
+    }
+
     /**
      * asyncSendMessage
      * 
@@ -610,6 +668,9 @@ public class DefaultMessageSender implements MessageSender {
         if (sender.getClusterId() != null) {
             cacheSender.remove(sender.getClusterId());
         }
+        if (accumulator != null) {
+            accumulator.close();
+        }
         sender.close();
         shutdownInternalThreads();
     }
@@ -91,6 +91,38 @@ public class ProxyClientConfig {
     private int ioThreadNum = Runtime.getRuntime().availableProcessors();
     private boolean enableBusyWait = false;
 
+    // config for the accumulator of async sending
+    // whether accumulate the single messages into per stream batches, default is false
+    private boolean enableBatchAccumulate = false;
+    // max bytes of a batch, the batch is sent once reached
+    private int batchSize = ConfigConstants.DEFAULT_BATCH_SIZE;
+    // max messages of a batch, the batch is sent once reached
+    private int batchMaxRecords = ConfigConstants.DEFAULT_BATCH_MAX_RECORDS;
+    // max time in milliseconds a batch waits for more messages
+    private long lingerMs = ConfigConstants.DEFAULT_LINGER_MS;
+    // max bytes buffered in the accumulator
+    private long accumulatorBufferMemory = ConfigConstants.DEFAULT_ACCUMULATOR_BUFFER_MEMORY;
+
+    // config for the disk spool
+    // whether spool the messages to local disk when all the proxies are unreachable, default is false
+    private boolean enableSpool = false;
+    // directory of the spool, default is the spool directory under confStoreBasePath
+    private String spoolPath = null;
+    // max bytes of the spool
+    private long spoolMaxBytes = ConfigConstants.DEFAULT_SPOOL_MAX_BYTES;
+    // bytes of a spool segment file
+    private long spoolSegmentBytes = ConfigConstants.DEFAULT_SPOOL_SEGMENT_BYTES;
+    // max messages replayed per second, new messages are queued behind the spooled ones until they are
+    // replayed, so it should be above the send rate
+    private int spoolReplayRate = ConfigConstants.DEFAULT_SPOOL_REPLAY_RATE;
+    // the replay position is saved every so many replayed messages or milliseconds, the messages replayed
+    // after the last save are replayed again after a restart
+    private int spoolCursorSyncRecords = ConfigConstants.DEFAULT_SPOOL_CURSOR_SYNC_RECORDS;
+    private long spoolCursorSyncIntervalMs = ConfigConstants.DEFAULT_SPOOL_CURSOR_SYNC_INTERVAL_MS;
+    // whether force every spooled message to the disk, default is false, then the spooled messages survive
+    // a crash of the process but may be lost on a crash of the OS or a power failure
+    private boolean spoolSyncOnAppend = false;
+
     /*pay attention to the last url parameter ip*/
     public ProxyClientConfig(String localHost, boolean isLocalVisit, String managerIp,
             int managerPort, String groupId, String netTag) throws ProxysdkException {
@@ -449,4 +481,139 @@ public class ProxyClientConfig {
     public void setEnableBusyWait(boolean enableBusyWait) {
         this.enableBusyWait = enableBusyWait;
     }
+
+    public boolean isEnableBatchAccumulate() {
+        return enableBatchAccumulate;
+    }
+
+    public void setEnableBatchAccumulate(boolean enableBatchAccumulate) {
+        this.enableBatchAccumulate = enableBatchAccumulate;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchMaxRecords() {
+        return batchMaxRecords;
+    }
+
+    public void setBatchMaxRecords(int batchMaxRecords) {
+        if (batchMaxRecords <= 0 || batchMaxRecords > ConfigConstants.MAX_BATCH_RECORDS) {
+            throw new IllegalArgumentException("batchMaxRecords must be in [1, "
+                    + ConfigConstants.MAX_BATCH_RECORDS + "]");
+        }
+        this.batchMaxRecords = batchMaxRecords;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(long lingerMs) {
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException("lingerMs must not be negative");
+        }
+        this.lingerMs = lingerMs;
+    }
+
+    public long getAccumulatorBufferMemory() {
+        return accumulatorBufferMemory;
+    }
+
+    public void setAccumulatorBufferMemory(long accumulatorBufferMemory) {
+        if (accumulatorBufferMemory <= 0) {
+            throw new IllegalArgumentException("accumulatorBufferMemory must be positive");
+        }
+        this.accumulatorBufferMemory = accumulatorBufferMemory;
+    }
+
+    public boolean isEnableSpool() {
+        return enableSpool;
+    }
+
+    public void setEnableSpool(boolean enableSpool) {
+        this.enableSpool = enableSpool;
+    }
+
+    public String getSpoolPath() {
+        if (spoolPath == null) {
+            return confStoreBasePath + "spool";
+        }
+        return spoolPath;
+    }
+
+    public void setSpoolPath(String spoolPath) {
+        this.spoolPath = spoolPath;
+    }
+
+    public long getSpoolMaxBytes() {
+        return spoolMaxBytes;
+    }
+
+    public void setSpoolMaxBytes(long spoolMaxBytes) {
+        if (spoolMaxBytes <= 0) {
+            throw new IllegalArgumentException("spoolMaxBytes must be positive");
+        }
+        this.spoolMaxBytes = spoolMaxBytes;
+    }
+
+    public long getSpoolSegmentBytes() {
+        return spoolSegmentBytes;
+    }
+
+    public void setSpoolSegmentBytes(long spoolSegmentBytes) {
+        if (spoolSegmentBytes <= 0) {
+            throw new IllegalArgumentException("spoolSegmentBytes must be positive");
+        }
+        this.spoolSegmentBytes = spoolSegmentBytes;
+    }
+
+    public int getSpoolReplayRate() {
+        return spoolReplayRate;
+    }
+
+    public void setSpoolReplayRate(int spoolReplayRate) {
+        if (spoolReplayRate <= 0) {
+            throw new IllegalArgumentException("spoolReplayRate must be positive");
+        }
+        this.spoolReplayRate = spoolReplayRate;
+    }
+
+    public int getSpoolCursorSyncRecords() {
+        return spoolCursorSyncRecords;
+    }
+
+    public void setSpoolCursorSyncRecords(int spoolCursorSyncRecords) {
+        if (spoolCursorSyncRecords <= 0) {
+            throw new IllegalArgumentException("spoolCursorSyncRecords must be positive");
+        }
+        this.spoolCursorSyncRecords = spoolCursorSyncRecords;
+    }
+
+    public long getSpoolCursorSyncIntervalMs() {
+        return spoolCursorSyncIntervalMs;
+    }
+
+    public void setSpoolCursorSyncIntervalMs(long spoolCursorSyncIntervalMs) {
+        if (spoolCursorSyncIntervalMs < 0) {
+            throw new IllegalArgumentException("spoolCursorSyncIntervalMs must not be negative");
+        }
+        this.spoolCursorSyncIntervalMs = spoolCursorSyncIntervalMs;
+    }
+
+    public boolean isSpoolSyncOnAppend() {
+        return spoolSyncOnAppend;
+    }
+
+    public void setSpoolSyncOnAppend(boolean spoolSyncOnAppend) {
+        this.spoolSyncOnAppend = spoolSyncOnAppend;
+    }
 }
@@ -27,6 +27,8 @@ public enum SendResult {
     ASYNC_CALLBACK_BUFFER_FULL,
     NO_CONNECTION,
     INVALID_DATA,
-    UNKOWN_ERROR
+    UNKOWN_ERROR,
+    // the message is stored in the local disk spool, and will be sent when the proxies are reachable again
+    SPOOLED
 
 }
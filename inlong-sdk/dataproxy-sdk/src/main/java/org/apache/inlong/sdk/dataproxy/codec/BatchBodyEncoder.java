@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.inlong.sdk.dataproxy.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.xerial.snappy.Snappy;
+
+/**
+ * Encode a body list into the body of a message of type 7 by {@link LengthPrefixedBodyWriter}, the same
+ * writer {@link ProtocolEncoder} uses for a body list, compressed by snappy if needed.
+ * An uncompressed body is written straight into the array handed over. A compressed body is assembled and
+ * compressed in reusable buffers, and only the compressed bytes are copied out, so a batch kept for resend
+ * does not pin a buffer sized for the worst case of compression.
+ * An encoder must not be shared between threads.
+ */
+public class BatchBodyEncoder {
+
+    private static final int INIT_BUFFER_SIZE = 64 * 1024;
+    // a buffer grown above this size is released after use, to not pin memory for a rare big batch
+    private static final int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private ByteBuf buffer = Unpooled.buffer(INIT_BUFFER_SIZE);
+    private byte[] compressBuffer = new byte[0];
+
+    /**
+     * encode the body list, the returned batch does not refer to the reusable buffers
+     *
+     * @param bodyList the entries, should not be empty
+     * @param compress whether to compress the body by snappy
+     * @param supportLF whether to join the entries by line separators
+     */
+    public EncodedBatch encode(List<byte[]> bodyList, boolean compress, boolean supportLF) throws IOException {
+        int rawLength = LengthPrefixedBodyWriter.length(bodyList, supportLF);
+        if (!compress) {
+            byte[] body = new byte[rawLength];
+            LengthPrefixedBodyWriter.write(Unpooled.wrappedBuffer(body).clear(), bodyList, supportLF);
+            return new EncodedBatch(body, bodyList.size(), rawLength, false, supportLF);
+        }
+        buffer.clear().ensureWritable(rawLength);
+        LengthPrefixedBodyWriter.write(buffer, bodyList, supportLF);
+        int maxLength = Snappy.maxCompressedLength(rawLength);
+        if (compressBuffer.length < maxLength) {
+            compressBuffer = new byte[maxLength];
+        }
+        int bodyLength = Snappy.compress(buffer.array(), buffer.arrayOffset(), rawLength, compressBuffer, 0);
+        byte[] body = Arrays.copyOf(compressBuffer, bodyLength);
+        if (buffer.capacity() > MAX_BUFFER_SIZE) {
+            buffer = Unpooled.buffer(INIT_BUFFER_SIZE);
+        }
+        if (compressBuffer.length > MAX_BUFFER_SIZE) {
+            compressBuffer = new byte[0];
+        }
+        return new EncodedBatch(body, bodyList.size(), rawLength, true, supportLF);
+    }
+}
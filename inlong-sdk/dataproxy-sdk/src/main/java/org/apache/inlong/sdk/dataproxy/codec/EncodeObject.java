@@ -30,6 +30,7 @@ public class EncodeObject {
     private String messageId;
     private int msgtype;
     private List<byte[]> bodylist;
+    private EncodedBatch encodedBatch;
     private String commonattr = "";
     private String messageKey = "data";
     private String proxyIp = "";
@@ -175,6 +176,24 @@ public class EncodeObject {
         this.proxyIp = proxyIp;
     }
 
+    // file agent, used for encoded batch initializtion,msgtype=7
+    public EncodeObject(EncodedBatch encodedBatch, int msgtype, boolean isReport,
+                        boolean isGroupIdTransfer, long dt, long seqId,
+                        String groupId, String streamId, String commonattr) {
+        this.encodedBatch = encodedBatch;
+        this.msgtype = msgtype;
+        this.isCompress = encodedBatch.isCompress();
+        this.isSupportLF = encodedBatch.isSupportLF();
+        this.cnt = encodedBatch.getCnt();
+        this.isReport = isReport;
+        this.dt = dt;
+        this.isGroupIdTransfer = isGroupIdTransfer;
+        this.commonattr = commonattr;
+        this.messageId = String.valueOf(seqId);
+        this.groupId = groupId;
+        this.streamId = streamId;
+    }
+
     public String getMsgUUID() {
         return msgUUID;
     }
@@ -313,6 +332,10 @@ public class EncodeObject {
         return bodylist;
     }
 
+    public EncodedBatch getEncodedBatch() {
+        return encodedBatch;
+    }
+
     public int getMsgtype() {
         return msgtype;
     }
@@ -362,6 +385,9 @@ public class EncodeObject {
     }
 
     public int getRealCnt() {
+        if (encodedBatch != null) {
+            return encodedBatch.getCnt();
+        }
         if (bodylist != null) {
             return bodylist.size();
         }
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.inlong.sdk.dataproxy.codec;
+
+/**
+ * The body of a message of type 7 encoded in advance by {@link BatchBodyEncoder}.
+ * {@link ProtocolEncoder} sends it without copy, so a batch resent on failure is not encoded again.
+ */
+public class EncodedBatch {
+
+    private final byte[] body;
+    private final int cnt;
+    private final int rawLength;
+    private final boolean compress;
+    private final boolean supportLF;
+
+    public EncodedBatch(byte[] body, int cnt, int rawLength, boolean compress, boolean supportLF) {
+        this.body = body;
+        this.cnt = cnt;
+        this.rawLength = rawLength;
+        this.compress = compress;
+        this.supportLF = supportLF;
+    }
+
+    /**
+     * the encoded body, without the length prefix written by the encoder
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int getCnt() {
+        return cnt;
+    }
+
+    /**
+     * the length of the body before compression
+     */
+    public int getRawLength() {
+        return rawLength;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    public boolean isSupportLF() {
+        return supportLF;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.inlong.sdk.dataproxy.codec;
+
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+
+/**
+ * Write a body list in the layout of a message body: each entry prefixed by its length, or all entries
+ * joined by line separators behind one length. Shared by {@link ProtocolEncoder} and {@link BatchBodyEncoder},
+ * so a batch encoded in advance is the same as the body list encoded on send.
+ */
+final class LengthPrefixedBodyWriter {
+
+    private static final byte LINE_SEPARATOR = '\n';
+
+    private LengthPrefixedBodyWriter() {
+    }
+
+    /**
+     * the number of bytes written by {@link #write}
+     */
+    static int length(List<byte[]> bodyList, boolean supportLF) {
+        int length = 0;
+        for (byte[] entry : bodyList) {
+            length += entry.length;
+        }
+        if (supportLF) {
+            return 4 + length + bodyList.size() - 1;
+        }
+        return length + 4 * bodyList.size();
+    }
+
+    /**
+     * write the body list into the target buffer
+     *
+     * @param target the buffer to write into
+     * @param bodyList the entries, should not be empty
+     * @param supportLF whether to join the entries by line separators
+     */
+    static void write(ByteBuf target, List<byte[]> bodyList, boolean supportLF) {
+        if (supportLF) {
+            int lenIndex = target.writerIndex();
+            target.writeInt(0);
+            int len = bodyList.size();
+            for (int i = 0; i < len - 1; i++) {
+                target.writeBytes(bodyList.get(i));
+                target.writeByte(LINE_SEPARATOR);
+            }
+            target.writeBytes(bodyList.get(len - 1));
+            target.setInt(lenIndex, target.writerIndex() - lenIndex - 4);
+        } else {
+            for (byte[] entry : bodyList) {
+                target.writeInt(entry.length);
+                target.writeBytes(entry);
+            }
+        }
+    }
+}
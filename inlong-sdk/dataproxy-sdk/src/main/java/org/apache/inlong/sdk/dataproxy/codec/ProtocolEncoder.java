@@ -24,58 +24,107 @@ import static org.apache.inlong.sdk.dataproxy.ConfigConstants.FLAG_ALLOW_ENCRYPT
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import java.io.ByteArrayOutputStream;
+import io.netty.util.concurrent.FastThreadLocal;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
-import java.util.Iterator;
 
 import java.util.List;
 import org.apache.inlong.sdk.dataproxy.config.EncryptConfigEntry;
 import org.apache.inlong.sdk.dataproxy.config.EncryptInfo;
 import org.apache.inlong.sdk.dataproxy.network.Utils;
+import org.apache.inlong.sdk.dataproxy.threads.MetricWorkerThread;
 import org.apache.inlong.sdk.dataproxy.utils.EncryptUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xerial.snappy.Snappy;
 
+/**
+ * Encode the message into a buffer of the channel allocator.
+ * The body is assembled in a reusable direct scratch buffer of the event-loop thread,
+ * and compressed by snappy straight into the target buffer, without intermediate byte arrays.
+ * A body already encoded or encrypted is not copied, the message is composed of the head, the body and the tail.
+ */
 public class ProtocolEncoder extends MessageToMessageEncoder<EncodeObject> {
     private static final Logger logger = LoggerFactory
             .getLogger(ProtocolEncoder.class);
 
+    private static final int INIT_SCRATCH_SIZE = 64 * 1024;
+    // a scratch grown above this size is released after use, to not pin memory for a rare big message
+    private static final int MAX_SCRATCH_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_UNSIGNED_SHORT = 0xFFFF;
+    private static final byte[] LINE_SEPARATOR = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final FastThreadLocal<ByteBuf> SCRATCH = new FastThreadLocal<ByteBuf>() {
+
+        @Override
+        protected ByteBuf initialValue() {
+            return Unpooled.directBuffer(INIT_SCRATCH_SIZE);
+        }
+
+        @Override
+        protected void onRemoval(ByteBuf value) {
+            value.release();
+        }
+    };
+
+    private final MetricWorkerThread metricWorker;
+
+    public ProtocolEncoder() {
+        this(null);
+    }
+
+    /**
+     * @param metricWorker the metric worker to report the allocated bytes, may be null
+     */
+    public ProtocolEncoder(MetricWorkerThread metricWorker) {
+        this.metricWorker = metricWorker;
+    }
+
     protected void encode(ChannelHandlerContext ctx,
             EncodeObject message, List<Object> out) throws Exception {
         ByteBuf buf = null;
+        ByteBuf scratch = SCRATCH.get();
         try {
             EncodeObject object = message;
             if (object.getMsgtype() == 3) {
-                buf = writeToBuf3(object);
+                buf = writeToBuf3(ctx.alloc(), object, scratch);
             }
             if (object.getMsgtype() == 5) {
-                buf = writeToBuf5(object);
+                buf = writeToBuf5(ctx.alloc(), object, scratch);
             }
 
             if (object.getMsgtype() == 7) {
-                buf = writeToBuf7(object);
+                buf = writeToBuf7(ctx.alloc(), object, scratch);
             }
             if (object.getMsgtype() == 8) {
-                buf = writeToBuf8(object);
+                buf = writeToBuf8(ctx.alloc(), object);
             }
         } catch (Exception e) {
             logger.error("{}", e.getMessage());
             e.printStackTrace();
+        } finally {
+            scratch.clear();
+            if (scratch.capacity() > MAX_SCRATCH_SIZE) {
+                SCRATCH.remove();
+            }
         }
         if (buf != null) {
+            if (metricWorker != null) {
+                metricWorker.recordEncodedBytes(message.getRealCnt(), buf.capacity());
+            }
             out.add(buf);
         } else {
             logger.warn("write buf is null !");
         }
     }
 
-    private ByteBuf writeToBuf8(EncodeObject object) {
+    private ByteBuf writeToBuf8(ByteBufAllocator alloc, EncodeObject object) {
         ByteBuf buf = null;
         try {
             String endAttr = object.getCommonattr();
@@ -100,16 +149,17 @@ public class ProtocolEncoder extends MessageToMessageEncoder<EncodeObject> {
             if (object.isAuth()) {
                 msgType |= FLAG_ALLOW_AUTH;
             }
-            int totalLength = 1 + 4 + 1 + 4 + 2 + endAttr.getBytes("utf8").length + 2;
-            buf = ByteBufAllocator.DEFAULT.buffer(4 + totalLength);
+            byte[] attrBytes = endAttr.getBytes(StandardCharsets.UTF_8);
+            int totalLength = 1 + 4 + 1 + 4 + 2 + attrBytes.length + 2;
+            buf = alloc.ioBuffer(4 + totalLength);
             buf.writeInt(totalLength);
             buf.writeByte(msgType);
             buf.writeInt((int) object.getDt());
             buf.writeByte(1);
             buf.writeInt(0);
-            buf.writeShort(endAttr.getBytes("utf8").length);
-            if (endAttr.getBytes("utf8").length > 0) {
-                buf.writeBytes(endAttr.getBytes("utf8"));
+            buf.writeShort(attrBytes.length);
+            if (attrBytes.length > 0) {
+                buf.writeBytes(attrBytes);
             }
             buf.writeShort(0xee01);
         } catch (Exception e) {
@@ -118,12 +168,128 @@ public class ProtocolEncoder extends MessageToMessageEncoder<EncodeObject> {
         return buf;
     }
 
-    private ByteBuf constructBody(byte[] body, EncodeObject object,
-        int totalLength, int cnt) throws UnsupportedEncodingException {
-        ByteBuf buf = null;
+    /**
+     * write the body of the object into the scratch, each entry is prefixed by its length
+     *
+     * @return whether there is a body
+     */
+    private boolean fillLengthPrefixedBody(EncodeObject object, ByteBuf scratch, boolean supportLF) {
+        //send single message one time
+        if (object.getBodyBytes() != null && object.getBodyBytes().length != 0) {
+            scratch.writeInt(object.getBodyBytes().length);
+            scratch.writeBytes(object.getBodyBytes());
+            return true;
+        }
+        //send multiple messages one time
+        List<byte[]> bodyList = object.getBodylist();
+        if (bodyList == null || bodyList.size() == 0) {
+            return false;
+        }
+        LengthPrefixedBodyWriter.write(scratch, bodyList, supportLF);
+        return true;
+    }
+
+    /**
+     * compress and encrypt the body into a new array, encryption can not work on buffers
+     */
+    private byte[] encryptBody(ByteBuf scratch, boolean compress, EncryptInfo encryptInfo) throws IOException {
+        byte[] body = ByteBufUtil.getBytes(scratch);
+        if (compress) {
+            body = Snappy.compress(body);
+        }
+        return EncryptUtil.desEncrypt(body, encryptInfo.getDesKey());
+    }
+
+    /**
+     * the max length of the body written into the target buffer by {@link #writeBody}
+     */
+    private int maxBodyLength(ByteBuf scratch, boolean compress, byte[] encodedBody) {
+        if (encodedBody != null) {
+            return 0;
+        }
+        return compress ? Snappy.maxCompressedLength(scratch.readableBytes()) : scratch.readableBytes();
+    }
+
+    /**
+     * write the body prefixed by its length into the target buffer, compress it in place if needed.
+     * For a body already encoded or encrypted only the length is written, the body is returned wrapped
+     * to be composed into the message by {@link #compose}, without copy.
+     *
+     * @return the wrapped body to be composed behind the target buffer, null if the body is written
+     */
+    private ByteBuf writeBody(ByteBuf buf, ByteBuf scratch, boolean compress, byte[] encodedBody) throws IOException {
+        if (encodedBody != null) {
+            buf.writeInt(encodedBody.length);
+            return Unpooled.wrappedBuffer(encodedBody);
+        }
+        int lenIndex = buf.writerIndex();
+        buf.writeInt(0);
+        int bodyLength;
+        if (compress) {
+            int maxLength = Snappy.maxCompressedLength(scratch.readableBytes());
+            buf.ensureWritable(maxLength);
+            if (scratch.isDirect() && buf.isDirect() && buf.nioBufferCount() == 1) {
+                bodyLength = Snappy.compress(scratch.nioBuffer(),
+                        buf.nioBuffer(buf.writerIndex(), maxLength));
+            } else if (buf.hasArray()) {
+                byte[] input = ByteBufUtil.getBytes(scratch);
+                bodyLength = Snappy.compress(input, 0, input.length,
+                        buf.array(), buf.arrayOffset() + buf.writerIndex());
+            } else {
+                byte[] output = Snappy.compress(ByteBufUtil.getBytes(scratch));
+                bodyLength = output.length;
+                buf.setBytes(buf.writerIndex(), output);
+            }
+            buf.writerIndex(buf.writerIndex() + bodyLength);
+        } else {
+            bodyLength = scratch.readableBytes();
+            buf.writeBytes(scratch, scratch.readerIndex(), bodyLength);
+        }
+        buf.setInt(lenIndex, bodyLength);
+        return null;
+    }
+
+    /**
+     * the buffer to write the rest of the message into, a new one if the body is not written into the head
+     */
+    private ByteBuf tailBuffer(ByteBufAllocator alloc, ByteBuf head, ByteBuf body, int tailLength) {
+        return body == null ? head : alloc.ioBuffer(tailLength);
+    }
+
+    /**
+     * compose the message of the head, the wrapped body and the tail, and set the total length
+     */
+    private ByteBuf compose(ByteBufAllocator alloc, ByteBuf head, ByteBuf body, ByteBuf tail) {
+        ByteBuf message = head;
         if (body != null) {
-            if (object.isCompress()) {
-                body = processCompress(body);
+            CompositeByteBuf composite = alloc.compositeBuffer(3);
+            composite.addComponents(true, head, body, tail);
+            message = composite;
+        }
+        message.setInt(0, message.readableBytes() - 4);
+        return message;
+    }
+
+    private ByteBuf writeToBuf7(ByteBufAllocator alloc, EncodeObject object, ByteBuf scratch) {
+        ByteBuf buf = null;
+        try {
+            int cnt = 1;
+            EncodedBatch encodedBatch = object.getEncodedBatch();
+            if (encodedBatch != null) {
+                cnt = encodedBatch.getCnt();
+            } else if (object.getBodylist() != null && object.getBodylist().size() != 0) {
+                if (object.getCnt() > 0) {
+                    cnt = object.getCnt();
+                } else {
+                    cnt = object.getBodylist().size();
+                }
+            }
+            // an encoded batch is already compressed, and written as-is
+            byte[] encodedBody = null;
+            if (encodedBatch != null) {
+                encodedBody = encodedBatch.getBody();
+            } else if (!fillLengthPrefixedBody(object, scratch, object.isSupportLF())) {
+                return null;
             }
             String endAttr = object.getCommonattr();
             if (object.isEncrypt()) {
@@ -136,7 +302,9 @@ public class ProtocolEncoder extends MessageToMessageEncoder<EncodeObject> {
                     endAttr = endAttr + "_userName=" + object.getUserName()
                         + "&_encyVersion=" + encryptInfo.getVersion()
                         + "&_encyDesKey=" + encryptInfo.getRsaEncryptedKey();
-                    body = EncryptUtil.desEncrypt(body, encryptInfo.getDesKey());
+                    encodedBody = encodedBody != null
+                            ? EncryptUtil.desEncrypt(encodedBody, encryptInfo.getDesKey())
+                            : encryptBody(scratch, object.isCompress(), encryptInfo);
                 }
             }
             if (!object.isGroupIdTransfer()) {
@@ -159,9 +327,18 @@ public class ProtocolEncoder extends MessageToMessageEncoder<EncodeObject> {
             if (object.isCompress()) {
                 msgType |= FLAG_ALLOW_COMPRESS;
             }
-            totalLength = totalLength + body.length + endAttr.getBytes("utf8").length;
-            buf = ByteBufAllocator.DEFAULT.buffer(4 + totalLength);
-            buf.writeInt(totalLength);
+            byte[] attrBytes = endAttr.getBytes(StandardCharsets.UTF_8);
+            // the count and the attributes are carried in 16 bits, never write a corrupted frame
+            if (cnt > MAX_UNSIGNED_SHORT || attrBytes.length > MAX_UNSIGNED_SHORT) {
+                logger.error("message of {} {} has {} entries and {} bytes of attributes, exceeds {}",
+                        object.getGroupId(), object.getStreamId(), cnt, attrBytes.length, MAX_UNSIGNED_SHORT);
+                return null;
+            }
+            int headerLength = 1 + 2 + 2 + 2 + 4 + 2 + 4 + 4 + 2 + 2;
+            buf = alloc.ioBuffer(4 + headerLength + attrBytes.length
+                    + maxBodyLength(scratch, object.isCompress(), encodedBody));
+            // the total length is set after the body is written
+            buf.writeInt(0);
             buf.writeByte(msgType);
             buf.writeShort(object.getGroupIdNum());
             buf.writeShort(object.getStreamIdNum());
@@ -177,251 +354,97 @@ public class ProtocolEncoder extends MessageToMessageEncoder<EncodeObject> {
             buf.writeShort(cnt);
             buf.writeInt(Integer.valueOf(object.getMessageId()));
 
-            buf.writeInt(body.length);
-            buf.writeBytes(body);
-
-            buf.writeShort(endAttr.getBytes("utf8").length);
-            buf.writeBytes(endAttr.getBytes("utf8"));
-            buf.writeShort(0xee01);
-        }
-        return buf;
-    }
-
-    private ByteBuf writeToBuf7(EncodeObject object) {
-        ByteBuf buf = null;
-        try {
-            int totalLength = 1 + 2 + 2 + 2 + 4 + 2 + 4 + 4 + 2 + 2;
-            byte[] body = null;
-            int cnt = 1;
-
-            if (object.getBodylist() != null && object.getBodylist().size() != 0) {
-                if (object.getCnt() > 0) {
-                    cnt = object.getCnt();
-                } else {
-                    cnt = object.getBodylist().size();
-                }
-
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                Iterator<byte[]> iter = object.getBodylist().iterator();
-
-                if (object.isSupportLF()) {
-                    ByteArrayOutputStream data = new ByteArrayOutputStream();
-                    int len = object.getBodylist().size();
-                    for (int i = 0; i < len - 1; i++) {
-                        data.write(object.getBodylist().get(i));
-                        data.write("\n".getBytes("utf8"));
-                    }
-                    data.write(object.getBodylist().get(len - 1));
-                    ByteBuffer databuffer = ByteBuffer.allocate(4);
-                    databuffer.putInt(data.toByteArray().length);
-                    out.write(databuffer.array());
-                    out.write(data.toByteArray());
-                } else {
-                    while (iter.hasNext()) {
-                        byte[] entry = iter.next();
-                        ByteBuffer databuffer = ByteBuffer.allocate(4);
-                        databuffer.putInt(entry.length);
-                        out.write(databuffer.array());
-                        out.write(entry);
-                    }
-                }
-                body = out.toByteArray();
-            }
-            //send single message one time
-            if (object.getBodyBytes() != null && object.getBodyBytes().length != 0) {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-                ByteBuffer databuffer = ByteBuffer.allocate(4);
-                databuffer.putInt(object.getBodyBytes().length);
-                out.write(databuffer.array());
-                out.write(object.getBodyBytes());
-                body = out.toByteArray();
-            }
+            ByteBuf body = writeBody(buf, scratch, object.isCompress(), encodedBody);
 
-            buf = constructBody(body, object, totalLength, cnt);
+            ByteBuf tail = tailBuffer(alloc, buf, body, 2 + attrBytes.length + 2);
+            tail.writeShort(attrBytes.length);
+            tail.writeBytes(attrBytes);
+            tail.writeShort(0xee01);
+            buf = compose(alloc, buf, body, tail);
         } catch (Exception e) {
             logger.error("writeToBuf7 has {}", e);
+            buf = releaseOnError(buf);
         }
         return buf;
     }
 
-    private ByteBuf writeToBuf5(EncodeObject object) {
-        ByteBuf buf = null;
-        try {
-            int totalLength = 1 + 4 + 4;
-            byte[] body = null;
-
-            //send multiple  messages one time
-            if (object.getBodylist() != null && object.getBodylist().size() != 0) {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                Iterator<byte[]> iter = object.getBodylist().iterator();
-                while (iter.hasNext()) {
-                    byte[] entry = iter.next();
-                    ByteBuffer byteBuffer = ByteBuffer.allocate(4);
-                    byteBuffer.putInt(entry.length);
-                    out.write(byteBuffer.array());
-                    out.write(entry);
-                }
-                body = out.toByteArray();
-            }
-            //send single message one time
-            if (object.getBodyBytes() != null && object.getBodyBytes().length != 0) {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                ByteBuffer byteBuffer = ByteBuffer.allocate(4);
-                byteBuffer.putInt(object.getBodyBytes().length);
-                out.write(byteBuffer.array());
-                out.write(object.getBodyBytes());
-                body = out.toByteArray();
-            }
-            if (body != null) {
-                String msgAttrs = object.getAttributes();
-                if (object.isCompress()) {
-                    body = processCompress(body);
-                }
-                if (object.isEncrypt()) {
-                    EncryptConfigEntry encryptEntry = object.getEncryptEntry();
-                    if (encryptEntry != null) {
-                        if (Utils.isNotBlank(msgAttrs)) {
-                            msgAttrs = msgAttrs + "&";
-                        }
-                        EncryptInfo encryptInfo = encryptEntry.getRsaEncryptInfo();
-                        msgAttrs = msgAttrs + "_userName=" + object.getUserName()
-                                + "&_encyVersion=" + encryptInfo.getVersion()
-                                + "&_encyDesKey=" + encryptInfo.getRsaEncryptedKey();
-                        body = EncryptUtil.desEncrypt(body, encryptInfo.getDesKey());
-                    }
-                }
-                if (Utils.isNotBlank(object.getMsgUUID())) {
-                    if (Utils.isNotBlank(msgAttrs)) {
-                        msgAttrs = msgAttrs + "&";
-                    }
-                    msgAttrs = msgAttrs + "msgUUID=" + object.getMsgUUID();
-                }
-
-                int msgType = 5;
-                if (object.isEncrypt()) {
-                    msgType |= FLAG_ALLOW_ENCRYPT;
-                }
-                totalLength = totalLength + body.length + msgAttrs.getBytes("utf8").length;
-                buf = ByteBufAllocator.DEFAULT.buffer(4 + totalLength);
-                buf.writeInt(totalLength);
-                buf.writeByte(msgType);
-                buf.writeInt(body.length);
-                buf.writeBytes(body);
-                buf.writeInt(msgAttrs.getBytes("utf8").length);
-                buf.writeBytes(msgAttrs.getBytes("utf8"));
-            }
-        } catch (Exception e) {
-            logger.error("{}", e.getMessage());
-            e.printStackTrace();
+    private ByteBuf writeToBuf5(ByteBufAllocator alloc, EncodeObject object, ByteBuf scratch) {
+        if (!fillLengthPrefixedBody(object, scratch, false)) {
+            return null;
         }
-        return buf;
+        return writeAttrsMessage(alloc, object, scratch, 5);
     }
 
-    /*private ChannelBuffer writeToBuf4(EncodeObject object) {
-        ChannelBuffer buf = ChannelBuffers.dynamicBuffer();
-        try {
-            int totalLength = 1 + 4 + 4;
-            byte[] body = null;
-
-            //send single message one time
-            if (object.getBodyBytes() != null && object.getBodyBytes().length != 0) {
-                body = object.getBodyBytes();
+    private ByteBuf writeToBuf3(ByteBufAllocator alloc, EncodeObject object, ByteBuf scratch) {
+        //send single message one time
+        if (object.getBodyBytes() != null && object.getBodyBytes().length != 0) {
+            scratch.writeBytes(object.getBodyBytes());
+        } else if (object.getBodylist() != null && object.getBodylist().size() != 0) {
+            //send multiple messages one time
+            for (byte[] entry : object.getBodylist()) {
+                scratch.writeBytes(entry);
+                scratch.writeBytes(LINE_SEPARATOR);
             }
-            totalLength = totalLength + body.length + object.getAttributes().getBytes("utf8").length;
-            buf.writeInt(totalLength);
-            buf.writeByte(4);
-            buf.writeInt(body.length);
-            buf.writeBytes(body);
-            buf.writeInt(object.getAttributes().getBytes().length);
-            buf.writeBytes(object.getAttributes().getBytes());
-        } catch (Exception e) {
-            logger.error(e.getMessage());
+        } else {
+            return null;
         }
-        return buf;
+        return writeAttrsMessage(alloc, object, scratch, 3);
     }
-    */
 
-    private ByteBuf writeToBuf3(EncodeObject object) {
+    /**
+     * write the message of type 3 and 5, which carries the body and the attributes only
+     */
+    private ByteBuf writeAttrsMessage(ByteBufAllocator alloc, EncodeObject object, ByteBuf scratch, int msgType) {
         ByteBuf buf = null;
         try {
-            int totalLength = 1 + 4 + 4;
-            byte[] body = null;
-
-            //send multiple  messages one time
-            if (object.getBodylist() != null && object.getBodylist().size() != 0) {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                Iterator<byte[]> iter = object.getBodylist().iterator();
-                while (iter.hasNext()) {
-                    byte[] entry = iter.next();
-                    out.write(entry);
-                    out.write("\n".getBytes("utf8"));
-                }
-                body = out.toByteArray();
-            }
-            //send single message one time
-            if (object.getBodyBytes() != null && object.getBodyBytes().length != 0) {
-                body = object.getBodyBytes();
-            }
-            if (body != null) {
-                String msgAttrs = object.getAttributes();
-                if (object.isCompress()) {
-                    body = processCompress(body);
-                }
-                if (object.isEncrypt()) {
-                    EncryptConfigEntry encryptEntry = object.getEncryptEntry();
-                    if (encryptEntry != null) {
-                        if (Utils.isNotBlank(msgAttrs)) {
-                            msgAttrs = msgAttrs + "&";
-                        }
-                        EncryptInfo encryptInfo = encryptEntry.getRsaEncryptInfo();
-                        msgAttrs = msgAttrs + "_userName=" + object.getUserName()
-                                + "&_encyVersion=" + encryptInfo.getVersion()
-                                + "&_encyDesKey=" + encryptInfo.getRsaEncryptedKey();
-                        body = EncryptUtil.desEncrypt(body, encryptInfo.getDesKey());
-                    }
-                }
-                if (Utils.isNotBlank(object.getMsgUUID())) {
+            String msgAttrs = object.getAttributes();
+            byte[] encryptedBody = null;
+            if (object.isEncrypt()) {
+                EncryptConfigEntry encryptEntry = object.getEncryptEntry();
+                if (encryptEntry != null) {
                     if (Utils.isNotBlank(msgAttrs)) {
                         msgAttrs = msgAttrs + "&";
                     }
-                    msgAttrs = msgAttrs + "msgUUID=" + object.getMsgUUID();
+                    EncryptInfo encryptInfo = encryptEntry.getRsaEncryptInfo();
+                    msgAttrs = msgAttrs + "_userName=" + object.getUserName()
+                            + "&_encyVersion=" + encryptInfo.getVersion()
+                            + "&_encyDesKey=" + encryptInfo.getRsaEncryptedKey();
+                    encryptedBody = encryptBody(scratch, object.isCompress(), encryptInfo);
                 }
-
-                int msgType = 3;
-                if (object.isEncrypt()) {
-                    msgType |= FLAG_ALLOW_ENCRYPT;
+            }
+            if (Utils.isNotBlank(object.getMsgUUID())) {
+                if (Utils.isNotBlank(msgAttrs)) {
+                    msgAttrs = msgAttrs + "&";
                 }
-                totalLength = totalLength + body.length + msgAttrs.getBytes("utf8").length;
-                buf = ByteBufAllocator.DEFAULT.buffer(4 + totalLength);
-                buf.writeInt(totalLength);
-                buf.writeByte(msgType);
-                buf.writeInt(body.length);
-                buf.writeBytes(body);
-                buf.writeInt(msgAttrs.getBytes("utf8").length);
-                buf.writeBytes(msgAttrs.getBytes("utf8"));
+                msgAttrs = msgAttrs + "msgUUID=" + object.getMsgUUID();
             }
+
+            if (object.isEncrypt()) {
+                msgType |= FLAG_ALLOW_ENCRYPT;
+            }
+            byte[] attrBytes = msgAttrs.getBytes(StandardCharsets.UTF_8);
+            buf = alloc.ioBuffer(4 + 1 + 4 + 4 + attrBytes.length
+                    + maxBodyLength(scratch, object.isCompress(), encryptedBody));
+            // the total length is set after the body is written
+            buf.writeInt(0);
+            buf.writeByte(msgType);
+            ByteBuf body = writeBody(buf, scratch, object.isCompress(), encryptedBody);
+            ByteBuf tail = tailBuffer(alloc, buf, body, 4 + attrBytes.length);
+            tail.writeInt(attrBytes.length);
+            tail.writeBytes(attrBytes);
+            buf = compose(alloc, buf, body, tail);
         } catch (Exception e) {
             logger.error("{}", e.getMessage());
             e.printStackTrace();
+            buf = releaseOnError(buf);
         }
         return buf;
     }
 
-    private byte[] processCompress(byte[] body) {
-        try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            out.write(body);
-            int guessLen = Snappy.maxCompressedLength(out.size());
-            byte[] tmpData = new byte[guessLen];
-            int len = Snappy.compress(out.toByteArray(), 0, out.size(),
-                    tmpData, 0);
-            body = new byte[len];
-            System.arraycopy(tmpData, 0, body, 0, len);
-        } catch (IOException e) {
-            logger.error("{}", e.getMessage());
-            e.printStackTrace();
+    private ByteBuf releaseOnError(ByteBuf buf) {
+        if (buf != null) {
+            buf.release();
         }
-        return body;
+        return null;
     }
 }
@@ -60,15 +60,15 @@ public class ClientMgr {
 
     private final ConcurrentHashMap<HostInfo, AtomicLong> lastBadHostMap = new ConcurrentHashMap<>();
 
-    // clientList is the valueSet of clientMapData
+    // clientList is the valueSet of clientMapData, clientSelector keeps an immutable copy of it for sending
     private final ArrayList<NettyClient> clientList = new ArrayList<>();
+    private final ClientSelector clientSelector = new ClientSelector(this::getClientScore);
     private List<HostInfo> proxyInfoList = new ArrayList<>();
 
     private final Map<HostInfo, int[]> channelLoadMapData = new ConcurrentHashMap<>();
     private final Map<HostInfo, int[]> channelLoadMapHB = new ConcurrentHashMap<>();
 
     private Bootstrap bootstrap;
-    private int currentIndex = 0;
     private ProxyClientConfig configure;
     private Sender sender;
     private int aliveConnections;
@@ -81,6 +81,8 @@ public class ClientMgr {
     private Map<String, Integer> streamIdMap = new HashMap<String, Integer>();
     private int loadThreshold;
     private int loadCycle = 0;
+    // the base of the load in the score, so the in-flight count counts when the loads are low
+    private static final int LOAD_BASE = 100;
     private static final int[] weight = {
             1, 1, 1, 1, 1,
             2, 2, 2, 2, 2,
@@ -253,7 +255,7 @@ public class ClientMgr {
             // create data channel
             if (bSuccess) {
                 clientMapData.put(host, client);
-                clientList.add(client);
+                addDataClient(client);
                 clientMap.put(host, client);
                 logger.info("build a connection success! {},channel {}", host.getHostName(), client.getChannel());
             } else {
@@ -328,31 +330,54 @@ public class ClientMgr {
         }
     }
 
-    public synchronized NettyClient getClientByRoundRobin() {
-        NettyClient client = null;
-        if (clientList.isEmpty()) {
-            return null;
-        }
-        int currSize = clientList.size();
-        for (int retryTime = 0; retryTime < currSize; retryTime++) {
-            currentIndex = (++currentIndex) % currSize;
-            client = clientList.get(currentIndex);
-            if (client != null && client.isActive()) {
-                break;
+    /**
+     * select a data connection without lock, by weighted power of two choices
+     * on the heartbeat load and the in-flight count of the connections
+     *
+     * @return null if there is no active connection
+     */
+    public NettyClient getClientByRoundRobin() {
+        return clientSelector.select();
+    }
+
+    /**
+     * score of a connection, the lower the better
+     *
+     * @param client
+     * @return
+     */
+    private long getClientScore(NettyClient client) {
+        long inFlight = client.getInFlight() + sender.getInFlightCount(client.getChannel());
+        return (inFlight + 1) * (LOAD_BASE + Math.max(client.getLoad(), 0));
+    }
+
+    private void addDataClient(NettyClient client) {
+        clientList.add(client);
+        clientSelector.update(clientList);
+    }
+
+    private void removeDataClient(NettyClient client) {
+        clientList.remove(client);
+        clientSelector.update(clientList);
+    }
+
+    /**
+     * whether there is an active data connection
+     */
+    public boolean hasActiveClient() {
+        for (NettyClient tmpClient : clientSelector.getClients()) {
+            if (tmpClient.isActive()) {
+                return true;
             }
         }
-        if (client == null || !client.isActive()) {
-            return null;
-        }
-        //logger.info("get a client {}", client.getChannel());
-        return client;
+        return false;
     }
 
     public NettyClient getContainProxy(String proxyip) {
         if (proxyip == null) {
             return null;
         }
-        for (NettyClient tmpClient : clientList) {
+        for (NettyClient tmpClient : clientSelector.getClients()) {
             if (tmpClient != null && tmpClient.getServerIP() != null && tmpClient.getServerIP().equals(proxyip)) {
                 return tmpClient;
             }
@@ -392,6 +417,7 @@ public class ClientMgr {
         channelLoadMapData.clear();
         channelLoadMapHB.clear();
         clientList.clear();
+        clientSelector.update(clientList);
         sender.clearCallBack();
     }
 
@@ -413,6 +439,7 @@ public class ClientMgr {
                     HostInfo hostInfo = entry.getKey();
                     if (client != null && client.getChannel() != null
                             && client.getChannel().id().equals(channel.id())) {
+                        client.setLoad(loadvalue);
 //                        logger.info("channel" + channel + "; Load:" + load);
                         if (!channelLoadMapData.containsKey(hostInfo)) {
                             channelLoadMapData.put(hostInfo, new int[ConfigConstants.CYCLE]);
@@ -542,13 +569,13 @@ public class ClientMgr {
                     sender.waitForAckForChannel(client.getChannel());
                     client.close();
 
-                    clientList.remove(clientMapData.get(dataHost));
+                    removeDataClient(clientMapData.get(dataHost));
                     clientMap.remove(dataHost);
                     clientMapData.remove(dataHost);
 //                    channelLoadMapData.remove(dataHost);
                     clientMapData.put(hbHost, clientMapHB.get(hbHost));
 //                    channelLoadMapData.put(hbHost,listHB.get(i).getValue());
-                    clientList.add(clientMapHB.get(hbHost));
+                    addDataClient(clientMapHB.get(hbHost));
                     clientMapHB.remove(hbHost);
                 }
             }
@@ -631,7 +658,7 @@ public class ClientMgr {
         while (it.hasNext() && clientMapData.size() < aliveConnections) {
             Map.Entry<HostInfo, NettyClient> entry = it.next();
             clientMapData.put(entry.getKey(), entry.getValue());
-            clientList.add(entry.getValue());
+            addDataClient(entry.getValue());
             channelLoadMapHB.remove(entry.getKey());
             it.remove();
         }
@@ -733,7 +760,7 @@ public class ClientMgr {
                 client.close();
                 clientMapData.remove(hostInfo);
                 clientMap.remove(hostInfo);
-                clientList.remove(client);
+                removeDataClient(client);
 
                 channelLoadMapData.remove(hostInfo);
                 logger.info("remove this client {}", hostInfo.getHostName());
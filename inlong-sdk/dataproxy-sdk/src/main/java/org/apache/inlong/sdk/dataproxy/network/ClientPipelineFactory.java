@@ -42,7 +42,7 @@ public class ClientPipelineFactory extends ChannelInitializer<SocketChannel> {
                 65536, 0, 4, 0, 0));
 
         ch.pipeline().addLast("contentDecoder", new ProtocolDecoder());
-        ch.pipeline().addLast("contentEncoder", new ProtocolEncoder());
+        ch.pipeline().addLast("contentEncoder", new ProtocolEncoder(sender.getMetricWorker()));
         ch.pipeline().addLast("handler", new ClientHandler(sender, clientMgr));
     }
 }
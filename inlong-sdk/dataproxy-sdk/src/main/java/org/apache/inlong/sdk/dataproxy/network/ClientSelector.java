@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Lock-free selector of the data connections.
+ * The connections are kept in an immutable array which is replaced on change, a selection takes the
+ * round-robin candidate and a random one, and returns the one with the lower score (power of two choices).
+ */
+public class ClientSelector {
+
+    private static final NettyClient[] EMPTY_CLIENTS = new NettyClient[0];
+
+    private final AtomicInteger currentIndex = new AtomicInteger(0);
+    private final ToLongFunction<NettyClient> scorer;
+    private volatile NettyClient[] clients = EMPTY_CLIENTS;
+
+    /**
+     * @param scorer the score of a connection, the lower the better
+     */
+    public ClientSelector(ToLongFunction<NettyClient> scorer) {
+        this.scorer = scorer;
+    }
+
+    /**
+     * replace the connections by a copy of the list
+     *
+     * @param clientList
+     */
+    public void update(List<NettyClient> clientList) {
+        this.clients = clientList.toArray(EMPTY_CLIENTS);
+    }
+
+    /**
+     * get the current connections, the array must not be modified
+     *
+     * @return
+     */
+    public NettyClient[] getClients() {
+        return clients;
+    }
+
+    /**
+     * select an active connection
+     *
+     * @return null if there is no active connection
+     */
+    public NettyClient select() {
+        NettyClient[] currentClients = this.clients;
+        int size = currentClients.length;
+        if (size == 0) {
+            return null;
+        }
+        int firstIndex = (currentIndex.getAndIncrement() & Integer.MAX_VALUE) % size;
+        NettyClient first = currentClients[firstIndex];
+        boolean firstActive = first != null && first.isActive();
+        if (size == 1) {
+            return firstActive ? first : null;
+        }
+        int secondIndex = (firstIndex + 1 + ThreadLocalRandom.current().nextInt(size - 1)) % size;
+        NettyClient second = currentClients[secondIndex];
+        boolean secondActive = second != null && second.isActive();
+        if (firstActive && secondActive) {
+            return (scorer.applyAsLong(second) < scorer.applyAsLong(first)) ? second : first;
+        } else if (firstActive) {
+            return first;
+        } else if (secondActive) {
+            return second;
+        }
+        // both candidates are inactive, fall back to scan all the connections
+        for (int retryTime = 1; retryTime < size; retryTime++) {
+            NettyClient client = currentClients[(firstIndex + retryTime) % size];
+            if (client != null && client.isActive()) {
+                return client;
+            }
+        }
+        return null;
+    }
+}
@@ -25,6 +25,7 @@ import io.netty.channel.ChannelFutureListener;
 import java.net.InetSocketAddress;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.inlong.sdk.dataproxy.ProxyClientConfig;
@@ -35,10 +36,14 @@ import org.slf4j.LoggerFactory;
 public class NettyClient {
     private static final Logger logger = LoggerFactory.getLogger(NettyClient.class);
 
-    private Channel channel = null;
+    private volatile Channel channel = null;
     private final ReentrantLock stateLock = new ReentrantLock();
 
-    private ConnState connState;
+    private volatile ConnState connState;
+    // the load reported by the heartbeat ack of the proxy, -1 if unknown
+    private volatile int load = -1;
+    // the synchronous requests waiting for the response
+    private final AtomicInteger inFlight = new AtomicInteger(0);
     private ProxyClientConfig configure;
     private Bootstrap bootstrap;
     private String serverIP;
@@ -142,16 +147,35 @@ public class NettyClient {
     }
 
     public boolean isActive() {
-        stateLock.lock();
+        // read without lock, the selection of the connection is on the path of every message
+        Channel currentChannel = channel;
         try {
-            return (connState == ConnState.READY && channel != null && channel.isOpen() && channel.isActive());
+            return (connState == ConnState.READY && currentChannel != null && currentChannel.isOpen()
+                    && currentChannel.isActive());
         } catch (Exception e) {
             logger.error("channel maybe null!{}", e.getMessage());
             return false;
-        } finally {
-            stateLock.unlock();
         }
-        // channel.isOpen();
+    }
+
+    public int getLoad() {
+        return load;
+    }
+
+    public void setLoad(int load) {
+        this.load = load;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public void incrementInFlight() {
+        inFlight.incrementAndGet();
+    }
+
+    public void decrementInFlight() {
+        inFlight.decrementAndGet();
     }
 
     private void setState(ConnState newState) {
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network;
+
+import io.netty.channel.Channel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.apache.inlong.sdk.dataproxy.FileCallback;
+import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Callbacks of the asynchronous messages waiting for the ack, by channel and message id.
+ * The timeout of each callback is registered on a hashed timer wheel, the ack or the disconnection
+ * removes the callback and cancels its timeout in O(1), so only the callbacks that really expire cost anything.
+ * The expired callbacks are notified with TIMEOUT on a bounded executor, so the timer thread does not run
+ * user code, unless the executor queue is full, then the timer thread notifies them itself and slows down.
+ */
+public class PendingCallbacks {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingCallbacks.class);
+
+    private static final long TIMER_TICK_MS = 100;
+    private static final int TIMER_WHEEL_SIZE = 512;
+    private static final int CALLBACK_QUEUE_SIZE = 10000;
+
+    private final ConcurrentHashMap<Channel, ConcurrentHashMap<String, QueueObject>> callbacks =
+            new ConcurrentHashMap<>();
+    private final boolean isFile;
+    // called after the expired callback is notified
+    private final BiConsumer<Channel, QueueObject> expiredListener;
+    private final Timer timer;
+    private final ExecutorService callbackExecutor;
+
+    /**
+     * @param isFile whether the callbacks are {@link FileCallback}
+     * @param expiredListener called after the expired callback is notified
+     */
+    public PendingCallbacks(boolean isFile, BiConsumer<Channel, QueueObject> expiredListener) {
+        this(isFile, expiredListener, TIMER_TICK_MS, CALLBACK_QUEUE_SIZE);
+    }
+
+    PendingCallbacks(boolean isFile, BiConsumer<Channel, QueueObject> expiredListener, long tickMs,
+            int callbackQueueSize) {
+        this.isFile = isFile;
+        this.expiredListener = expiredListener;
+        this.timer = new HashedWheelTimer(r -> {
+            Thread thread = new Thread(r, "dataproxy-sdk-callback-timer");
+            thread.setDaemon(true);
+            return thread;
+        }, tickMs, TimeUnit.MILLISECONDS, TIMER_WHEEL_SIZE);
+        this.callbackExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(callbackQueueSize), r -> {
+                    Thread thread = new Thread(r, "dataproxy-sdk-callback");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * add the callback of the message and start its timeout
+     *
+     * @return the callback existing with the same message id, the new one is not added then
+     */
+    public QueueObject add(Channel channel, String messageId, QueueObject queueObject) {
+        ConcurrentHashMap<String, QueueObject> msgQueueMap =
+                callbacks.computeIfAbsent(channel, (k) -> new ConcurrentHashMap<>());
+        QueueObject existing = msgQueueMap.putIfAbsent(messageId, queueObject);
+        if (existing == null) {
+            queueObject.setTimeout(timer.newTimeout(new TimeoutTask(channel, messageId),
+                    queueObject.getTimeoutInMillis(), TimeUnit.MILLISECONDS));
+        }
+        return existing;
+    }
+
+    /**
+     * put the callback of the message and start its timeout, the callback existing with the same message id
+     * is replaced and its timeout is cancelled
+     *
+     * @return the replaced callback, null if none
+     */
+    public QueueObject put(Channel channel, String messageId, QueueObject queueObject) {
+        ConcurrentHashMap<String, QueueObject> msgQueueMap =
+                callbacks.computeIfAbsent(channel, (k) -> new ConcurrentHashMap<>());
+        queueObject.setTimeout(timer.newTimeout(new TimeoutTask(channel, messageId),
+                queueObject.getTimeoutInMillis(), TimeUnit.MILLISECONDS));
+        QueueObject replaced = msgQueueMap.put(messageId, queueObject);
+        if (replaced != null) {
+            replaced.cancelTimeout();
+        }
+        return replaced;
+    }
+
+    /**
+     * remove the callback of the acked message and cancel its timeout
+     *
+     * @return null if not found or expired
+     */
+    public QueueObject remove(Channel channel, String messageId) {
+        ConcurrentHashMap<String, QueueObject> msgQueueMap = callbacks.get(channel);
+        if (msgQueueMap == null) {
+            return null;
+        }
+        QueueObject queueObject = msgQueueMap.remove(messageId);
+        if (queueObject != null) {
+            queueObject.cancelTimeout();
+        }
+        return queueObject;
+    }
+
+    /**
+     * remove the callbacks of the disconnected channel and cancel their timeouts
+     */
+    public Map<String, QueueObject> removeChannel(Channel channel) {
+        ConcurrentHashMap<String, QueueObject> msgQueueMap = callbacks.remove(channel);
+        if (msgQueueMap == null) {
+            return Collections.emptyMap();
+        }
+        for (QueueObject queueObject : msgQueueMap.values()) {
+            queueObject.cancelTimeout();
+        }
+        return msgQueueMap;
+    }
+
+    /**
+     * the number of callbacks of the channel
+     */
+    public int size(Channel channel) {
+        ConcurrentHashMap<String, QueueObject> msgQueueMap = callbacks.get(channel);
+        return (msgQueueMap == null) ? 0 : msgQueueMap.size();
+    }
+
+    /**
+     * remove all the callbacks without notifying them, and cancel their timeouts
+     */
+    public void clear() {
+        for (ConcurrentHashMap<String, QueueObject> msgQueueMap : callbacks.values()) {
+            for (QueueObject queueObject : msgQueueMap.values()) {
+                queueObject.cancelTimeout();
+            }
+        }
+        callbacks.clear();
+    }
+
+    /**
+     * stop the timer, the callbacks not expired yet are not notified any more
+     */
+    public void close() {
+        timer.stop();
+        callbackExecutor.shutdown();
+    }
+
+    private void notifyTimeout(Channel channel, String messageId, QueueObject queueObject) {
+        try {
+            if (isFile) {
+                ((FileCallback) queueObject.getCallback()).onMessageAck(SendResult.TIMEOUT.toString());
+            } else {
+                queueObject.getCallback().onMessageAck(SendResult.TIMEOUT);
+            }
+        } catch (Throwable e) {
+            logger.error("timeout callback of message {} throw error", messageId, e);
+        } finally {
+            expiredListener.accept(channel, queueObject);
+        }
+    }
+
+    /**
+     * Fire the timeout of a callback which has not been acked in time.
+     */
+    private class TimeoutTask implements TimerTask {
+
+        private final Channel channel;
+        private final String messageId;
+
+        TimeoutTask(Channel channel, String messageId) {
+            this.channel = channel;
+            this.messageId = messageId;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            ConcurrentHashMap<String, QueueObject> msgQueueMap = callbacks.get(channel);
+            if (msgQueueMap == null) {
+                return;
+            }
+            // remove it before callback
+            QueueObject queueObject = msgQueueMap.remove(messageId);
+            if (queueObject == null) {
+                return;
+            }
+            callbackExecutor.execute(() -> notifyTimeout(channel, messageId, queueObject));
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.inlong.sdk.dataproxy.network;
 
 import java.util.concurrent.TimeUnit;
 
+import io.netty.util.Timeout;
 import org.apache.inlong.sdk.dataproxy.SendMessageCallback;
 
 public class QueueObject {
@@ -27,6 +28,7 @@ public class QueueObject {
     private final SendMessageCallback callback;
     private final long timeoutInMillis;
     private final int size;
+    private volatile Timeout timeout;
 
     public QueueObject(long sendTimeInMillis,
                        SendMessageCallback callback,
@@ -63,4 +65,18 @@ public class QueueObject {
     public int getSize() {
         return size;
     }
+
+    public void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * cancel the pending timeout of this callback, called once the callback is removed by ack or disconnection
+     */
+    public void cancelTimeout() {
+        Timeout tmpTimeout = timeout;
+        if (tmpTimeout != null) {
+            tmpTimeout.cancel();
+        }
+    }
 }
@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network;
+
+import org.apache.inlong.sdk.dataproxy.ConfigConstants;
+import org.apache.inlong.sdk.dataproxy.SendMessageCallback;
+import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulate the single messages of asynchronously sending into batches of (groupId, streamId).
+ * A batch is sent once it reaches the batch size or the max records, or it has waited for the linger time,
+ * the batch is encoded and compressed once, and the callback of each message is still fired.
+ * The msgUUIDs given by the callers are sent with the batch, joined by commas, a batch is closed before
+ * its msgUUIDs exceed {@link ConfigConstants#MAX_BATCH_MSG_UUIDS_LENGTH}, so they fit in the attributes.
+ */
+public class RecordAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordAccumulator.class);
+
+    private final ConcurrentHashMap<String, RecordBatch> batches = new ConcurrentHashMap<>();
+    private final AtomicLong bufferedBytes = new AtomicLong(0);
+    private final BatchSender batchSender;
+    private final int batchSize;
+    private final int batchMaxRecords;
+    private final long lingerMs;
+    private final long bufferMemory;
+    private final Thread lingerThread;
+    private volatile boolean closed = false;
+
+    public RecordAccumulator(BatchSender batchSender, int batchSize, long lingerMs, long bufferMemory) {
+        this(batchSender, batchSize, ConfigConstants.DEFAULT_BATCH_MAX_RECORDS, lingerMs, bufferMemory);
+    }
+
+    public RecordAccumulator(BatchSender batchSender, int batchSize, int batchMaxRecords, long lingerMs,
+            long bufferMemory) {
+        this.batchSender = batchSender;
+        this.batchSize = batchSize;
+        this.batchMaxRecords = Math.min(batchMaxRecords, ConfigConstants.MAX_BATCH_RECORDS);
+        this.lingerMs = lingerMs;
+        this.bufferMemory = bufferMemory;
+        this.lingerThread = new Thread(this::runLinger, "RecordAccumulatorLingerThread");
+        this.lingerThread.setDaemon(true);
+        this.lingerThread.start();
+    }
+
+    public void append(String groupId, String streamId, long dt, byte[] body,
+            SendMessageCallback callback, long timeout, TimeUnit timeUnit) throws ProxysdkException {
+        append(groupId, streamId, dt, body, null, callback, timeout, timeUnit);
+    }
+
+    /**
+     * append a message to the batch of its stream, the batch is sent in the caller thread if it is full
+     *
+     * @param groupId
+     * @param streamId
+     * @param dt
+     * @param body
+     * @param msgUUID msgUUID of the message, null if not given
+     * @param callback
+     * @param timeout
+     * @param timeUnit
+     * @throws ProxysdkException if the accumulator is closed or its buffer is full
+     */
+    public void append(String groupId, String streamId, long dt, byte[] body, String msgUUID,
+            SendMessageCallback callback, long timeout, TimeUnit timeUnit) throws ProxysdkException {
+        if (closed) {
+            throw new ProxysdkException("ACCUMULATOR_CLOSED");
+        }
+        if (bufferedBytes.addAndGet(body.length) > bufferMemory) {
+            bufferedBytes.addAndGet(-body.length);
+            throw new ProxysdkException("ACCUMULATOR_BUFFER_FULL");
+        }
+        // dt is carried in seconds, messages of different seconds are not merged
+        long dtSec = dt / 1000;
+        String uuid = msgUUID == null || msgUUID.trim().isEmpty() ? null : msgUUID;
+        List<RecordBatch> readyBatches = new ArrayList<>(2);
+        batches.compute(groupId + "|" + streamId, (k, batch) -> {
+            if (batch != null && (batch.dtSec != dtSec || !hasRoom(batch, body, uuid))) {
+                readyBatches.add(batch);
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new RecordBatch(groupId, streamId, dt, timeout, timeUnit);
+            }
+            batch.add(body, uuid, callback);
+            if (batch.bytes >= batchSize || batch.bodyList.size() >= batchMaxRecords) {
+                readyBatches.add(batch);
+                return null;
+            }
+            return batch;
+        });
+        for (RecordBatch batch : readyBatches) {
+            send(batch);
+        }
+    }
+
+    /**
+     * whether the message can be added to the batch without exceeding the limits of a batch
+     */
+    private boolean hasRoom(RecordBatch batch, byte[] body, String msgUUID) {
+        if (batch.bytes + body.length > batchSize || batch.bodyList.size() >= batchMaxRecords) {
+            return false;
+        }
+        return msgUUID == null || batch.msgUUIDs == null
+                || batch.msgUUIDs.length() + 1 + msgUUID.length() <= ConfigConstants.MAX_BATCH_MSG_UUIDS_LENGTH;
+    }
+
+    /**
+     * send all the batches which have waited for the linger time, or all of them if force
+     *
+     * @param force
+     */
+    public void flush(boolean force) {
+        long now = System.currentTimeMillis();
+        List<RecordBatch> readyBatches = new ArrayList<>();
+        for (String key : batches.keySet()) {
+            batches.computeIfPresent(key, (k, batch) -> {
+                if (force || now - batch.createTime >= lingerMs) {
+                    readyBatches.add(batch);
+                    return null;
+                }
+                return batch;
+            });
+        }
+        for (RecordBatch batch : readyBatches) {
+            send(batch);
+        }
+    }
+
+    /**
+     * stop the linger thread and send all the remaining batches
+     */
+    public void close() {
+        closed = true;
+        lingerThread.interrupt();
+        try {
+            lingerThread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(true);
+    }
+
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    private void send(RecordBatch batch) {
+        bufferedBytes.addAndGet(-batch.bytes);
+        try {
+            batchSender.send(batch);
+        } catch (Throwable e) {
+            logger.warn("send batch of {} {} with {} messages failed", batch.groupId, batch.streamId,
+                    batch.bodyList.size(), e);
+            batch.onException(e);
+        }
+    }
+
+    private void runLinger() {
+        long sleepMs = Math.max(1, lingerMs / 2);
+        while (!closed) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(sleepMs);
+                flush(false);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Throwable e) {
+                logger.error("flush batches error", e);
+            }
+        }
+    }
+
+    /**
+     * Send a batch, the batch is the callback of the whole message list.
+     */
+    public interface BatchSender {
+
+        void send(RecordBatch batch) throws ProxysdkException;
+    }
+
+    /**
+     * Messages of the same stream, its callback fans out to the callback of each message.
+     */
+    public static class RecordBatch implements SendMessageCallback {
+
+        private final String groupId;
+        private final String streamId;
+        private final long dt;
+        private final long dtSec;
+        private final long timeout;
+        private final TimeUnit timeUnit;
+        private final long createTime = System.currentTimeMillis();
+        private final List<byte[]> bodyList = new ArrayList<>();
+        private final List<SendMessageCallback> callbacks = new ArrayList<>();
+        private StringBuilder msgUUIDs;
+        private int bytes = 0;
+
+        RecordBatch(String groupId, String streamId, long dt, long timeout, TimeUnit timeUnit) {
+            this.groupId = groupId;
+            this.streamId = streamId;
+            this.dt = dt;
+            this.dtSec = dt / 1000;
+            this.timeout = timeout;
+            this.timeUnit = timeUnit;
+        }
+
+        private void add(byte[] body, String msgUUID, SendMessageCallback callback) {
+            bodyList.add(body);
+            callbacks.add(callback);
+            bytes += body.length;
+            if (msgUUID != null) {
+                if (msgUUIDs == null) {
+                    msgUUIDs = new StringBuilder(msgUUID);
+                } else {
+                    msgUUIDs.append(',').append(msgUUID);
+                }
+            }
+        }
+
+        @Override
+        public void onMessageAck(SendResult result) {
+            for (SendMessageCallback callback : callbacks) {
+                if (callback == null) {
+                    continue;
+                }
+                try {
+                    callback.onMessageAck(result);
+                } catch (Throwable e) {
+                    logger.error("callback of {} {} throw error", groupId, streamId, e);
+                }
+            }
+        }
+
+        @Override
+        public void onException(Throwable e) {
+            for (SendMessageCallback callback : callbacks) {
+                if (callback == null) {
+                    continue;
+                }
+                try {
+                    callback.onException(e);
+                } catch (Throwable e2) {
+                    logger.error("callback of {} {} throw error", groupId, streamId, e2);
+                }
+            }
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getStreamId() {
+            return streamId;
+        }
+
+        public long getDt() {
+            return dt;
+        }
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        public TimeUnit getTimeUnit() {
+            return timeUnit;
+        }
+
+        public List<byte[]> getBodyList() {
+            return bodyList;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return msgUUIDs of the messages joined by commas, null if no message has one
+         */
+        public String getMsgUUID() {
+            return msgUUIDs == null ? null : msgUUIDs.toString();
+        }
+    }
+}
@@ -19,15 +19,16 @@
 package org.apache.inlong.sdk.dataproxy.network;
 
 import io.netty.channel.Channel;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.inlong.sdk.dataproxy.ConfigConstants;
 import org.apache.inlong.sdk.dataproxy.FileCallback;
 import org.apache.inlong.sdk.dataproxy.ProxyClientConfig;
 import org.apache.inlong.sdk.dataproxy.SendMessageCallback;
 import org.apache.inlong.sdk.dataproxy.SendResult;
 import org.apache.inlong.sdk.dataproxy.codec.EncodeObject;
 import org.apache.inlong.sdk.dataproxy.config.ProxyConfigEntry;
+import org.apache.inlong.sdk.dataproxy.spool.DiskSpool;
 import org.apache.inlong.sdk.dataproxy.threads.MetricWorkerThread;
 import org.apache.inlong.sdk.dataproxy.threads.TimeoutScanThread;
 import org.slf4j.Logger;
@@ -35,12 +36,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -49,10 +52,8 @@ import java.util.concurrent.locks.ReentrantLock;
 public class Sender {
 
     private static final Logger logger = LoggerFactory.getLogger(Sender.class);
-
     /* Store the callback used by asynchronously message sending. */
-    private final ConcurrentHashMap<Channel, ConcurrentHashMap<String, QueueObject>> callbacks =
-            new ConcurrentHashMap<>();
+    private final PendingCallbacks callbacks;
     /* Store the synchronous message sending invocations. */
     private final ConcurrentHashMap<String, SyncMessageCallable> syncCallables = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, NettyClient> chooseProxy = new ConcurrentHashMap<>();
@@ -65,6 +66,8 @@ public class Sender {
     private final ProxyClientConfig configure;
     private final boolean isFile;
     private final MetricWorkerThread metricWorker;
+    /* Spool of the messages when all the proxies are unreachable, null if not enabled */
+    private final DiskSpool spool;
     private String clusterId;
 
     public Sender(ProxyClientConfig configure) throws Exception {
@@ -77,7 +80,12 @@ public class Sender {
     public Sender(ProxyClientConfig configure, ThreadFactory selfDefineFactory) throws Exception {
         this.configure = configure;
         this.asyncCallbackMaxSize = configure.getTotalAsyncCallbackSize();
-        this.threadPool = Executors.newCachedThreadPool();
+        // bounded pool, the caller runs the task itself when all threads are busy
+        // the metric worker is used by the encoder of the connections created by ClientMgr
+        this.metricWorker = new MetricWorkerThread(configure, this);
+        this.threadPool = new ThreadPoolExecutor(configure.getSyncThreadPoolSize(),
+                Math.max(configure.getSyncThreadPoolSize(), ConfigConstants.MAX_SYNC_THREAD_POOL_SIZE),
+                60L, TimeUnit.SECONDS, new SynchronousQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
         this.clientMgr = new ClientMgr(configure, this, selfDefineFactory);
         ProxyConfigEntry proxyConfigEntry = null;
         try {
@@ -99,11 +107,20 @@ public class Sender {
             }
         }
         this.isFile = configure.isFile();
-        scanThread = new TimeoutScanThread(callbacks, currentBufferSize, configure, clientMgr);
+        scanThread = new TimeoutScanThread(currentBufferSize, configure, clientMgr);
         scanThread.start();
+        callbacks = new PendingCallbacks(isFile, (channel, queueObject) -> {
+            scanThread.addTimeoutChannel(channel);
+            currentBufferSize.addAndGet(isFile ? -queueObject.getSize() : -1);
+        });
 
-        metricWorker = new MetricWorkerThread(configure, this);
         metricWorker.start();
+        if (configure.isEnableSpool() && !isFile) {
+            spool = new DiskSpool(configure, this::replaySpooledMessage, clientMgr::hasActiveClient);
+            spool.start();
+        } else {
+            spool = null;
+        }
         logger.info("proxy sdk is starting!");
     }
 
@@ -128,6 +145,10 @@ public class Sender {
     public void close() {
         checkCallbackList();
         scanThread.shutDown();
+        if (spool != null) {
+            spool.shutDown();
+        }
+        callbacks.close();
         clientMgr.shutDown();
         threadPool.shutdown();
         metricWorker.close();
@@ -159,11 +180,7 @@ public class Sender {
         if (channel == null) {
             return;
         }
-        ConcurrentHashMap<String, QueueObject> callBackMap = callbacks.get(channel);
-        if (callBackMap == null) {
-            return;
-        }
-        QueueObject callback = callBackMap.remove(messageId);
+        QueueObject callback = callbacks.remove(channel, messageId);
         if (callback == null) {
             return;
         }
@@ -183,14 +200,14 @@ public class Sender {
             long timeout, TimeUnit timeUnit)
             throws ExecutionException, InterruptedException, TimeoutException {
 
-        if (client == null) {
-            return SendResult.NO_CONNECTION;
-        }
         if (isNotValidateAttr(encodeObject.getCommonattr(), encodeObject.getAttributes())) {
             logger.error("error attr format {} {}", encodeObject.getCommonattr(),
                     encodeObject.getAttributes());
             return SendResult.INVALID_ATTRIBUTES;
         }
+        if (client == null) {
+            return SendResult.NO_CONNECTION;
+        }
         if (encodeObject.getMsgtype() == 7) {
             int groupIdnum = 0;
             int streamIdnum = 0;
@@ -230,6 +247,32 @@ public class Sender {
      */
     public SendResult syncSendMessage(EncodeObject encodeObject, String msgUUID,
             long timeout, TimeUnit timeUnit) {
+        if (isNotValidateAttr(encodeObject.getCommonattr(), encodeObject.getAttributes())) {
+            logger.error("error attr format {} {}", encodeObject.getCommonattr(),
+                    encodeObject.getAttributes());
+            return SendResult.INVALID_ATTRIBUTES;
+        }
+        // queued behind the spooled messages to keep the order
+        if (isSpoolNotEmpty() && spool.spool(encodeObject, msgUUID)) {
+            return SendResult.SPOOLED;
+        }
+        SendResult result = doSyncSendMessage(encodeObject, msgUUID, timeout, timeUnit);
+        if (result == SendResult.NO_CONNECTION && spool != null && spool.spool(encodeObject, msgUUID)) {
+            return SendResult.SPOOLED;
+        }
+        return result;
+    }
+
+    /**
+     * send the spooled message again, it is not spooled once more if the sending fails
+     */
+    private SendResult replaySpooledMessage(EncodeObject encodeObject, String msgUUID,
+            long timeout, TimeUnit timeUnit) {
+        return doSyncSendMessage(encodeObject, msgUUID, timeout, timeUnit);
+    }
+
+    private SendResult doSyncSendMessage(EncodeObject encodeObject, String msgUUID,
+            long timeout, TimeUnit timeUnit) {
         metricWorker.recordNumByKey(encodeObject.getMessageId(),
                 encodeObject.getGroupId(), encodeObject.getStreamId(),
                 Utils.getLocalIp(), encodeObject.getDt(), encodeObject.getPackageTime(), encodeObject.getRealCnt());
@@ -419,6 +462,8 @@ public class Sender {
         if (isFile) {
             if (encodeObject.getBodyBytes() != null) {
                 size = encodeObject.getBodyBytes().length;
+            } else if (encodeObject.getEncodedBatch() != null) {
+                size = encodeObject.getEncodedBatch().getBody().length;
             } else {
                 for (byte[] bytes : encodeObject.getBodylist()) {
                     size = size + bytes.length;
@@ -435,14 +480,8 @@ public class Sender {
                 throw new ProxysdkException("ASYNC_CALLBACK_BUFFER_FULL");
             }
         }
-        ConcurrentHashMap<String, QueueObject> tmpCallBackMap = new ConcurrentHashMap<>();
-        ConcurrentHashMap<String, QueueObject> msgQueueMap = callbacks.putIfAbsent(
-                client.getChannel(), tmpCallBackMap);
-        if (msgQueueMap == null) {
-            msgQueueMap = tmpCallBackMap;
-        }
-        msgQueueMap.put(encodeObject.getMessageId(), new QueueObject(System.currentTimeMillis(),
-                callback, size, timeout, timeUnit));
+        QueueObject queueObject = new QueueObject(System.currentTimeMillis(), callback, size, timeout, timeUnit);
+        callbacks.put(client.getChannel(), encodeObject.getMessageId(), queueObject);
         if (encodeObject.getMsgtype() == 7) {
             int groupIdnum = 0;
             int streamIdnum = 0;
@@ -521,22 +560,30 @@ public class Sender {
 
         // send message package time
 
-        NettyClient client = clientMgr.getClientByRoundRobin();
-        if (client == null) {
-            throw new ProxysdkException(SendResult.NO_CONNECTION.toString());
-        }
-        if (currentBufferSize.get() >= asyncCallbackMaxSize) {
-            throw new ProxysdkException("ASYNC_CALLBACK_BUFFER_FULL");
-        }
         if (isNotValidateAttr(encodeObject.getCommonattr(), encodeObject.getAttributes())) {
             logger.error("error attr format {} {}", encodeObject.getCommonattr(),
                     encodeObject.getAttributes());
             throw new ProxysdkException(SendResult.INVALID_ATTRIBUTES.toString());
         }
+        NettyClient client = clientMgr.getClientByRoundRobin();
+        // spooled when there is no connection, or queued behind the spooled messages to keep the order
+        if (client == null || isSpoolNotEmpty()) {
+            if (spoolMessage(encodeObject, callback, msgUUID)) {
+                return;
+            }
+            if (client == null) {
+                throw new ProxysdkException(SendResult.NO_CONNECTION.toString());
+            }
+        }
+        if (currentBufferSize.get() >= asyncCallbackMaxSize) {
+            throw new ProxysdkException("ASYNC_CALLBACK_BUFFER_FULL");
+        }
         int size = 1;
         if (isFile) {
             if (encodeObject.getBodyBytes() != null) {
                 size = encodeObject.getBodyBytes().length;
+            } else if (encodeObject.getEncodedBatch() != null) {
+                size = encodeObject.getEncodedBatch().getBody().length;
             } else {
                 for (byte[] bytes : encodeObject.getBodylist()) {
                     size = size + bytes.length;
@@ -553,11 +600,8 @@ public class Sender {
                 throw new ProxysdkException("ASYNC_CALLBACK_BUFFER_FULL");
             }
         }
-        ConcurrentHashMap<String, QueueObject> msgQueueMap =
-                callbacks.computeIfAbsent(client.getChannel(), (k) -> new ConcurrentHashMap<>());
-        QueueObject queueObject = msgQueueMap.putIfAbsent(encodeObject.getMessageId(),
-                new QueueObject(System.currentTimeMillis(), callback, size, timeout, timeUnit));
-        if (queueObject != null) {
+        QueueObject newQueueObject = new QueueObject(System.currentTimeMillis(), callback, size, timeout, timeUnit);
+        if (callbacks.add(client.getChannel(), encodeObject.getMessageId(), newQueueObject) != null) {
             logger.warn("message id {} has existed.", encodeObject.getMessageId());
         }
         if (encodeObject.getMsgtype() == 7) {
@@ -583,6 +627,26 @@ public class Sender {
         client.write(encodeObject);
     }
 
+    /**
+     * whether there are spooled messages not replayed yet, new messages should not overtake them
+     */
+    private boolean isSpoolNotEmpty() {
+        return spool != null && spool.getSpoolRecords() > 0;
+    }
+
+    /**
+     * spool the message of async sending, the callback is notified with SPOOLED
+     *
+     * @return whether the message is spooled
+     */
+    private boolean spoolMessage(EncodeObject encodeObject, SendMessageCallback callback, String msgUUID) {
+        if (spool == null || !spool.spool(encodeObject, msgUUID)) {
+            return false;
+        }
+        callback.onMessageAck(SendResult.SPOOLED);
+        return true;
+    }
+
     /* Deal with feedback. */
     public void notifyFeedback(Channel channel, EncodeObject response) {
         String messageId = response.getMessageId();
@@ -612,8 +676,8 @@ public class Sender {
         }
         logger.info("channel {} connection is disconnected!", channel);
         try {
-            ConcurrentHashMap<String, QueueObject> msgQueueMap = callbacks.remove(channel);
-            if (msgQueueMap != null) {
+            Map<String, QueueObject> msgQueueMap = callbacks.removeChannel(channel);
+            if (!msgQueueMap.isEmpty()) {
                 for (String messageId : msgQueueMap.keySet()) {
                     QueueObject queueObject = msgQueueMap.remove(messageId);
                     if (queueObject == null) {
@@ -668,10 +732,9 @@ public class Sender {
         }
         logger.info("wait for ack for channel {}", channel);
         try {
-            ConcurrentHashMap<String, QueueObject> queueObjMap = callbacks.get(channel);
-            if (queueObjMap != null) {
+            if (callbacks.size(channel) > 0) {
                 while (true) {
-                    if (queueObjMap.isEmpty()) {
+                    if (callbacks.size(channel) == 0) {
                         logger.info("this channel {} is empty!", channel);
                         break;
                     }
@@ -691,11 +754,23 @@ public class Sender {
         }
     }
 
+    /* The asynchronous messages of the channel waiting for the ack. */
+    public int getInFlightCount(Channel channel) {
+        if (channel == null) {
+            return 0;
+        }
+        return callbacks.size(channel);
+    }
+
     public void clearCallBack() {
         currentBufferSize.set(0);
         callbacks.clear();
     }
 
+    public MetricWorkerThread getMetricWorker() {
+        return metricWorker;
+    }
+
     public String getClusterId() {
         return clusterId;
     }
@@ -713,7 +788,7 @@ public class Sender {
     public boolean isIdleClient(NettyClient client) {
         Channel channel = client.getChannel();
         // used by async send
-        if (callbacks.contains(channel) && MapUtils.isNotEmpty(callbacks.get(channel))) {
+        if (callbacks.size(channel) > 0) {
             return false;
         }
         // used by sync send
@@ -725,5 +800,4 @@ public class Sender {
 
         return true;
     }
-
 }
@@ -55,6 +55,7 @@ public class SyncMessageCallable implements Callable<SendResult> {
 
     public SendResult call() throws Exception {
         // TODO Auto-generated method stub
+        client.incrementInFlight();
         try {
             ChannelFuture channelFuture = client.write(encodeObject);
             awaitLatch.await(timeout, timeUnit);
@@ -62,6 +63,8 @@ public class SyncMessageCallable implements Callable<SendResult> {
             logger.error("SendResult call", e);
             e.printStackTrace();
             return SendResult.UNKOWN_ERROR;
+        } finally {
+            client.decrementInFlight();
         }
         return message;
     }
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.spool;
+
+import org.apache.inlong.sdk.dataproxy.ProxyClientConfig;
+import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.apache.inlong.sdk.dataproxy.codec.EncodeObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Local disk spool of the messages which can not be sent because all the proxies are unreachable.
+ * The messages are replayed in order with a rate limit once the connections are healthy again,
+ * a message is replayed until it succeeds before the next one, so the order of each stream is kept.
+ * A message failing for other reasons than the connection, such as invalid attributes, never succeeds,
+ * it is dropped so that it does not block the messages behind it.
+ */
+public class DiskSpool extends Thread {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskSpool.class);
+
+    // message ids of replay are above the max id of SequentialID, to never conflict with the ids in flight
+    private static final long MIN_REPLAY_ID = 2000000001L;
+    private static final long MAX_REPLAY_ID = Integer.MAX_VALUE;
+    private static final long REPLAY_TIMEOUT_MS = 10 * 1000;
+    private static final long RETRY_INTERVAL_MS = 1000;
+    private static final long METRIC_INTERVAL_MS = 60 * 1000;
+    private static final int MAX_DEDUP_UUIDS = 100000;
+
+    private final SpoolFileQueue queue;
+    private final ReplaySender replaySender;
+    private final BooleanSupplier healthChecker;
+    private final long replayIntervalNanos;
+    private final Set<String> spooledUUIDs = newDedupSet();
+    private final Set<String> replayedUUIDs = newDedupSet();
+    private final AtomicLong replayId = new AtomicLong(MIN_REPLAY_ID);
+    private final AtomicLong spooledRecords = new AtomicLong(0);
+    private final AtomicLong replayedRecords = new AtomicLong(0);
+    private final AtomicLong droppedRecords = new AtomicLong(0);
+    private volatile boolean bShutDown = false;
+
+    public DiskSpool(ProxyClientConfig config, ReplaySender replaySender,
+            BooleanSupplier healthChecker) throws IOException {
+        this.queue = new SpoolFileQueue(new File(config.getSpoolPath()),
+                config.getSpoolSegmentBytes(), config.getSpoolMaxBytes(), config.getSpoolCursorSyncRecords(),
+                config.getSpoolCursorSyncIntervalMs(), config.isSpoolSyncOnAppend());
+        this.replaySender = replaySender;
+        this.healthChecker = healthChecker;
+        this.replayIntervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getSpoolReplayRate();
+        this.setDaemon(true);
+        this.setName("DiskSpoolReplayThread");
+        logger.info("disk spool opened at {} with {} records", config.getSpoolPath(), queue.getRecords());
+    }
+
+    private static Set<String> newDedupSet() {
+        return Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_DEDUP_UUIDS;
+            }
+        }));
+    }
+
+    /**
+     * spool the message, only the message of msgtype 7 can be spooled
+     *
+     * @return whether the message is spooled
+     */
+    public boolean spool(EncodeObject encodeObject, String msgUUID) {
+        // an encoded batch does not keep its entries, it is resent by its producer instead
+        if (bShutDown || encodeObject.getMsgtype() != 7 || encodeObject.getEncodedBatch() != null) {
+            return false;
+        }
+        if (msgUUID != null && !spooledUUIDs.add(msgUUID)) {
+            // the same message has been spooled
+            return true;
+        }
+        try {
+            if (queue.append(new SpoolRecord(encodeObject, msgUUID).toBytes())) {
+                spooledRecords.incrementAndGet();
+                return true;
+            }
+            logger.warn("disk spool is full, {} records {} bytes", queue.getRecords(), queue.getBytes());
+        } catch (Throwable e) {
+            logger.error("spool message of {} {} failed", encodeObject.getGroupId(), encodeObject.getStreamId(), e);
+        }
+        if (msgUUID != null) {
+            spooledUUIDs.remove(msgUUID);
+        }
+        return false;
+    }
+
+    public void shutDown() {
+        bShutDown = true;
+        this.interrupt();
+        try {
+            this.join(TimeUnit.SECONDS.toMillis(1));
+            queue.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("close disk spool failed", e);
+        }
+    }
+
+    public long getSpoolRecords() {
+        return queue.getRecords();
+    }
+
+    public long getSpoolBytes() {
+        return queue.getBytes();
+    }
+
+    public long getSpooledRecords() {
+        return spooledRecords.get();
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords.get();
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * whether the replay may succeed later, only the failures of connection are retried
+     */
+    private static boolean isRetryable(SendResult result) {
+        return result == SendResult.NO_CONNECTION || result == SendResult.CONNECTION_BREAK
+                || result == SendResult.TIMEOUT || result == SendResult.THREAD_INTERRUPT;
+    }
+
+    private long nextReplayId() {
+        return replayId.getAndUpdate(id -> id >= MAX_REPLAY_ID ? MIN_REPLAY_ID : id + 1);
+    }
+
+    /**
+     * replay one record
+     *
+     * @return false if there is nothing to replay or the replay fails and should be retried
+     */
+    private boolean replayOne() throws IOException {
+        byte[] data = queue.peek();
+        if (data == null) {
+            return false;
+        }
+        SpoolRecord record;
+        try {
+            record = SpoolRecord.fromBytes(data, nextReplayId());
+        } catch (IOException e) {
+            logger.error("drop invalid spool record", e);
+            queue.commit();
+            return true;
+        }
+        String msgUUID = record.getMsgUUID();
+        if (msgUUID != null && replayedUUIDs.contains(msgUUID)) {
+            queue.commit();
+            return true;
+        }
+        SendResult result = replaySender.send(record.getEncodeObject(), msgUUID,
+                REPLAY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (isRetryable(result)) {
+            logger.warn("replay spool record of {} {} failed, result {}", record.getEncodeObject().getGroupId(),
+                    record.getEncodeObject().getStreamId(), result);
+            return false;
+        }
+        if (result != SendResult.OK) {
+            logger.error("drop spool record of {} {} with msgUUID {}, result {}",
+                    record.getEncodeObject().getGroupId(), record.getEncodeObject().getStreamId(), msgUUID, result);
+            if (msgUUID != null) {
+                spooledUUIDs.remove(msgUUID);
+            }
+            queue.commit();
+            droppedRecords.incrementAndGet();
+            return true;
+        }
+        if (msgUUID != null) {
+            replayedUUIDs.add(msgUUID);
+            spooledUUIDs.remove(msgUUID);
+        }
+        queue.commit();
+        replayedRecords.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public void run() {
+        logger.info("DiskSpoolReplayThread started!");
+        long nextReplayTime = System.nanoTime();
+        long lastMetricTime = System.currentTimeMillis();
+        long lastReplayed = 0;
+        while (!bShutDown) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now - lastMetricTime >= METRIC_INTERVAL_MS) {
+                    long replayed = replayedRecords.get();
+                    logger.info("disk spool depth {} records {} bytes, replayed {} records/s",
+                            queue.getRecords(), queue.getBytes(),
+                            (replayed - lastReplayed) * 1000 / (now - lastMetricTime));
+                    lastReplayed = replayed;
+                    lastMetricTime = now;
+                }
+                if (queue.getRecords() == 0 || !healthChecker.getAsBoolean()) {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_INTERVAL_MS);
+                    continue;
+                }
+                long waitNanos = nextReplayTime - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+                nextReplayTime = Math.max(nextReplayTime, System.nanoTime() - replayIntervalNanos)
+                        + replayIntervalNanos;
+                if (!replayOne()) {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_INTERVAL_MS);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Throwable e) {
+                logger.error("DiskSpoolReplayThread exception", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MS));
+            }
+        }
+        logger.info("DiskSpoolReplayThread exited!");
+    }
+
+    /**
+     * Send a spooled message again.
+     */
+    public interface ReplaySender {
+
+        SendResult send(EncodeObject encodeObject, String msgUUID, long timeout, TimeUnit timeUnit);
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.spool;
+
+import org.apache.inlong.sdk.dataproxy.ConfigConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded file queue made of segment files, each record is stored as [length][crc32][data].
+ * The read position is kept in a cursor file, and a segment is deleted once all of its records are committed.
+ * The cursor is saved every cursorSyncRecords commits or cursorSyncIntervalMs, and on close, so the records
+ * committed after the last save are read again after a crash.
+ * A torn record at the tail of the last segment, left by a crash, is truncated on open, and the rest of
+ * an earlier segment is skipped from a corrupted record.
+ * The appended records are written to the page cache and survive a crash of the process, they are forced to
+ * the disk on append only if syncOnAppend is set, otherwise on segment roll and close.
+ */
+public class SpoolFileQueue implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolFileQueue.class);
+
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CURSOR_FILE = "spool.cursor";
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final File dir;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final int cursorSyncRecords;
+    private final long cursorSyncIntervalMs;
+    private final boolean syncOnAppend;
+    // segment sequence -> segment size
+    private final TreeMap<Long, Long> segments = new TreeMap<>();
+    private final ByteBuffer headerBuffer = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+    private FileChannel writeChannel;
+    private long writeSeq;
+    private FileChannel readChannel;
+    private long readSeq;
+    private long readOffset;
+    // offset after the record returned by the last peek, -1 if no record peeked
+    private long peekedNextOffset = -1;
+    private long records;
+    private long bytes;
+    // commits after the last save of the cursor
+    private int unsavedCommits;
+    private long lastCursorSaveTime;
+
+    public SpoolFileQueue(File dir, long segmentBytes, long maxBytes) throws IOException {
+        this(dir, segmentBytes, maxBytes, ConfigConstants.DEFAULT_SPOOL_CURSOR_SYNC_RECORDS,
+                ConfigConstants.DEFAULT_SPOOL_CURSOR_SYNC_INTERVAL_MS, false);
+    }
+
+    public SpoolFileQueue(File dir, long segmentBytes, long maxBytes, int cursorSyncRecords,
+            long cursorSyncIntervalMs, boolean syncOnAppend) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        this.cursorSyncRecords = cursorSyncRecords;
+        this.cursorSyncIntervalMs = cursorSyncIntervalMs;
+        this.syncOnAppend = syncOnAppend;
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("create spool dir " + dir + " failed");
+        }
+        File[] files = dir.listFiles((d, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())), file.length());
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, 0L);
+        }
+        loadCursor();
+        recover();
+        lastCursorSaveTime = System.currentTimeMillis();
+    }
+
+    /**
+     * append a record
+     *
+     * @return false if the queue is full
+     */
+    public synchronized boolean append(byte[] data) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + data.length;
+        if (bytes + recordSize > maxBytes) {
+            return false;
+        }
+        if (segments.get(writeSeq) > 0 && segments.get(writeSeq) + recordSize > segmentBytes) {
+            rollSegment();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+        buffer.putInt(data.length).putInt((int) crc.getValue()).put(data).flip();
+        while (buffer.hasRemaining()) {
+            writeChannel.write(buffer);
+        }
+        if (syncOnAppend) {
+            writeChannel.force(false);
+        }
+        segments.put(writeSeq, segments.get(writeSeq) + recordSize);
+        records++;
+        bytes += recordSize;
+        return true;
+    }
+
+    /**
+     * read the record at the read position without moving it
+     *
+     * @return null if the queue is empty
+     */
+    public synchronized byte[] peek() throws IOException {
+        while (true) {
+            long segmentSize = segments.get(readSeq);
+            if (readOffset < segmentSize) {
+                byte[] data = readRecord(readChannel(), readOffset);
+                if (data == null) {
+                    // the rest of the segment can not be parsed any more, skip it
+                    logger.error("corrupted record in spool segment {} at {}, skip {} bytes",
+                            readSeq, readOffset, segmentSize - readOffset);
+                    bytes -= segmentSize - readOffset;
+                    records = Math.max(0, records - 1);
+                    readOffset = segmentSize;
+                    saveCursor();
+                    continue;
+                }
+                peekedNextOffset = readOffset + RECORD_HEADER_SIZE + data.length;
+                return data;
+            }
+            Long nextSeq = segments.higherKey(readSeq);
+            if (nextSeq == null) {
+                return null;
+            }
+            // the segment is consumed
+            deleteReadSegment(nextSeq);
+        }
+    }
+
+    /**
+     * move the read position after the last peeked record, the cursor is saved only every
+     * cursorSyncRecords commits or cursorSyncIntervalMs
+     */
+    public synchronized void commit() throws IOException {
+        if (peekedNextOffset < 0) {
+            return;
+        }
+        bytes -= peekedNextOffset - readOffset;
+        records--;
+        readOffset = peekedNextOffset;
+        peekedNextOffset = -1;
+        if (++unsavedCommits >= cursorSyncRecords
+                || System.currentTimeMillis() - lastCursorSaveTime >= cursorSyncIntervalMs) {
+            saveCursor();
+        }
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (unsavedCommits > 0) {
+            saveCursor();
+        }
+        if (writeChannel != null) {
+            writeChannel.force(false);
+            writeChannel.close();
+        }
+        if (readChannel != null) {
+            readChannel.close();
+        }
+    }
+
+    private File segmentFile(long seq) {
+        return new File(dir, SEGMENT_PREFIX + String.format("%020d", seq) + SEGMENT_SUFFIX);
+    }
+
+    private FileChannel readChannel() throws IOException {
+        if (readChannel == null) {
+            readChannel = FileChannel.open(segmentFile(readSeq).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ);
+        }
+        return readChannel;
+    }
+
+    private void deleteReadSegment(long nextSeq) throws IOException {
+        if (readChannel != null) {
+            readChannel.close();
+            readChannel = null;
+        }
+        Files.deleteIfExists(segmentFile(readSeq).toPath());
+        segments.remove(readSeq);
+        readSeq = nextSeq;
+        readOffset = 0;
+        peekedNextOffset = -1;
+        saveCursor();
+    }
+
+    private void rollSegment() throws IOException {
+        writeChannel.force(false);
+        writeChannel.close();
+        writeSeq++;
+        segments.put(writeSeq, 0L);
+        writeChannel = openWriteChannel(writeSeq);
+    }
+
+    private FileChannel openWriteChannel(long seq) throws IOException {
+        return FileChannel.open(segmentFile(seq).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private byte[] readRecord(FileChannel channel, long offset) throws IOException {
+        headerBuffer.clear();
+        if (readFully(channel, headerBuffer, offset) < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        headerBuffer.flip();
+        int length = headerBuffer.getInt();
+        int checksum = headerBuffer.getInt();
+        if (length < 0 || offset + RECORD_HEADER_SIZE + length > channel.size()) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.allocate(length);
+        readFully(channel, data, offset + RECORD_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(data.array());
+        return (int) crc.getValue() == checksum ? data.array() : null;
+    }
+
+    private int readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private void loadCursor() throws IOException {
+        readSeq = segments.firstKey();
+        readOffset = 0;
+        File cursorFile = new File(dir, CURSOR_FILE);
+        if (!cursorFile.exists()) {
+            return;
+        }
+        String[] cursor = new String(Files.readAllBytes(cursorFile.toPath()), StandardCharsets.UTF_8).trim()
+                .split(" ");
+        long seq = Long.parseLong(cursor[0]);
+        if (segments.containsKey(seq)) {
+            readSeq = seq;
+            readOffset = Long.parseLong(cursor[1]);
+        }
+        // segments before the cursor have been consumed
+        while (segments.firstKey() < readSeq) {
+            Files.deleteIfExists(segmentFile(segments.pollFirstEntry().getKey()).toPath());
+        }
+    }
+
+    private void saveCursor() throws IOException {
+        File tmpFile = new File(dir, CURSOR_FILE + ".tmp");
+        Files.write(tmpFile.toPath(), (readSeq + " " + readOffset).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmpFile.toPath(), new File(dir, CURSOR_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        unsavedCommits = 0;
+        lastCursorSaveTime = System.currentTimeMillis();
+    }
+
+    /**
+     * count the records after the cursor, and truncate the torn record of the last segment,
+     * the corrupted rest of an earlier segment is kept and skipped by peek as one record
+     */
+    private void recover() throws IOException {
+        writeSeq = segments.lastKey();
+        for (Long seq : segments.keySet().toArray(new Long[0])) {
+            long offset = (seq == readSeq) ? readOffset : 0;
+            try (FileChannel channel = FileChannel.open(segmentFile(seq).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                byte[] data;
+                while (offset < channel.size() && (data = readRecord(channel, offset)) != null) {
+                    offset += RECORD_HEADER_SIZE + data.length;
+                    records++;
+                }
+                if (offset < channel.size()) {
+                    if (seq == writeSeq) {
+                        logger.warn("truncate spool segment {} from {} to {}", seq, channel.size(), offset);
+                        channel.truncate(offset);
+                    } else {
+                        logger.error("corrupted record in spool segment {} at {}, {} bytes will be skipped",
+                                seq, offset, channel.size() - offset);
+                        offset = channel.size();
+                        records++;
+                    }
+                }
+            }
+            segments.put(seq, Math.max(offset, seq == readSeq ? readOffset : 0));
+            bytes += offset - ((seq == readSeq) ? readOffset : 0);
+        }
+        writeChannel = openWriteChannel(writeSeq);
+    }
+}
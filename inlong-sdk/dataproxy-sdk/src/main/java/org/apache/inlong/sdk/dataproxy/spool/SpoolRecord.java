@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.spool;
+
+import org.apache.inlong.sdk.dataproxy.codec.EncodeObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Spooled message, the fields of an {@link EncodeObject} of msgtype 7 which are needed to send it again.
+ * The message id is not kept, the replay assigns a new one.
+ */
+public class SpoolRecord {
+
+    private static final int VERSION = 1;
+
+    private final EncodeObject encodeObject;
+    private final String msgUUID;
+
+    public SpoolRecord(EncodeObject encodeObject, String msgUUID) {
+        this.encodeObject = encodeObject;
+        this.msgUUID = msgUUID;
+    }
+
+    public EncodeObject getEncodeObject() {
+        return encodeObject;
+    }
+
+    public String getMsgUUID() {
+        return msgUUID;
+    }
+
+    /**
+     * serialize the record
+     */
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeUTF(encodeObject.getGroupId());
+        out.writeUTF(encodeObject.getStreamId());
+        out.writeLong(encodeObject.getDt());
+        out.writeUTF(encodeObject.getCommonattr() == null ? "" : encodeObject.getCommonattr());
+        out.writeUTF(encodeObject.getMessageKey());
+        out.writeBoolean(encodeObject.isCompress());
+        out.writeBoolean(encodeObject.isReport());
+        out.writeBoolean(encodeObject.isGroupIdTransfer());
+        out.writeBoolean(encodeObject.isSupportLF());
+        out.writeInt(encodeObject.getCnt());
+        out.writeUTF(msgUUID == null ? "" : msgUUID);
+        List<byte[]> bodyList = encodeObject.getBodyBytes() != null
+                ? Collections.singletonList(encodeObject.getBodyBytes()) : encodeObject.getBodylist();
+        out.writeInt(bodyList.size());
+        for (byte[] body : bodyList) {
+            out.writeInt(body.length);
+            out.write(body);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * deserialize the record, with the given message id
+     */
+    public static SpoolRecord fromBytes(byte[] data, long seqId) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("unsupported spool record version " + version);
+        }
+        String groupId = in.readUTF();
+        String streamId = in.readUTF();
+        long dt = in.readLong();
+        String commonAttr = in.readUTF();
+        String messageKey = in.readUTF();
+        boolean isCompress = in.readBoolean();
+        boolean isReport = in.readBoolean();
+        boolean isGroupIdTransfer = in.readBoolean();
+        boolean isSupportLF = in.readBoolean();
+        int cnt = in.readInt();
+        String msgUUID = in.readUTF();
+        int size = in.readInt();
+        List<byte[]> bodyList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            bodyList.add(body);
+        }
+        EncodeObject encodeObject = new EncodeObject(bodyList, 7, isCompress, isReport, isGroupIdTransfer,
+                dt, seqId, groupId, streamId, commonAttr);
+        encodeObject.setMessageKey(messageKey);
+        encodeObject.setSupportLF(isSupportLF);
+        encodeObject.setCnt(cnt);
+        return new SpoolRecord(encodeObject, msgUUID.isEmpty() ? null : msgUUID);
+    }
+}
@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -59,6 +60,9 @@ public class MetricWorkerThread extends Thread implements Closeable {
     private final boolean enableSlaMetric;
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private volatile boolean bShutdown = false;
+    // messages encoded and the bytes allocated for them since the last flush
+    private final LongAdder encodedMsgCnt = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
 
     public MetricWorkerThread(ProxyClientConfig proxyClientConfig, Sender sender) {
         this.proxyClientConfig = proxyClientConfig;
@@ -172,6 +176,17 @@ public class MetricWorkerThread extends Thread implements Closeable {
         }
     }
 
+    /**
+     * record the bytes allocated by the encoder
+     *
+     * @param msgCnt message count of the encoded package
+     * @param bytes bytes allocated for the package
+     */
+    public void recordEncodedBytes(int msgCnt, int bytes) {
+        encodedMsgCnt.add(msgCnt);
+        encodedBytes.add(bytes);
+    }
+
     @Override
     public void close() {
         bShutdown = false;
@@ -274,6 +289,12 @@ public class MetricWorkerThread extends Thread implements Closeable {
         } finally {
             lock.writeLock().unlock();
         }
+        long msgCnt = encodedMsgCnt.sumThenReset();
+        long bytes = encodedBytes.sumThenReset();
+        if (msgCnt > 0) {
+            logger.info("encoded {} messages with {} bytes allocated, {} bytes per message",
+                    msgCnt, bytes, bytes / msgCnt);
+        }
     }
 
     private class MetricSendCallBack extends FileCallback {
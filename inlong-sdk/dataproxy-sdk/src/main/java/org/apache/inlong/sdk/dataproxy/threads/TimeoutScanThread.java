@@ -19,11 +19,8 @@
 package org.apache.inlong.sdk.dataproxy.threads;
 
 import io.netty.channel.Channel;
-import org.apache.inlong.sdk.dataproxy.FileCallback;
 import org.apache.inlong.sdk.dataproxy.ProxyClientConfig;
-import org.apache.inlong.sdk.dataproxy.SendResult;
 import org.apache.inlong.sdk.dataproxy.network.ClientMgr;
-import org.apache.inlong.sdk.dataproxy.network.QueueObject;
 import org.apache.inlong.sdk.dataproxy.network.TimeScanObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,12 +30,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Daemon threads to check timeout for asynchronous callback.
+ * Daemon threads to check the channels with too many timeout messages.
+ * The timeout of asynchronous callback itself is fired by the timer wheel of Sender.
  */
 public class TimeoutScanThread extends Thread {
     private static final int MAX_CHANNEL_TIMEOUT = 5 * 60 * 1000;
     private final Logger logger = LoggerFactory.getLogger(TimeoutScanThread.class);
-    private final ConcurrentHashMap<Channel, ConcurrentHashMap<String, QueueObject>> callbacks;
     private final AtomicInteger currentBufferSize;
     private final ProxyClientConfig config;
     private final ClientMgr clientMgr;
@@ -46,11 +43,9 @@ public class TimeoutScanThread extends Thread {
     private volatile boolean bShutDown = false;
     private long printCount = 0;
 
-    public TimeoutScanThread(ConcurrentHashMap<Channel, ConcurrentHashMap<String, QueueObject>> callbacks,
-            AtomicInteger currentBufferSize, ProxyClientConfig config, ClientMgr clientMgr) {
+    public TimeoutScanThread(AtomicInteger currentBufferSize, ProxyClientConfig config, ClientMgr clientMgr) {
         bShutDown = false;
         printCount = 0;
-        this.callbacks = callbacks;
         this.currentBufferSize = currentBufferSize;
         this.config = config;
         this.clientMgr = clientMgr;
@@ -124,50 +119,11 @@ public class TimeoutScanThread extends Thread {
         }
     }
 
-    /**
-     * check message id
-     *
-     * @param channel
-     * @param messageIdCallbacks
-     */
-    private void checkMessageIdBasedCallbacks(Channel channel,
-            ConcurrentHashMap<String, QueueObject> messageIdCallbacks) {
-        for (String messageId : messageIdCallbacks.keySet()) {
-            QueueObject queueObject = messageId != null ? messageIdCallbacks.get(messageId) : null;
-            if (queueObject == null) {
-                continue;
-            }
-            // if queueObject timeout
-            if (System.currentTimeMillis() - queueObject.getSendTimeInMillis() >= queueObject.getTimeoutInMillis()) {
-                // remove it before callback
-                QueueObject queueObject1 = messageIdCallbacks.remove(messageId);
-                if (queueObject1 != null) {
-                    if (config.isFile()) {
-                        ((FileCallback) queueObject1.getCallback()).onMessageAck(SendResult.TIMEOUT.toString());
-                        currentBufferSize.addAndGet(-queueObject1.getSize());
-                    } else {
-                        queueObject1.getCallback().onMessageAck(SendResult.TIMEOUT);
-                        currentBufferSize.decrementAndGet();
-                    }
-                }
-                addTimeoutChannel(channel);
-            }
-        }
-    }
-
     @Override
     public void run() {
         logger.info("TimeoutScanThread Thread=" + Thread.currentThread().getId() + " started !");
         while (!bShutDown) {
             try {
-                for (Channel channel : callbacks.keySet()) {
-                    ConcurrentHashMap<String, QueueObject> msgQueueMap =
-                            channel != null ? callbacks.get(channel) : null;
-                    if (msgQueueMap == null) {
-                        continue;
-                    }
-                    checkMessageIdBasedCallbacks(channel, msgQueueMap);
-                }
                 checkTimeoutChannel();
                 TimeUnit.SECONDS.sleep(1);
             } catch (Throwable e) {
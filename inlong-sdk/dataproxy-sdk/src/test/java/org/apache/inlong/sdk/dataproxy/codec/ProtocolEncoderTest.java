@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.EncoderException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.inlong.sdk.dataproxy.ConfigConstants;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xerial.snappy.Snappy;
+
+public class ProtocolEncoderTest {
+
+    private static ByteBuf encode(EncodeObject object) {
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtocolEncoder());
+        Assert.assertTrue(channel.writeOutbound(object));
+        ByteBuf buf = channel.readOutbound();
+        channel.finish();
+        return buf;
+    }
+
+    private static String readString(ByteBuf buf, int length) {
+        byte[] bytes = new byte[length];
+        buf.readBytes(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCompressedBodyList() throws Exception {
+        EncodeObject object = new EncodeObject(Arrays.asList("a".getBytes(), "bc".getBytes()), 7, true,
+                false, false, 100, 1, "group", "stream", "");
+        ByteBuf buf = encode(object);
+        try {
+            Assert.assertEquals(buf.readableBytes() - 4, buf.readInt());
+            Assert.assertEquals(7 | ConfigConstants.FLAG_ALLOW_COMPRESS, buf.readByte());
+            buf.skipBytes(2 + 2 + 2);
+            Assert.assertEquals(100, buf.readInt());
+            Assert.assertEquals(2, buf.readShort());
+            Assert.assertEquals(1, buf.readInt());
+            byte[] body = new byte[buf.readInt()];
+            buf.readBytes(body);
+            Assert.assertArrayEquals(new byte[]{0, 0, 0, 1, 'a', 0, 0, 0, 2, 'b', 'c'}, Snappy.uncompress(body));
+            Assert.assertEquals("groupId=group&streamId=stream", readString(buf, buf.readShort()));
+            Assert.assertEquals(0xee01, buf.readUnsignedShort());
+            Assert.assertEquals(0, buf.readableBytes());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testUncompressedBody() {
+        EncodeObject object = new EncodeObject("hello".getBytes(), "k=v", "m1", 3, false, "group");
+        ByteBuf buf = encode(object);
+        try {
+            Assert.assertEquals(buf.readableBytes() - 4, buf.readInt());
+            Assert.assertEquals(3, buf.readByte());
+            Assert.assertEquals("hello", readString(buf, buf.readInt()));
+            Assert.assertEquals("k=v&messageId=m1", readString(buf, buf.readInt()));
+            Assert.assertEquals(0, buf.readableBytes());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testOversizeAttributesNotWritten() {
+        StringBuilder attr = new StringBuilder("k=");
+        for (int i = 0; i < 0x10000; i++) {
+            attr.append('v');
+        }
+        EncodeObject object = new EncodeObject(Arrays.asList("a".getBytes(), "bc".getBytes()), 7, false,
+                false, false, 100, 1, "group", "stream", attr.toString());
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtocolEncoder());
+        // the attribute length is carried in 16 bits, the write fails rather than sending a corrupted frame
+        try {
+            channel.writeOutbound(object);
+            Assert.fail("encoder exception is expected");
+        } catch (EncoderException e) {
+            Assert.assertNull(channel.readOutbound());
+        }
+        channel.finish();
+    }
+
+    @Test
+    public void testEncodedBatchMatchesBodyList() throws Exception {
+        List<byte[]> bodyList = Arrays.asList("a".getBytes(), "bc".getBytes(), "def".getBytes());
+        BatchBodyEncoder batchEncoder = new BatchBodyEncoder();
+        for (boolean compress : new boolean[]{true, false}) {
+            for (boolean supportLF : new boolean[]{true, false}) {
+                EncodeObject listObject = new EncodeObject(bodyList, 7, compress,
+                        false, false, 100, 1, "group", "stream", "");
+                listObject.setSupportLF(supportLF);
+                EncodedBatch batch = batchEncoder.encode(bodyList, compress, supportLF);
+                Assert.assertEquals(3, batch.getCnt());
+                EncodeObject batchObject = new EncodeObject(batch, 7, false, false, 100, 1,
+                        "group", "stream", "");
+                Assert.assertEquals(3, batchObject.getRealCnt());
+                ByteBuf expected = encode(listObject);
+                ByteBuf actual = encode(batchObject);
+                try {
+                    Assert.assertArrayEquals(ByteBufUtil.getBytes(expected), ByteBufUtil.getBytes(actual));
+                } finally {
+                    expected.release();
+                    actual.release();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEncodedBatchSentWithoutCopy() throws Exception {
+        List<byte[]> bodyList = Arrays.asList("a".getBytes(), "bc".getBytes(), "def".getBytes());
+        EncodedBatch batch = new BatchBodyEncoder().encode(bodyList, false, false);
+        EncodeObject batchObject = new EncodeObject(batch, 7, false, false, 100, 1,
+                "group", "stream", "");
+        ByteBuf first = encode(batchObject);
+        // a resend encodes the same batch again
+        ByteBuf second = encode(batchObject);
+        try {
+            Assert.assertTrue(first instanceof CompositeByteBuf);
+            CompositeByteBuf composite = (CompositeByteBuf) first;
+            Assert.assertEquals(3, composite.numComponents());
+            ByteBuf body = composite.component(1);
+            Assert.assertTrue(body.hasArray());
+            Assert.assertSame(batch.getBody(), body.array());
+            Assert.assertArrayEquals(ByteBufUtil.getBytes(first), ByteBufUtil.getBytes(second));
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
+}
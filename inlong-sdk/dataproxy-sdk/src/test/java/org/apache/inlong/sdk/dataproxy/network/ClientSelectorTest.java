@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClientSelectorTest {
+
+    /**
+     * create a client without connection
+     */
+    static NettyClient createClient(String ip, boolean active) {
+        return new NettyClient(null, ip, 46801, null) {
+
+            @Override
+            public boolean isActive() {
+                return active;
+            }
+        };
+    }
+
+    @Test
+    public void testEmpty() {
+        ClientSelector selector = new ClientSelector(client -> 0L);
+        Assert.assertNull(selector.select());
+        List<NettyClient> clients = new ArrayList<>();
+        clients.add(createClient("127.0.0.1", false));
+        selector.update(clients);
+        Assert.assertNull(selector.select());
+    }
+
+    @Test
+    public void testSkipInactive() {
+        ClientSelector selector = new ClientSelector(client -> 0L);
+        List<NettyClient> clients = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            clients.add(createClient("127.0.0." + i, false));
+        }
+        NettyClient active = createClient("127.0.0.5", true);
+        clients.add(active);
+        selector.update(clients);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertSame(active, selector.select());
+        }
+    }
+
+    @Test
+    public void testLowerScore() {
+        Map<NettyClient, Long> scores = new HashMap<>();
+        List<NettyClient> clients = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            NettyClient client = createClient("127.0.0." + i, true);
+            clients.add(client);
+            scores.put(client, 10L);
+        }
+        // the overloaded connection always loses the comparison
+        scores.put(clients.get(0), 1000L);
+        ClientSelector selector = new ClientSelector(scores::get);
+        selector.update(clients);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNotSame(clients.get(0), selector.select());
+        }
+        // the update does not change the selector by the list
+        clients.clear();
+        Assert.assertNotNull(selector.select());
+    }
+}
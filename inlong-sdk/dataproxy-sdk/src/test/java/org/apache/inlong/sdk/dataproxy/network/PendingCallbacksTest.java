@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.inlong.sdk.dataproxy.SendMessageCallback;
+import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PendingCallbacksTest {
+
+    private static final long TIMEOUT_MS = 100;
+    // long enough for the timeouts to expire on the 10 ms wheel
+    private static final long WAIT_MS = 500;
+
+    private final List<SendResult> results = new CopyOnWriteArrayList<>();
+    private final List<QueueObject> expired = new CopyOnWriteArrayList<>();
+    private final CountDownLatch expiredLatch = new CountDownLatch(1);
+    private PendingCallbacks callbacks;
+
+    @Before
+    public void setUp() {
+        callbacks = new PendingCallbacks(false, (channel, queueObject) -> {
+            expired.add(queueObject);
+            expiredLatch.countDown();
+        }, 10, 16);
+    }
+
+    @After
+    public void tearDown() {
+        callbacks.close();
+    }
+
+    private QueueObject newQueueObject() {
+        return new QueueObject(System.currentTimeMillis(), new SendMessageCallback() {
+
+            @Override
+            public void onMessageAck(SendResult result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onException(Throwable e) {
+                Assert.fail("unexpected exception " + e);
+            }
+        }, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        Channel channel = new EmbeddedChannel();
+        QueueObject queueObject = newQueueObject();
+        Assert.assertNull(callbacks.add(channel, "1", queueObject));
+        Assert.assertEquals(1, callbacks.size(channel));
+
+        Assert.assertTrue(expiredLatch.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals(SendResult.TIMEOUT, results.get(0));
+        Assert.assertSame(queueObject, expired.get(0));
+        Assert.assertEquals(0, callbacks.size(channel));
+        // the ack after the timeout finds nothing
+        Assert.assertNull(callbacks.remove(channel, "1"));
+    }
+
+    @Test
+    public void testAckCancelsTimeout() throws Exception {
+        Channel channel = new EmbeddedChannel();
+        QueueObject queueObject = newQueueObject();
+        callbacks.add(channel, "1", queueObject);
+        // a duplicate message id is not added
+        Assert.assertSame(queueObject, callbacks.add(channel, "1", newQueueObject()));
+
+        Assert.assertSame(queueObject, callbacks.remove(channel, "1"));
+        Assert.assertEquals(0, callbacks.size(channel));
+        Assert.assertFalse(expiredLatch.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void testClearCancelsTimeouts() throws Exception {
+        Channel channel = new EmbeddedChannel();
+        Channel other = new EmbeddedChannel();
+        callbacks.add(channel, "1", newQueueObject());
+        callbacks.add(channel, "2", newQueueObject());
+        callbacks.add(other, "3", newQueueObject());
+
+        Assert.assertEquals(1, callbacks.removeChannel(other).size());
+        callbacks.clear();
+        Assert.assertEquals(0, callbacks.size(channel));
+        Assert.assertFalse(expiredLatch.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(results.isEmpty());
+        Assert.assertTrue(expired.isEmpty());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.inlong.sdk.dataproxy.ConfigConstants;
+import org.apache.inlong.sdk.dataproxy.SendMessageCallback;
+import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecordAccumulatorTest {
+
+    private static final long DT = 1660000000000L;
+
+    private static SendMessageCallback countCallback(AtomicInteger acks, AtomicInteger exceptions) {
+        return new SendMessageCallback() {
+
+            @Override
+            public void onMessageAck(SendResult result) {
+                acks.incrementAndGet();
+            }
+
+            @Override
+            public void onException(Throwable e) {
+                exceptions.incrementAndGet();
+            }
+        };
+    }
+
+    @Test
+    public void testBatchSize() throws Exception {
+        List<RecordAccumulator.RecordBatch> sent = new CopyOnWriteArrayList<>();
+        RecordAccumulator accumulator = new RecordAccumulator(sent::add, 10, 60000, 1024);
+        AtomicInteger acks = new AtomicInteger(0);
+        for (int i = 0; i < 5; i++) {
+            accumulator.append("group", "stream", DT, new byte[4], countCallback(acks, null),
+                    100, TimeUnit.MILLISECONDS);
+        }
+        // 4 + 4 fits, the third one starts a new batch
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(2, sent.get(0).getBodyList().size());
+        Assert.assertEquals(4, accumulator.getBufferedBytes());
+        sent.get(0).onMessageAck(SendResult.OK);
+        Assert.assertEquals(2, acks.get());
+        accumulator.close();
+        Assert.assertEquals(3, sent.size());
+        Assert.assertEquals(0, accumulator.getBufferedBytes());
+    }
+
+    @Test
+    public void testSplitByStreamAndDt() throws Exception {
+        List<RecordAccumulator.RecordBatch> sent = new CopyOnWriteArrayList<>();
+        RecordAccumulator accumulator = new RecordAccumulator(sent::add, 1024, 60000, 4096);
+        accumulator.append("group", "stream1", DT, new byte[1], null, 100, TimeUnit.MILLISECONDS);
+        accumulator.append("group", "stream2", DT, new byte[1], null, 100, TimeUnit.MILLISECONDS);
+        accumulator.append("group", "stream1", DT + 999, new byte[1], null, 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(0, sent.size());
+        accumulator.append("group", "stream1", DT + 1000, new byte[1], null, 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1, sent.size());
+        Assert.assertEquals("stream1", sent.get(0).getStreamId());
+        Assert.assertEquals(2, sent.get(0).getBodyList().size());
+        accumulator.close();
+        Assert.assertEquals(3, sent.size());
+    }
+
+    @Test
+    public void testMsgUUID() throws Exception {
+        List<RecordAccumulator.RecordBatch> sent = new CopyOnWriteArrayList<>();
+        RecordAccumulator accumulator = new RecordAccumulator(sent::add, 1024, 60000, 4096);
+        accumulator.append("group", "stream", DT, new byte[1], null, 100, TimeUnit.MILLISECONDS);
+        accumulator.append("group", "stream", DT, new byte[1], "uuid1", null, 100, TimeUnit.MILLISECONDS);
+        accumulator.append("group", "stream", DT, new byte[1], "uuid2", null, 100, TimeUnit.MILLISECONDS);
+        accumulator.append("group", "stream2", DT, new byte[1], null, 100, TimeUnit.MILLISECONDS);
+        accumulator.close();
+        Assert.assertEquals(2, sent.size());
+        for (RecordAccumulator.RecordBatch batch : sent) {
+            if ("stream".equals(batch.getStreamId())) {
+                // the msgUUID of every message is carried by its batch
+                Assert.assertEquals("uuid1,uuid2", batch.getMsgUUID());
+            } else {
+                Assert.assertNull(batch.getMsgUUID());
+            }
+        }
+    }
+
+    @Test
+    public void testBatchMaxRecords() throws Exception {
+        List<RecordAccumulator.RecordBatch> sent = new CopyOnWriteArrayList<>();
+        RecordAccumulator accumulator = new RecordAccumulator(sent::add, 1024, 3, 60000, 4096);
+        for (int i = 0; i < 7; i++) {
+            accumulator.append("group", "stream", DT, new byte[1], null, 100, TimeUnit.MILLISECONDS);
+        }
+        // tiny messages are bounded by the max records, not only by the bytes
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(3, sent.get(0).getBodyList().size());
+        Assert.assertEquals(3, sent.get(1).getBodyList().size());
+        accumulator.close();
+        Assert.assertEquals(3, sent.size());
+        Assert.assertEquals(1, sent.get(2).getBodyList().size());
+    }
+
+    @Test
+    public void testMsgUUIDsLength() throws Exception {
+        List<RecordAccumulator.RecordBatch> sent = new CopyOnWriteArrayList<>();
+        RecordAccumulator accumulator = new RecordAccumulator(sent::add, 1024 * 1024, 60000, 4 * 1024 * 1024);
+        String uuid = "123e4567-e89b-12d3-a456-426614174000";
+        int messages = 3000;
+        for (int i = 0; i < messages; i++) {
+            accumulator.append("group", "stream", DT, new byte[1], uuid, null, 100, TimeUnit.MILLISECONDS);
+        }
+        accumulator.close();
+        // the joined msgUUIDs of every batch fit in the attributes, no message is lost
+        Assert.assertTrue(sent.size() > 1);
+        int total = 0;
+        for (RecordAccumulator.RecordBatch batch : sent) {
+            Assert.assertTrue(batch.getMsgUUID().length() <= ConfigConstants.MAX_BATCH_MSG_UUIDS_LENGTH);
+            Assert.assertEquals(batch.getBodyList().size(), batch.getMsgUUID().split(",").length);
+            total += batch.getBodyList().size();
+        }
+        Assert.assertEquals(messages, total);
+    }
+
+    @Test
+    public void testLinger() throws Exception {
+        List<RecordAccumulator.RecordBatch> sent = new CopyOnWriteArrayList<>();
+        RecordAccumulator accumulator = new RecordAccumulator(sent::add, 1024, 10, 4096);
+        accumulator.append("group", "stream", DT, new byte[1], null, 100, TimeUnit.MILLISECONDS);
+        long start = System.currentTimeMillis();
+        while (sent.isEmpty() && System.currentTimeMillis() - start < 5000) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        Assert.assertEquals(1, sent.size());
+        accumulator.close();
+    }
+
+    @Test
+    public void testBufferFullAndSendError() throws Exception {
+        RecordAccumulator accumulator = new RecordAccumulator(batch -> {
+            throw new ProxysdkException(SendResult.NO_CONNECTION.toString());
+        }, 8, 60000, 8);
+        AtomicInteger exceptions = new AtomicInteger(0);
+        accumulator.append("group", "stream", DT, new byte[6], countCallback(null, exceptions),
+                100, TimeUnit.MILLISECONDS);
+        try {
+            accumulator.append("group", "stream", DT, new byte[6], countCallback(null, exceptions),
+                    100, TimeUnit.MILLISECONDS);
+            Assert.fail("buffer should be full");
+        } catch (ProxysdkException e) {
+            Assert.assertEquals("ACCUMULATOR_BUFFER_FULL", e.getMessage());
+        }
+        accumulator.close();
+        Assert.assertEquals(1, exceptions.get());
+        Assert.assertEquals(0, accumulator.getBufferedBytes());
+    }
+}
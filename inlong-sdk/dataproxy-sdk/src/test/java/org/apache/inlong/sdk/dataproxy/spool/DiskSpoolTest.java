@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.inlong.sdk.dataproxy.spool;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.inlong.sdk.dataproxy.ProxyClientConfig;
+import org.apache.inlong.sdk.dataproxy.SendResult;
+import org.apache.inlong.sdk.dataproxy.codec.EncodeObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DiskSpoolTest {
+
+    private File dir;
+    private DiskSpool spool;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("spool").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (spool != null) {
+            spool.shutDown();
+        }
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private DiskSpool newSpool(DiskSpool.ReplaySender replaySender) throws Exception {
+        ProxyClientConfig config = new ProxyClientConfig("127.0.0.1", true, "127.0.0.1", 8080, "group", "all");
+        config.setSpoolPath(dir.getAbsolutePath());
+        config.setSpoolReplayRate(1000);
+        return new DiskSpool(config, replaySender, () -> true);
+    }
+
+    private static EncodeObject newObject(String body) {
+        return new EncodeObject(Collections.singletonList(body.getBytes(StandardCharsets.UTF_8)), 7, false,
+                false, false, 100, 1, "group", "stream", "");
+    }
+
+    private static void waitDrained(DiskSpool spool, int records) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (spool.getReplayedRecords() + spool.getDroppedRecords() < records
+                && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.assertEquals(0, spool.getSpoolRecords());
+    }
+
+    @Test
+    public void testReplayInOrder() throws Exception {
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        spool = newSpool((encodeObject, msgUUID, timeout, timeUnit) -> {
+            // the first replay fails on the connection, and is retried before the next record
+            if (replayed.isEmpty() && "uuid0".equals(msgUUID)) {
+                replayed.add("failed");
+                return SendResult.NO_CONNECTION;
+            }
+            replayed.add(msgUUID);
+            return SendResult.OK;
+        });
+        Assert.assertTrue(spool.spool(newObject("a"), "uuid0"));
+        Assert.assertTrue(spool.spool(newObject("b"), "uuid1"));
+        spool.start();
+        waitDrained(spool, 2);
+        Assert.assertEquals(3, replayed.size());
+        Assert.assertEquals("uuid0", replayed.get(1));
+        Assert.assertEquals("uuid1", replayed.get(2));
+        Assert.assertEquals(2, spool.getReplayedRecords());
+        Assert.assertEquals(0, spool.getDroppedRecords());
+    }
+
+    @Test
+    public void testDropNonRetryable() throws Exception {
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        spool = newSpool((encodeObject, msgUUID, timeout, timeUnit) -> {
+            replayed.add(msgUUID);
+            return "uuid0".equals(msgUUID) ? SendResult.INVALID_ATTRIBUTES : SendResult.OK;
+        });
+        Assert.assertTrue(spool.spool(newObject("a"), "uuid0"));
+        Assert.assertTrue(spool.spool(newObject("b"), "uuid1"));
+        spool.start();
+        waitDrained(spool, 2);
+        // the invalid record is tried once, and does not block the next one
+        Assert.assertEquals(2, replayed.size());
+        Assert.assertEquals(1, spool.getReplayedRecords());
+        Assert.assertEquals(1, spool.getDroppedRecords());
+    }
+}
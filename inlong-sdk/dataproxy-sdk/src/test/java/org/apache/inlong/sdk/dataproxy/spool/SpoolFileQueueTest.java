@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.spool;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.inlong.sdk.dataproxy.codec.EncodeObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpoolFileQueueTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("spool").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testAppendAndCommit() throws Exception {
+        // each record takes 8 + 4 bytes, 2 records per segment
+        SpoolFileQueue queue = new SpoolFileQueue(dir, 24, 1024);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(queue.append(bytes("msg" + i)));
+        }
+        Assert.assertEquals(5, queue.getRecords());
+        Assert.assertEquals(60, queue.getBytes());
+        Assert.assertArrayEquals(bytes("msg0"), queue.peek());
+        // not committed, peek again returns the same record
+        Assert.assertArrayEquals(bytes("msg0"), queue.peek());
+        queue.commit();
+        Assert.assertArrayEquals(bytes("msg1"), queue.peek());
+        queue.commit();
+        Assert.assertArrayEquals(bytes("msg2"), queue.peek());
+        Assert.assertEquals(3, queue.getRecords());
+        queue.close();
+
+        // reopen from the cursor
+        queue = new SpoolFileQueue(dir, 24, 1024);
+        Assert.assertEquals(3, queue.getRecords());
+        Assert.assertEquals(36, queue.getBytes());
+        for (int i = 2; i < 5; i++) {
+            Assert.assertArrayEquals(bytes("msg" + i), queue.peek());
+            queue.commit();
+        }
+        Assert.assertNull(queue.peek());
+        Assert.assertEquals(0, queue.getRecords());
+        Assert.assertEquals(0, queue.getBytes());
+        queue.close();
+        // the consumed segments are deleted
+        Assert.assertEquals(1, dir.listFiles((d, name) -> name.endsWith(".log")).length);
+    }
+
+    @Test
+    public void testFullAndTornTail() throws Exception {
+        SpoolFileQueue queue = new SpoolFileQueue(dir, 1024, 30);
+        Assert.assertTrue(queue.append(bytes("msg0")));
+        Assert.assertTrue(queue.append(bytes("msg1")));
+        Assert.assertFalse(queue.append(bytes("msg2")));
+        queue.close();
+
+        File segment = dir.listFiles((d, name) -> name.endsWith(".log"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // a crash in the middle of the second record
+            file.setLength(18);
+        }
+        queue = new SpoolFileQueue(dir, 1024, 30);
+        Assert.assertEquals(1, queue.getRecords());
+        Assert.assertEquals(12, segment.length());
+        Assert.assertTrue(queue.append(bytes("msg2")));
+        Assert.assertArrayEquals(bytes("msg0"), queue.peek());
+        queue.commit();
+        Assert.assertArrayEquals(bytes("msg2"), queue.peek());
+        queue.close();
+    }
+
+    @Test
+    public void testCorruptedEarlierSegment() throws Exception {
+        // 2 records per segment
+        SpoolFileQueue queue = new SpoolFileQueue(dir, 24, 1024);
+        for (int i = 0; i < 6; i++) {
+            Assert.assertTrue(queue.append(bytes("msg" + i)));
+        }
+        queue.close();
+
+        File[] segments = dir.listFiles((d, name) -> name.endsWith(".log"));
+        Arrays.sort(segments);
+        try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            // corrupt the data of the second record of the first segment
+            file.seek(20);
+            file.write(bytes("xxxx"));
+        }
+        queue = new SpoolFileQueue(dir, 24, 1024);
+        // the first segment is not truncated, the corrupted record is skipped on read
+        Assert.assertEquals(24, segments[0].length());
+        Assert.assertEquals(6, queue.getRecords());
+        Assert.assertEquals(72, queue.getBytes());
+        Assert.assertArrayEquals(bytes("msg0"), queue.peek());
+        queue.commit();
+        for (int i = 2; i < 6; i++) {
+            Assert.assertArrayEquals(bytes("msg" + i), queue.peek());
+            queue.commit();
+        }
+        Assert.assertNull(queue.peek());
+        Assert.assertEquals(0, queue.getRecords());
+        Assert.assertEquals(0, queue.getBytes());
+        queue.close();
+    }
+
+    @Test
+    public void testCursorSync() throws Exception {
+        SpoolFileQueue queue = new SpoolFileQueue(dir, 1024, 1024, 3, Long.MAX_VALUE, true);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(queue.append(bytes("msg" + i)));
+        }
+        for (int i = 0; i < 4; i++) {
+            Assert.assertArrayEquals(bytes("msg" + i), queue.peek());
+            queue.commit();
+        }
+        // the cursor is saved after the third commit only, a crash replays from msg3
+        SpoolFileQueue recovered = new SpoolFileQueue(dir, 1024, 1024);
+        Assert.assertEquals(2, recovered.getRecords());
+        Assert.assertArrayEquals(bytes("msg3"), recovered.peek());
+        recovered.close();
+
+        // the cursor is saved on close
+        queue.close();
+        queue = new SpoolFileQueue(dir, 1024, 1024);
+        Assert.assertEquals(1, queue.getRecords());
+        Assert.assertArrayEquals(bytes("msg4"), queue.peek());
+        queue.close();
+    }
+
+    @Test
+    public void testSpoolRecord() throws Exception {
+        EncodeObject encodeObject = new EncodeObject(Arrays.asList(bytes("a"), bytes("bc")), 7, true,
+                false, false, 100, 1, "group", "stream", "k=v");
+        encodeObject.setSupportLF(true);
+        SpoolRecord record = SpoolRecord.fromBytes(new SpoolRecord(encodeObject, "uuid").toBytes(), 2);
+        EncodeObject replay = record.getEncodeObject();
+        Assert.assertEquals("uuid", record.getMsgUUID());
+        Assert.assertEquals("2", replay.getMessageId());
+        Assert.assertEquals("group", replay.getGroupId());
+        Assert.assertEquals("stream", replay.getStreamId());
+        Assert.assertEquals(100, replay.getDt());
+        Assert.assertEquals("k=v", replay.getCommonattr());
+        Assert.assertTrue(replay.isCompress());
+        Assert.assertTrue(replay.isSupportLF());
+        Assert.assertEquals(2, replay.getBodylist().size());
+        Assert.assertArrayEquals(bytes("bc"), replay.getBodylist().get(1));
+    }
+}
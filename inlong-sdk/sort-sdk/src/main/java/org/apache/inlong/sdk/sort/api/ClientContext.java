@@ -17,6 +17,7 @@
 
 package org.apache.inlong.sdk.sort.api;
 
+import org.apache.inlong.sdk.sort.impl.decode.ParallelDecoder;
 import org.apache.inlong.sdk.sort.stat.StatManager;
 
 public abstract class ClientContext implements Cleanable {
@@ -25,9 +26,12 @@ public abstract class ClientContext implements Cleanable {
 
     protected final StatManager statManager;
 
+    protected final ParallelDecoder parallelDecoder;
+
     public ClientContext(SortClientConfig config, MetricReporter reporter) {
         this.config = config;
         this.statManager = new StatManager(this, reporter);
+        this.parallelDecoder = new ParallelDecoder(config.getDecodeThreadNum());
     }
 
     public SortClientConfig getConfig() {
@@ -37,6 +41,7 @@ public abstract class ClientContext implements Cleanable {
     @Override
     public boolean clean() {
         statManager.clean();
+        parallelDecoder.clean();
         return true;
     }
 
@@ -44,6 +49,10 @@ public abstract class ClientContext implements Cleanable {
         return statManager;
     }
 
+    public ParallelDecoder getParallelDecoder() {
+        return parallelDecoder;
+    }
+
     public void acquireRequestPermit() throws InterruptedException {
         config.getGlobalInProgressRequest().acquireUninterruptibly();
     }
@@ -18,13 +18,16 @@
 package org.apache.inlong.sdk.sort.api;
 
 import org.apache.inlong.sdk.sort.entity.InLongTopic;
+import org.apache.inlong.sdk.sort.impl.decode.FetchPipeline;
 import org.apache.inlong.sdk.sort.impl.decode.MessageDeserializer;
+import org.apache.inlong.sdk.sort.stat.SortClientStateCounter;
 
 public abstract class InLongTopicFetcher {
 
     protected InLongTopic inLongTopic;
     protected ClientContext context;
     protected Deserializer deserializer;
+    protected final FetchPipeline fetchPipeline;
     protected volatile Thread fetchThread;
     protected volatile boolean closed = false;
     protected volatile boolean isStopConsume = false;
@@ -36,6 +39,18 @@ public abstract class InLongTopicFetcher {
         this.inLongTopic = inLongTopic;
         this.context = context;
         this.deserializer = new MessageDeserializer();
+        this.fetchPipeline = new FetchPipeline(context.getParallelDecoder(), this::getStatistics);
+    }
+
+    /**
+     * counter of the topic in the stat manager
+     *
+     * @return {@link SortClientStateCounter}
+     */
+    protected SortClientStateCounter getStatistics() {
+        return context.getStatManager()
+                .getStatistics(context.getConfig().getSortTaskId(),
+                        inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic());
     }
 
     public abstract boolean init(Object client);
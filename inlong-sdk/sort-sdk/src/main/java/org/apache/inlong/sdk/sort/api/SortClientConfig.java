@@ -53,6 +53,7 @@ public class SortClientConfig implements Serializable {
     private int emptyPollSleepStepMs = 50;
     private int maxEmptyPollSleepMs = 500;
     private int emptyPollTimes = 10;
+    private int decodeThreadNum = 1;
 
     public SortClientConfig(String sortTaskId, String sortClusterName, InLongTopicChangeListener assignmentsListener,
             ConsumeStrategy consumeStrategy, String localIp) {
@@ -301,6 +302,21 @@ public class SortClientConfig implements Serializable {
         this.emptyPollTimes = emptyPollTimes;
     }
 
+    public int getDecodeThreadNum() {
+        return decodeThreadNum;
+    }
+
+    /**
+     * number of threads decoding the polled batches of all fetchers. If it is more than 1, every fetcher fetches,
+     * decodes and delivers its batches in a pipeline with at most this number of batches in flight. 1 means decode
+     * and deliver inline on the fetch thread
+     *
+     * @param decodeThreadNum int
+     */
+    public void setDecodeThreadNum(int decodeThreadNum) {
+        this.decodeThreadNum = decodeThreadNum;
+    }
+
     /**
      * ConsumeStrategy
      */
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.inlong.sdk.sort.impl.decode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.inlong.sdk.sort.api.Cleanable;
+import org.apache.inlong.sdk.sort.impl.decode.ParallelDecoder.DecodeFunction;
+import org.apache.inlong.sdk.sort.stat.SortClientStateCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Staged fetch, decode and deliver pipeline of one fetcher.
+ *
+ * <p>The fetch thread only polls and submits the polled batches. Batches are decoded by the shared
+ * {@link ParallelDecoder}, and the decoded batches are delivered to the callback by the deliver thread of the fetcher
+ * in the order they are polled, so the order of a partition is kept and an offset is acked only after the callback
+ * of its batch. At most parallelism batches of a fetcher are in flight, the fetch thread waits for a free slot when
+ * the pipeline is full. If the decoder is not parallel, batches are decoded and delivered on the fetch thread.</p>
+ *
+ * <p>A batch failed to decode or deliver is handed to the failure function of the batch with its polled messages,
+ * so the fetcher can release what it holds for them, e.g. skip their offsets, instead of waiting for acks which will
+ * never come.</p>
+ *
+ * <p>Stage latency: fetch and callback are counted by the fetchers, decode, the wait of the fetch thread for a free
+ * slot and the wait of a decoded batch for delivery are counted here.</p>
+ */
+public class FetchPipeline implements Cleanable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FetchPipeline.class);
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger(0);
+    private static final long CLOSE_TIMEOUT_MS = 3000L;
+
+    private final ParallelDecoder decoder;
+    private final Supplier<SortClientStateCounter> statistics;
+    private final Semaphore inflightBatches;
+    private final ExecutorService deliverExecutor;
+    private volatile CompletableFuture<Void> lastDelivery = CompletableFuture.completedFuture(null);
+
+    /**
+     * FetchPipeline Constructor
+     *
+     * @param decoder shared decoder, null to decode inline
+     * @param statistics supplier of the counter of the fetcher
+     */
+    public FetchPipeline(ParallelDecoder decoder, Supplier<SortClientStateCounter> statistics) {
+        this.decoder = decoder;
+        this.statistics = statistics;
+        if (decoder != null && decoder.isParallel()) {
+            this.inflightBatches = new Semaphore(decoder.getParallelism());
+            this.deliverExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "sort_sdk_deliver_thread_" + THREAD_INDEX.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.inflightBatches = null;
+            this.deliverExecutor = null;
+        }
+    }
+
+    /**
+     * decode a polled batch and deliver the results, called by the fetch thread only
+     *
+     * @param inputs polled messages
+     * @param decodeFunction decode function of one message, must be thread safe
+     * @param deliverFunction deliver function of the decoded batch
+     * @throws Exception decode exception if batches are decoded inline
+     */
+    public <I, O> void submit(List<I> inputs, DecodeFunction<I, O> decodeFunction,
+            DeliverFunction<O> deliverFunction) throws Exception {
+        this.submit(inputs, decodeFunction, deliverFunction, null);
+    }
+
+    /**
+     * decode a polled batch and deliver the results, called by the fetch thread only
+     *
+     * @param inputs polled messages
+     * @param decodeFunction decode function of one message, must be thread safe
+     * @param deliverFunction deliver function of the decoded batch
+     * @param failureFunction called with the polled messages if the batch fails to decode or deliver, may be null
+     * @throws Exception decode exception if batches are decoded inline
+     */
+    public <I, O> void submit(List<I> inputs, DecodeFunction<I, O> decodeFunction,
+            DeliverFunction<O> deliverFunction, FailureFunction<I> failureFunction) throws Exception {
+        if (deliverExecutor == null) {
+            try {
+                deliverFunction.deliver(this.decode(inputs, decodeFunction));
+            } catch (Exception e) {
+                this.failed(inputs, failureFunction, e);
+                throw e;
+            }
+            return;
+        }
+        if (deliverExecutor.isShutdown()) {
+            throw new IllegalStateException("fetch pipeline is closed");
+        }
+        long startWait = System.currentTimeMillis();
+        inflightBatches.acquire();
+        statistics.get().addInflightWaitTimeCost(System.currentTimeMillis() - startWait);
+        CompletableFuture<DecodedBatch<O>> decoded = decoder
+                .submit(() -> new DecodedBatch<>(this.decode(inputs, decodeFunction), System.currentTimeMillis()));
+        lastDelivery = CompletableFuture.allOf(lastDelivery, decoded).handleAsync((ignored, throwable) -> {
+            try {
+                this.deliver(inputs, decoded, deliverFunction, failureFunction);
+            } finally {
+                inflightBatches.release();
+            }
+            return null;
+        }, deliverExecutor);
+    }
+
+    private <I, O> List<O> decode(List<I> inputs, DecodeFunction<I, O> decodeFunction) throws Exception {
+        long start = System.currentTimeMillis();
+        List<O> results = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            results.add(decodeFunction.decode(input));
+        }
+        statistics.get().addDecodeTimes(1L).addDecodeTimeCost(System.currentTimeMillis() - start);
+        return results;
+    }
+
+    private <I, O> void deliver(List<I> inputs, CompletableFuture<DecodedBatch<O>> decoded,
+            DeliverFunction<O> deliverFunction, FailureFunction<I> failureFunction) {
+        DecodedBatch<O> batch;
+        try {
+            batch = decoded.join();
+        } catch (CompletionException e) {
+            statistics.get().addFetchErrorTimes(1L);
+            LOGGER.error("decode batch failed", e.getCause());
+            this.failed(inputs, failureFunction, e.getCause());
+            return;
+        }
+        statistics.get().addDeliverWaitTimeCost(System.currentTimeMillis() - batch.decodedTime);
+        try {
+            deliverFunction.deliver(batch.results);
+        } catch (Throwable t) {
+            LOGGER.error("deliver batch failed", t);
+            this.failed(inputs, failureFunction, t);
+        }
+    }
+
+    private <I> void failed(List<I> inputs, FailureFunction<I> failureFunction, Throwable cause) {
+        if (failureFunction == null) {
+            return;
+        }
+        try {
+            failureFunction.onFailure(inputs, cause);
+        } catch (Throwable t) {
+            LOGGER.error("handle failed batch failed", t);
+        }
+    }
+
+    /**
+     * wait for the batches in flight to be delivered, and stop the deliver thread
+     *
+     * @return true
+     */
+    @Override
+    public boolean clean() {
+        if (deliverExecutor != null) {
+            try {
+                lastDelivery.get(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.warn("batches in flight are not delivered in {} ms", CLOSE_TIMEOUT_MS, e);
+            }
+            deliverExecutor.shutdown();
+        }
+        return true;
+    }
+
+    /**
+     * deliver one decoded batch
+     */
+    @FunctionalInterface
+    public interface DeliverFunction<O> {
+
+        void deliver(List<O> results) throws Exception;
+    }
+
+    /**
+     * handle the polled messages of a batch failed to decode or deliver
+     */
+    @FunctionalInterface
+    public interface FailureFunction<I> {
+
+        void onFailure(List<I> inputs, Throwable cause);
+    }
+
+    private static class DecodedBatch<O> {
+
+        private final List<O> results;
+        private final long decodedTime;
+
+        private DecodedBatch(List<O> results, long decodedTime) {
+            this.results = results;
+            this.decodedTime = decodedTime;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.inlong.sdk.sort.impl.decode;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.inlong.sdk.sort.api.Cleanable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decode stage shared by all fetchers of a client.
+ *
+ * <p>With more than one thread, polled batches are decoded on a pool of decode threads, one batch by one thread, so
+ * the batches of all fetchers are decoded in parallel while the fetch threads keep polling. The {@link FetchPipeline}
+ * of every fetcher delivers the decoded batches in order. With one thread there is no pool and batches are decoded
+ * inline on the fetch thread.</p>
+ */
+public class ParallelDecoder implements Cleanable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelDecoder.class);
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger(0);
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public ParallelDecoder(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        if (this.parallelism > 1) {
+            this.executor = new ThreadPoolExecutor(this.parallelism, this.parallelism,
+                    0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "sort_sdk_decode_thread_" + THREAD_INDEX.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * whether batches are decoded on the decode pool
+     *
+     * @return true if parallelism is more than 1
+     */
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * run a decode task on the decode pool, or inline if it is not parallel
+     *
+     * @param task decode task of one batch, must be thread safe
+     * @return future of the result, completed exceptionally by the exception of task
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable runnable = () -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+        if (executor == null) {
+            runnable.run();
+        } else {
+            executor.execute(runnable);
+        }
+        return future;
+    }
+
+    @Override
+    public boolean clean() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            LOGGER.info("parallel decoder closed, parallelism:{}", parallelism);
+        }
+        return true;
+    }
+
+    /**
+     * decode one message
+     */
+    @FunctionalInterface
+    public interface DecodeFunction<I, O> {
+
+        O decode(I input) throws Exception;
+    }
+}
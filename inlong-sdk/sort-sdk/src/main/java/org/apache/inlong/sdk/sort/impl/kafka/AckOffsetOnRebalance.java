@@ -22,7 +22,6 @@ package org.apache.inlong.sdk.sort.impl.kafka;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
@@ -34,19 +33,22 @@ public class AckOffsetOnRebalance implements ConsumerRebalanceListener {
 
     private final Logger logger = LoggerFactory.getLogger(AckOffsetOnRebalance.class);
     private final KafkaConsumer<byte[], byte[]> consumer;
-    private final ConcurrentHashMap<TopicPartition, OffsetAndMetadata> commitOffsetMap;
+    private final KafkaOffsetManager offsetManager;
 
-    public AckOffsetOnRebalance(KafkaConsumer<byte[], byte[]> consumer,
-            ConcurrentHashMap<TopicPartition, OffsetAndMetadata> commitOffsetMap) {
+    public AckOffsetOnRebalance(KafkaConsumer<byte[], byte[]> consumer, KafkaOffsetManager offsetManager) {
         this.consumer = consumer;
-        this.commitOffsetMap = commitOffsetMap;
+        this.offsetManager = offsetManager;
     }
 
     @Override
     public void onPartitionsRevoked(Collection<TopicPartition> collection) {
         logger.debug("*- in ralance:onPartitionsRevoked");
-        while (!commitOffsetMap.isEmpty()) {
-            consumer.commitSync(commitOffsetMap);
+        try {
+            offsetManager.commitSync(consumer, collection);
+        } catch (Exception e) {
+            logger.warn("commit offset of revoked partitions {} failed", collection, e);
+        } finally {
+            offsetManager.remove(collection);
         }
     }
 
@@ -55,7 +57,9 @@ public class AckOffsetOnRebalance implements ConsumerRebalanceListener {
         logger.debug("*- in ralance:onPartitionsAssigned  ");
         Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(collection));
         for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
-            consumer.seek(entry.getKey(), entry.getValue().offset());
+            if (entry.getValue() != null) {
+                consumer.seek(entry.getKey(), entry.getValue().offset());
+            }
         }
     }
 }
@@ -27,8 +27,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.inlong.sdk.sort.api.ClientContext;
 import org.apache.inlong.sdk.sort.api.InLongTopicFetcher;
@@ -41,8 +39,8 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
@@ -51,8 +49,11 @@ import org.slf4j.LoggerFactory;
 
 public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
 
+    private static final int MAX_COMMIT_RETRIES = 3;
+    private static final long CLOSE_TIMEOUT_MS = 10000L;
+
     private final Logger logger = LoggerFactory.getLogger(InLongKafkaFetcherImpl.class);
-    private final ConcurrentHashMap<TopicPartition, OffsetAndMetadata> commitOffsetMap = new ConcurrentHashMap<>();
+    private final KafkaOffsetManager offsetManager = new KafkaOffsetManager(MAX_COMMIT_RETRIES);
     private final AtomicLong ackOffsets = new AtomicLong(0);
     private volatile boolean stopConsume = false;
     private String bootstrapServers;
@@ -69,7 +70,7 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
             createKafkaConsumer(bootstrapServers);
             if (consumer != null) {
                 consumer.subscribe(Collections.singletonList(inLongTopic.getTopic()),
-                        new AckOffsetOnRebalance(consumer, commitOffsetMap));
+                        new AckOffsetOnRebalance(consumer, offsetManager));
             } else {
                 return false;
             }
@@ -89,8 +90,14 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
         String[] offset = msgOffset.split(":");
         if (offset.length == 2) {
             TopicPartition topicPartition = new TopicPartition(inLongTopic.getTopic(), Integer.parseInt(offset[0]));
-            OffsetAndMetadata offsetAndMetadata = new OffsetAndMetadata(Long.parseLong(offset[1]));
-            commitOffsetMap.put(topicPartition, offsetAndMetadata);
+            if (offsetManager.ack(topicPartition, Long.parseLong(offset[1]))) {
+                context.getStatManager().getStatistics(context.getConfig().getSortTaskId(),
+                        inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic()).addAckSuccTimes(1L);
+            } else {
+                // the partition has been revoked or re-fetched, the message will be consumed again
+                context.getStatManager().getStatistics(context.getConfig().getSortTaskId(),
+                        inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic()).addAckFailTimes(1L);
+            }
         } else {
             throw new Exception("offset is illegal, the correct format is int:long ,the error offset is:" + msgOffset);
         }
@@ -104,6 +111,7 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
     @Override
     public void resume() {
         this.stopConsume = false;
+        wakeup();
     }
 
     @Override
@@ -111,9 +119,10 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
         this.closed = true;
         try {
             if (fetchThread != null) {
-                fetchThread.interrupt();
-            }
-            if (consumer != null) {
+                // the fetch thread commits the acked offsets and closes the consumer on exit
+                wakeup();
+                fetchThread.join(CLOSE_TIMEOUT_MS);
+            } else if (consumer != null) {
                 consumer.close();
             }
         } catch (Throwable throwable) {
@@ -123,6 +132,12 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
         return true;
     }
 
+    private void wakeup() {
+        if (consumer != null) {
+            consumer.wakeup();
+        }
+    }
+
     @Override
     public boolean isClosed() {
         return closed;
@@ -131,6 +146,9 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
     @Override
     public void stopConsume(boolean stopConsume) {
         this.stopConsume = stopConsume;
+        if (!stopConsume) {
+            wakeup();
+        }
     }
 
     @Override
@@ -190,15 +208,41 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
     public class Fetcher implements Runnable {
 
         private void commitKafkaOffset() {
-            if (consumer != null && commitOffsetMap.size() > 0) {
-                try {
-                    consumer.commitSync(commitOffsetMap);
-                    commitOffsetMap.clear();
-                    //TODO monitor commit succ
+            try {
+                offsetManager.commitAsync(consumer);
+            } catch (WakeupException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.warn("commit offset of {} failed", inLongTopic, e);
+            }
+        }
 
-                } catch (Exception e) {
-                    //TODO monitor commit fail
-                }
+        /**
+         * keep polling while consume is stopped, so heartbeats and commits go on, and the poll returns at once when
+         * the fetcher is resumed or closed
+         */
+        private void pollPaused() {
+            consumer.pause(consumer.assignment());
+            ConsumerRecords<byte[], byte[]> records = consumer
+                    .poll(Duration.ofMillis(context.getConfig().getKafkaFetchWaitMs()));
+            // partitions assigned during the poll are not paused yet, rewind them
+            for (TopicPartition partition : records.partitions()) {
+                consumer.seek(partition, records.records(partition).get(0).offset());
+            }
+            consumer.pause(consumer.assignment());
+        }
+
+        private void closeConsumer() {
+            // deliver the batches in flight, so their acks are committed below
+            fetchPipeline.clean();
+            try {
+                offsetManager.commitSync(consumer, offsetManager.partitions());
+            } catch (WakeupException e) {
+                offsetManager.commitSync(consumer, offsetManager.partitions());
+            } catch (Exception e) {
+                logger.warn("commit offset of {} on close failed", inLongTopic, e);
+            } finally {
+                consumer.close();
             }
         }
 
@@ -243,16 +287,16 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
         @Override
         public void run() {
             boolean hasPermit;
-            while (true) {
+            while (!closed) {
                 hasPermit = false;
                 try {
                     if (context.getConfig().isStopConsume() || stopConsume) {
-                        TimeUnit.MILLISECONDS.sleep(50);
+                        pollPaused();
+                        commitKafkaOffset();
                         continue;
                     }
-
-                    if (sleepTime > 0) {
-                        TimeUnit.MILLISECONDS.sleep(sleepTime);
+                    if (!consumer.paused().isEmpty()) {
+                        consumer.resume(consumer.paused());
                     }
 
                     context.acquireRequestPermit();
@@ -261,6 +305,8 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
                     fetchFromKafka();
                     // commit
                     commitKafkaOffset();
+                } catch (WakeupException e) {
+                    // woken up by resume or close
                 } catch (Exception e) {
                     context.getStatManager()
                             .getStatistics(context.getConfig().getSortTaskId(),
@@ -273,6 +319,7 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
                     }
                 }
             }
+            closeConsumer();
         }
 
         private void fetchFromKafka() throws Exception {
@@ -290,36 +337,39 @@ public class InLongKafkaFetcherImpl extends InLongTopicFetcher {
                     .addFetchTimeCost(System.currentTimeMillis() - startFetchTime);
             if (null != records && !records.isEmpty()) {
 
-                List<MessageRecord> msgs = new ArrayList<>();
+                List<ConsumerRecord<byte[], byte[]>> msgList = new ArrayList<>(records.count());
                 for (ConsumerRecord<byte[], byte[]> msg : records) {
+                    msgList.add(msg);
+                    offsetManager.register(new TopicPartition(msg.topic(), msg.partition()), msg.offset());
+                    context.getStatManager()
+                            .getStatistics(context.getConfig().getSortTaskId(),
+                                    inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
+                            .addConsumeSize(msg.value().length);
+                }
+                fetchPipeline.submit(msgList, msg -> {
                     String offsetKey = getOffset(msg.partition(), msg.offset());
                     List<InLongMessage> inLongMessages = deserializer
                             .deserialize(context, inLongTopic, getMsgHeaders(msg.headers()), msg.value());
-                    msgs.add(new MessageRecord(inLongTopic.getTopicKey(),
+                    return new MessageRecord(inLongTopic.getTopicKey(),
                             inLongMessages,
-                            offsetKey, System.currentTimeMillis()));
+                            offsetKey, System.currentTimeMillis());
+                }, msgs -> {
                     context.getStatManager()
                             .getStatistics(context.getConfig().getSortTaskId(),
                                     inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
-                            .addConsumeSize(msg.value().length);
-                }
-                context.getStatManager()
-                        .getStatistics(context.getConfig().getSortTaskId(),
-                                inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
-                        .addMsgCount(msgs.size());
-                handleAndCallbackMsg(msgs);
-                sleepTime = 0L;
+                            .addMsgCount(msgs.size());
+                    handleAndCallbackMsg(msgs);
+                }, (failedMsgs, cause) -> {
+                    // a failed batch is skipped, or its offsets would block the commit of the partitions forever
+                    int skipped = offsetManager.skip(failedMsgs);
+                    logger.error("skip {} messages of {} failed to decode or deliver", skipped, inLongTopic, cause);
+                });
             } else {
+                // poll already waits kafkaFetchWaitMs for data, no extra sleep for an empty topic
                 context.getStatManager()
                         .getStatistics(context.getConfig().getSortTaskId(),
                                 inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
                         .addEmptyFetchTimes(1);
-                emptyFetchTimes++;
-                if (emptyFetchTimes >= context.getConfig().getEmptyPollTimes()) {
-                    sleepTime = Math.min((sleepTime += context.getConfig().getEmptyPollSleepStepMs()),
-                            context.getConfig().getMaxEmptyPollSleepMs());
-                    emptyFetchTimes = 0;
-                }
             }
         }
     }
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.inlong.sdk.sort.impl.kafka;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesce the acks of a kafka consumer into one commit offset per partition.
+ *
+ * <p>Every fetched offset is registered in a per partition ring before it is handed to the callback. Acks may arrive
+ * in any order from any thread, they only set a bit in the ring, and the commit offset of a partition moves to the
+ * offset after the highest contiguous acked one. Offsets not returned by the broker (compaction, transaction markers)
+ * never block the ring because only fetched offsets are registered. Messages which can not be handed to the callback,
+ * e.g. their batch fails to decode, are skipped by {@link #skip(Collection)}, so they do not block the ring either.</p>
+ *
+ * <p>{@link #commitAsync(Consumer)} and {@link #commitSync(Consumer, Collection)} must be called by the thread owning
+ * the consumer, a failed async commit is retried with the newest offset for at most {@code maxRetries} times.</p>
+ */
+public class KafkaOffsetManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaOffsetManager.class);
+    private static final int INITIAL_RING_CAPACITY = 1024;
+
+    private final ConcurrentHashMap<TopicPartition, OffsetRing> rings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<TopicPartition, Integer> retryTimes = new ConcurrentHashMap<>();
+    private final int maxRetries;
+
+    public KafkaOffsetManager(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * register a fetched offset, must be called in fetch order before the message is handed out
+     *
+     * @param partition topic partition
+     * @param offset message offset
+     */
+    public void register(TopicPartition partition, long offset) {
+        rings.computeIfAbsent(partition, p -> new OffsetRing()).add(offset);
+    }
+
+    /**
+     * ack one fetched offset
+     *
+     * @param partition topic partition
+     * @param offset message offset
+     * @return false if the offset is not waiting for ack, e.g. the partition was revoked
+     */
+    public boolean ack(TopicPartition partition, long offset) {
+        OffsetRing ring = rings.get(partition);
+        return ring != null && ring.ack(offset);
+    }
+
+    /**
+     * skip fetched messages which will never be acked, e.g. their batch failed to decode, so the partitions go on
+     * committing past them
+     *
+     * @param records fetched messages
+     * @return the number of offsets skipped
+     */
+    public int skip(Collection<? extends ConsumerRecord<?, ?>> records) {
+        int skipped = 0;
+        for (ConsumerRecord<?, ?> record : records) {
+            if (this.ack(new TopicPartition(record.topic(), record.partition()), record.offset())) {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * commit the coalesced offsets which changed since the last commit
+     *
+     * @param consumer kafka consumer
+     */
+    public void commitAsync(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = collect(rings.keySet(), false);
+        if (offsets.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception == null) {
+                committed.keySet().forEach(retryTimes::remove);
+                return;
+            }
+            for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+                int times = retryTimes.merge(entry.getKey(), 1, Integer::sum);
+                OffsetRing ring = rings.get(entry.getKey());
+                if (ring == null) {
+                    continue;
+                }
+                if (times <= maxRetries) {
+                    ring.failed(entry.getValue().offset());
+                } else {
+                    retryTimes.remove(entry.getKey());
+                    LOGGER.error("commit offset {} of {} failed {} times, wait for next ack",
+                            entry.getValue().offset(), entry.getKey(), times, exception);
+                }
+            }
+            LOGGER.warn("async commit offsets {} failed", committed, exception);
+        });
+    }
+
+    /**
+     * commit the latest offsets of some partitions synchronously, used before the partitions are revoked or closed
+     *
+     * @param consumer kafka consumer
+     * @param partitions partitions to commit
+     */
+    public void commitSync(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = collect(partitions, true);
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+
+    /**
+     * forget the offsets of revoked partitions, their un-acked messages will be fetched again by the new owner
+     *
+     * @param partitions revoked partitions
+     */
+    public void remove(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            rings.remove(partition);
+            retryTimes.remove(partition);
+        }
+    }
+
+    public Collection<TopicPartition> partitions() {
+        return rings.keySet();
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> collect(Collection<TopicPartition> partitions, boolean all) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            OffsetRing ring = rings.get(partition);
+            if (ring == null) {
+                continue;
+            }
+            long offset = all ? ring.committable() : ring.takeDirty();
+            if (offset >= 0) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * fetched offsets of one partition in fetch order, with an ack bit per slot
+     */
+    static class OffsetRing {
+
+        private long[] offsets = new long[INITIAL_RING_CAPACITY];
+        private BitSet acked = new BitSet(INITIAL_RING_CAPACITY);
+        private int head = 0;
+        private int size = 0;
+        // the next offset to consume after every acked contiguous offset, -1 if nothing acked yet
+        private long committable = -1L;
+        // the committable offset not yet handed to a commit
+        private boolean dirty = false;
+
+        synchronized void add(long offset) {
+            if (size > 0 && offset <= offsets[(head + size - 1) % offsets.length]) {
+                // re-fetch after seek, drop the stale window
+                head = 0;
+                size = 0;
+                acked.clear();
+            }
+            if (size == offsets.length) {
+                grow();
+            }
+            offsets[(head + size) % offsets.length] = offset;
+            size++;
+        }
+
+        synchronized boolean ack(long offset) {
+            int index = indexOf(offset);
+            if (index < 0) {
+                return false;
+            }
+            acked.set((head + index) % offsets.length);
+            while (size > 0 && acked.get(head)) {
+                acked.clear(head);
+                committable = offsets[head] + 1;
+                dirty = true;
+                head = (head + 1) % offsets.length;
+                size--;
+            }
+            return true;
+        }
+
+        synchronized long takeDirty() {
+            if (!dirty) {
+                return -1L;
+            }
+            dirty = false;
+            return committable;
+        }
+
+        synchronized long committable() {
+            dirty = false;
+            return committable;
+        }
+
+        synchronized void failed(long offset) {
+            // only retry if no newer offset has been committed since
+            if (offset == committable) {
+                dirty = true;
+            }
+        }
+
+        synchronized int pending() {
+            return size;
+        }
+
+        private int indexOf(long offset) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midOffset = offsets[(head + mid) % offsets.length];
+                if (midOffset < offset) {
+                    low = mid + 1;
+                } else if (midOffset > offset) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        private void grow() {
+            long[] newOffsets = new long[offsets.length << 1];
+            BitSet newAcked = new BitSet(newOffsets.length);
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % offsets.length;
+                newOffsets[i] = offsets[index];
+                if (acked.get(index)) {
+                    newAcked.set(i);
+                }
+            }
+            offsets = newOffsets;
+            acked = newAcked;
+            head = 0;
+        }
+    }
+}
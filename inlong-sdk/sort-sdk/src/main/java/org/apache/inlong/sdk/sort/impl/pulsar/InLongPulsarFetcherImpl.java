@@ -199,6 +199,7 @@ public class InLongPulsarFetcherImpl extends InLongTopicFetcher {
                 if (fetchThread != null) {
                     fetchThread.interrupt();
                 }
+                fetchPipeline.clean();
             } catch (PulsarClientException e) {
                 e.printStackTrace();
             }
@@ -276,27 +277,30 @@ public class InLongPulsarFetcherImpl extends InLongTopicFetcher {
                                     inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
                             .addFetchTimeCost(System.currentTimeMillis() - startFetchTime);
                     if (null != messages && messages.size() != 0) {
-                        List<MessageRecord> msgs = new ArrayList<>();
+                        List<Message<byte[]>> msgList = new ArrayList<>(messages.size());
                         for (Message<byte[]> msg : messages) {
+                            msgList.add(msg);
+                            context.getStatManager()
+                                    .getStatistics(context.getConfig().getSortTaskId(),
+                                            inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
+                                    .addConsumeSize(msg.getData().length);
+                        }
+                        fetchPipeline.submit(msgList, msg -> {
                             String offsetKey = getOffset(msg.getMessageId());
                             offsetCache.put(offsetKey, msg.getMessageId());
 
                             List<InLongMessage> inLongMessages = deserializer
                                     .deserialize(context, inLongTopic, msg.getProperties(), msg.getData());
-
-                            msgs.add(new MessageRecord(inLongTopic.getTopicKey(),
+                            return new MessageRecord(inLongTopic.getTopicKey(),
                                     inLongMessages,
-                                    offsetKey, System.currentTimeMillis()));
+                                    offsetKey, System.currentTimeMillis());
+                        }, msgs -> {
                             context.getStatManager()
                                     .getStatistics(context.getConfig().getSortTaskId(),
                                             inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
-                                    .addConsumeSize(msg.getData().length);
-                        }
-                        context.getStatManager()
-                                .getStatistics(context.getConfig().getSortTaskId(),
-                                        inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
-                                .addMsgCount(msgs.size());
-                        handleAndCallbackMsg(msgs);
+                                    .addMsgCount(msgs.size());
+                            handleAndCallbackMsg(msgs);
+                        });
                         sleepTime = 0L;
                     } else {
                         context.getStatManager()
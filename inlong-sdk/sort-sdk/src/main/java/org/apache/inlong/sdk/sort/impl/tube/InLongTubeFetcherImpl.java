@@ -137,6 +137,7 @@ public class InLongTubeFetcherImpl extends InLongTopicFetcher {
             if (fetchThread != null) {
                 fetchThread.interrupt();
             }
+            fetchPipeline.clean();
             if (messageConsumer != null) {
                 messageConsumer.shutdown();
             }
@@ -207,6 +208,29 @@ public class InLongTubeFetcherImpl extends InLongTopicFetcher {
             }
         }
 
+        /**
+         * merge the decoded messages of one fetch into one record and put it to onFinished method
+         *
+         * @param messageList fetched messages
+         * @param decodedList decoded messages, element i belongs to fetched message i
+         * @param confirmContext confirm context of the fetch
+         */
+        private void handleDecodedMsg(List<Message> messageList, List<List<InLongMessage>> decodedList,
+                String confirmContext) {
+            List<InLongMessage> msgs = new ArrayList<>();
+            for (int i = 0; i < messageList.size(); i++) {
+                List<InLongMessage> deserialize = decodedList.get(i);
+                msgs.addAll(deserialize);
+                context.getStatManager()
+                        .getStatistics(context.getConfig().getSortTaskId(),
+                                inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
+                        .addMsgCount(deserialize.size())
+                        .addConsumeSize(messageList.get(i).getData().length);
+            }
+            handleAndCallbackMsg(new MessageRecord(inLongTopic.getTopicKey(), msgs,
+                    confirmContext, System.currentTimeMillis()));
+        }
+
         /**
          * parseAttr from k1=v1&k2=v2 to kv map
          *
@@ -264,20 +288,12 @@ public class InLongTubeFetcherImpl extends InLongTopicFetcher {
                                     inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
                             .addFetchTimeCost(System.currentTimeMillis() - startFetchTime);
                     if (null != message && TErrCodeConstants.SUCCESS == message.getErrCode()) {
-                        List<InLongMessage> msgs = new ArrayList<>();
-                        for (Message msg : message.getMessageList()) {
-                            List<InLongMessage> deserialize = deserializer
-                                    .deserialize(context, inLongTopic, getAttributeMap(msg.getAttribute()),
-                                            msg.getData());
-                            msgs.addAll(deserialize);
-                            context.getStatManager()
-                                    .getStatistics(context.getConfig().getSortTaskId(),
-                                            inLongTopic.getInLongCluster().getClusterId(), inLongTopic.getTopic())
-                                    .addMsgCount(deserialize.size()).addConsumeSize(msg.getData().length);
-                        }
-
-                        handleAndCallbackMsg(new MessageRecord(inLongTopic.getTopicKey(), msgs,
-                                message.getConfirmContext(), System.currentTimeMillis()));
+                        List<Message> messageList = message.getMessageList();
+                        String confirmContext = message.getConfirmContext();
+                        fetchPipeline.submit(messageList, msg -> deserializer
+                                .deserialize(context, inLongTopic, getAttributeMap(msg.getAttribute()),
+                                        msg.getData()),
+                                decodedList -> handleDecodedMsg(messageList, decodedList, confirmContext));
                         sleepTime = 0L;
                     } else {
                         context.getStatManager()
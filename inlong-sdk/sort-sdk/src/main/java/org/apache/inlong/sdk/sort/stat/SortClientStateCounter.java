@@ -21,7 +21,7 @@ import java.util.concurrent.atomic.AtomicLongArray;
 
 public class SortClientStateCounter {
 
-    private final AtomicLongArray count = new AtomicLongArray(21);
+    private final AtomicLongArray count = new AtomicLongArray(25);
     public String sortTaskId;
     public String cacheClusterId;
     public String topic;
@@ -297,4 +297,48 @@ public class SortClientStateCounter {
         count.getAndAdd(20, num);
         return this;
     }
+
+    /**
+     * count decode time cost
+     *
+     * @param num long
+     * @return {@link SortClientStateCounter}
+     */
+    public SortClientStateCounter addDecodeTimeCost(long num) {
+        count.getAndAdd(21, num);
+        return this;
+    }
+
+    /**
+     * count decode times
+     *
+     * @param num long
+     * @return {@link SortClientStateCounter}
+     */
+    public SortClientStateCounter addDecodeTimes(long num) {
+        count.getAndAdd(22, num);
+        return this;
+    }
+
+    /**
+     * count time cost of fetch thread waiting for a free slot of the fetch pipeline
+     *
+     * @param num long
+     * @return {@link SortClientStateCounter}
+     */
+    public SortClientStateCounter addInflightWaitTimeCost(long num) {
+        count.getAndAdd(23, num);
+        return this;
+    }
+
+    /**
+     * count time cost of decoded batch waiting for delivery
+     *
+     * @param num long
+     * @return {@link SortClientStateCounter}
+     */
+    public SortClientStateCounter addDeliverWaitTimeCost(long num) {
+        count.getAndAdd(24, num);
+        return this;
+    }
 }
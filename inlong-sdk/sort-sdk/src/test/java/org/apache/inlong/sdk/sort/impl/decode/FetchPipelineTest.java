@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.sort.impl.decode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.inlong.sdk.sort.stat.SortClientStateCounter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FetchPipelineTest {
+
+    private final SortClientStateCounter counter = new SortClientStateCounter("task", "cluster", "topic", 0);
+
+    private List<Integer> buildInputs(int start, int size) {
+        List<Integer> inputs = new ArrayList<>(size);
+        for (int i = start; i < start + size; i++) {
+            inputs.add(i);
+        }
+        return inputs;
+    }
+
+    @Test
+    public void testDeliverInOrder() throws Exception {
+        ParallelDecoder decoder = new ParallelDecoder(4);
+        FetchPipeline pipeline = new FetchPipeline(decoder, () -> counter);
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        Set<String> decodeThreads = ConcurrentHashMap.newKeySet();
+        Set<String> deliverThreads = ConcurrentHashMap.newKeySet();
+        try {
+            for (int batch = 0; batch < 20; batch++) {
+                // later batches decode faster, they still wait for the earlier ones
+                int sleepMs = 20 - batch;
+                pipeline.submit(buildInputs(batch * 10, 10), input -> {
+                    decodeThreads.add(Thread.currentThread().getName());
+                    if (input % 10 == 0) {
+                        TimeUnit.MILLISECONDS.sleep(sleepMs);
+                    }
+                    return "msg-" + input;
+                }, results -> {
+                    deliverThreads.add(Thread.currentThread().getName());
+                    delivered.addAll(results);
+                });
+            }
+        } finally {
+            pipeline.clean();
+            decoder.clean();
+        }
+        Assert.assertEquals(200, delivered.size());
+        for (int i = 0; i < delivered.size(); i++) {
+            Assert.assertEquals("msg-" + i, delivered.get(i));
+        }
+        String fetchThread = Thread.currentThread().getName();
+        Assert.assertFalse(decodeThreads.contains(fetchThread));
+        Assert.assertEquals(1, deliverThreads.size());
+        Assert.assertFalse(deliverThreads.contains(fetchThread));
+        long[] values = counter.getStatvalue();
+        // decode times
+        Assert.assertEquals(20, values[22]);
+    }
+
+    @Test
+    public void testInflightLimit() throws Exception {
+        ParallelDecoder decoder = new ParallelDecoder(2);
+        FetchPipeline pipeline = new FetchPipeline(decoder, () -> counter);
+        CountDownLatch blockDeliver = new CountDownLatch(1);
+        AtomicInteger submitted = new AtomicInteger(0);
+        Thread fetchThread = new Thread(() -> {
+            try {
+                for (int batch = 0; batch < 3; batch++) {
+                    pipeline.submit(buildInputs(batch, 1), input -> input, results -> blockDeliver.await());
+                    submitted.incrementAndGet();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        fetchThread.start();
+        try {
+            // the third batch waits until the first one is delivered
+            TimeUnit.MILLISECONDS.sleep(300);
+            Assert.assertEquals(2, submitted.get());
+            blockDeliver.countDown();
+            fetchThread.join(3000);
+            Assert.assertEquals(3, submitted.get());
+        } finally {
+            blockDeliver.countDown();
+            pipeline.clean();
+            decoder.clean();
+        }
+    }
+
+    @Test
+    public void testDecodeException() throws Exception {
+        ParallelDecoder decoder = new ParallelDecoder(2);
+        FetchPipeline pipeline = new FetchPipeline(decoder, () -> counter);
+        List<Integer> delivered = new CopyOnWriteArrayList<>();
+        List<Integer> failed = new CopyOnWriteArrayList<>();
+        try {
+            for (int batch = 0; batch < 3; batch++) {
+                pipeline.submit(buildInputs(batch, 1), input -> {
+                    if (input == 1) {
+                        throw new IllegalStateException("bad message " + input);
+                    }
+                    return input;
+                }, delivered::addAll, (inputs, cause) -> failed.addAll(inputs));
+            }
+        } finally {
+            pipeline.clean();
+            decoder.clean();
+        }
+        // the failed batch is skipped, the later batch is still delivered
+        Assert.assertEquals(2, delivered.size());
+        Assert.assertEquals(0, delivered.get(0).intValue());
+        Assert.assertEquals(2, delivered.get(1).intValue());
+        // the polled messages of the failed batch are handed to its failure function
+        Assert.assertEquals(1, failed.size());
+        Assert.assertEquals(1, failed.get(0).intValue());
+        // fetch error times
+        Assert.assertEquals(1, counter.getStatvalue()[17]);
+    }
+
+    @Test
+    public void testInline() throws Exception {
+        FetchPipeline pipeline = new FetchPipeline(new ParallelDecoder(1), () -> counter);
+        String fetchThread = Thread.currentThread().getName();
+        List<String> delivered = new ArrayList<>();
+        pipeline.submit(buildInputs(0, 3), input -> {
+            Assert.assertEquals(fetchThread, Thread.currentThread().getName());
+            return String.valueOf(input);
+        }, results -> {
+            Assert.assertEquals(fetchThread, Thread.currentThread().getName());
+            delivered.addAll(results);
+        });
+        Assert.assertEquals(3, delivered.size());
+        List<Integer> failed = new ArrayList<>();
+        try {
+            pipeline.<Integer, String>submit(buildInputs(0, 1), input -> {
+                throw new IllegalStateException("bad message");
+            }, delivered::addAll, (inputs, cause) -> failed.addAll(inputs));
+            Assert.fail("decode exception is expected");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("bad message", e.getMessage());
+        }
+        Assert.assertEquals(1, failed.size());
+        Assert.assertTrue(pipeline.clean());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.sort.impl.decode;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelDecoderTest {
+
+    @Test
+    public void testSubmitOnPool() throws Exception {
+        ParallelDecoder decoder = new ParallelDecoder(4);
+        try {
+            Assert.assertTrue(decoder.isParallel());
+            CompletableFuture<String> future = decoder.submit(() -> Thread.currentThread().getName());
+            String threadName = future.get();
+            Assert.assertTrue(threadName.startsWith("sort_sdk_decode_thread_"));
+        } finally {
+            decoder.clean();
+        }
+    }
+
+    @Test
+    public void testSubmitInline() throws Exception {
+        ParallelDecoder decoder = new ParallelDecoder(1);
+        Assert.assertFalse(decoder.isParallel());
+        String callerName = Thread.currentThread().getName();
+        CompletableFuture<String> future = decoder.submit(() -> Thread.currentThread().getName());
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals(callerName, future.get());
+        decoder.clean();
+    }
+
+    @Test
+    public void testSubmitException() throws Exception {
+        ParallelDecoder decoder = new ParallelDecoder(3);
+        try {
+            decoder.submit(() -> {
+                throw new IllegalStateException("bad message");
+            }).get();
+            Assert.fail("decode exception is expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            Assert.assertEquals("bad message", e.getCause().getMessage());
+        } finally {
+            decoder.clean();
+        }
+    }
+}
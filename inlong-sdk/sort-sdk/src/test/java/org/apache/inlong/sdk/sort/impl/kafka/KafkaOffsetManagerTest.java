@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.inlong.sdk.sort.impl.kafka;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.inlong.sdk.sort.impl.decode.FetchPipeline;
+import org.apache.inlong.sdk.sort.impl.decode.ParallelDecoder;
+import org.apache.inlong.sdk.sort.impl.kafka.KafkaOffsetManager.OffsetRing;
+import org.apache.inlong.sdk.sort.stat.SortClientStateCounter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KafkaOffsetManagerTest {
+
+    @Test
+    public void testOutOfOrderAck() {
+        OffsetRing ring = new OffsetRing();
+        // offset 3 is a gap, e.g. a transaction marker
+        long[] offsets = {1L, 2L, 4L, 5L};
+        for (long offset : offsets) {
+            ring.add(offset);
+        }
+        Assert.assertTrue(ring.ack(4L));
+        Assert.assertTrue(ring.ack(2L));
+        Assert.assertEquals(-1L, ring.takeDirty());
+        Assert.assertTrue(ring.ack(1L));
+        Assert.assertEquals(5L, ring.takeDirty());
+        Assert.assertEquals(-1L, ring.takeDirty());
+        Assert.assertFalse(ring.ack(3L));
+        Assert.assertTrue(ring.ack(5L));
+        Assert.assertEquals(6L, ring.takeDirty());
+        Assert.assertEquals(0, ring.pending());
+    }
+
+    @Test
+    public void testRingGrow() {
+        OffsetRing ring = new OffsetRing();
+        for (long offset = 0; offset < 5000; offset++) {
+            ring.add(offset);
+            if (offset % 2 == 1) {
+                Assert.assertTrue(ring.ack(offset));
+            }
+        }
+        Assert.assertEquals(5000, ring.pending());
+        for (long offset = 0; offset < 5000; offset += 2) {
+            Assert.assertTrue(ring.ack(offset));
+        }
+        Assert.assertEquals(0, ring.pending());
+        Assert.assertEquals(5000L, ring.committable());
+    }
+
+    @Test
+    public void testCommitAsync() {
+        TopicPartition partition = new TopicPartition("testTopic", 0);
+        MockConsumer<byte[], byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Collections.singletonList(partition));
+        KafkaOffsetManager offsetManager = new KafkaOffsetManager(3);
+        for (long offset = 10; offset < 20; offset++) {
+            offsetManager.register(partition, offset);
+        }
+        for (long offset = 19; offset >= 15; offset--) {
+            Assert.assertTrue(offsetManager.ack(partition, offset));
+        }
+        offsetManager.commitAsync(consumer);
+        Assert.assertNull(consumer.committed(Collections.singleton(partition)).get(partition));
+        for (long offset = 10; offset < 15; offset++) {
+            Assert.assertTrue(offsetManager.ack(partition, offset));
+        }
+        offsetManager.commitAsync(consumer);
+        Assert.assertEquals(20L, consumer.committed(Collections.singleton(partition)).get(partition).offset());
+
+        offsetManager.remove(Collections.singletonList(partition));
+        Assert.assertFalse(offsetManager.ack(partition, 20L));
+    }
+
+    @Test
+    public void testCommitAfterDecodeFailure() throws Exception {
+        TopicPartition partition = new TopicPartition("testTopic", 0);
+        MockConsumer<byte[], byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Collections.singletonList(partition));
+        KafkaOffsetManager offsetManager = new KafkaOffsetManager(3);
+        SortClientStateCounter counter = new SortClientStateCounter("task", "cluster", "testTopic", 0);
+        ParallelDecoder decoder = new ParallelDecoder(2);
+        FetchPipeline pipeline = new FetchPipeline(decoder, () -> counter);
+        try {
+            for (int batch = 0; batch < 3; batch++) {
+                List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>();
+                for (long offset = batch * 10; offset < batch * 10 + 10; offset++) {
+                    records.add(new ConsumerRecord<>(partition.topic(), partition.partition(), offset,
+                            new byte[0], new byte[0]));
+                    offsetManager.register(partition, offset);
+                }
+                // one bad message fails the second batch
+                pipeline.submit(records, record -> {
+                    if (record.offset() == 15L) {
+                        throw new IllegalStateException("bad message");
+                    }
+                    return record;
+                }, delivered -> delivered.forEach(record -> offsetManager.ack(partition, record.offset())),
+                        (failed, cause) -> offsetManager.skip(failed));
+            }
+        } finally {
+            pipeline.clean();
+            decoder.clean();
+        }
+        // the failed batch does not block the partition, the offsets after it are still committed
+        offsetManager.commitAsync(consumer);
+        Assert.assertEquals(30L, consumer.committed(Collections.singleton(partition)).get(partition).offset());
+        Assert.assertEquals(1, counter.getStatvalue()[17]);
+    }
+}
@@ -37,6 +37,7 @@ import java.util.concurrent.atomic.AtomicLong;
 @MetricDomain(name = "Sort")
 public class SortMetricItem extends MetricItem {
 
+    public static final String COMPONENT_NAME = "sort-standalone";
     public static final String KEY_CLUSTER_ID = "clusterId";// sortClusterId
     public static final String KEY_TASK_NAME = "taskName";// sortTaskId
     public static final String KEY_SOURCE_ID = "sourceId";// cacheClusterId
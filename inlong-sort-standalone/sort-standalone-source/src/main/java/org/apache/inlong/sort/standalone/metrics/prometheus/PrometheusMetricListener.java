@@ -48,6 +48,7 @@ import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.apache.inlong.common.metric.MetricValue;
+import org.apache.inlong.common.metric.prometheus.PrometheusExporter;
 import org.apache.inlong.sort.standalone.config.holder.CommonPropertiesHolder;
 import org.apache.inlong.sort.standalone.metrics.MetricItemValue;
 import org.apache.inlong.sort.standalone.metrics.MetricListener;
@@ -57,7 +58,6 @@ import org.slf4j.LoggerFactory;
 
 import io.prometheus.client.Collector;
 import io.prometheus.client.CounterMetricFamily;
-import io.prometheus.client.exporter.HTTPServer;
 
 /**
  * 
@@ -66,14 +66,13 @@ import io.prometheus.client.exporter.HTTPServer;
 public class PrometheusMetricListener extends Collector implements MetricListener {
 
     public static final Logger LOG = LoggerFactory.getLogger(PrometheusMetricListener.class);
-    public static final String KEY_PROMETHEUS_HTTP_PORT = "prometheusHttpPort";
-    public static final int DEFAULT_PROMETHEUS_HTTP_PORT = 8080;
+    public static final String KEY_PROMETHEUS_HTTP_PORT = PrometheusExporter.KEY_PROMETHEUS_HTTP_PORT;
+    public static final int DEFAULT_PROMETHEUS_HTTP_PORT = PrometheusExporter.DEFAULT_PROMETHEUS_HTTP_PORT;
     public static final String DEFAULT_DIMENSION_LABEL = "dimension";
 
     private String metricName;
     private SortMetricItem metricItem;
     private Map<String, AtomicLong> metricValueMap = new ConcurrentHashMap<>();
-    protected HTTPServer httpServer;
     private Map<String, MetricItemValue> dimensionMetricValueMap = new ConcurrentHashMap<>();
     private List<String> dimensionKeys = new ArrayList<>();
 
@@ -114,8 +113,8 @@ public class PrometheusMetricListener extends Collector implements MetricListene
 
         int httpPort = CommonPropertiesHolder.getInteger(KEY_PROMETHEUS_HTTP_PORT, DEFAULT_PROMETHEUS_HTTP_PORT);
         try {
-            this.httpServer = new HTTPServer(httpPort);
-            this.register();
+            PrometheusExporter.start(httpPort);
+            PrometheusExporter.register("SortStandalone." + metricName, this);
         } catch (IOException e) {
             LOG.error("exception while register prometheus http server:{},error:{}", metricName, e.getMessage());
         }
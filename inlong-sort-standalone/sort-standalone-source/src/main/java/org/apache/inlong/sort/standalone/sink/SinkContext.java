@@ -26,6 +26,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.flume.Channel;
 import org.apache.flume.Context;
 import org.apache.inlong.common.metric.MetricRegister;
+import org.apache.inlong.common.metric.prometheus.DurationHistogram;
 import org.apache.inlong.common.pojo.sortstandalone.SortTaskConfig;
 import org.apache.inlong.sort.standalone.channel.ProfileEvent;
 import org.apache.inlong.sort.standalone.config.holder.CommonPropertiesHolder;
@@ -62,6 +63,7 @@ public class SinkContext {
     protected final long reloadInterval;
     //
     protected final SortMetricItemSet metricItemSet;
+    protected final DurationHistogram durationHistogram;
     protected Timer reloadTimer;
 
     /**
@@ -83,6 +85,7 @@ public class SinkContext {
         //
         this.metricItemSet = new SortMetricItemSet(sinkName);
         MetricRegister.register(this.metricItemSet);
+        this.durationHistogram = DurationHistogram.of(SortMetricItem.COMPONENT_NAME, clusterId);
     }
 
     /**
@@ -223,6 +226,15 @@ public class SinkContext {
         return metricItemSet;
     }
 
+    /**
+     * get durationHistogram
+     * 
+     * @return the durationHistogram
+     */
+    public DurationHistogram getDurationHistogram() {
+        return durationHistogram;
+    }
+
     /**
      * fillInlongId
      *
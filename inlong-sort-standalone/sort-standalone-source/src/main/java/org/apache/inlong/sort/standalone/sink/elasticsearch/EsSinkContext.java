@@ -246,6 +246,9 @@ public class EsSinkContext extends SinkContext {
                 metricItem.sinkDuration.addAndGet(sinkDuration * count);
                 metricItem.nodeDuration.addAndGet(nodeDuration * count);
                 metricItem.wholeDuration.addAndGet(wholeDuration * count);
+                durationHistogram.observe(sinkDuration, nodeDuration, wholeDuration,
+                        dimensions.get(SortMetricItem.KEY_INLONG_GROUP_ID),
+                        dimensions.get(SortMetricItem.KEY_INLONG_STREAM_ID));
             }
         } else {
             metricItem.sendFailCount.addAndGet(count);
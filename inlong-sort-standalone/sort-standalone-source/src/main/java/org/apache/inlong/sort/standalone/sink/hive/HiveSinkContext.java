@@ -264,6 +264,9 @@ public class HiveSinkContext extends SinkContext {
                 metricItem.sinkDuration.addAndGet(sinkDuration * count);
                 metricItem.nodeDuration.addAndGet(nodeDuration * count);
                 metricItem.wholeDuration.addAndGet(wholeDuration * count);
+                durationHistogram.observe(sinkDuration, nodeDuration, wholeDuration,
+                        dimensions.get(SortMetricItem.KEY_INLONG_GROUP_ID),
+                        dimensions.get(SortMetricItem.KEY_INLONG_STREAM_ID));
             }
 //            LOG.info("addSendTrueMetric,bid:{},result:{},sendTime:{},count:{},metric:{}",
 //                    bid, result, sendTime, currentRecord.getCount(), JSON.toJSONString(metricItemSet.getItemMap()));
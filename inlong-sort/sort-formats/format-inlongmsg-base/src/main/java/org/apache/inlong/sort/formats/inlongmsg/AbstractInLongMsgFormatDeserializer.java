@@ -18,13 +18,15 @@
 
 package org.apache.inlong.sort.formats.inlongmsg;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 import org.apache.flink.types.Row;
 import org.apache.flink.util.Collector;
-import org.apache.inlong.common.msg.InLongMsg;
+import org.apache.inlong.common.msg.InLongMsgView;
+import org.apache.inlong.common.msg.InLongMsgView.AttrBlock;
 import org.apache.inlong.sort.formats.base.TableFormatDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,12 +70,27 @@ public abstract class AbstractInLongMsgFormatDeserializer implements TableFormat
             byte[] bytes,
             Collector<Row> collector
     ) throws Exception {
-        InLongMsg inLongMsg = InLongMsg.parseFrom(bytes);
+        InLongMsgView inLongMsg = InLongMsgView.parseFrom(bytes);
+        if (inLongMsg == null) {
+            if (ignoreErrors) {
+                LOG.warn("Cannot properly parse the inlongmsg of {} bytes.", bytes.length);
+                return;
+            }
+            throw new IllegalArgumentException("Cannot parse the inlongmsg of " + bytes.length + " bytes.");
+        }
 
-        for (String attr : inLongMsg.getAttrs()) {
-            Iterator<byte[]> iterator = inLongMsg.getIterator(attr);
-            if (iterator == null) {
-                continue;
+        for (AttrBlock block : inLongMsg.getBlocks()) {
+            String attr = block.getAttr();
+            Iterator<ByteBuffer> iterator;
+            try {
+                iterator = block.iterator();
+            } catch (Exception e) {
+                if (ignoreErrors) {
+                    LOG.warn("Cannot properly uncompress the bodies of {}.", attr, e);
+                    continue;
+                } else {
+                    throw e;
+                }
             }
 
             InLongMsgHead head;
@@ -89,11 +106,13 @@ public abstract class AbstractInLongMsgFormatDeserializer implements TableFormat
             }
 
             while (iterator.hasNext()) {
-
-                byte[] bodyBytes = iterator.next();
-                if (bodyBytes == null || bodyBytes.length == 0) {
+                ByteBuffer bodyBuffer = iterator.next();
+                if (!bodyBuffer.hasRemaining()) {
                     continue;
                 }
+                // the body is a view of a reused buffer, parseBody gets its own copy
+                byte[] bodyBytes = new byte[bodyBuffer.remaining()];
+                bodyBuffer.get(bodyBytes);
 
                 InLongMsgBody body;
                 try {
@@ -26,9 +26,12 @@ import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.util.Collector;
 import org.apache.inlong.common.msg.InLongMsg;
+import org.apache.inlong.common.msg.InLongMsgView;
+import org.apache.inlong.common.msg.InLongMsgView.AttrBlock;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -69,9 +72,16 @@ public class InLongMsgDeserializationSchema implements DeserializationSchema<Row
 
     @Override
     public void deserialize(byte[] message, Collector<RowData> out) throws IOException {
-        InLongMsg inLongMsg = InLongMsg.parseFrom(message);
+        InLongMsgView inLongMsg = InLongMsgView.parseFrom(message);
+        if (inLongMsg == null) {
+            if (ignoreErrors) {
+                return;
+            }
+            throw new IOException("Failed to parse InLongMsg of " + message.length + " bytes.");
+        }
 
-        for (String attr : inLongMsg.getAttrs()) {
+        for (AttrBlock block : inLongMsg.getBlocks()) {
+            String attr = block.getAttr();
             InLongMsgHead head;
             try {
                 head = InLongMsgUtils.parseHead(attr);
@@ -83,19 +93,25 @@ public class InLongMsgDeserializationSchema implements DeserializationSchema<Row
                         "Failed to deserialize InLongMsg row '" + new String(message) + "'.", t);
             }
 
-            Iterator<byte[]> iterator = inLongMsg.getIterator(attr);
-            if (iterator == null) {
-                continue;
+            Iterator<ByteBuffer> iterator;
+            try {
+                iterator = block.iterator();
+            } catch (Throwable t) {
+                if (ignoreErrors) {
+                    continue;
+                }
+                throw new IOException("Failed to uncompress InLongMsg bodies of '" + attr + "'.", t);
             }
 
             while (iterator.hasNext()) {
 
-                byte[] bodyBytes = iterator.next();
-                long bodyLength = bodyBytes == null ? 0 : bodyBytes.length;
-
-                if (bodyLength == 0) {
+                ByteBuffer bodyBuffer = iterator.next();
+                if (!bodyBuffer.hasRemaining()) {
                     continue;
                 }
+                // the body is a view of a reused buffer, the inner schema gets its own copy
+                byte[] bodyBytes = new byte[bodyBuffer.remaining()];
+                bodyBuffer.get(bodyBytes);
 
                 List<RowData> list = new ArrayList<>();
                 ListCollector<RowData> collector = new ListCollector<>(list);